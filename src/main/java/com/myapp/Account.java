@@ -4,8 +4,11 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
 import org.json.JSONArray;
@@ -13,25 +16,52 @@ import org.json.JSONObject;
 
 /**
  * Represents a user's fiat account, tracking balance and transaction history.
+ *
+ * <p>Every account has its own lock, which its {@link Portfolio} shares, so all mutations of one
+ * user are serialized while different users never contend. Reads do not lock: the balance is
+ * volatile and the transaction history is an append-only {@link TransactionLog}, so readers such as
+ * the refresh timer never block a trade, and an append does not copy the history.</p>
+ *
+ * <p>The balance is kept in cents (see {@link Money}), so it never drifts.</p>
  */
 public class Account {
-    private double balance;
-    private final List<com.myapp.Transaction> transactions;
+    private volatile long balanceCents;
+    private final TransactionLog transactions;
+    // Guards balance, transactions and the linked portfolio's state
+    private final ReentrantLock lock = new ReentrantLock();
 
     /**
      * Creates a new empty account.
      */
     public Account() {
-        this.balance = 0.0;
-        this.transactions = new ArrayList<>();
+        this.balanceCents = 0L;
+        this.transactions = new TransactionLog();
+    }
+
+    /**
+     * Returns the lock guarding this account. The linked {@link Portfolio} holds it while it
+     * changes holdings and the balance together, so each trade is atomic.
+     *
+     * @return The per-user lock
+     */
+    ReentrantLock getLock() {
+        return lock;
     }
 
     public double getBalance() {
-        return balance;
+        return Money.fiat(balanceCents);
     }
 
+    public long getBalanceCents() {
+        return balanceCents;
+    }
+
+    /**
+     * Returns the transactions recorded so far, oldest first, without copying them.
+     * @return An unmodifiable list that does not change with later transactions
+     */
     public List<com.myapp.Transaction> getTransactions() {
-        return new ArrayList<>(transactions);
+        return transactions.snapshot();
     }
 
     /**
@@ -40,9 +70,7 @@ public class Account {
      * @param description Description of the transaction
      */
     public void deposit(double amount, String description) {
-        if (amount <= 0) throw new IllegalArgumentException("Deposit amount must be positive.");
-        balance += amount;
-        transactions.add(new com.myapp.Transaction(com.myapp.TransactionType.DEPOSIT, amount, description));
+        deposit(amount, description, TransactionType.DEPOSIT);
     }
 
     /**
@@ -51,23 +79,106 @@ public class Account {
      * @param description Description of the transaction
      */
     public void withdraw(double amount, String description) {
-        if (amount <= 0) throw new IllegalArgumentException("Withdrawal amount must be positive.");
-        if (amount > balance) throw new IllegalStateException("Insufficient balance.");
-        balance -= amount;
-        transactions.add(new Transaction(TransactionType.WITHDRAWAL, amount, description));
+        withdraw(amount, description, TransactionType.WITHDRAWAL);
     }
 
     public void deposit(double amount, String description, TransactionType type) {
         if (amount <= 0) throw new IllegalArgumentException("Deposit amount must be positive.");
-        balance += amount;
-        transactions.add(new Transaction(type, amount, description));
+        depositCents(Money.fiatUnits(amount), description, type);
     }
 
     public void withdraw(double amount, String description, TransactionType type) {
         if (amount <= 0) throw new IllegalArgumentException("Withdrawal amount must be positive.");
-        if (amount > balance) throw new IllegalStateException("Insufficient balance.");
-        balance -= amount;
-        transactions.add(new Transaction(type, amount, description));
+        withdrawCents(Money.fiatUnits(amount), description, type);
+    }
+
+    /**
+     * Deposits an amount in cents.
+     * @param cents Amount to deposit, in cents
+     * @param description Description of the transaction
+     * @param type Type of the transaction
+     */
+    void depositCents(long cents, String description, TransactionType type) {
+        depositCents(Transaction.ofCents(type, cents, description));
+    }
+
+    /**
+     * Deposits the amount of a transaction, e.g. a trade, and journals it.
+     * @param entry Transaction whose amount in cents is deposited
+     */
+    void depositCents(Transaction entry) {
+        long cents = entry.getAmountCents();
+        if (cents <= 0) throw new IllegalArgumentException("Deposit amount must be positive.");
+        lock.lock();
+        try {
+            balanceCents = Math.addExact(balanceCents, cents);
+            transactions.append(entry);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Withdraws an amount in cents.
+     * @param cents Amount to withdraw, in cents
+     * @param description Description of the transaction
+     * @param type Type of the transaction
+     */
+    void withdrawCents(long cents, String description, TransactionType type) {
+        withdrawCents(Transaction.ofCents(type, cents, description));
+    }
+
+    /**
+     * Withdraws the amount of a transaction, e.g. a trade, and journals it.
+     * @param entry Transaction whose amount in cents is withdrawn
+     */
+    void withdrawCents(Transaction entry) {
+        long cents = entry.getAmountCents();
+        if (cents <= 0) throw new IllegalArgumentException("Withdrawal amount must be positive.");
+        lock.lock();
+        try {
+            // Check and update under the lock, so two withdrawals cannot both pass the check
+            if (cents > balanceCents) throw new IllegalStateException("Insufficient balance.");
+            balanceCents -= cents;
+            transactions.append(entry);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records a transaction that moves no cash, e.g. a short position closed after its
+     * collateral was used up or a sale of dust worth less than a cent, so the history still
+     * shows the trade.
+     * @param entry Transaction with an amount of 0 cents
+     */
+    void recordWithoutCash(Transaction entry) {
+        if (entry.getAmountCents() != 0) throw new IllegalArgumentException("Transaction moves cash.");
+        lock.lock();
+        try {
+            transactions.append(entry);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Applies the net cash effect of a batch of trades and appends their transactions in one write.
+     *
+     * @param cashDeltaCents Net change of the balance in cents; negative when the batch costs money
+     * @param entries        The batch's transactions, in execution order
+     * @throws IllegalStateException If the balance cannot cover the batch
+     */
+    void applyBatch(long cashDeltaCents, List<Transaction> entries) {
+        lock.lock();
+        try {
+            long newBalance = Math.addExact(balanceCents, cashDeltaCents);
+            if (newBalance < 0) throw new IllegalStateException("Insufficient balance.");
+            balanceCents = newBalance;
+            transactions.appendAll(entries);
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -76,9 +187,9 @@ public class Account {
      * @return List of recent transactions
      */
     public List<Transaction> getRecentTransactions(int count) {
-        return transactions.stream()
-                .skip(Math.max(0, transactions.size() - count))
-                .collect(Collectors.toList());
+        // One snapshot, so the size and the elements agree while trades append
+        List<Transaction> snapshot = getTransactions();
+        return new ArrayList<>(snapshot.subList(Math.max(0, snapshot.size() - count), snapshot.size()));
     }
 
     /**
@@ -87,7 +198,7 @@ public class Account {
      * @return List of matching transactions
      */
     public List<Transaction> searchTransactions(TransactionFilter filter) {
-        return transactions.stream()
+        return getTransactions().stream()
                 .filter(filter::matches)
                 .collect(Collectors.toList());
     }
@@ -98,8 +209,15 @@ public class Account {
      * {
      *   "type": "DEPOSIT" | "WITHDRAWAL" | "TRANSFER" | "CRYPTO_PURCHASE" | "CRYPTO_SALE",
      *   "amount": 100.0,
-     *   "description": "Transaction description"
+     *   "amountCents": 10000,
+     *   "description": "Transaction description",
+     *   "transactionId": "...", "timestamp": "2024-01-31T12:00:00",
+     *   "symbol": "BTC", "coinUnits": 50000000
      * }
+     * {@code amountCents} is preferred when present; files written before it existed only have
+     * {@code amount}, which is rounded to cents. Exported transactions keep their identifier and
+     * timestamp; entries without a timestamp are stamped with the import time. Trades carry the
+     * coin and its amount in 1e-8 units; cash-only entries and older files omit them.
      * 
      * @param filePath Path to the JSON file
      * @throws IOException If the file cannot be read or parsed
@@ -116,23 +234,30 @@ public class Account {
         
         JSONArray jsonArray = new JSONArray(jsonContent);
         
-        // Store the original balance and transactions for rollback in case of error
-        double originalBalance = this.balance;
-        List<Transaction> originalTransactions = new ArrayList<>(this.transactions);
-        
+        lock.lock();
         try {
+            // Replay into local state and publish it only if every transaction is valid
+            long balance = this.balanceCents;
+            List<Transaction> imported = new ArrayList<>(jsonArray.length());
             for (int i = 0; i < jsonArray.length(); i++) {
                 JSONObject txJson = jsonArray.getJSONObject(i);
                 String typeStr = txJson.getString("type");
-                double amount = txJson.getDouble("amount");
+                long amount = txJson.has("amountCents")
+                        ? txJson.getLong("amountCents")
+                        : Money.fiatUnits(txJson.getDouble("amount"));
                 String description = txJson.getString("description");
+                String symbol = txJson.optString("symbol", null);
+                long coinUnits = txJson.optLong("coinUnits", 0L);
+                if (coinUnits < 0) {
+                    throw new IllegalArgumentException("Negative coin amount for transaction: " + description);
+                }
                 
                 TransactionType type = TransactionType.valueOf(typeStr);
                 
                 // Update balance based on transaction type
                 switch (type) {
-                    case DEPOSIT, CRYPTO_SALE -> balance += amount;
-                    case WITHDRAWAL, CRYPTO_PURCHASE -> {
+                    case DEPOSIT, CRYPTO_SALE, CRYPTO_SHORT_CLOSE -> balance += amount;
+                    case WITHDRAWAL, CRYPTO_PURCHASE, CRYPTO_SHORT_OPEN -> {
                         if (amount > balance) {
                             throw new IllegalStateException("Insufficient balance for transaction: " + description);
                         }
@@ -153,15 +278,20 @@ public class Account {
                     }
                 }
                 
-                // Add the transaction to the history
-                transactions.add(new Transaction(type, amount, description));
+                // Add the transaction to the history, keeping its original time when recorded
+                imported.add(txJson.has("timestamp")
+                        ? Transaction.restore(txJson.optString("transactionId", UUID.randomUUID().toString()),
+                                LocalDateTime.parse(txJson.getString("timestamp")), type, amount, description,
+                                symbol, coinUnits)
+                        : symbol == null ? Transaction.ofCents(type, amount, description)
+                        : Transaction.ofTrade(type, amount, description, symbol, coinUnits));
             }
-        } catch (Exception e) {
-            // Rollback to original state if any transaction fails
-            this.balance = originalBalance;
-            this.transactions.clear();
-            this.transactions.addAll(originalTransactions);
-            throw e; // Re-throw the exception
+
+            // One batch append to the history
+            transactions.appendAll(imported);
+            this.balanceCents = balance;
+        } finally {
+            lock.unlock();
         }
     }
     
@@ -174,13 +304,18 @@ public class Account {
     public void exportTransactionsToJson(String filePath) throws IOException {
         JSONArray jsonArray = new JSONArray();
         
-        for (Transaction tx : transactions) {
+        for (Transaction tx : getTransactions()) {
             JSONObject txJson = new JSONObject();
             txJson.put("transactionId", tx.getTransactionId());
             txJson.put("timestamp", tx.getTimestamp().toString());
             txJson.put("type", tx.getType().toString());
             txJson.put("amount", tx.getAmount());
+            txJson.put("amountCents", tx.getAmountCents());
             txJson.put("description", tx.getDescription());
+            if (tx.getSymbol() != null) {
+                txJson.put("symbol", tx.getSymbol());
+                txJson.put("coinUnits", tx.getCoinUnits());
+            }
             
             jsonArray.put(txJson);
         }
@@ -0,0 +1,222 @@
+package com.myapp;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * {@code AdvisorScheduler} is the scope of one {@link CryptoAdvisor} run. It separates I/O
+ * concurrency from compute concurrency and owns every thread the run starts, so that
+ * cancelling the run stops all of them.
+ *
+ * <ul>
+ *   <li><b>Subtasks</b> (one per coin) are forked on virtual threads. A subtask fetches its
+ *       coin's data through {@link #fetch(Callable)}, where a semaphore caps how many API calls
+ *       are in flight at once, and then hands training to {@link #train(Callable)}.</li>
+ *   <li><b>Training</b> runs on a fixed pool of platform threads. The available cores are split
+ *       between coins trained side by side and execution slots inside each forest, so
+ *       {@code coinParallelism * slotsPerForest} never exceeds the core count.</li>
+ * </ul>
+ *
+ * <p>Cancellation is structured: {@link #join(List, AtomicBoolean)} waits for all subtasks, and as
+ * soon as the cancel flag is set or the waiting thread is interrupted, {@link #cancel()} interrupts
+ * every subtask and training thread. Interrupts reach blocking HTTP reads on virtual threads, rate
+ * limiting sleeps, and {@link SpreadRandomForest} training, which stops between trees.</p>
+ *
+ * <p>On a 32-core machine with ten coins, for example, ten forests train at once with three
+ * slots each, keeping 30 cores busy.</p>
+ *
+ * <p>Java 21's {@code StructuredTaskScope} is still a preview API, so the scope is implemented with
+ * plain executors and the same fork / join / cancel-on-close discipline.</p>
+ */
+public class AdvisorScheduler implements AutoCloseable {
+    // How often join() checks the caller's cancel flag
+    private static final long CANCEL_POLL_MS = 10;
+
+    private final ExecutorService subtaskExecutor;
+    private final Semaphore fetchPermits;
+    private final ExecutorService trainingPool;
+    private final int coinParallelism;
+    private final int slotsPerForest;
+    private final AtomicBoolean cancelled = new AtomicBoolean(false);
+
+    /**
+     * Creates a scheduler sized for the current machine.
+     *
+     * @param numCoins             Number of coins trained in this run.
+     * @param maxConcurrentFetches Maximum number of API fetches in flight at once.
+     */
+    public AdvisorScheduler(int numCoins, int maxConcurrentFetches) {
+        this(Runtime.getRuntime().availableProcessors(), numCoins, maxConcurrentFetches);
+    }
+
+    /**
+     * Creates a scheduler for an explicit number of cores.
+     *
+     * @param cores                Number of cores available for training.
+     * @param numCoins             Number of coins trained in this run.
+     * @param maxConcurrentFetches Maximum number of API fetches in flight at once.
+     */
+    AdvisorScheduler(int cores, int numCoins, int maxConcurrentFetches) {
+        if (cores < 1 || maxConcurrentFetches < 1) {
+            throw new IllegalArgumentException("Cores and fetch concurrency must be positive");
+        }
+        this.coinParallelism = Math.max(1, Math.min(cores, numCoins));
+        this.slotsPerForest = Math.max(1, cores / coinParallelism);
+        this.fetchPermits = new Semaphore(maxConcurrentFetches);
+        this.subtaskExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        this.trainingPool = Executors.newFixedThreadPool(coinParallelism);
+    }
+
+    /**
+     * Starts a subtask of the run on its own virtual thread.
+     *
+     * @param task The subtask.
+     * @param <T>  The result type.
+     * @return The subtask's future.
+     * @throws CancellationException if the run has already been cancelled.
+     */
+    public <T> Future<T> fork(Callable<T> task) {
+        if (cancelled.get()) throw new CancellationException("Advisor run was cancelled");
+        return subtaskExecutor.submit(task);
+    }
+
+    /**
+     * Runs an I/O-bound call in the current thread once a fetch permit is available.
+     *
+     * @param call The fetch to run.
+     * @param <T>  The result type.
+     * @return The fetch result.
+     * @throws InterruptedException if the run is cancelled while waiting for a permit.
+     * @throws Exception            if the fetch fails.
+     */
+    public <T> T fetch(Callable<T> call) throws Exception {
+        fetchPermits.acquire();
+        try {
+            return call.call();
+        } finally {
+            fetchPermits.release();
+        }
+    }
+
+    /**
+     * Runs a CPU-bound call on the training pool and waits for it. If the waiting thread is
+     * interrupted, the training thread is interrupted too.
+     *
+     * @param call The training work.
+     * @param <T>  The result type.
+     * @return The training result.
+     * @throws InterruptedException if the run is cancelled while training.
+     * @throws Exception            if training fails.
+     */
+    public <T> T train(Callable<T> call) throws Exception {
+        Future<T> future = trainingPool.submit(call);
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) throw (Exception) cause;
+            throw e;
+        }
+    }
+
+    /**
+     * Waits until every subtask has finished. If {@code cancelRequested} becomes true or the
+     * waiting thread is interrupted first, the whole run is cancelled. A slow subtask never ends
+     * the wait early: the poll only re-checks the cancel flag, and the scope shuts its threads
+     * down only after this returns.
+     *
+     * @param subtasks        Futures returned by {@link #fork(Callable)}.
+     * @param cancelRequested Flag polled every few milliseconds while waiting.
+     * @return True if all subtasks finished, false if the run was cancelled.
+     * @throws InterruptedException if the waiting thread was interrupted; the run is cancelled first.
+     */
+    public boolean join(List<? extends Future<?>> subtasks, AtomicBoolean cancelRequested) throws InterruptedException {
+        for (Future<?> subtask : subtasks) {
+            while (true) {
+                if (cancelRequested.get()) {
+                    cancel();
+                    return false;
+                }
+                try {
+                    subtask.get(CANCEL_POLL_MS, TimeUnit.MILLISECONDS);
+                    break;
+                } catch (TimeoutException e) {
+                    // Still running: check the cancel flag again
+                } catch (ExecutionException | CancellationException e) {
+                    // Subtasks report their own failures; a failed subtask is finished
+                    break;
+                } catch (InterruptedException e) {
+                    cancel();
+                    throw e;
+                }
+            }
+        }
+        return !cancelled.get();
+    }
+
+    /**
+     * Cancels the run: interrupts every subtask and training thread and rejects new subtasks.
+     */
+    public void cancel() {
+        cancelled.set(true);
+        subtaskExecutor.shutdownNow();
+        trainingPool.shutdownNow();
+    }
+
+    /**
+     * Returns whether the run has been cancelled.
+     *
+     * @return True once {@link #cancel()} has been called.
+     */
+    public boolean isCancelled() {
+        return cancelled.get();
+    }
+
+    /**
+     * Returns how many coins are trained side by side.
+     *
+     * @return The coin-level parallelism.
+     */
+    public int getCoinParallelism() {
+        return coinParallelism;
+    }
+
+    /**
+     * Returns how many execution slots each forest should use, so that coin-level and
+     * tree-level parallelism together fill but do not oversubscribe the cores.
+     *
+     * @return The number of slots per forest (at least 1).
+     */
+    public int getSlotsPerForest() {
+        return slotsPerForest;
+    }
+
+    /**
+     * Closes the scope. Unfinished subtasks are interrupted, and the method waits briefly so
+     * that no thread of the run outlives it; interrupted training stops between trees, so this
+     * normally returns within milliseconds.
+     */
+    @Override
+    public void close() {
+        subtaskExecutor.shutdownNow();
+        trainingPool.shutdownNow();
+        try {
+            subtaskExecutor.awaitTermination(1, TimeUnit.SECONDS);
+            trainingPool.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.myapp;
+
+/**
+ * Parameter set for one {@link WalkForwardBacktester} run.
+ */
+public class BacktestConfig {
+    // Minimum price window that still yields 5 training rows after the 7-day warm-up
+    public static final int MIN_TRAINING_DAYS = 12;
+
+    private final String name;
+    private final ModelType modelType;
+    private final int trainingDays;
+    private final double minGrowth;
+    private final double initialCapital;
+
+    /**
+     * Creates a backtest configuration.
+     *
+     * @param name           Label used in reports.
+     * @param modelType      Model the advisor trains (or updates) at every step.
+     * @param trainingDays   Number of daily prices up to the decision day used to build each training set.
+     * @param minGrowth      Minimum predicted growth required to invest; below it the strategy stays in cash.
+     * @param initialCapital Starting fiat balance.
+     * @throws IllegalArgumentException if the window is too short or the capital is not positive.
+     */
+    public BacktestConfig(String name, ModelType modelType, int trainingDays, double minGrowth, double initialCapital) {
+        if (trainingDays < MIN_TRAINING_DAYS) {
+            throw new IllegalArgumentException("Training window must be at least " + MIN_TRAINING_DAYS + " days");
+        }
+        if (initialCapital <= 0) throw new IllegalArgumentException("Initial capital must be positive");
+        this.name = name;
+        this.modelType = modelType;
+        this.trainingDays = trainingDays;
+        this.minGrowth = minGrowth;
+        this.initialCapital = initialCapital;
+    }
+
+    public String getName() { return name; }
+    public ModelType getModelType() { return modelType; }
+    public int getTrainingDays() { return trainingDays; }
+    public double getMinGrowth() { return minGrowth; }
+    public double getInitialCapital() { return initialCapital; }
+
+    @Override
+    public String toString() {
+        return name + " (" + modelType + ", " + trainingDays + "d, minGrowth=" + minGrowth + ")";
+    }
+}
@@ -0,0 +1,64 @@
+package com.myapp;
+
+/**
+ * Outcome of one {@link WalkForwardBacktester} run over one window of history.
+ */
+public class BacktestResult {
+    private final BacktestConfig config;
+    private final int startDay;
+    private final int endDay;
+    private final double[] equityCurve;
+    private final double totalReturn;
+    private final double hitRate;
+    private final double maxDrawdown;
+    private final int daysInvested;
+    private final int trades;
+
+    /**
+     * Creates a result from a simulated equity curve.
+     *
+     * @param config       The configuration that was run.
+     * @param startDay     Index of the first decision day (inclusive).
+     * @param endDay       Index of the last valuation day (inclusive).
+     * @param equityCurve  Portfolio value at every day from {@code startDay} to {@code endDay}.
+     * @param hits         Number of invested days on which the held coin went up.
+     * @param daysInvested Number of days a coin was held.
+     * @param trades       Number of buy and sell executions.
+     */
+    public BacktestResult(BacktestConfig config, int startDay, int endDay, double[] equityCurve,
+                          int hits, int daysInvested, int trades) {
+        this.config = config;
+        this.startDay = startDay;
+        this.endDay = endDay;
+        this.equityCurve = equityCurve;
+        this.daysInvested = daysInvested;
+        this.trades = trades;
+        this.hitRate = daysInvested > 0 ? (double) hits / daysInvested : 0.0;
+        this.totalReturn = equityCurve[equityCurve.length - 1] / equityCurve[0] - 1.0;
+
+        // Largest peak-to-trough decline of the equity curve
+        double peak = equityCurve[0];
+        double drawdown = 0.0;
+        for (double value : equityCurve) {
+            peak = Math.max(peak, value);
+            drawdown = Math.max(drawdown, (peak - value) / peak);
+        }
+        this.maxDrawdown = drawdown;
+    }
+
+    public BacktestConfig getConfig() { return config; }
+    public int getStartDay() { return startDay; }
+    public int getEndDay() { return endDay; }
+    public double[] getEquityCurve() { return equityCurve.clone(); }
+    public double getTotalReturn() { return totalReturn; }
+    public double getHitRate() { return hitRate; }
+    public double getMaxDrawdown() { return maxDrawdown; }
+    public int getDaysInvested() { return daysInvested; }
+    public int getTrades() { return trades; }
+
+    @Override
+    public String toString() {
+        return String.format("%s days %d-%d: return=%.2f%% hitRate=%.1f%% maxDrawdown=%.2f%% trades=%d",
+                config.getName(), startDay, endDay, totalReturn * 100, hitRate * 100, maxDrawdown * 100, trades);
+    }
+}
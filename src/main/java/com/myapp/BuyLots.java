@@ -0,0 +1,176 @@
+package com.myapp;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+/**
+ * The buy lots of one coin in a {@link Portfolio}, with running totals.
+ *
+ * <p>Lots sit in a deque in purchase order, which serves FIFO from the head and LIFO from the tail,
+ * and in a heap by entry price, which serves HIFO. A sale relieves lots from one structure and leaves
+ * the emptied lots in the other, where they are skipped when reached and swept out once they
+ * outnumber the open lots. Relieving a lot is therefore O(1) or O(log n), and the amount and cost of
+ * the whole holding are read from {@link Totals} in O(1).</p>
+ *
+ * <p>The portfolio changes the lots under the user's lock. Readers need no lock: the totals are
+ * published as one immutable {@link Totals}, and {@link #toList()} reads the concurrent deque.</p>
+ */
+class BuyLots {
+    // Stale lots tolerated before a sweep, so that small holdings are not swept on every sale
+    private static final int MIN_SWEEP = 16;
+
+    private final Deque<Position> lots = new ConcurrentLinkedDeque<>();
+    // Most expensive first; among equal prices the oldest first
+    private final PriorityQueue<Position> byPrice = new PriorityQueue<>(
+            Comparator.comparingLong(Position::getEntryPriceUnits).reversed()
+                    .thenComparingLong(Position::getTimestamp));
+    private int staleInDeque;
+    private int staleInHeap;
+    private volatile Totals totals = Totals.EMPTY;
+
+    /**
+     * Amount and cost of all open lots, replaced as a whole so readers see a consistent view.
+     * The cost is kept in cents, as booked, and in price units, from which the average price is
+     * derived without the rounding of the cents.
+     */
+    static final class Totals {
+        static final Totals EMPTY = new Totals(0L, 0L, 0L, 0);
+
+        final long units;
+        final long costCents;
+        final long preciseCost;
+        final int lotCount;
+
+        Totals(long units, long costCents, long preciseCost, int lotCount) {
+            this.units = units;
+            this.costCents = costCents;
+            this.preciseCost = preciseCost;
+            this.lotCount = lotCount;
+        }
+
+        /**
+         * Returns the average purchase price of the open lots in price units, or 0 if none is open.
+         */
+        long averagePriceUnits() {
+            return units == 0 ? 0L : Money.preciseUnitPrice(preciseCost, units);
+        }
+    }
+
+    /**
+     * Appends a newly bought lot.
+     */
+    void add(Position lot) {
+        lots.addLast(lot);
+        byPrice.add(lot);
+        Totals current = totals;
+        totals = new Totals(Math.addExact(current.units, lot.getUnits()),
+                current.costCents + cost(lot.getUnits(), lot),
+                Math.addExact(current.preciseCost, preciseCost(lot.getUnits(), lot)), current.lotCount + 1);
+    }
+
+    /**
+     * Returns the lot that a sale relieves next, without removing it.
+     *
+     * @param method The relief order.
+     * @return The next lot, or null if none is open.
+     */
+    Position next(CostBasisMethod method) {
+        Position lot;
+        switch (method) {
+            case LIFO:
+                while ((lot = lots.peekLast()) != null && lot.getUnits() == 0) {
+                    lots.pollLast();
+                    staleInDeque--;
+                }
+                return lot;
+            case HIFO:
+                while ((lot = byPrice.peek()) != null && lot.getUnits() == 0) {
+                    byPrice.poll();
+                    staleInHeap--;
+                }
+                return lot;
+            default:
+                while ((lot = lots.peekFirst()) != null && lot.getUnits() == 0) {
+                    lots.pollFirst();
+                    staleInDeque--;
+                }
+                return lot;
+        }
+    }
+
+    /**
+     * Relieves part or all of the lot last returned by {@link #next(CostBasisMethod)}.
+     *
+     * @param method The relief order passed to {@code next}.
+     * @param units  Units to relieve, at most the lot's amount.
+     * @return The cost of the relieved units in cents; the costs of all slices of a lot add up to its cost.
+     */
+    long relieve(CostBasisMethod method, long units) {
+        Position lot = next(method);
+        long remaining = lot.getUnits() - units;
+        long relievedCost = cost(lot.getUnits(), lot) - cost(remaining, lot);
+        Totals current = totals;
+        long preciseCost = current.preciseCost - (preciseCost(lot.getUnits(), lot) - preciseCost(remaining, lot));
+        lot.setUnits(remaining);
+        if (remaining == 0) {
+            switch (method) {
+                case LIFO:
+                    lots.pollLast();
+                    staleInHeap++;
+                    break;
+                case HIFO:
+                    byPrice.poll();
+                    staleInDeque++;
+                    break;
+                default:
+                    lots.pollFirst();
+                    staleInHeap++;
+                    break;
+            }
+            totals = new Totals(current.units - units, current.costCents - relievedCost, preciseCost,
+                    current.lotCount - 1);
+            sweepIfStale();
+        } else {
+            totals = new Totals(current.units - units, current.costCents - relievedCost, preciseCost,
+                    current.lotCount);
+        }
+        return relievedCost;
+    }
+
+    Totals totals() {
+        return totals;
+    }
+
+    /**
+     * Returns a copy of the open lots in purchase order. This visits every lot; prefer {@link #totals()}.
+     *
+     * @return A new list of lots.
+     */
+    List<Position> toList() {
+        List<Position> open = new ArrayList<>();
+        for (Position lot : lots) {
+            if (lot.getUnits() > 0) open.add(lot);
+        }
+        return open;
+    }
+
+    private void sweepIfStale() {
+        if (staleInDeque + staleInHeap <= Math.max(MIN_SWEEP, totals.lotCount)) return;
+        lots.removeIf(lot -> lot.getUnits() == 0);
+        byPrice.removeIf(lot -> lot.getUnits() == 0);
+        staleInDeque = 0;
+        staleInHeap = 0;
+    }
+
+    private static long cost(long units, Position lot) {
+        return Money.value(units, lot.getEntryPriceUnits());
+    }
+
+    private static long preciseCost(long units, Position lot) {
+        return Money.preciseValue(units, lot.getEntryPriceUnits());
+    }
+}
@@ -0,0 +1,109 @@
+package com.myapp;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Predicted growth of one coin together with a confidence band.
+ *
+ * <p>A forecast is either <em>preliminary</em>, produced instantly by the advisor's fast tier
+ * ({@link RidgeForecaster}), or final, produced by the configured model. Preliminary forecasts
+ * are published first and later replaced by the final forecast of the same coin.</p>
+ *
+ * <p>For RandomForest models the band spans the 10th to 90th percentile of the growth predicted
+ * by the individual trees, and the spread is their standard deviation. Models without an
+ * ensemble (e.g. {@link ModelType#ONLINE_LINEAR}) report a zero-width band.</p>
+ */
+public class CoinForecast {
+    /** Orders forecasts from the highest to the lowest predicted growth. */
+    public static final Comparator<CoinForecast> BY_GROWTH_DESCENDING =
+            Comparator.comparingDouble(CoinForecast::getGrowth).reversed();
+
+    private final String symbol;
+    private final double currentPrice;
+    private final double predictedPrice;
+    private final double growth;
+    private final double growthLow;
+    private final double growthHigh;
+    private final double spread;
+    private final boolean preliminary;
+
+    /**
+     * Creates a forecast.
+     *
+     * @param symbol         The coin symbol (e.g., "BTC").
+     * @param currentPrice   The latest known price.
+     * @param predictedPrice The model's predicted price.
+     * @param growthLow      Lower end of the growth band.
+     * @param growthHigh     Upper end of the growth band.
+     * @param spread         Standard deviation of the growth across ensemble members.
+     */
+    public CoinForecast(String symbol, double currentPrice, double predictedPrice,
+                        double growthLow, double growthHigh, double spread) {
+        this(symbol, currentPrice, predictedPrice, growthLow, growthHigh, spread, false);
+    }
+
+    /**
+     * Creates a forecast that may be a preliminary fast-tier estimate.
+     *
+     * @param symbol         The coin symbol (e.g., "BTC").
+     * @param currentPrice   The latest known price.
+     * @param predictedPrice The model's predicted price.
+     * @param growthLow      Lower end of the growth band.
+     * @param growthHigh     Upper end of the growth band.
+     * @param spread         Standard deviation of the growth estimate.
+     * @param preliminary    Whether this estimate will be refined by a slower model.
+     */
+    public CoinForecast(String symbol, double currentPrice, double predictedPrice,
+                        double growthLow, double growthHigh, double spread, boolean preliminary) {
+        this.symbol = symbol;
+        this.currentPrice = currentPrice;
+        this.predictedPrice = predictedPrice;
+        this.growth = (predictedPrice - currentPrice) / currentPrice;
+        this.growthLow = growthLow;
+        this.growthHigh = growthHigh;
+        this.spread = spread;
+        this.preliminary = preliminary;
+    }
+
+    /**
+     * Sorts forecasts from the highest to the lowest predicted growth.
+     *
+     * @param forecasts The forecasts to rank.
+     * @return A new list, best coin first.
+     */
+    public static List<CoinForecast> rank(Collection<CoinForecast> forecasts) {
+        List<CoinForecast> ranking = new ArrayList<>(forecasts);
+        ranking.sort(BY_GROWTH_DESCENDING);
+        return ranking;
+    }
+
+    public String getSymbol() { return symbol; }
+    public double getCurrentPrice() { return currentPrice; }
+    public double getPredictedPrice() { return predictedPrice; }
+
+    /**
+     * Returns the predicted growth ratio (predictedPrice - currentPrice) / currentPrice.
+     *
+     * @return The predicted growth.
+     */
+    public double getGrowth() { return growth; }
+    public double getGrowthLow() { return growthLow; }
+    public double getGrowthHigh() { return growthHigh; }
+    public double getSpread() { return spread; }
+
+    /**
+     * Returns whether this is a fast-tier estimate that a slower model will refine.
+     *
+     * @return True for preliminary forecasts.
+     */
+    public boolean isPreliminary() { return preliminary; }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %+.2f%% [%+.2f%%, %+.2f%%]%s", symbol, growth * 100, growthLow * 100, growthHigh * 100,
+                preliminary ? " (fast estimate)" : "");
+    }
+}
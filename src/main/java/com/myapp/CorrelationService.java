@@ -0,0 +1,380 @@
+package com.myapp;
+
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.RealMatrix;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * {@code CorrelationService} computes rolling covariance and correlation matrices across
+ * all tracked coins from aligned daily log-return series.
+ *
+ * <p>The service keeps a ring buffer of the last {@code window} return vectors together with
+ * running sums of returns and pairwise return products. The initial matrices are computed
+ * pair by pair on a fork/join pool; every following day is folded in incrementally in
+ * O(n²) by adding the new return vector and evicting the oldest one, instead of
+ * recomputing the whole window.</p>
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ *     CorrelationService correlations = new CorrelationService(new CryptoService(), 30);
+ *     correlations.load(90);
+ *     double btcEth = correlations.getCorrelation("BTC", "ETH");
+ * }</pre>
+ */
+public class CorrelationService {
+
+    // Pairs per fork/join leaf task
+    private static final int PAIR_THRESHOLD = 8;
+    // Full recomputation after this many incremental updates to bound floating point drift
+    private static final int RESYNC_INTERVAL = 256;
+
+    private final CryptoService cryptoService;
+    private final int window;
+
+    private List<String> symbols = Collections.emptyList();
+    private double[][] returnsRing;    // [window][n] ring buffer of return vectors
+    private double[] lastPrices;       // last close per coin, used to derive the next return
+    private double[] sums;             // running sum of returns per coin
+    private double[][] productSums;    // running sum of return products per pair (upper triangle used)
+    private int head;                  // index of the oldest return vector in the ring
+    private int count;                 // number of return vectors currently in the window
+    private int updatesSinceResync;
+    private long version;
+
+    /**
+     * Constructs a new CorrelationService.
+     *
+     * @param cryptoService A service providing access to historical price data.
+     * @param window        Number of daily returns in the rolling window (at least 2).
+     */
+    public CorrelationService(CryptoService cryptoService, int window) {
+        if (window < 2) throw new IllegalArgumentException("Window must contain at least 2 returns");
+        this.cryptoService = cryptoService;
+        this.window = window;
+    }
+
+    /**
+     * Loads historical prices for all coins from the {@link CryptoService} and computes
+     * the initial matrices.
+     *
+     * @param lookbackDays Number of days of historical data to fetch.
+     */
+    public void load(int lookbackDays) {
+        initialize(cryptoService.getHistoricalPrices(lookbackDays));
+    }
+
+    /**
+     * Initializes the rolling window from daily price series, replacing any previous state.
+     * Series are aligned on their most recent observations and truncated to the shortest one.
+     *
+     * @param pricesBySymbol Map of coin symbols to daily prices, oldest first.
+     * @throws IllegalArgumentException if fewer than two coins or two prices per coin are available.
+     */
+    public synchronized void initialize(Map<String, List<Double>> pricesBySymbol) {
+        Map<String, double[]> returns = alignedReturns(pricesBySymbol);
+        if (returns.size() < 2) {
+            throw new IllegalArgumentException("At least two coins with price history are required");
+        }
+
+        symbols = Collections.unmodifiableList(new ArrayList<>(returns.keySet()));
+        int n = symbols.size();
+        int length = returns.values().iterator().next().length;
+        int kept = Math.min(length, window);
+
+        returnsRing = new double[window][n];
+        lastPrices = new double[n];
+        for (int j = 0; j < n; j++) {
+            String symbol = symbols.get(j);
+            List<Double> prices = pricesBySymbol.get(symbol);
+            lastPrices[j] = prices.get(prices.size() - 1);
+
+            double[] series = returns.get(symbol);
+            for (int t = 0; t < kept; t++) {
+                returnsRing[t][j] = series[length - kept + t];
+            }
+        }
+        head = 0;
+        count = kept;
+
+        recomputeSums();
+        version++;
+    }
+
+    /**
+     * Folds one new day of closing prices into the rolling window. The oldest return is evicted
+     * once the window is full, and all running sums are adjusted in place.
+     *
+     * @param closes Map of coin symbols to the new day's closing price. Must contain every tracked coin.
+     * @throws IllegalStateException    if the service has not been initialized.
+     * @throws IllegalArgumentException if a tracked coin is missing or has a non-positive price.
+     */
+    public synchronized void addDay(Map<String, Double> closes) {
+        if (returnsRing == null) throw new IllegalStateException("Correlation service not initialized");
+
+        int n = symbols.size();
+        double[] incoming = new double[n];
+        for (int j = 0; j < n; j++) {
+            Double close = closes.get(symbols.get(j));
+            if (close == null || close <= 0) {
+                throw new IllegalArgumentException("Missing or invalid close for " + symbols.get(j));
+            }
+            incoming[j] = Math.log(close / lastPrices[j]);
+        }
+
+        int slot;
+        if (count == window) {
+            // Evict the oldest return vector
+            double[] outgoing = returnsRing[head];
+            for (int i = 0; i < n; i++) {
+                sums[i] -= outgoing[i];
+                for (int j = i; j < n; j++) {
+                    productSums[i][j] -= outgoing[i] * outgoing[j];
+                }
+            }
+            slot = head;
+            head = (head + 1) % window;
+        } else {
+            slot = (head + count) % window;
+            count++;
+        }
+
+        System.arraycopy(incoming, 0, returnsRing[slot], 0, n);
+        for (int i = 0; i < n; i++) {
+            sums[i] += incoming[i];
+            for (int j = i; j < n; j++) {
+                productSums[i][j] += incoming[i] * incoming[j];
+            }
+            lastPrices[i] = closes.get(symbols.get(i));
+        }
+
+        if (++updatesSinceResync >= RESYNC_INTERVAL) {
+            recomputeSums();
+        }
+        version++;
+    }
+
+    /**
+     * Returns the symbols in matrix row/column order.
+     *
+     * @return Unmodifiable list of coin symbols.
+     */
+    public synchronized List<String> getSymbols() {
+        return symbols;
+    }
+
+    /**
+     * Returns a counter that changes every time the matrices change. Consumers can
+     * use it to invalidate results derived from the covariance matrix.
+     *
+     * @return The current version of the matrices.
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the mean daily log return of every coin over the current window.
+     *
+     * @return Array of mean returns in {@link #getSymbols()} order.
+     */
+    public synchronized double[] getMeanReturns() {
+        requireData();
+        double[] means = new double[sums.length];
+        for (int i = 0; i < sums.length; i++) {
+            means[i] = sums[i] / count;
+        }
+        return means;
+    }
+
+    /**
+     * Returns the sample covariance matrix of daily log returns over the current window.
+     *
+     * @return A new covariance matrix in {@link #getSymbols()} order.
+     */
+    public synchronized RealMatrix getCovarianceMatrix() {
+        requireData();
+        int n = symbols.size();
+        double[][] cov = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = i; j < n; j++) {
+                double value = covariance(i, j);
+                cov[i][j] = value;
+                cov[j][i] = value;
+            }
+        }
+        return new Array2DRowRealMatrix(cov, false);
+    }
+
+    /**
+     * Returns the Pearson correlation matrix of daily log returns over the current window.
+     * Coins with zero variance (e.g. a perfectly pegged stablecoin) get zero correlation
+     * with every other coin.
+     *
+     * @return A new correlation matrix in {@link #getSymbols()} order.
+     */
+    public synchronized RealMatrix getCorrelationMatrix() {
+        requireData();
+        int n = symbols.size();
+        double[] stdDevs = new double[n];
+        for (int i = 0; i < n; i++) {
+            stdDevs[i] = Math.sqrt(Math.max(covariance(i, i), 0.0));
+        }
+
+        double[][] corr = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            corr[i][i] = 1.0;
+            for (int j = i + 1; j < n; j++) {
+                double denominator = stdDevs[i] * stdDevs[j];
+                double value = denominator > 0 ? covariance(i, j) / denominator : 0.0;
+                corr[i][j] = value;
+                corr[j][i] = value;
+            }
+        }
+        return new Array2DRowRealMatrix(corr, false);
+    }
+
+    /**
+     * Returns the correlation between two coins over the current window.
+     *
+     * @param symbolA First coin symbol (e.g., "BTC").
+     * @param symbolB Second coin symbol (e.g., "ETH").
+     * @return The Pearson correlation coefficient.
+     * @throws IllegalArgumentException if either symbol is not tracked.
+     */
+    public synchronized double getCorrelation(String symbolA, String symbolB) {
+        int i = indexOf(symbolA);
+        int j = indexOf(symbolB);
+        return getCorrelationMatrix().getEntry(i, j);
+    }
+
+    /**
+     * Converts daily price series into log-return series aligned on their most recent observation.
+     * Coins with fewer than two prices are dropped, and all series are truncated to the shortest one.
+     *
+     * @param pricesBySymbol Map of coin symbols to daily prices, oldest first.
+     * @return Map sorted by symbol of equally long log-return arrays, oldest first.
+     */
+    static Map<String, double[]> alignedReturns(Map<String, List<Double>> pricesBySymbol) {
+        int length = Integer.MAX_VALUE;
+        for (List<Double> prices : pricesBySymbol.values()) {
+            if (prices != null && prices.size() >= 2) {
+                length = Math.min(length, prices.size() - 1);
+            }
+        }
+
+        Map<String, double[]> aligned = new TreeMap<>();
+        if (length == Integer.MAX_VALUE) {
+            return aligned;
+        }
+
+        for (Map.Entry<String, List<Double>> entry : pricesBySymbol.entrySet()) {
+            List<Double> prices = entry.getValue();
+            if (prices == null || prices.size() < 2) continue;
+
+            double[] returns = new double[length];
+            int offset = prices.size() - 1 - length;
+            for (int t = 0; t < length; t++) {
+                returns[t] = Math.log(prices.get(offset + t + 1) / prices.get(offset + t));
+            }
+            aligned.put(entry.getKey(), returns);
+        }
+        return aligned;
+    }
+
+    /**
+     * Recomputes all running sums from the ring buffer. Pairs are distributed over the
+     * common fork/join pool.
+     */
+    private void recomputeSums() {
+        int n = symbols.size();
+        sums = new double[n];
+        productSums = new double[n][n];
+
+        for (int t = 0; t < count; t++) {
+            double[] row = returnsRing[(head + t) % window];
+            for (int i = 0; i < n; i++) {
+                sums[i] += row[i];
+            }
+        }
+
+        // Flatten the upper triangle (including the diagonal) into a pair list
+        int pairCount = n * (n + 1) / 2;
+        int[] pairI = new int[pairCount];
+        int[] pairJ = new int[pairCount];
+        int p = 0;
+        for (int i = 0; i < n; i++) {
+            for (int j = i; j < n; j++) {
+                pairI[p] = i;
+                pairJ[p] = j;
+                p++;
+            }
+        }
+
+        ForkJoinPool.commonPool().invoke(new PairSumTask(pairI, pairJ, 0, pairCount));
+        updatesSinceResync = 0;
+    }
+
+    /**
+     * Computes the sample covariance of coins {@code i} and {@code j} from the running sums.
+     */
+    private double covariance(int i, int j) {
+        if (count < 2) return 0.0;
+        int a = Math.min(i, j);
+        int b = Math.max(i, j);
+        return (productSums[a][b] - sums[a] * sums[b] / count) / (count - 1);
+    }
+
+    private int indexOf(String symbol) {
+        int index = symbols.indexOf(symbol);
+        if (index < 0) throw new IllegalArgumentException("Unknown symbol: " + symbol);
+        return index;
+    }
+
+    private void requireData() {
+        if (returnsRing == null) throw new IllegalStateException("Correlation service not initialized");
+    }
+
+    /**
+     * Fork/join task computing the sum of return products for a range of coin pairs.
+     * Each pair writes to its own cell, so leaves never contend.
+     */
+    private class PairSumTask extends RecursiveAction {
+        private final int[] pairI;
+        private final int[] pairJ;
+        private final int from;
+        private final int to;
+
+        PairSumTask(int[] pairI, int[] pairJ, int from, int to) {
+            this.pairI = pairI;
+            this.pairJ = pairJ;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PAIR_THRESHOLD) {
+                for (int p = from; p < to; p++) {
+                    int i = pairI[p];
+                    int j = pairJ[p];
+                    double sum = 0.0;
+                    for (int t = 0; t < count; t++) {
+                        double[] row = returnsRing[(head + t) % window];
+                        sum += row[i] * row[j];
+                    }
+                    productSums[i][j] = sum;
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new PairSumTask(pairI, pairJ, from, mid), new PairSumTask(pairI, pairJ, mid, to));
+        }
+    }
+}
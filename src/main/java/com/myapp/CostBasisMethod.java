@@ -0,0 +1,13 @@
+package com.myapp;
+
+/**
+ * Which buy lots a sale relieves first, and so which cost basis it realizes.
+ */
+public enum CostBasisMethod {
+    /** First in, first out: the oldest lots are sold first. */
+    FIFO,
+    /** Last in, first out: the newest lots are sold first. */
+    LIFO,
+    /** Highest in, first out: the most expensive lots are sold first, which realizes the smallest gain. */
+    HIFO
+}
@@ -1,19 +1,22 @@
 package com.myapp;
 
+import weka.classifiers.Classifier;
 import weka.classifiers.meta.FilteredClassifier;
-import weka.classifiers.trees.RandomForest;
 import weka.core.Instance;
 import weka.core.Instances;
-import weka.filters.unsupervised.attribute.Standardize;
+import weka.filters.Filter;
 
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
-import java.util.HashMap;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 /**
  * CryptoAdvisor provides a recommendation for the most promising cryptocurrency to invest in,
@@ -23,13 +26,44 @@ import java.util.concurrent.atomic.AtomicBoolean;
  * (e.g., previous price, moving averages, volatility) and predicts the next-day price.
  *
  * The coin with the highest predicted growth rate is returned as the recommendation.
+ * {@link #rankCoins(AtomicBoolean, Consumer)} returns the full ranking instead, with a
+ * {@link CoinForecast} per coin that includes the spread of the forest's trees, and publishes
+ * each forecast as soon as its coin is done.
+ *
+ * <p>Forest runs are tiered: as soon as a coin's data is available, a closed-form ridge regression
+ * ({@link RidgeForecaster}) publishes a preliminary estimate in microseconds, and the RandomForest
+ * forecast replaces it once training finishes.</p>
+ * Trained models are kept in a {@link ModelCache}, so repeated recommendations on unchanged
+ * data skip training entirely.
+ *
+ * <p>Forest hyperparameters are read per coin from the file written by
+ * {@link HyperparameterTuner}; coins that were never tuned use {@link ForestParams#DEFAULT}.</p>
+ *
+ * <p>With {@link ModelType#ONLINE_LINEAR} the advisor instead keeps an updateable linear model
+ * per coin in an {@link OnlineModelStore} and only folds in rows added since the last run.
+ * With {@link ModelType#POOLED_FOREST} it fetches every coin first and trains a single
+ * {@link PooledForecaster} forest on all of their rows, and with {@link ModelType#NATIVE_FOREST}
+ * it trains a {@link NativeRandomForest} per coin instead of Weka's.</p>
  */
 public class CryptoAdvisor {
 
+    // Shared across advisor instances, since a new advisor is created for every recommendation
+    private static final ModelCache SHARED_MODEL_CACHE = new ModelCache();
+    private static final OnlineModelStore SHARED_ONLINE_STORE = new OnlineModelStore();
+
     private final CryptoService cryptoService;
+    private final ModelCache modelCache;
     private final int lookbackDays;
-    private final int maxThreads;
+    private final int maxConcurrentFetches;
+    // Execution slots per RandomForest; raised by the scheduler in parallel runs
+    private volatile int forestExecutionSlots = 1;
     private final boolean useParallelProcessing;
+    private ModelType modelType = ModelType.RANDOM_FOREST;
+    private OnlineModelStore onlineStore = SHARED_ONLINE_STORE;
+    private boolean verbose = true;
+    private Map<String, ForestParams> forestParams;
+    private final RidgeForecaster fastTier = new RidgeForecaster();
+    private boolean fastTierEnabled = true;
 
     /**
      * Constructs a new CryptoAdvisor.
@@ -49,11 +83,150 @@ public class CryptoAdvisor {
      * @param useParallelProcessing Whether to use parallel processing for API calls and model training.
      */
     public CryptoAdvisor(CryptoService cryptoService, int lookbackDays, boolean useParallelProcessing) {
+        this(cryptoService, lookbackDays, useParallelProcessing, SHARED_MODEL_CACHE);
+    }
+
+    /**
+     * Constructs a new CryptoAdvisor with a specific model cache.
+     *
+     * @param cryptoService  A service providing access to coin IDs and live price data.
+     * @param lookbackDays   Number of days of historical data to fetch for training.
+     * @param useParallelProcessing Whether to use parallel processing for API calls and model training.
+     * @param modelCache     Cache used to store and reuse trained models.
+     */
+    public CryptoAdvisor(CryptoService cryptoService, int lookbackDays, boolean useParallelProcessing, ModelCache modelCache) {
         this.cryptoService = cryptoService;
+        this.modelCache = modelCache;
         this.lookbackDays = lookbackDays;
         this.useParallelProcessing = useParallelProcessing;
-        // Use available processors but cap at 4 to avoid overwhelming the API
-        this.maxThreads = Math.min(Runtime.getRuntime().availableProcessors(), 4);
+        // Cap concurrent API fetches at 4 to avoid overwhelming the API; training is sized separately
+        this.maxConcurrentFetches = Math.min(Runtime.getRuntime().availableProcessors(), 4);
+        this.forestParams = HyperparameterTuner.loadBestParams(Paths.get(HyperparameterTuner.PARAMS_FILE));
+    }
+
+    /**
+     * Selects the regression model used for predictions.
+     *
+     * @param modelType The model type (defaults to {@link ModelType#RANDOM_FOREST}).
+     */
+    public void setModelType(ModelType modelType) {
+        this.modelType = modelType;
+    }
+
+    /**
+     * Returns the regression model used for predictions.
+     *
+     * @return The current model type.
+     */
+    public ModelType getModelType() {
+        return modelType;
+    }
+
+    /**
+     * Replaces the store that holds per-coin online models.
+     *
+     * @param onlineStore Store used when the model type is {@link ModelType#ONLINE_LINEAR}.
+     */
+    public void setOnlineModelStore(OnlineModelStore onlineStore) {
+        this.onlineStore = onlineStore;
+    }
+
+    /**
+     * Replaces the per-coin forest hyperparameters loaded from the tuning results.
+     *
+     * @param forestParams Parameters keyed by coin symbol; coins not in the map use {@link ForestParams#DEFAULT}.
+     */
+    public void setForestParams(Map<String, ForestParams> forestParams) {
+        this.forestParams = forestParams;
+    }
+
+    /**
+     * Enables or disables the preliminary ridge-regression estimates published before forest training.
+     *
+     * @param fastTierEnabled Whether to publish fast-tier estimates (enabled by default).
+     */
+    public void setFastTierEnabled(boolean fastTierEnabled) {
+        this.fastTierEnabled = fastTierEnabled;
+    }
+
+    /**
+     * Enables or disables the per-coin prediction log written to the console.
+     *
+     * @param verbose Whether to print each coin's current price, predicted price and growth.
+     */
+    public void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+    }
+
+    /**
+     * Trains (or updates) the configured model on a coin's dataset and returns the predicted
+     * growth of its latest row. Intended for callers that supply their own data, such as
+     * {@link WalkForwardBacktester}.
+     *
+     * @param data   The coin's feature dataset with its class attribute set.
+     * @param symbol The coin symbol (e.g., "BTC").
+     * @return The predicted growth ratio (predictedPrice - currentPrice) / currentPrice.
+     * @throws Exception If training or prediction fails.
+     */
+    public double predictGrowth(Instances data, String symbol) throws Exception {
+        return forecast(data, symbol).getGrowth();
+    }
+
+    /**
+     * Trains (or updates) the configured model on a coin's dataset and returns the forecast
+     * for its latest row, including the confidence band.
+     *
+     * @param data   The coin's feature dataset with its class attribute set.
+     * @param symbol The coin symbol (e.g., "BTC").
+     * @return The coin's forecast.
+     * @throws Exception If training or prediction fails.
+     */
+    public CoinForecast forecast(Instances data, String symbol) throws Exception {
+        if (modelType == ModelType.POOLED_FOREST) {
+            // A single coin pools with itself
+            return pooledForecaster().forecastAll(Map.of(symbol, data)).get(0);
+        }
+        return trainModelAndForecast(data, symbol);
+    }
+
+    /**
+     * Forecasts every coin's growth at several horizons, training one multi-output forest per coin
+     * on its price history instead of running the advisor once per horizon.
+     *
+     * <p>Coins whose history is too short for the longest horizon are skipped; use a lookback of
+     * at least {@link MultiHorizonForecaster#minPrices()} days.</p>
+     *
+     * @param horizons        Horizons in days, e.g. {@link MultiHorizonForecaster#DEFAULT_HORIZONS}.
+     * @param cancelRequested Flag checked before each coin.
+     * @return One forecast per coin in symbol order, or null if cancelled.
+     * @throws InterruptedException if the calling thread is interrupted.
+     */
+    public List<HorizonForecast> forecastHorizons(int[] horizons, AtomicBoolean cancelRequested) throws Exception {
+        Map<String, List<Double>> history = new TreeMap<>(cryptoService.getHistoricalPrices(lookbackDays));
+        int slots = Runtime.getRuntime().availableProcessors();
+        List<HorizonForecast> forecasts = new ArrayList<>();
+
+        for (Map.Entry<String, List<Double>> entry : history.entrySet()) {
+            if (cancelRequested.get()) {
+                return null;
+            }
+            String symbol = entry.getKey();
+            double[] prices = entry.getValue().stream().mapToDouble(Double::doubleValue).toArray();
+            MultiHorizonForecaster forecaster = new MultiHorizonForecaster(horizons,
+                    forestParams.getOrDefault(symbol, ForestParams.DEFAULT), slots);
+            try {
+                HorizonForecast forecast = forecaster.forecast(prices, symbol);
+                forecasts.add(forecast);
+                if (verbose) {
+                    System.out.println(forecast);
+                }
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                System.err.println("Failed to forecast horizons for " + symbol + ": " + e.getMessage());
+            }
+        }
+        return forecasts;
     }
 
     /**
@@ -80,25 +253,61 @@ public class CryptoAdvisor {
      * @throws Exception if model training or data retrieval fails.
      */
     public String recommendCoin(AtomicBoolean cancelRequested) throws Exception {
+        List<CoinForecast> ranking = rankCoins(cancelRequested, forecast -> { });
+        if (ranking == null || ranking.isEmpty()) {
+            return null;
+        }
+        return ranking.get(0).getSymbol();
+    }
+
+    /**
+     * Forecasts every coin and ranks them by predicted growth, publishing each forecast as soon
+     * as its coin has been processed.
+     *
+     * <p>In parallel mode the listener is called from worker threads in completion order, so a
+     * UI can render a partial ranking while slower coins are still training. Listeners that
+     * touch Swing components must hand the forecast over to the Event Dispatch Thread.</p>
+     *
+     * <p>For RandomForest runs the listener first receives a preliminary fast-tier forecast per
+     * coin ({@link CoinForecast#isPreliminary()}) and later the forest's forecast for the same coin,
+     * which supersedes it. The returned ranking contains final forecasts only.</p>
+     *
+     * <p>A cancelled run never returns a partial ranking: setting the flag makes the method return
+     * null, and interrupting the calling thread makes it throw {@link InterruptedException}. In
+     * parallel mode either one interrupts all in-flight fetches and training right away.</p>
+     *
+     * @param cancelRequested AtomicBoolean flag that can be set to true to cancel the process
+     * @param listener        Receives each coin's forecast as soon as it is available.
+     * @return All forecasts, highest predicted growth first, or null if cancelled.
+     * @throws InterruptedException if the calling thread is interrupted.
+     * @throws Exception if model training or data retrieval fails.
+     */
+    public List<CoinForecast> rankCoins(AtomicBoolean cancelRequested, Consumer<CoinForecast> listener) throws Exception {
+        if (cancelRequested.get()) {
+            return null;
+        }
         LiveDataLoader loader = new LiveDataLoader();
         Map<String, String> coinIdToSymbol = cryptoService.getCoinIdToSymbolMap();
         
-        if (useParallelProcessing) {
-            return recommendCoinParallel(loader, coinIdToSymbol, cancelRequested);
+        if (modelType == ModelType.POOLED_FOREST) {
+            return rankCoinsPooled(loader, coinIdToSymbol, cancelRequested, listener);
+        } else if (useParallelProcessing) {
+            return rankCoinsParallel(loader, coinIdToSymbol, cancelRequested, listener);
         } else {
-            return recommendCoinSequential(loader, coinIdToSymbol, cancelRequested);
+            return rankCoinsSequential(loader, coinIdToSymbol, cancelRequested, listener);
         }
     }
 
     /**
-     * Performs a sequential scan of a given set of cryptocurrencies and recommends the one
-     * with the highest predicted growth using a machine learning model.
+     * Performs a sequential scan of a given set of cryptocurrencies and ranks them
+     * by predicted growth using a machine learning model.
      *
      * <p>For each coin, this method:</p>
      * <ol>
      *   <li>Loads historical data (with caching)</li>
+     *   <li>Publishes the fast-tier estimate (forest runs only)</li>
      *   <li>Trains a model on the data</li>
-     *   <li>Predicts future growth</li>
+     *   <li>Predicts future growth and publishes the forecast to the listener</li>
      * </ol>
      *
      * <p>If the operation is cancelled via the {@code cancelRequested} flag, the method
@@ -107,12 +316,13 @@ public class CryptoAdvisor {
      * @param loader            The {@link LiveDataLoader} instance to fetch coin data.
      * @param coinIdToSymbol    A map of CoinGecko coin IDs to their corresponding symbols.
      * @param cancelRequested   Atomic flag to support external cancellation of the task.
-     * @return The symbol of the coin with the highest predicted growth, or {@code null} if cancelled.
+     * @param listener          Receives each coin's forecast as soon as it is available.
+     * @return All forecasts, highest predicted growth first, or {@code null} if cancelled.
      * @throws Exception If an error occurs during data fetching or model training.
      */
-    private String recommendCoinSequential(LiveDataLoader loader, Map<String, String> coinIdToSymbol, AtomicBoolean cancelRequested) throws Exception {
-        String bestCoin = null;
-        double bestGrowth = Double.NEGATIVE_INFINITY;
+    private List<CoinForecast> rankCoinsSequential(LiveDataLoader loader, Map<String, String> coinIdToSymbol,
+                                                   AtomicBoolean cancelRequested, Consumer<CoinForecast> listener) throws Exception {
+        List<CoinForecast> forecasts = new ArrayList<>();
 
         for (Map.Entry<String, String> entry : coinIdToSymbol.entrySet()) {
             // Check if cancellation was requested
@@ -132,164 +342,346 @@ public class CryptoAdvisor {
                     System.err.println("Not enough data for " + coinId);
                     continue;
                 }
+                publishFastEstimate(data, symbol, listener);
 
                 // Train model and get growth prediction
-                double growth = trainModelAndPredictGrowth(data, symbol);
-
-                if (growth > bestGrowth) {
-                    bestGrowth = growth;
-                    bestCoin = symbol;
-                }
+                CoinForecast forecast = trainModelAndForecast(data, symbol);
+                forecasts.add(forecast);
+                listener.accept(forecast);
 
+            } catch (InterruptedException e) {
+                // Cancelled through an interrupt: never return a partial ranking
+                throw e;
             } catch (Exception e) {
                 System.err.println("Failed to process data for " + coinId + ": " + e.getMessage());
             }
         }
 
-        return bestCoin;
+        return CoinForecast.rank(forecasts);
     }
 
 
 
     /**
-     * Performs a parallel scan of a set of cryptocurrencies and recommends the one
-     * with the highest predicted growth using a trained machine learning model.
+     * Performs a parallel scan of a set of cryptocurrencies and ranks them by
+     * predicted growth using a trained machine learning model.
      *
-     * <p>This implementation leverages multithreading to improve performance when
-     * analyzing many coins. Each coin is processed in a separate thread using a
-     * {@link CompletableFuture}.</p>
+     * <p>Each coin is a subtask of an {@link AdvisorScheduler} scope running on a virtual thread:
+     * it fetches its data (with at most {@code maxConcurrentFetches} requests in flight to protect
+     * the API) and hands it to a training pool that trains coins side by side, with each
+     * RandomForest using its share of the cores as execution slots.</p>
      *
-     * <p>The method supports external cancellation via the {@code cancelRequested} flag and
-     * shuts down all threads gracefully if cancellation is detected.</p>
+     * <p>The method supports external cancellation via the {@code cancelRequested} flag or an
+     * interrupt. Either one interrupts every fetch and training thread of the scope, and the method
+     * returns {@code null} (or throws {@link InterruptedException}) instead of partial results.</p>
      *
      * <p>Steps for each coin:</p>
      * <ol>
-     *   <li>Loads historical data (with caching)</li>
-     *   <li>Trains a model and predicts growth</li>
-     *   <li>Stores growth in a concurrent map</li>
+     *   <li>Loads historical data (with caching) under the fetch semaphore</li>
+     *   <li>Publishes the fast-tier estimate (forest runs only)</li>
+     *   <li>Trains a model and predicts growth on the training pool</li>
+     *   <li>Publishes the forecast to the listener and stores it in a concurrent queue</li>
      * </ol>
      *
      * @param loader            The {@link LiveDataLoader} instance for fetching coin data.
      * @param coinIdToSymbol    A map of CoinGecko coin IDs to their corresponding symbols.
      * @param cancelRequested   Atomic flag to support external cancellation.
-     * @return The symbol of the coin with the highest predicted growth, or {@code null} if cancelled.
+     * @param listener          Receives each coin's forecast as soon as it is available.
+     * @return All forecasts, highest predicted growth first, or {@code null} if cancelled.
      * @throws Exception If data processing or threading encounters an unexpected error.
      */
-    private String recommendCoinParallel(LiveDataLoader loader, Map<String, String> coinIdToSymbol, AtomicBoolean cancelRequested) throws Exception {
-        ExecutorService executor = Executors.newFixedThreadPool(maxThreads);
-        Map<String, Double> growthResults = new ConcurrentHashMap<>();
-        
-        // Create futures for each coin
-        CompletableFuture<?>[] futures = coinIdToSymbol.entrySet().stream()
-            .map(entry -> CompletableFuture.runAsync(() -> {
-                // Check if cancellation was requested
-                if (cancelRequested.get()) {
-                    return;
-                }
-                
+    private List<CoinForecast> rankCoinsParallel(LiveDataLoader loader, Map<String, String> coinIdToSymbol,
+                                                 AtomicBoolean cancelRequested, Consumer<CoinForecast> listener) throws Exception {
+        ConcurrentLinkedQueue<CoinForecast> forecasts = new ConcurrentLinkedQueue<>();
+
+        try (AdvisorScheduler scheduler = new AdvisorScheduler(coinIdToSymbol.size(), maxConcurrentFetches)) {
+            forestExecutionSlots = scheduler.getSlotsPerForest();
+
+            // Fork one fetch -> train subtask per coin
+            List<Future<?>> subtasks = new ArrayList<>();
+            for (Map.Entry<String, String> entry : coinIdToSymbol.entrySet()) {
                 String coinId = entry.getKey();
                 String symbol = entry.getValue();
-                
-                try {
-                    Instances data = loader.getHistoricalData(coinId, lookbackDays);
-                    
-                    if (data.numInstances() < 5) {
-                        System.err.println("Not enough data for " + coinId);
-                        return;
+
+                subtasks.add(scheduler.fork(() -> {
+                    try {
+                        Instances data = scheduler.fetch(() -> loader.getHistoricalData(coinId, lookbackDays));
+
+                        if (data.numInstances() < 5) {
+                            System.err.println("Not enough data for " + coinId);
+                            return null;
+                        }
+                        publishFastEstimate(data, symbol, listener);
+
+                        // Train model and get growth prediction
+                        CoinForecast forecast = scheduler.train(() -> trainModelAndForecast(data, symbol));
+                        forecasts.add(forecast);
+                        listener.accept(forecast);
+                    } catch (Exception e) {
+                        // Errors caused by cancelling the run are not failures of the coin
+                        if (!scheduler.isCancelled()) {
+                            System.err.println("Failed to process data for " + coinId + ": " + e.getMessage());
+                        }
                     }
-                    
-                    // Train model and get growth prediction
-                    double growth = trainModelAndPredictGrowth(data, symbol);
-                    growthResults.put(symbol, growth);
-                    
-                } catch (Exception e) {
-                    System.err.println("Failed to process data for " + coinId + ": " + e.getMessage());
-                }
-            }, executor))
-            .toArray(CompletableFuture[]::new);
-        
-        // Wait for all futures to complete or until cancellation
-        try {
-            for (CompletableFuture<?> future : futures) {
-                if (cancelRequested.get()) {
-                    break;
-                }
-                // Add a small timeout to check cancellation periodically
-                future.get(500, TimeUnit.MILLISECONDS);
+                    return null;
+                }));
+            }
+
+            // Wait for every coin; cancelling interrupts all fetches and training at once
+            if (!scheduler.join(subtasks, cancelRequested)) {
+                return null;
             }
-        } catch (Exception e) {
-            // Timeout is expected for incomplete futures
-            System.err.println("Some futures didn't complete in time: " + e.getMessage());
         }
-        
-        // Shutdown the executor
-        executor.shutdown();
-        try {
-            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
-                executor.shutdownNow();
+
+        return CoinForecast.rank(forecasts);
+    }
+
+    /**
+     * Fetches every coin first and then forecasts all of them with one pooled forest.
+     *
+     * <p>Fetches use the same {@link AdvisorScheduler} limits as a parallel run (or run one by one
+     * in sequential mode), and each coin's fast-tier estimate is published as soon as its data
+     * arrives. The pooled forest is then trained once with all cores as execution slots, and its
+     * forecasts are published after a single batch inference.</p>
+     *
+     * @param loader            The {@link LiveDataLoader} instance for fetching coin data.
+     * @param coinIdToSymbol    A map of CoinGecko coin IDs to their corresponding symbols.
+     * @param cancelRequested   Atomic flag to support external cancellation.
+     * @param listener          Receives each coin's forecast as soon as it is available.
+     * @return All forecasts, highest predicted growth first, or {@code null} if cancelled.
+     * @throws Exception If training fails or the run is interrupted.
+     */
+    private List<CoinForecast> rankCoinsPooled(LiveDataLoader loader, Map<String, String> coinIdToSymbol,
+                                               AtomicBoolean cancelRequested, Consumer<CoinForecast> listener) throws Exception {
+        Map<String, Instances> dataBySymbol = new ConcurrentHashMap<>();
+        int parallelism = useParallelProcessing ? maxConcurrentFetches : 1;
+
+        try (AdvisorScheduler scheduler = new AdvisorScheduler(Runtime.getRuntime().availableProcessors(), 1, parallelism)) {
+            forestExecutionSlots = scheduler.getSlotsPerForest();
+
+            // Fetch every coin; the pooled model needs all of them before it can train
+            List<Future<?>> subtasks = new ArrayList<>();
+            for (Map.Entry<String, String> entry : coinIdToSymbol.entrySet()) {
+                String coinId = entry.getKey();
+                String symbol = entry.getValue();
+
+                subtasks.add(scheduler.fork(() -> {
+                    try {
+                        Instances data = scheduler.fetch(() -> loader.getHistoricalData(coinId, lookbackDays));
+                        if (data.numInstances() < 5) {
+                            System.err.println("Not enough data for " + coinId);
+                            return null;
+                        }
+                        dataBySymbol.put(symbol, data);
+                        publishFastEstimate(data, symbol, listener);
+                    } catch (Exception e) {
+                        if (!scheduler.isCancelled()) {
+                            System.err.println("Failed to process data for " + coinId + ": " + e.getMessage());
+                        }
+                    }
+                    return null;
+                }));
+            }
+            if (!scheduler.join(subtasks, cancelRequested)) {
+                return null;
+            }
+            if (dataBySymbol.isEmpty()) {
+                return new ArrayList<>();
             }
-        } catch (InterruptedException e) {
-            executor.shutdownNow();
+
+            // One training run and one batch inference for all coins
+            List<CoinForecast> forecasts = scheduler.train(() -> pooledForecaster().forecastAll(dataBySymbol));
+            for (CoinForecast forecast : forecasts) {
+                if (verbose) {
+                    System.out.printf("Coin %s: Current=%.2f Predicted=%.2f Growth=%.4f Band=[%.4f, %.4f]%n",
+                            forecast.getSymbol(), forecast.getCurrentPrice(), forecast.getPredictedPrice(),
+                            forecast.getGrowth(), forecast.getGrowthLow(), forecast.getGrowthHigh());
+                }
+                listener.accept(forecast);
+            }
+            return cancelRequested.get() ? null : CoinForecast.rank(forecasts);
         }
-        
-        // If cancelled, return null
-        if (cancelRequested.get()) {
-            return null;
+    }
+
+    /**
+     * Creates the pooled forecaster with the tuned parameters stored under {@link PooledForecaster#POOLED_KEY}.
+     */
+    private PooledForecaster pooledForecaster() {
+        ForestParams params = forestParams.getOrDefault(PooledForecaster.POOLED_KEY, ForestParams.DEFAULT);
+        return new PooledForecaster(modelCache, params, forestExecutionSlots);
+    }
+
+    /**
+     * Publishes the fast-tier estimate of a coin before its forest is trained. Other model
+     * types are already fast, so they get no preliminary estimate.
+     */
+    private void publishFastEstimate(Instances data, String symbol, Consumer<CoinForecast> listener) {
+        if (!fastTierEnabled || (modelType != ModelType.RANDOM_FOREST && modelType != ModelType.POOLED_FOREST)) {
+            return;
         }
-        
-        // Find the best coin
-        String bestCoin = null;
-        double bestGrowth = Double.NEGATIVE_INFINITY;
-        
-        for (Map.Entry<String, Double> entry : growthResults.entrySet()) {
-            if (entry.getValue() > bestGrowth) {
-                bestGrowth = entry.getValue();
-                bestCoin = entry.getKey();
-            }
+        try {
+            listener.accept(fastTier.forecast(data, symbol));
+        } catch (RuntimeException e) {
+            // The forest forecast still follows, so a failed estimate is not fatal
+            System.err.println("Fast estimate failed for " + symbol + ": " + e.getMessage());
         }
-        
-        return bestCoin;
     }
 
     /**
-     * Trains a RandomForest model using the given dataset and predicts the growth rate
+     * Trains (or updates) the configured model using the given dataset and forecasts the growth rate
      * for the latest data point (e.g., a cryptocurrency or stock price).
      *
      * <p>This method performs the following steps:
      * <ul>
-     *   <li>Applies standardization to the input features.</li>
-     *   <li>Trains a RandomForest regression model using the Weka library.</li>
+     *   <li>Obtains a trained model via {@link #trainModel(Instances, String)}, or for
+     *       {@link ModelType#NATIVE_FOREST} fits the forest on primitive columns instead.</li>
      *   <li>Predicts the target value (e.g., future price) for the most recent instance.</li>
-     *   <li>Calculates and returns the relative growth between the predicted and actual price.</li>
+     *   <li>For forests, collects every tree's prediction to derive the confidence band.</li>
+     *   <li>Calculates the relative growth between the predicted and actual price.</li>
      *   <li>Logs the symbol, current price, predicted price, and growth percentage to console.</li>
      * </ul>
      *
      * @param data   A Weka {@link weka.core.Instances} dataset, where the class attribute
      *               (target variable) is set (typically the price to predict).
      * @param symbol A string representing the asset's symbol (e.g., "BTC", "ETH").
-     * @return       The predicted growth ratio, calculated as
+     * @return       The forecast, whose growth is calculated as
      *               (predictedPrice - currentPrice) / currentPrice.
      * @throws Exception If an error occurs during model training or prediction.
      */
-    private double trainModelAndPredictGrowth(Instances data, String symbol) throws Exception {
-        // Train RandomForest model with standardized input features
-        FilteredClassifier model = new FilteredClassifier();
-        model.setClassifier(new RandomForest());
-        model.setFilter(new Standardize());
-        model.buildClassifier(data);
+    private CoinForecast trainModelAndForecast(Instances data, String symbol) throws Exception {
+        if (modelType == ModelType.NATIVE_FOREST) {
+            return fitNativeAndForecast(data, symbol);
+        }
+        Classifier model = trainModel(data, symbol);
 
         // Use the most recent instance for prediction
         Instance latest = data.lastInstance();
-        double predictedPrice = model.classifyInstance(latest);
+        double predictedPrice;
+        double[] treePrices;
+        synchronized (model) {
+            // Cached and online models are shared between runs, so inference must not interleave
+            predictedPrice = model.classifyInstance(latest);
+            treePrices = treePredictions(model, latest);
+        }
         double currentPrice = latest.value(data.classIndex());
+        CoinForecast forecast = toForecast(symbol, currentPrice, predictedPrice, treePrices);
+
+        // Output results
+        if (verbose) {
+            System.out.printf("Coin %s: Current=%.2f Predicted=%.2f Growth=%.4f Band=[%.4f, %.4f]%n", symbol,
+                    currentPrice, predictedPrice, forecast.getGrowth(), forecast.getGrowthLow(), forecast.getGrowthHigh());
+        }
+
+        return forecast;
+    }
+
+    /**
+     * Forecasts with a {@link NativeRandomForest}. The dataset is read into primitive columns once,
+     * and the forest is fitted on them (or taken from the {@link ModelCache}) and predicts the
+     * latest row from them, so it never copies or reads Weka rows itself. Datasets from
+     * {@link LiveDataLoader} have no missing values.
+     */
+    private CoinForecast fitNativeAndForecast(Instances data, String symbol) throws Exception {
+        int classIndex = data.classIndex();
+        double[][] columns = new double[data.numAttributes() - 1][];
+        for (int a = 0, f = 0; a < data.numAttributes(); a++) {
+            if (a != classIndex) columns[f++] = data.attributeToDoubleArray(a);
+        }
+        double[] target = data.attributeToDoubleArray(classIndex);
+        NativeRandomForest untrained = forestParams.getOrDefault(symbol, ForestParams.DEFAULT).newNativeForest(forestExecutionSlots);
+        NativeRandomForest forest = modelCache.getOrFit(symbol, data, untrained, columns, target);
+
+        int latestRow = target.length - 1;
+        double[] latest = new double[columns.length];
+        for (int f = 0; f < columns.length; f++) {
+            latest[f] = columns[f][latestRow];
+        }
+        double predictedPrice;
+        double[] treePrices;
+        synchronized (forest) {
+            // Cached forests are shared between runs, like the other models
+            predictedPrice = forest.predict(latest);
+            treePrices = forest.treePredictions(latest);
+        }
+        CoinForecast forecast = toForecast(symbol, target[latestRow], predictedPrice, treePrices);
 
-        // Calculate relative growth
+        if (verbose) {
+            System.out.printf("Coin %s: Current=%.2f Predicted=%.2f Growth=%.4f Band=[%.4f, %.4f]%n", symbol,
+                    target[latestRow], predictedPrice, forecast.getGrowth(), forecast.getGrowthLow(), forecast.getGrowthHigh());
+        }
+        return forecast;
+    }
+
+    /**
+     * Returns the per-tree predictions of a forest, or null for other models.
+     */
+    private static double[] treePredictions(Classifier model, Instance instance) throws Exception {
+        if (!(model instanceof FilteredClassifier)) return null;
+        FilteredClassifier filtered = (FilteredClassifier) model;
+        if (!(filtered.getClassifier() instanceof SpreadRandomForest)) return null;
+
+        // Apply the trained Standardize filter the same way the FilteredClassifier does
+        Filter filter = filtered.getFilter();
+        filter.input(instance);
+        filter.batchFinished();
+        Instance standardized = filter.output();
+        return ((SpreadRandomForest) filtered.getClassifier()).treePredictions(standardized);
+    }
+
+    /**
+     * Builds a forecast whose band spans the 10th to 90th percentile of the per-tree growth.
+     * Without tree predictions the band collapses onto the point forecast.
+     */
+    static CoinForecast toForecast(String symbol, double currentPrice, double predictedPrice, double[] treePrices) {
         double growth = (predictedPrice - currentPrice) / currentPrice;
+        if (treePrices == null || treePrices.length == 0) {
+            return new CoinForecast(symbol, currentPrice, predictedPrice, growth, growth, 0.0);
+        }
 
-        // Output results
-        System.out.printf("Coin %s: Current=%.2f Predicted=%.2f Growth=%.4f%n", symbol, currentPrice, predictedPrice, growth);
+        double[] treeGrowth = new double[treePrices.length];
+        double sum = 0.0;
+        for (int i = 0; i < treePrices.length; i++) {
+            treeGrowth[i] = (treePrices[i] - currentPrice) / currentPrice;
+            sum += treeGrowth[i];
+        }
+        double mean = sum / treeGrowth.length;
+        double sumSq = 0.0;
+        for (double g : treeGrowth) {
+            sumSq += (g - mean) * (g - mean);
+        }
+        Arrays.sort(treeGrowth);
+        int last = treeGrowth.length - 1;
+        double low = treeGrowth[(int) Math.floor(0.1 * last)];
+        double high = treeGrowth[(int) Math.ceil(0.9 * last)];
+        return new CoinForecast(symbol, currentPrice, predictedPrice, low, high, Math.sqrt(sumSq / treeGrowth.length));
+    }
 
-        return growth;
+    /**
+     * Returns a model trained on the dataset for the configured {@link ModelType}.
+     *
+     * <ul>
+     *   <li>{@link ModelType#RANDOM_FOREST}: a RandomForest on standardized features with the
+     *       coin's tuned {@link ForestParams}, reused from the {@link ModelCache} if one was already
+     *       trained on identical data and hyperparameters.</li>
+     *   <li>{@link ModelType#ONLINE_LINEAR}: the coin's warm online model, updated with the rows
+     *       appended since its last update.</li>
+     * </ul>
+     *
+     * @param data   The coin's feature dataset with its class attribute set.
+     * @param symbol The coin symbol (e.g., "BTC").
+     * @return A trained classifier.
+     * @throws Exception If training fails.
+     */
+    private Classifier trainModel(Instances data, String symbol) throws Exception {
+        switch (modelType) {
+            case ONLINE_LINEAR:
+                return onlineStore.update(symbol, data);
+            case RANDOM_FOREST:
+            default:
+                // Train RandomForest model with standardized input features (or load it from the cache)
+                ForestParams params = forestParams.getOrDefault(symbol, ForestParams.DEFAULT);
+                return modelCache.getOrBuild(symbol, data, params.newModel(forestExecutionSlots));
+        }
     }
 
 }
@@ -5,6 +5,7 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.InputStreamReader;
 import java.net.HttpURLConnection;
 import java.net.URI;
@@ -274,6 +275,7 @@ public class CryptoService {
                 Thread.sleep(5000);
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting to retry " + urlString);
             }
             return fetchJsonFromUrl(urlString); // Retry
         }
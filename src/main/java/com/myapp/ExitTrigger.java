@@ -0,0 +1,103 @@
+package com.myapp;
+
+/**
+ * An automatic exit for a {@link Portfolio} holding ({@link PositionType#LONG}) or for the short
+ * positions of a coin ({@link PositionType#SHORT}).
+ *
+ * <p>A long exit sells through {@link Portfolio#sellCrypto(String, double, double)} and a short exit
+ * buys back through {@link Portfolio#closeShortPosition(String, double, double)}. If less than
+ * {@code amount} is still open when the trigger fires, only the remainder is closed.</p>
+ */
+public class ExitTrigger {
+    private final long id;
+    private final String symbol;
+    private final TriggerType type;
+    private final PositionType side;
+    private final double amount;
+    private final double threshold;
+    private final double trailFraction;
+    private final long timestamp;
+    // Best price since placement, shared with the other trailing stops that have seen the same extreme
+    TrailingStopIndex.Anchor anchor;
+    // Set on cancellation; trailing stops are then skipped instead of searched for
+    boolean cancelled;
+    private volatile double triggerPrice = Double.NaN;
+
+    /**
+     * Constructs a new ExitTrigger.
+     *
+     * @param id            Identifier, unique within the portfolio.
+     * @param symbol        The symbol of the cryptocurrency (e.g., "BTC").
+     * @param type          Stop-loss, take-profit or trailing stop.
+     * @param side          LONG to exit a holding, SHORT to close short positions.
+     * @param amount        The amount of cryptocurrency to exit.
+     * @param threshold     The trigger price of a stop-loss or take-profit; ignored for trailing stops.
+     * @param trailFraction Distance of a trailing stop from the best price, e.g. 0.05 for 5%; ignored otherwise.
+     * @param timestamp     The timestamp (epoch milliseconds) when the trigger was placed.
+     */
+    public ExitTrigger(long id, String symbol, TriggerType type, PositionType side, double amount,
+                       double threshold, double trailFraction, long timestamp) {
+        this.id = id;
+        this.symbol = symbol;
+        this.type = type;
+        this.side = side;
+        this.amount = amount;
+        this.threshold = threshold;
+        this.trailFraction = trailFraction;
+        this.timestamp = timestamp;
+    }
+
+    public long getId() { return id; }
+    public String getSymbol() { return symbol; }
+    public TriggerType getType() { return type; }
+    public PositionType getSide() { return side; }
+    public double getAmount() { return amount; }
+    public double getTrailFraction() { return trailFraction; }
+    public long getTimestamp() { return timestamp; }
+
+    /**
+     * Returns the price at which the trigger currently fires. For a trailing stop this follows
+     * the best price seen so far.
+     *
+     * @return The current stop or target price.
+     */
+    public double getStopPrice() {
+        if (type != TriggerType.TRAILING_STOP) {
+            return threshold;
+        }
+        double extreme = anchor.extreme;
+        return side == PositionType.LONG ? extreme * (1.0 - trailFraction) : extreme * (1.0 + trailFraction);
+    }
+
+    /**
+     * Returns whether the trigger fires when the price falls to its stop price (long stops and
+     * short take-profits) rather than when it rises to it.
+     *
+     * @return True if the trigger fires on falling prices.
+     */
+    public boolean firesOnFall() {
+        return (side == PositionType.LONG) == (type != TriggerType.TAKE_PROFIT);
+    }
+
+    /**
+     * Returns the price at which the trigger fired.
+     *
+     * @return The trigger price, or NaN while the trigger is armed.
+     */
+    public double getTriggerPrice() { return triggerPrice; }
+
+    public boolean isTriggered() { return !Double.isNaN(triggerPrice); }
+
+    void markTriggered(double price) {
+        this.triggerPrice = price;
+    }
+
+    @Override
+    public String toString() {
+        String text = String.format("#%d %s %s %.8f %s at $%.4f", id, type, side, amount, symbol, getStopPrice());
+        if (type == TriggerType.TRAILING_STOP) {
+            text += String.format(" (trailing %.1f%%)", trailFraction * 100);
+        }
+        return isTriggered() ? text + String.format(" triggered at $%.4f", triggerPrice) : text;
+    }
+}
@@ -0,0 +1,123 @@
+package com.myapp;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * The armed {@link ExitTrigger}s of one portfolio, indexed per coin so that a price tick only
+ * visits the triggers it fires.
+ *
+ * <p>Stop-loss and take-profit levels sit in two {@link ThresholdIndex}es per coin, one for
+ * triggers that fire on a falling price and one for triggers that fire on a rising price.
+ * Trailing stops sit in a {@link TrailingStopIndex} per coin, side and trail distance. Thousands
+ * of triggers per coin therefore add only a few tree lookups to each tick.</p>
+ *
+ * <p>The book is not thread-safe; its {@link Portfolio} changes it under the user's lock. Only
+ * {@link #getArmed()} and {@link #isEmpty()} may be called without the lock.</p>
+ */
+class ExitTriggerBook {
+    private final Map<String, SymbolTriggers> bySymbol = new HashMap<>();
+    // Sorted by id, i.e. by placement; concurrent so that listing never takes the lock
+    private final Map<Long, ExitTrigger> armed = new ConcurrentSkipListMap<>();
+
+    /**
+     * Triggers of one coin.
+     */
+    private static class SymbolTriggers {
+        final ThresholdIndex<ExitTrigger> firesOnFall = new ThresholdIndex<>();
+        final ThresholdIndex<ExitTrigger> firesOnRise = new ThresholdIndex<>();
+        // Keyed by trail distance; stops with the same distance share an index
+        final Map<Double, TrailingStopIndex> longTrailing = new HashMap<>();
+        final Map<Double, TrailingStopIndex> shortTrailing = new HashMap<>();
+    }
+
+    /**
+     * Arms a trigger.
+     *
+     * @param trigger      The trigger.
+     * @param currentPrice The coin's current price, where a trailing stop starts trailing.
+     */
+    void add(ExitTrigger trigger, double currentPrice) {
+        SymbolTriggers triggers = bySymbol.computeIfAbsent(trigger.getSymbol(), k -> new SymbolTriggers());
+        if (trigger.getType() == TriggerType.TRAILING_STOP) {
+            boolean longSide = trigger.getSide() == PositionType.LONG;
+            Map<Double, TrailingStopIndex> indices = longSide ? triggers.longTrailing : triggers.shortTrailing;
+            indices.computeIfAbsent(trigger.getTrailFraction(), d -> new TrailingStopIndex(longSide, d))
+                    .add(trigger, currentPrice);
+        } else if (trigger.firesOnFall()) {
+            triggers.firesOnFall.add(trigger.getStopPrice(), trigger);
+        } else {
+            triggers.firesOnRise.add(trigger.getStopPrice(), trigger);
+        }
+        armed.put(trigger.getId(), trigger);
+    }
+
+    /**
+     * Disarms a trigger. Fixed levels are removed right away; trailing stops are skipped when reached.
+     *
+     * @param id The trigger's identifier.
+     * @return True if the trigger was armed.
+     */
+    boolean cancel(long id) {
+        ExitTrigger trigger = armed.remove(id);
+        if (trigger == null) {
+            return false;
+        }
+        trigger.cancelled = true;
+        if (trigger.getType() != TriggerType.TRAILING_STOP) {
+            SymbolTriggers triggers = bySymbol.get(trigger.getSymbol());
+            (trigger.firesOnFall() ? triggers.firesOnFall : triggers.firesOnRise).remove(trigger.getStopPrice(), trigger);
+        }
+        return true;
+    }
+
+    /**
+     * Removes and returns the triggers of a coin that a new price fires, and moves its trailing stops.
+     *
+     * @param symbol The coin symbol.
+     * @param price  The new market price.
+     * @return The fired triggers, fixed levels first.
+     */
+    List<ExitTrigger> onTick(String symbol, double price) {
+        SymbolTriggers triggers = bySymbol.get(symbol);
+        if (triggers == null) {
+            return List.of();
+        }
+
+        List<ExitTrigger> fired = new ArrayList<>();
+        collect(triggers.firesOnFall.pollAtOrAbove(price), fired);
+        collect(triggers.firesOnRise.pollAtOrBelow(price), fired);
+        for (TrailingStopIndex index : triggers.longTrailing.values()) {
+            collect(index.onTick(price), fired);
+        }
+        for (TrailingStopIndex index : triggers.shortTrailing.values()) {
+            collect(index.onTick(price), fired);
+        }
+        return fired;
+    }
+
+    /**
+     * Returns the armed triggers in the order they were placed.
+     *
+     * @return A new list of armed triggers.
+     */
+    List<ExitTrigger> getArmed() {
+        return new ArrayList<>(armed.values());
+    }
+
+    boolean isEmpty() {
+        return armed.isEmpty();
+    }
+
+    private void collect(List<ExitTrigger> polled, List<ExitTrigger> fired) {
+        for (ExitTrigger trigger : polled) {
+            if (!trigger.cancelled) {
+                armed.remove(trigger.getId());
+                fired.add(trigger);
+            }
+        }
+    }
+}
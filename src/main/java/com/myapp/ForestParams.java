@@ -0,0 +1,130 @@
+package com.myapp;
+
+import org.json.JSONObject;
+import weka.classifiers.Classifier;
+import weka.classifiers.meta.FilteredClassifier;
+import weka.filters.unsupervised.attribute.Standardize;
+
+import java.util.Objects;
+
+/**
+ * Hyperparameters of a RandomForest regressor: forest size, maximum tree depth and the number
+ * of features considered at each split.
+ *
+ * <p>Instances are immutable and can be persisted as JSON, which is how
+ * {@link HyperparameterTuner} stores the best configuration per coin.</p>
+ */
+public class ForestParams {
+    /** Weka's RandomForest defaults: 100 trees, unlimited depth, log2(features) + 1 per split. */
+    public static final ForestParams DEFAULT = new ForestParams(100, 0, 0);
+
+    private final int numTrees;
+    private final int maxDepth;
+    private final int numFeatures;
+
+    /**
+     * Creates a parameter set.
+     *
+     * @param numTrees    Number of trees in the forest.
+     * @param maxDepth    Maximum tree depth, or 0 for unlimited.
+     * @param numFeatures Features sampled per split, or 0 for Weka's default.
+     * @throws IllegalArgumentException if a value is out of range.
+     */
+    public ForestParams(int numTrees, int maxDepth, int numFeatures) {
+        if (numTrees < 1) throw new IllegalArgumentException("Forest needs at least one tree");
+        if (maxDepth < 0 || numFeatures < 0) throw new IllegalArgumentException("Depth and features must not be negative");
+        this.numTrees = numTrees;
+        this.maxDepth = maxDepth;
+        this.numFeatures = numFeatures;
+    }
+
+    public int getNumTrees() { return numTrees; }
+    public int getMaxDepth() { return maxDepth; }
+    public int getNumFeatures() { return numFeatures; }
+
+    /**
+     * Creates an untrained RandomForest with these hyperparameters. The forest also exposes its
+     * per-tree predictions, see {@link SpreadRandomForest}.
+     *
+     * @param executionSlots Number of threads the forest may use while training.
+     * @return A configured forest.
+     */
+    public SpreadRandomForest newForest(int executionSlots) {
+        SpreadRandomForest forest = new SpreadRandomForest();
+        forest.setNumIterations(numTrees);
+        forest.setMaxDepth(maxDepth);
+        forest.setNumFeatures(numFeatures);
+        forest.setNumExecutionSlots(executionSlots);
+        return forest;
+    }
+
+    /**
+     * Creates the advisor's untrained model: a RandomForest with these hyperparameters on
+     * standardized input features.
+     *
+     * @param executionSlots Number of threads the forest may use while training.
+     * @return A configured but untrained classifier.
+     */
+    public Classifier newModel(int executionSlots) {
+        FilteredClassifier model = new FilteredClassifier();
+        model.setClassifier(newForest(executionSlots));
+        model.setFilter(new Standardize());
+        return model;
+    }
+
+    /**
+     * Creates an untrained {@link NativeRandomForest} with these hyperparameters. It needs no
+     * standardization, since its splits do not depend on feature scale.
+     *
+     * @param executionSlots Number of threads the forest may use while training.
+     * @return A configured forest.
+     */
+    public NativeRandomForest newNativeForest(int executionSlots) {
+        return new NativeRandomForest(numTrees, maxDepth, numFeatures, executionSlots);
+    }
+
+    /**
+     * Serializes the parameters to JSON.
+     *
+     * @return A JSON object with {@code numTrees}, {@code maxDepth} and {@code numFeatures}.
+     */
+    public JSONObject toJson() {
+        JSONObject json = new JSONObject();
+        json.put("numTrees", numTrees);
+        json.put("maxDepth", maxDepth);
+        json.put("numFeatures", numFeatures);
+        return json;
+    }
+
+    /**
+     * Reads parameters written by {@link #toJson()}. Missing fields fall back to the defaults.
+     *
+     * @param json The JSON object.
+     * @return The parameters.
+     */
+    public static ForestParams fromJson(JSONObject json) {
+        return new ForestParams(
+                json.optInt("numTrees", DEFAULT.numTrees),
+                json.optInt("maxDepth", DEFAULT.maxDepth),
+                json.optInt("numFeatures", DEFAULT.numFeatures));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ForestParams)) return false;
+        ForestParams other = (ForestParams) o;
+        return numTrees == other.numTrees && maxDepth == other.maxDepth && numFeatures == other.numFeatures;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(numTrees, maxDepth, numFeatures);
+    }
+
+    @Override
+    public String toString() {
+        return "trees=" + numTrees + " depth=" + (maxDepth == 0 ? "unlimited" : maxDepth)
+                + " features=" + (numFeatures == 0 ? "default" : numFeatures);
+    }
+}
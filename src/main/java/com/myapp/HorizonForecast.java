@@ -0,0 +1,68 @@
+package com.myapp;
+
+import java.util.Arrays;
+
+/**
+ * Forecasts of one coin at several horizons, produced by one {@link MultiHorizonForecaster} model.
+ *
+ * <p>Each horizon has its own {@link CoinForecast}, whose growth is measured against the latest
+ * known price and whose band spans the 10th to 90th percentile of the forest's trees.</p>
+ */
+public class HorizonForecast {
+    private final String symbol;
+    private final int[] horizons;
+    private final CoinForecast[] forecasts;
+
+    /**
+     * Creates a multi-horizon forecast.
+     *
+     * @param symbol    The coin symbol (e.g., "BTC").
+     * @param horizons  Horizons in days, in ascending order.
+     * @param forecasts One forecast per horizon, in the same order.
+     */
+    public HorizonForecast(String symbol, int[] horizons, CoinForecast[] forecasts) {
+        if (horizons.length != forecasts.length) {
+            throw new IllegalArgumentException("Need one forecast per horizon");
+        }
+        this.symbol = symbol;
+        this.horizons = horizons.clone();
+        this.forecasts = forecasts.clone();
+    }
+
+    public String getSymbol() { return symbol; }
+    public int[] getHorizons() { return horizons.clone(); }
+
+    /**
+     * Returns the forecast for a horizon.
+     *
+     * @param horizonDays The horizon in days.
+     * @return The forecast at that horizon.
+     * @throws IllegalArgumentException if the horizon was not forecast.
+     */
+    public CoinForecast getForecast(int horizonDays) {
+        for (int i = 0; i < horizons.length; i++) {
+            if (horizons[i] == horizonDays) return forecasts[i];
+        }
+        throw new IllegalArgumentException("No forecast for a " + horizonDays + "-day horizon; have " + Arrays.toString(horizons));
+    }
+
+    /**
+     * Returns the predicted growth at a horizon.
+     *
+     * @param horizonDays The horizon in days.
+     * @return The predicted growth ratio relative to the latest price.
+     */
+    public double getGrowth(int horizonDays) {
+        return getForecast(horizonDays).getGrowth();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder(symbol).append(':');
+        for (int i = 0; i < horizons.length; i++) {
+            text.append(String.format(" %dd %+.2f%% [%+.2f%%, %+.2f%%]", horizons[i], forecasts[i].getGrowth() * 100,
+                    forecasts[i].getGrowthLow() * 100, forecasts[i].getGrowthHigh() * 100));
+        }
+        return text.toString();
+    }
+}
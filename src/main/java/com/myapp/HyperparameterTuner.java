@@ -0,0 +1,304 @@
+package com.myapp;
+
+import org.json.JSONObject;
+import weka.classifiers.Classifier;
+import weka.core.Instances;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * {@code HyperparameterTuner} searches RandomForest hyperparameters per coin and persists the
+ * best configuration, which {@link CryptoAdvisor} loads on every normal run.
+ *
+ * <p>Candidates ({@link ForestParams}) come from a grid or a random search and are scored with
+ * rolling-origin cross-validation: each fold trains on all rows up to an origin and is tested on
+ * the rows right after it, so no fold ever trains on the future. The score is the mean RMSE over
+ * the evaluated folds.</p>
+ *
+ * <p>The search uses successive halving. In the first round every candidate is scored on the most
+ * recent fold only; the better half survives and is scored on twice as many folds, and so on until
+ * all folds have been used or one candidate remains. Every (candidate, fold) evaluation of a round
+ * runs as its own task on a {@link ForkJoinPool}, and fold scores are kept between rounds, so a
+ * surviving candidate is never re-evaluated on a fold it has already seen.</p>
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ *     HyperparameterTuner tuner = new HyperparameterTuner();
+ *     Map<String, ForestParams> best = tuner.tuneAll(dataBySymbol, HyperparameterTuner.defaultGrid());
+ * }</pre>
+ */
+public class HyperparameterTuner {
+    // Default location of the tuned parameters
+    public static final String PARAMS_FILE = DataManager.DATA_DIR + "/forest_params.json";
+    // Smallest training set a fold may have
+    private static final int MIN_TRAIN_ROWS = 5;
+
+    private final Path paramsFile;
+    private final ForkJoinPool pool;
+    private final int numFolds;
+
+    /**
+     * Creates a tuner with four folds that runs on the common pool and writes to {@link #PARAMS_FILE}.
+     */
+    public HyperparameterTuner() {
+        this(Paths.get(PARAMS_FILE), ForkJoinPool.commonPool(), 4);
+    }
+
+    /**
+     * Creates a tuner.
+     *
+     * @param paramsFile File the best parameters per coin are written to.
+     * @param pool       Pool on which candidate/fold evaluations run.
+     * @param numFolds   Number of rolling-origin folds.
+     */
+    public HyperparameterTuner(Path paramsFile, ForkJoinPool pool, int numFolds) {
+        if (numFolds < 1) throw new IllegalArgumentException("At least one fold is required");
+        this.paramsFile = paramsFile;
+        this.pool = pool;
+        this.numFolds = numFolds;
+    }
+
+    /**
+     * Returns every combination of the given forest sizes, depths and feature counts.
+     *
+     * @param numTrees    Forest sizes to try.
+     * @param maxDepths   Maximum depths to try (0 for unlimited).
+     * @param numFeatures Features per split to try (0 for Weka's default).
+     * @return The candidate grid.
+     */
+    public static List<ForestParams> grid(int[] numTrees, int[] maxDepths, int[] numFeatures) {
+        List<ForestParams> candidates = new ArrayList<>();
+        for (int trees : numTrees) {
+            for (int depth : maxDepths) {
+                for (int features : numFeatures) {
+                    candidates.add(new ForestParams(trees, depth, features));
+                }
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Returns the grid searched by the tuning mode: 4 forest sizes, 4 depths and 4 feature
+     * counts for the advisor's four input features.
+     *
+     * @return 64 candidates.
+     */
+    public static List<ForestParams> defaultGrid() {
+        return grid(new int[]{25, 50, 100, 200}, new int[]{0, 3, 6, 10}, new int[]{0, 1, 2, 4});
+    }
+
+    /**
+     * Draws random candidates from the given ranges.
+     *
+     * @param count       Number of candidates.
+     * @param seed        Random seed, for reproducible searches.
+     * @param maxTrees    Largest forest size.
+     * @param maxDepth    Largest depth; 0 (unlimited) may also be drawn.
+     * @param maxFeatures Largest number of features per split; 0 (default) may also be drawn.
+     * @return The sampled candidates.
+     */
+    public static List<ForestParams> randomSearch(int count, long seed, int maxTrees, int maxDepth, int maxFeatures) {
+        Random random = new Random(seed);
+        List<ForestParams> candidates = new ArrayList<>();
+        while (candidates.size() < count) {
+            ForestParams params = new ForestParams(
+                    1 + random.nextInt(maxTrees),
+                    random.nextInt(maxDepth + 1),
+                    random.nextInt(maxFeatures + 1));
+            if (!candidates.contains(params)) {
+                candidates.add(params);
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Tunes every coin, merges the winners into the parameters file and returns them.
+     *
+     * @param dataBySymbol Feature dataset per coin symbol.
+     * @param candidates   Candidates to search.
+     * @return The best parameters per tuned coin.
+     * @throws IOException if the parameters file cannot be written.
+     */
+    public Map<String, ForestParams> tuneAll(Map<String, Instances> dataBySymbol, List<ForestParams> candidates) throws IOException {
+        Map<String, ForestParams> best = new TreeMap<>();
+        for (Map.Entry<String, Instances> entry : dataBySymbol.entrySet()) {
+            try {
+                ForestParams params = tune(entry.getValue(), candidates);
+                best.put(entry.getKey(), params);
+                System.out.println("Best parameters for " + entry.getKey() + ": " + params);
+            } catch (Exception e) {
+                System.err.println("Tuning failed for " + entry.getKey() + ": " + e.getMessage());
+            }
+        }
+
+        Map<String, ForestParams> stored = loadBestParams(paramsFile);
+        stored.putAll(best);
+        saveBestParams(paramsFile, stored);
+        return best;
+    }
+
+    /**
+     * Finds the candidate with the lowest cross-validated RMSE on one coin's data using
+     * successive halving.
+     *
+     * @param data       The coin's feature dataset with its class attribute set.
+     * @param candidates Candidates to search.
+     * @return The best candidate.
+     * @throws IllegalArgumentException if there are no candidates or too little data for one fold.
+     */
+    public ForestParams tune(Instances data, List<ForestParams> candidates) {
+        if (candidates.isEmpty()) throw new IllegalArgumentException("No candidates to search");
+        int[][] folds = rollingOriginFolds(data.numInstances(), numFolds);
+
+        List<Candidate> survivors = new ArrayList<>();
+        for (ForestParams params : candidates) {
+            survivors.add(new Candidate(params, folds.length));
+        }
+
+        int budget = 1;
+        while (true) {
+            int foldsThisRound = Math.min(budget, folds.length);
+
+            // Score every survivor on the folds it has not seen yet, all in parallel
+            List<ForkJoinTask<?>> tasks = new ArrayList<>();
+            for (Candidate candidate : survivors) {
+                for (int f = candidate.evaluatedFolds; f < foldsThisRound; f++) {
+                    int fold = f;
+                    tasks.add(pool.submit(() -> {
+                        candidate.errors[fold] = foldError(candidate.params, data, folds[fold][0], folds[fold][1]);
+                    }));
+                }
+                candidate.evaluatedFolds = foldsThisRound;
+            }
+            for (ForkJoinTask<?> task : tasks) {
+                task.join();
+            }
+
+            survivors.sort(Comparator.comparingDouble(Candidate::meanError));
+            if (foldsThisRound == folds.length || survivors.size() == 1) {
+                return survivors.get(0).params;
+            }
+
+            // Keep the better half for the next, twice as expensive round
+            survivors = new ArrayList<>(survivors.subList(0, (survivors.size() + 1) / 2));
+            budget *= 2;
+        }
+    }
+
+    /**
+     * Splits {@code numRows} time-ordered rows into rolling-origin folds, most recent first.
+     * Each fold is {@code {trainEnd, testEnd}}: it trains on rows {@code [0, trainEnd)} and
+     * tests on rows {@code [trainEnd, testEnd)}. Folds whose training set would be smaller than
+     * five rows are dropped.
+     *
+     * @param numRows  Number of rows in the dataset.
+     * @param numFolds Requested number of folds.
+     * @return The folds, most recent origin first.
+     * @throws IllegalArgumentException if not even one fold fits.
+     */
+    static int[][] rollingOriginFolds(int numRows, int numFolds) {
+        int testSize = Math.max(1, numRows / (numFolds + 1));
+        List<int[]> folds = new ArrayList<>();
+        for (int k = 0; k < numFolds; k++) {
+            int testEnd = numRows - k * testSize;
+            int trainEnd = testEnd - testSize;
+            if (trainEnd < MIN_TRAIN_ROWS) break;
+            folds.add(new int[]{trainEnd, testEnd});
+        }
+        if (folds.isEmpty()) {
+            throw new IllegalArgumentException("Not enough data for cross-validation: " + numRows + " rows");
+        }
+        return folds.toArray(new int[0][]);
+    }
+
+    /**
+     * Trains the advisor's model with the given parameters on rows {@code [0, trainEnd)} and
+     * returns its RMSE on rows {@code [trainEnd, testEnd)}.
+     */
+    private static double foldError(ForestParams params, Instances data, int trainEnd, int testEnd) {
+        try {
+            Classifier model = params.newModel(1);
+            model.buildClassifier(new Instances(data, 0, trainEnd));
+            double sumSq = 0.0;
+            for (int i = trainEnd; i < testEnd; i++) {
+                double error = model.classifyInstance(data.instance(i)) - data.instance(i).classValue();
+                sumSq += error * error;
+            }
+            return Math.sqrt(sumSq / (testEnd - trainEnd));
+        } catch (Exception e) {
+            throw new IllegalStateException("Evaluation failed for " + params + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Loads the best parameters per coin. A missing or unreadable file yields an empty map.
+     *
+     * @param file The parameters file.
+     * @return Parameters keyed by coin symbol.
+     */
+    public static Map<String, ForestParams> loadBestParams(Path file) {
+        Map<String, ForestParams> params = new TreeMap<>();
+        if (!Files.exists(file)) return params;
+        try {
+            JSONObject json = new JSONObject(Files.readString(file, StandardCharsets.UTF_8));
+            for (String symbol : json.keySet()) {
+                params.put(symbol, ForestParams.fromJson(json.getJSONObject(symbol)));
+            }
+        } catch (Exception e) {
+            System.err.println("Error reading tuned parameters: " + e.getMessage());
+        }
+        return params;
+    }
+
+    /**
+     * Writes the best parameters per coin.
+     *
+     * @param file   The parameters file.
+     * @param params Parameters keyed by coin symbol.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void saveBestParams(Path file, Map<String, ForestParams> params) throws IOException {
+        JSONObject json = new JSONObject();
+        params.forEach((symbol, p) -> json.put(symbol, p.toJson()));
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Files.writeString(file, json.toString(2), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A candidate together with its per-fold errors.
+     */
+    private static class Candidate {
+        private final ForestParams params;
+        private final double[] errors;
+        private int evaluatedFolds;
+
+        Candidate(ForestParams params, int numFolds) {
+            this.params = params;
+            this.errors = new double[numFolds];
+        }
+
+        double meanError() {
+            double sum = 0.0;
+            for (int f = 0; f < evaluatedFolds; f++) {
+                sum += errors[f];
+            }
+            return sum / evaluatedFolds;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.myapp;
+
+/**
+ * A resting limit order in a {@link Portfolio}'s order book.
+ *
+ * <p>A buy order executes once the market price falls to or below its limit price, a sell order
+ * once the price rises to or above it. The order executes at the tick price, which is never worse
+ * than the limit.</p>
+ */
+public class LimitOrder {
+    private final long id;
+    private final String symbol;
+    private final OrderSide side;
+    private final double amount;
+    private final double limitPrice;
+    private final long timestamp;
+    private volatile double fillPrice = Double.NaN;
+
+    /**
+     * Constructs a new LimitOrder.
+     *
+     * @param id         Identifier, unique within the portfolio.
+     * @param symbol     The symbol of the cryptocurrency (e.g., "BTC").
+     * @param side       Buy or sell.
+     * @param amount     The amount of cryptocurrency to trade.
+     * @param limitPrice The worst acceptable price per unit.
+     * @param timestamp  The timestamp (epoch milliseconds) when the order was placed.
+     */
+    public LimitOrder(long id, String symbol, OrderSide side, double amount, double limitPrice, long timestamp) {
+        this.id = id;
+        this.symbol = symbol;
+        this.side = side;
+        this.amount = amount;
+        this.limitPrice = limitPrice;
+        this.timestamp = timestamp;
+    }
+
+    public long getId() { return id; }
+    public String getSymbol() { return symbol; }
+    public OrderSide getSide() { return side; }
+    public double getAmount() { return amount; }
+    public double getLimitPrice() { return limitPrice; }
+    public long getTimestamp() { return timestamp; }
+
+    /**
+     * Returns the price the order executed at.
+     *
+     * @return The fill price, or NaN while the order is open.
+     */
+    public double getFillPrice() { return fillPrice; }
+
+    public boolean isFilled() { return !Double.isNaN(fillPrice); }
+
+    void markFilled(double price) {
+        this.fillPrice = price;
+    }
+
+    @Override
+    public String toString() {
+        String text = String.format("#%d %s %.8f %s limit $%.4f", id, side, amount, symbol, limitPrice);
+        return isFilled() ? text + String.format(" filled at $%.4f", fillPrice) : text;
+    }
+}
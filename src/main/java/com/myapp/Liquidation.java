@@ -0,0 +1,47 @@
+package com.myapp;
+
+/**
+ * A forced close of a portfolio's short positions in one coin by the {@link MarginEngine}.
+ */
+public class Liquidation {
+    private final Portfolio portfolio;
+    private final String symbol;
+    private final double amount;
+    private final double price;
+    private final double marginRatio;
+    private final double pnl;
+
+    Liquidation(Portfolio portfolio, String symbol, double amount, double price, double marginRatio, double pnl) {
+        this.portfolio = portfolio;
+        this.symbol = symbol;
+        this.amount = amount;
+        this.price = price;
+        this.marginRatio = marginRatio;
+        this.pnl = pnl;
+    }
+
+    public Portfolio getPortfolio() { return portfolio; }
+    public String getSymbol() { return symbol; }
+    public double getAmount() { return amount; }
+    public double getPrice() { return price; }
+
+    /**
+     * Returns the margin ratio at the liquidation price, at or below the maintenance ratio.
+     *
+     * @return Equity divided by exposure.
+     */
+    public double getMarginRatio() { return marginRatio; }
+
+    /**
+     * Returns the realized profit or loss of the forced close.
+     *
+     * @return The PnL, as returned by {@link Portfolio#closeShortPosition(String, double, double)}.
+     */
+    public double getPnl() { return pnl; }
+
+    @Override
+    public String toString() {
+        return String.format("Liquidated short %.8f %s at $%.4f (margin ratio %.1f%%, PnL $%.2f)",
+                amount, symbol, price, marginRatio * 100.0, pnl);
+    }
+}
@@ -16,8 +16,8 @@ import java.net.URI;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -44,8 +44,10 @@ public class LiveDataLoader {
     private static final String CACHE_DIR = "data/cache";
     // Cache expiration time in minutes
     private static final int CACHE_EXPIRATION_MINUTES = 60;
-    // In-memory cache for current session
-    private final Map<String, CacheEntry> memoryCache = new HashMap<>();
+    // Attribute names of the feature datasets; the last one is the target
+    private static final String[] FEATURE_NAMES = {"PrevPrice", "MA3", "MA7", "Volatility3", "Price"};
+    // In-memory cache for current session (shared by concurrent fetches)
+    private final Map<String, CacheEntry> memoryCache = new ConcurrentHashMap<>();
     
     /**
      * Constructor that ensures cache directory exists
@@ -147,35 +149,80 @@ public class LiveDataLoader {
      */
     private Instances processJsonData(String jsonData) {
         JSONObject json = new JSONObject(jsonData);
-        JSONArray prices = json.getJSONArray("prices");
+        JSONArray priceArray = json.getJSONArray("prices");
+
+        double[] prices = new double[priceArray.length()];
+        for (int i = 0; i < prices.length; i++) {
+            prices[i] = priceArray.getJSONArray(i).getDouble(1);
+        }
+        return buildDataset(prices);
+    }
+
+    /**
+     * Computes ML features from a series of daily prices.
+     *
+     * <p>This is the same feature pipeline used for API data, exposed so that historical
+     * series (e.g. in backtests) can be turned into training data without a JSON round trip.
+     * The first 7 prices only serve as warm-up for the moving averages, so the dataset has
+     * {@code prices.length - 7} rows.</p>
+     *
+     * @param prices Daily prices, oldest first.
+     * @return {@link Instances} object ready for model training.
+     */
+    public static Instances buildDataset(double[] prices) {
+        double[][] columns = buildFeatureColumns(prices);
+        int rows = columns[0].length;
 
         // Define attributes (features + target)
         ArrayList<Attribute> attributes = new ArrayList<>();
-        attributes.add(new Attribute("PrevPrice"));
-        attributes.add(new Attribute("MA3"));
-        attributes.add(new Attribute("MA7"));
-        attributes.add(new Attribute("Volatility3"));
-        attributes.add(new Attribute("Price"));  // Target variable
+        for (String name : FEATURE_NAMES) {
+            attributes.add(new Attribute(name));
+        }
 
-        Instances data = new Instances("CryptoPrices", attributes, prices.length() - 7);
-        data.setClassIndex(4); // target: Price
+        Instances data = new Instances("CryptoPrices", attributes, rows);
+        data.setClassIndex(FEATURE_NAMES.length - 1); // target: Price
 
         // Construct instances
-        for (int i = 7; i < prices.length(); i++) {
-            double prevPrice = prices.getJSONArray(i - 1).getDouble(1);
-            double price = prices.getJSONArray(i).getDouble(1);
+        for (int i = 0; i < rows; i++) {
+            double[] values = new double[columns.length];
+            for (int a = 0; a < columns.length; a++) {
+                values[a] = columns[a][i];
+            }
+            data.add(new DenseInstance(1.0, values));
+        }
+
+        return data;
+    }
+
+    /**
+     * Computes the same features as {@link #buildDataset(double[])} as column-major primitive
+     * arrays, for models such as {@link NativeRandomForest} that train without Weka rows.
+     *
+     * <p>The columns are, in attribute order: previous price, MA3, MA7, 3-day volatility and,
+     * last, the target price.</p>
+     *
+     * @param prices Daily prices, oldest first.
+     * @return {@code double[5][prices.length - 7]}, one array per column.
+     */
+    public static double[][] buildFeatureColumns(double[] prices) {
+        int rows = Math.max(0, prices.length - 7);
+        double[][] columns = new double[FEATURE_NAMES.length][rows];
+
+        for (int i = 7; i < prices.length; i++) {
+            double prevPrice = prices[i - 1];
+            double price = prices[i];
 
             // MA3
             double sum3 = 0;
             for (int j = i - 3; j < i; j++) {
-                sum3 += prices.getJSONArray(j).getDouble(1);
+                sum3 += prices[j];
             }
             double ma3 = sum3 / 3.0;
 
             // MA7
             double sum7 = 0;
             for (int j = i - 7; j < i; j++) {
-                sum7 += prices.getJSONArray(j).getDouble(1);
+                sum7 += prices[j];
             }
             double ma7 = sum7 / 7.0;
 
@@ -183,22 +230,19 @@ public class LiveDataLoader {
             double mean3 = ma3;
             double sumSq = 0;
             for (int j = i - 3; j < i; j++) {
-                double val = prices.getJSONArray(j).getDouble(1);
-                sumSq += Math.pow(val - mean3, 2);
+                sumSq += Math.pow(prices[j] - mean3, 2);
             }
             double volatility3 = Math.sqrt(sumSq / 3);
 
-            DenseInstance instance = new DenseInstance(5);
-            instance.setValue(attributes.get(0), prevPrice);
-            instance.setValue(attributes.get(1), ma3);
-            instance.setValue(attributes.get(2), ma7);
-            instance.setValue(attributes.get(3), volatility3);
-            instance.setValue(attributes.get(4), price);
-
-            data.add(instance);
+            int row = i - 7;
+            columns[0][row] = prevPrice;
+            columns[1][row] = ma3;
+            columns[2][row] = ma7;
+            columns[3][row] = volatility3;
+            columns[4][row] = price;
         }
 
-        return data;
+        return columns;
     }
 
     /**
@@ -0,0 +1,283 @@
+package com.myapp;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Marks the short positions of every registered {@link Portfolio} to market and liquidates them
+ * when their margin runs out.
+ *
+ * <p>A portfolio's shorts in one coin, with amount {@code U} and collateral {@code C} (their entry
+ * value), have equity {@code 2C - U × price}: the collateral plus the profit. The margin ratio is
+ * equity divided by exposure {@code U × price}. Once it falls to the maintenance ratio, all of the
+ * coin's shorts are closed through {@link Portfolio#closeShortPosition(String, double, double)}.</p>
+ *
+ * <p>The ratio only crosses the maintenance ratio at one price, {@code 2C / (U × (1 + maintenance))},
+ * so the engine keeps that liquidation price per portfolio and coin in a {@link ThresholdIndex} per
+ * coin. A portfolio reports every open and close, and only that entry is re-indexed. A tick then
+ * polls just the breached entries in O(log n + k), however many users hold shorts.</p>
+ *
+ * <p>The engine is thread-safe. Its lock guards only the index. Liquidations take each user's
+ * lock after the engine lock is released, so the lock order is always user, then engine.</p>
+ */
+public class MarginEngine {
+    /** Equity as a fraction of exposure below which shorts are liquidated. */
+    public static final double DEFAULT_MAINTENANCE_RATIO = 0.25;
+
+    private final double maintenanceRatio;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, ThresholdIndex<MarginPosition>> bySymbol = new HashMap<>();
+    private final Map<Portfolio, Map<String, MarginPosition>> byPortfolio = new HashMap<>();
+
+    /**
+     * The shorts of one portfolio in one coin, indexed at their liquidation price.
+     */
+    private static final class MarginPosition {
+        final Portfolio portfolio;
+        final String symbol;
+        // NaN while not in the index, e.g. between a tick's poll and the liquidation
+        double liquidationPrice = Double.NaN;
+
+        MarginPosition(Portfolio portfolio, String symbol) {
+            this.portfolio = portfolio;
+            this.symbol = symbol;
+        }
+    }
+
+    private static class SharedHolder {
+        static final MarginEngine INSTANCE = new MarginEngine(DEFAULT_MAINTENANCE_RATIO);
+    }
+
+    /**
+     * Returns the engine shared by every user of this JVM.
+     *
+     * @return The shared engine, with the default maintenance ratio.
+     */
+    public static MarginEngine getShared() {
+        return SharedHolder.INSTANCE;
+    }
+
+    /**
+     * Creates an engine.
+     *
+     * @param maintenanceRatio Margin ratio at or below which shorts are liquidated, in (0, 1).
+     */
+    public MarginEngine(double maintenanceRatio) {
+        if (!(maintenanceRatio > 0 && maintenanceRatio < 1)) {
+            throw new IllegalArgumentException("Maintenance ratio must be between 0 and 1");
+        }
+        this.maintenanceRatio = maintenanceRatio;
+    }
+
+    public double getMaintenanceRatio() {
+        return maintenanceRatio;
+    }
+
+    /**
+     * Starts watching a portfolio's short positions, including those already open.
+     *
+     * @param portfolio The portfolio.
+     * @throws IllegalStateException If another engine watches the portfolio.
+     */
+    public void register(Portfolio portfolio) {
+        ReentrantLock userLock = portfolio.getAccount().getLock();
+        userLock.lock();
+        try {
+            MarginEngine current = portfolio.getMarginEngine();
+            if (current != null && current != this) {
+                throw new IllegalStateException("Portfolio is watched by another margin engine");
+            }
+            portfolio.setMarginEngine(this);
+            for (String symbol : portfolio.getShortPositions().keySet()) {
+                onShortChanged(portfolio, symbol);
+            }
+        } finally {
+            userLock.unlock();
+        }
+    }
+
+    /**
+     * Stops watching a portfolio.
+     *
+     * @param portfolio The portfolio.
+     */
+    public void unregister(Portfolio portfolio) {
+        ReentrantLock userLock = portfolio.getAccount().getLock();
+        userLock.lock();
+        try {
+            if (portfolio.getMarginEngine() != this) return;
+            portfolio.setMarginEngine(null);
+            lock.lock();
+            try {
+                Map<String, MarginPosition> positions = byPortfolio.remove(portfolio);
+                if (positions != null) {
+                    positions.values().forEach(this::unindex);
+                }
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            userLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of watched portfolio and coin pairs with open shorts.
+     *
+     * @return The number of indexed positions.
+     */
+    public int getWatchedCount() {
+        lock.lock();
+        try {
+            int count = 0;
+            for (ThresholdIndex<MarginPosition> index : bySymbol.values()) {
+                count += index.size();
+            }
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the margin ratio of a portfolio's shorts in a coin at a price.
+     *
+     * @param portfolio The portfolio.
+     * @param symbol    The coin symbol.
+     * @param price     The market price.
+     * @return Equity divided by exposure, or NaN if no short is open.
+     */
+    public static double marginRatio(Portfolio portfolio, String symbol, double price) {
+        long units = portfolio.getShortUnits(symbol);
+        if (units == 0 || price <= 0) return Double.NaN;
+        double exposure = Money.coins(units) * price;
+        return (2 * Money.fiat(portfolio.getShortEntryValueCents(symbol)) - exposure) / exposure;
+    }
+
+    /**
+     * Returns the price at which a portfolio's shorts in a coin are liquidated.
+     *
+     * @param portfolio The portfolio.
+     * @param symbol    The coin symbol.
+     * @return The liquidation price, or NaN if no short is open.
+     */
+    public double getLiquidationPrice(Portfolio portfolio, String symbol) {
+        return liquidationPrice(portfolio.getShortUnits(symbol), portfolio.getShortEntryValueCents(symbol));
+    }
+
+    /**
+     * Liquidates the shorts that a new price breaches. Only the breached entries are visited.
+     *
+     * @param symbol The coin symbol.
+     * @param price  The new market price.
+     * @return The liquidations, lowest liquidation price first; callers report them to the users.
+     */
+    public List<Liquidation> onPriceTick(String symbol, double price) {
+        if (price <= 0) return List.of();
+        List<MarginPosition> breached;
+        lock.lock();
+        try {
+            ThresholdIndex<MarginPosition> index = bySymbol.get(symbol);
+            if (index == null || index.isEmpty()) return List.of();
+            breached = index.pollAtOrBelow(price);
+            for (MarginPosition position : breached) {
+                position.liquidationPrice = Double.NaN;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        List<Liquidation> liquidations = new ArrayList<>();
+        for (MarginPosition position : breached) {
+            Liquidation liquidation = liquidate(position, price);
+            if (liquidation != null) liquidations.add(liquidation);
+        }
+        return liquidations;
+    }
+
+    /**
+     * Feeds a batch of prices, e.g. one refresh of {@link CryptoService#getCurrentPrices()},
+     * to {@link #onPriceTick(String, double)}.
+     *
+     * @param prices Map of coin symbol to new market price.
+     * @return The liquidations of all coins.
+     */
+    public List<Liquidation> onPriceTicks(Map<String, Double> prices) {
+        List<Liquidation> liquidations = new ArrayList<>();
+        for (Map.Entry<String, Double> entry : prices.entrySet()) {
+            if (entry.getValue() != null) {
+                liquidations.addAll(onPriceTick(entry.getKey(), entry.getValue()));
+            }
+        }
+        return liquidations;
+    }
+
+    /**
+     * Re-indexes a portfolio's shorts in a coin. Called by the portfolio under the user's lock
+     * after every open and close.
+     */
+    void onShortChanged(Portfolio portfolio, String symbol) {
+        double liquidationPrice = getLiquidationPrice(portfolio, symbol);
+        lock.lock();
+        try {
+            Map<String, MarginPosition> positions = byPortfolio.get(portfolio);
+            MarginPosition position = positions == null ? null : positions.get(symbol);
+            if (position != null) unindex(position);
+            if (Double.isNaN(liquidationPrice)) {
+                if (position != null) {
+                    positions.remove(symbol);
+                    if (positions.isEmpty()) byPortfolio.remove(portfolio);
+                }
+                return;
+            }
+            if (position == null) {
+                position = new MarginPosition(portfolio, symbol);
+                byPortfolio.computeIfAbsent(portfolio, k -> new HashMap<>()).put(symbol, position);
+            }
+            position.liquidationPrice = liquidationPrice;
+            bySymbol.computeIfAbsent(symbol, k -> new ThresholdIndex<>()).add(liquidationPrice, position);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Liquidation liquidate(MarginPosition position, double price) {
+        Portfolio portfolio = position.portfolio;
+        ReentrantLock userLock = portfolio.getAccount().getLock();
+        userLock.lock();
+        try {
+            // The user may have traded since the poll; recheck against the current totals
+            double ratio = marginRatio(portfolio, position.symbol, price);
+            if (Double.isNaN(ratio)) return null;
+            // The tolerance absorbs rounding at a price right at the liquidation price
+            if (ratio > maintenanceRatio + 1e-9) {
+                onShortChanged(portfolio, position.symbol);
+                return null;
+            }
+            double amount = Money.coins(portfolio.getShortUnits(position.symbol));
+            double pnl = portfolio.closeShortPosition(position.symbol, amount, price);
+            return new Liquidation(portfolio, position.symbol, amount, price, ratio, pnl);
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            System.err.println("Liquidation of " + position.symbol + " shorts failed: " + e.getMessage());
+            onShortChanged(portfolio, position.symbol);
+            return null;
+        } finally {
+            userLock.unlock();
+        }
+    }
+
+    private void unindex(MarginPosition position) {
+        if (!Double.isNaN(position.liquidationPrice)) {
+            bySymbol.get(position.symbol).remove(position.liquidationPrice, position);
+            position.liquidationPrice = Double.NaN;
+        }
+    }
+
+    private double liquidationPrice(long units, long collateralCents) {
+        if (units == 0) return Double.NaN;
+        return 2 * Money.fiat(collateralCents) / (Money.coins(units) * (1 + maintenanceRatio));
+    }
+}
@@ -0,0 +1,246 @@
+package com.myapp;
+
+import weka.classifiers.Classifier;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.OptionHandler;
+import weka.core.SerializationHelper;
+import weka.core.Utils;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * {@code ModelCache} stores trained Weka models so that a repeated recommendation on unchanged
+ * data costs one inference per coin instead of a full training run.
+ *
+ * <p>Models are keyed by coin symbol, a fingerprint of the training dataset and a hash of the
+ * classifier's hyperparameters (its Weka option string). Hits are served from memory first and
+ * from serialized model files in {@code data/cache/models} second. Only the latest model per
+ * coin and hyperparameter set is kept; older files are deleted when a new model is stored.</p>
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ *     ModelCache cache = new ModelCache();
+ *     Classifier model = cache.getOrBuild("BTC", data, new RandomForest());
+ * }</pre>
+ */
+public class ModelCache {
+    // Default directory for serialized models
+    private static final String MODEL_DIR = "data/cache/models";
+    private static final String MODEL_EXTENSION = ".model";
+    // "symbol_paramsHash_fingerprint.model"; other stores, e.g. OnlineModelStore, share the directory
+    private static final Pattern MODEL_FILE = Pattern.compile(".+_[0-9a-f]{16}_[0-9a-f]{32}\\.model");
+
+    private final File modelDir;  // null for a memory-only cache
+    // In-memory cache: "symbol_paramsHash" -> latest entry
+    private final Map<String, CachedModel> memoryCache = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a model cache backed by the default model directory.
+     */
+    public ModelCache() {
+        this(new File(MODEL_DIR));
+    }
+
+    /**
+     * Creates a model cache backed by the given directory.
+     *
+     * @param modelDir Directory for serialized model files. Created if missing.
+     */
+    public ModelCache(File modelDir) {
+        this.modelDir = modelDir;
+        if (modelDir != null && !modelDir.exists()) {
+            modelDir.mkdirs();
+        }
+    }
+
+    /**
+     * Creates a cache that keeps models in memory only, e.g. for backtests that train
+     * thousands of short-lived models.
+     *
+     * @return A new memory-only model cache.
+     */
+    public static ModelCache memoryOnly() {
+        return new ModelCache((File) null);
+    }
+
+    /**
+     * Returns a trained model for the coin and dataset, training and storing {@code untrained}
+     * only if no model with the same dataset fingerprint and hyperparameters is cached.
+     *
+     * @param symbol    The coin symbol (e.g., "BTC").
+     * @param data      The training dataset with its class attribute set.
+     * @param untrained A configured but untrained classifier. Its options form part of the key.
+     * @return A trained classifier, either from the cache or freshly built.
+     * @throws Exception if training fails.
+     */
+    public Classifier getOrBuild(String symbol, Instances data, Classifier untrained) throws Exception {
+        return getOrTrain(symbol, data, untrained, () -> untrained.buildClassifier(data));
+    }
+
+    /**
+     * Like {@link #getOrBuild(String, Instances, Classifier)}, but trains a
+     * {@link NativeRandomForest} on columns the caller already extracted from the dataset, so the
+     * forest does not copy the Weka rows again. The dataset is only fingerprinted.
+     *
+     * @param symbol    The coin symbol (e.g., "BTC").
+     * @param data      The dataset the columns were taken from; its content forms part of the key.
+     * @param untrained A configured but untrained forest. Its options form part of the key.
+     * @param columns   The dataset's feature values, one array per feature.
+     * @param target    The dataset's class values.
+     * @return A trained forest, either from the cache or freshly fitted.
+     * @throws Exception if training fails.
+     */
+    public NativeRandomForest getOrFit(String symbol, Instances data, NativeRandomForest untrained,
+                                       double[][] columns, double[] target) throws Exception {
+        return (NativeRandomForest) getOrTrain(symbol, data, untrained, () -> untrained.fit(columns, target));
+    }
+
+    private Classifier getOrTrain(String symbol, Instances data, Classifier untrained, Training training) throws Exception {
+        String slot = symbol + "_" + hyperparameterHash(untrained);
+        String fingerprint = fingerprint(data);
+
+        // Memory cache
+        CachedModel cached = memoryCache.get(slot);
+        if (cached != null && cached.fingerprint.equals(fingerprint)) {
+            return cached.model;
+        }
+
+        if (modelDir == null) {
+            training.run();
+            memoryCache.put(slot, new CachedModel(fingerprint, untrained));
+            return untrained;
+        }
+
+        // File cache
+        File modelFile = new File(modelDir, slot + "_" + fingerprint + MODEL_EXTENSION);
+        if (modelFile.exists()) {
+            try {
+                Classifier model = (Classifier) SerializationHelper.read(modelFile.getPath());
+                memoryCache.put(slot, new CachedModel(fingerprint, model));
+                System.out.println("Using cached model for " + symbol);
+                return model;
+            } catch (Exception e) {
+                System.err.println("Error reading cached model for " + symbol + ": " + e.getMessage());
+                // Fall through and retrain if the file is unreadable
+            }
+        }
+
+        training.run();
+        memoryCache.put(slot, new CachedModel(fingerprint, untrained));
+        store(slot, modelFile, untrained);
+        return untrained;
+    }
+
+    /**
+     * Removes all cached models from memory and disk. Only files named by this cache are
+     * deleted, so other model files in the same directory are kept.
+     */
+    public void clear() {
+        memoryCache.clear();
+        if (modelDir == null) return;
+        File[] files = modelDir.listFiles((dir, name) -> MODEL_FILE.matcher(name).matches());
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+    }
+
+    /**
+     * Computes a fingerprint of a dataset from its attribute names, class index and every value.
+     * Two datasets with identical content produce the same fingerprint.
+     *
+     * @param data The dataset to fingerprint.
+     * @return A hex string identifying the dataset content.
+     */
+    static String fingerprint(Instances data) {
+        MessageDigest digest = sha256();
+        for (int a = 0; a < data.numAttributes(); a++) {
+            digest.update(data.attribute(a).name().getBytes(StandardCharsets.UTF_8));
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(Double.BYTES * Math.max(1, data.numAttributes()) + Integer.BYTES);
+        buffer.putInt(data.classIndex());
+        digest.update(buffer.array(), 0, Integer.BYTES);
+        for (int i = 0; i < data.numInstances(); i++) {
+            Instance instance = data.instance(i);
+            buffer.clear();
+            for (int a = 0; a < data.numAttributes(); a++) {
+                buffer.putDouble(instance.value(a));
+            }
+            digest.update(buffer.array(), 0, buffer.position());
+        }
+        return HexFormat.of().formatHex(digest.digest(), 0, 16);
+    }
+
+    /**
+     * Hashes the classifier type and its Weka option string, so differently configured
+     * models of the same coin never share a cache slot. Execution slots only affect how a
+     * model is trained, not the model itself, so they are left out of the hash.
+     */
+    static String hyperparameterHash(Classifier classifier) {
+        String spec = classifier.getClass().getName();
+        if (classifier instanceof OptionHandler) {
+            spec += " " + Utils.joinOptions(((OptionHandler) classifier).getOptions());
+        }
+        spec = spec.replaceAll("-num-slots \\d+", "");
+        byte[] hash = sha256().digest(spec.getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(hash, 0, 8);
+    }
+
+    /**
+     * Writes a trained model to disk and deletes older models stored in the same slot.
+     */
+    private void store(String slot, File modelFile, Classifier model) {
+        File[] stale = modelDir.listFiles((dir, name) ->
+                name.startsWith(slot + "_") && MODEL_FILE.matcher(name).matches() && !name.equals(modelFile.getName()));
+        if (stale != null) {
+            for (File file : stale) {
+                file.delete();
+            }
+        }
+
+        try {
+            SerializationHelper.write(modelFile.getPath(), model);
+        } catch (Exception e) {
+            System.err.println("Failed to write model cache " + modelFile.getName() + ": " + e.getMessage());
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Trains the untrained classifier of a cache miss.
+     */
+    private interface Training {
+        void run() throws Exception;
+    }
+
+    /**
+     * Trained model together with the fingerprint of the data it was trained on.
+     */
+    private static class CachedModel {
+        private final String fingerprint;
+        private final Classifier model;
+
+        CachedModel(String fingerprint, Classifier model) {
+            this.fingerprint = fingerprint;
+            this.model = model;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.myapp;
+
+/**
+ * Regression model used by {@link CryptoAdvisor} to predict each coin's price.
+ */
+public enum ModelType {
+    /** Weka RandomForest on standardized features, retrained (or loaded from cache) per dataset. */
+    RANDOM_FOREST,
+    /** Recursive least squares model kept warm per coin and updated with new rows only. */
+    ONLINE_LINEAR,
+    /** One RandomForest trained on return features pooled across all coins, with the coin as an attribute. */
+    POOLED_FOREST,
+    /** {@link NativeRandomForest} on primitive arrays, per coin, with the same hyperparameters as the Weka forest. */
+    NATIVE_FOREST
+}
@@ -0,0 +1,205 @@
+package com.myapp;
+
+/**
+ * Fixed-point amounts used by {@link Account}, {@link Portfolio}, {@link Position} and
+ * {@link Transaction}.
+ *
+ * <p>Amounts are scaled {@code long}s: fiat in cents, coins in base units of 10<sup>-8</sup> coin
+ * (like satoshi, for every tracked coin) and prices in 10<sup>-8</sup> fiat per coin, so cheap coins
+ * keep their precision. Sums and differences are exact, and repeated buy/sell cycles cannot drift.
+ * Products such as coins × price are computed in 128 bits and rounded half-up once, without
+ * allocating, unlike {@code BigDecimal}. The {@code double} conversions are only used at the API
+ * boundary.</p>
+ */
+public final class Money {
+    /** Fiat minor units per unit (cents). */
+    public static final long FIAT_SCALE = 100L;
+    /** Base units per coin. */
+    public static final long COIN_SCALE = 100_000_000L;
+    /** Price units per fiat unit, for the price of one coin. */
+    public static final long PRICE_SCALE = 100_000_000L;
+
+    // coinUnits × priceUnits / VALUE_DIVISOR = cents
+    private static final long VALUE_DIVISOR = COIN_SCALE * PRICE_SCALE / FIAT_SCALE;
+
+    private Money() {
+    }
+
+    /**
+     * Converts a fiat amount to cents, rounding half-up.
+     *
+     * @param amount The fiat amount.
+     * @return The amount in cents.
+     * @throws IllegalArgumentException If the amount is not finite or out of range.
+     */
+    public static long fiatUnits(double amount) {
+        return toUnits(amount, FIAT_SCALE);
+    }
+
+    /**
+     * Converts a coin amount to base units, rounding half-up.
+     *
+     * @param amount The coin amount.
+     * @return The amount in base units.
+     * @throws IllegalArgumentException If the amount is not finite or out of range.
+     */
+    public static long coinUnits(double amount) {
+        return toUnits(amount, COIN_SCALE);
+    }
+
+    /**
+     * Converts a price per coin to price units, rounding half-up.
+     *
+     * @param price The price per coin.
+     * @return The price in price units.
+     * @throws IllegalArgumentException If the price is not finite or out of range.
+     */
+    public static long priceUnits(double price) {
+        return toUnits(price, PRICE_SCALE);
+    }
+
+    public static double fiat(long cents) {
+        return cents / (double) FIAT_SCALE;
+    }
+
+    public static double coins(long units) {
+        return units / (double) COIN_SCALE;
+    }
+
+    public static double price(long units) {
+        return units / (double) PRICE_SCALE;
+    }
+
+    /**
+     * Returns the fiat value of a coin amount at a price.
+     *
+     * @param coinUnits  The coin amount in base units, not negative.
+     * @param priceUnits The price in price units, not negative.
+     * @return The value in cents, rounded half-up.
+     */
+    public static long value(long coinUnits, long priceUnits) {
+        return mulDiv(coinUnits, priceUnits, VALUE_DIVISOR, true);
+    }
+
+    /**
+     * Returns the fiat value of a coin amount at a price difference, which may be negative.
+     *
+     * @param coinUnits        The coin amount in base units, not negative.
+     * @param signedPriceUnits The price difference in price units.
+     * @return The value in cents, rounded half away from zero.
+     */
+    public static long signedValue(long coinUnits, long signedPriceUnits) {
+        long magnitude = value(coinUnits, Math.abs(signedPriceUnits));
+        return signedPriceUnits < 0 ? -magnitude : magnitude;
+    }
+
+    /**
+     * Returns the coin amount a fiat amount buys at a price, rounded down so that its
+     * {@link #value(long, long)} never exceeds the fiat amount by more than the rounding of one cent.
+     *
+     * @param cents      The fiat amount in cents, not negative.
+     * @param priceUnits The price in price units, positive.
+     * @return The coin amount in base units.
+     */
+    public static long coinsFor(long cents, long priceUnits) {
+        return mulDiv(cents, VALUE_DIVISOR, priceUnits, false);
+    }
+
+    /**
+     * Returns the average price after adding coins at a price to a holding.
+     *
+     * @param heldUnits  Coins already held, in base units.
+     * @param heldPrice  Average price of the held coins, in price units.
+     * @param addedUnits Coins added, in base units.
+     * @param addedPrice Price of the added coins, in price units.
+     * @return The weighted average price in price units, rounded half-up.
+     */
+    public static long averagePrice(long heldUnits, long heldPrice, long addedUnits, long addedPrice) {
+        long totalUnits = Math.addExact(heldUnits, addedUnits);
+        if (heldUnits <= 0) return addedPrice;
+        // heldPrice + addedUnits × (addedPrice - heldPrice) / totalUnits, with the sign kept outside mulDiv
+        long shift = mulDiv(addedUnits, Math.abs(addedPrice - heldPrice), totalUnits, true);
+        return addedPrice >= heldPrice ? heldPrice + shift : heldPrice - shift;
+    }
+
+    /**
+     * Returns the fiat value of a coin amount at a price in price units (10<sup>-8</sup> fiat)
+     * instead of cents, so that running costs and the averages derived from them keep the
+     * precision of the prices even for tiny amounts.
+     *
+     * @param coinUnits  The coin amount in base units, not negative.
+     * @param priceUnits The price in price units, not negative.
+     * @return The value in price units, rounded half-up.
+     */
+    public static long preciseValue(long coinUnits, long priceUnits) {
+        return mulDiv(coinUnits, priceUnits, COIN_SCALE, true);
+    }
+
+    /**
+     * Returns the price per coin at which a coin amount is worth a {@link #preciseValue(long, long)}.
+     *
+     * @param preciseValue The value in price units, not negative.
+     * @param coinUnits    The coin amount in base units, positive.
+     * @return The price in price units, rounded half-up.
+     */
+    public static long preciseUnitPrice(long preciseValue, long coinUnits) {
+        return mulDiv(preciseValue, COIN_SCALE, coinUnits, true);
+    }
+
+    /**
+     * Returns the price per coin at which a coin amount is worth a fiat amount.
+     *
+     * @param cents     The fiat amount in cents, not negative.
+     * @param coinUnits The coin amount in base units, positive.
+     * @return The price in price units, rounded half-up.
+     */
+    public static long unitPrice(long cents, long coinUnits) {
+        return mulDiv(cents, VALUE_DIVISOR, coinUnits, true);
+    }
+
+    /**
+     * Computes {@code a × b / d} for non-negative {@code a} and {@code b} and positive {@code d}
+     * with a 128-bit intermediate product.
+     *
+     * @throws ArithmeticException If the quotient does not fit in a long.
+     */
+    static long mulDiv(long a, long b, long d, boolean roundHalfUp) {
+        if (a < 0 || b < 0 || d <= 0) throw new IllegalArgumentException("mulDiv needs a, b >= 0 and d > 0");
+        long hi = Math.unsignedMultiplyHigh(a, b);
+        long lo = a * b;
+        long quotient;
+        long remainder;
+        if (hi == 0 && lo >= 0) {
+            quotient = lo / d;
+            remainder = lo % d;
+        } else {
+            if (Long.compareUnsigned(hi, d) >= 0 || d > Long.MAX_VALUE / 2) {
+                throw new ArithmeticException("Fixed-point overflow");
+            }
+            // Shift-subtract division of the 128-bit product; the remainder stays below d
+            remainder = hi;
+            quotient = 0;
+            for (int bit = 63; bit >= 0; bit--) {
+                remainder = (remainder << 1) | ((lo >>> bit) & 1L);
+                quotient <<= 1;
+                if (remainder >= d) {
+                    remainder -= d;
+                    quotient |= 1L;
+                }
+            }
+            if (quotient < 0) throw new ArithmeticException("Fixed-point overflow");
+        }
+        if (roundHalfUp && remainder >= d - remainder) {
+            quotient = Math.addExact(quotient, 1L);
+        }
+        return quotient;
+    }
+
+    private static long toUnits(double amount, long scale) {
+        double scaled = amount * scale;
+        if (!Double.isFinite(scaled) || Math.abs(scaled) >= Long.MAX_VALUE) {
+            throw new IllegalArgumentException("Amount out of range: " + amount);
+        }
+        return Math.round(scaled);
+    }
+}
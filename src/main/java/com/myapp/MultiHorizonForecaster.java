@@ -0,0 +1,131 @@
+package com.myapp;
+
+import java.util.Arrays;
+
+/**
+ * Forecasts a coin's growth at several horizons (by default 1, 3 and 7 days) with one model.
+ *
+ * <p>The price series is turned into one shared feature matrix by
+ * {@link LiveDataLoader#buildFeatureColumns(double[])}, including a final row built from the
+ * latest price whose future is unknown. Each training row gets one target per horizon, the growth
+ * from its previous price to the price {@code h} days later, and a multi-output
+ * {@link NativeRandomForest} learns all horizons in a single training pass. Predicting the final
+ * row then yields every horizon's growth relative to the latest price.</p>
+ *
+ * <p>Rows are only used for training if all of their horizons lie within the series, so the
+ * longest horizon costs that many rows of history.</p>
+ */
+public class MultiHorizonForecaster {
+    /** Horizons reported by default, in days. */
+    public static final int[] DEFAULT_HORIZONS = {1, 3, 7};
+    // Fewest training rows a forest is trained on
+    private static final int MIN_TRAINING_ROWS = 5;
+    // Prices consumed by the moving-average warm-up of the feature pipeline
+    private static final int WARM_UP = 7;
+
+    private final int[] horizons;
+    private final ForestParams params;
+    private final int executionSlots;
+
+    /**
+     * Creates a forecaster for the default horizons with default forest parameters.
+     */
+    public MultiHorizonForecaster() {
+        this(DEFAULT_HORIZONS, ForestParams.DEFAULT, 1);
+    }
+
+    /**
+     * Creates a forecaster.
+     *
+     * @param horizons       Horizons in days; each must be positive.
+     * @param params         Forest hyperparameters.
+     * @param executionSlots Number of threads the forest may use while training.
+     */
+    public MultiHorizonForecaster(int[] horizons, ForestParams params, int executionSlots) {
+        if (horizons.length == 0) throw new IllegalArgumentException("Need at least one horizon");
+        int[] sortedHorizons = horizons.clone();
+        Arrays.sort(sortedHorizons);
+        if (sortedHorizons[0] < 1) throw new IllegalArgumentException("Horizons must be positive");
+        this.horizons = sortedHorizons;
+        this.params = params;
+        this.executionSlots = executionSlots;
+    }
+
+    /**
+     * Returns the minimum number of daily prices needed to forecast all horizons.
+     *
+     * @return The minimum series length.
+     */
+    public int minPrices() {
+        return WARM_UP + MIN_TRAINING_ROWS + horizons[horizons.length - 1] - 1;
+    }
+
+    /**
+     * Trains one multi-output forest on a coin's price history and forecasts every horizon.
+     *
+     * @param prices Daily prices, oldest first.
+     * @param symbol The coin symbol (e.g., "BTC").
+     * @return The coin's forecasts, one per horizon.
+     * @throws IllegalArgumentException if the series is shorter than {@link #minPrices()}.
+     * @throws Exception                if training fails or is interrupted.
+     */
+    public HorizonForecast forecast(double[] prices, String symbol) throws Exception {
+        if (prices.length < minPrices()) {
+            throw new IllegalArgumentException("Need " + minPrices() + " days of prices for " + symbol
+                    + " to forecast " + horizons[horizons.length - 1] + " days ahead, have " + prices.length);
+        }
+
+        // One pass over the series: the extra slot yields the feature row of the latest price
+        int n = prices.length;
+        double[][] columns = LiveDataLoader.buildFeatureColumns(Arrays.copyOf(prices, n + 1));
+        int numFeatures = columns.length - 1;  // The last column is the single-horizon target
+        int latestRow = n - WARM_UP;
+        int trainingRows = n - WARM_UP - horizons[horizons.length - 1] + 1;
+
+        double[][] features = new double[numFeatures][];
+        for (int f = 0; f < numFeatures; f++) {
+            features[f] = Arrays.copyOf(columns[f], trainingRows);
+        }
+        double[][] targets = horizonTargets(prices, trainingRows);
+
+        NativeRandomForest forest = params.newNativeForest(executionSlots);
+        forest.fit(features, targets);
+
+        double[] latest = new double[numFeatures];
+        for (int f = 0; f < numFeatures; f++) {
+            latest[f] = columns[f][latestRow];
+        }
+        double currentPrice = prices[n - 1];
+        double[][] treeGrowth = forest.treePredictionsAll(latest);
+        double[] growth = forest.predictAll(latest);
+
+        CoinForecast[] forecasts = new CoinForecast[horizons.length];
+        for (int h = 0; h < horizons.length; h++) {
+            double[] treePrices = new double[treeGrowth[h].length];
+            for (int t = 0; t < treePrices.length; t++) {
+                treePrices[t] = currentPrice * (1.0 + treeGrowth[h][t]);
+            }
+            forecasts[h] = CryptoAdvisor.toForecast(symbol, currentPrice, currentPrice * (1.0 + growth[h]), treePrices);
+        }
+        return new HorizonForecast(symbol, horizons, forecasts);
+    }
+
+    /**
+     * Builds one target column per horizon: the growth from row {@code r}'s previous price to the
+     * price {@code h} days later.
+     *
+     * @param prices Daily prices, oldest first.
+     * @param rows   Number of training rows, starting with the first row after the warm-up.
+     * @return {@code [horizon][row]} growth targets.
+     */
+    double[][] horizonTargets(double[] prices, int rows) {
+        double[][] targets = new double[horizons.length][rows];
+        for (int h = 0; h < horizons.length; h++) {
+            for (int r = 0; r < rows; r++) {
+                int previousDay = r + WARM_UP - 1;
+                targets[h][r] = prices[previousDay + horizons[h]] / prices[previousDay] - 1.0;
+            }
+        }
+        return targets;
+    }
+}
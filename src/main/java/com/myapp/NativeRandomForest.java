@@ -0,0 +1,620 @@
+package com.myapp;
+
+import weka.classifiers.AbstractClassifier;
+import weka.core.Capabilities;
+import weka.core.Capabilities.Capability;
+import weka.core.Instance;
+import weka.core.Instances;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Random forest regressor that trains on column-major primitive arrays instead of Weka rows.
+ *
+ * <p>Weka's forest works on {@link Instances} of one object per row, copies the data for every
+ * bootstrap sample, and, wrapped in a {@code FilteredClassifier} with {@code Standardize}, copies
+ * it once more before training. This forest instead:</p>
+ * <ul>
+ *   <li>trains on {@code double[feature][row]} columns, e.g. from
+ *       {@link LiveDataLoader#buildFeatureColumns(double[])}, without standardizing (splits are
+ *       invariant to feature scaling);</li>
+ *   <li>sorts every feature once per forest, with a merge sort on primitive row indices, and keeps
+ *       the sorted indices partitioned per node, so finding a split is a linear scan rather than a
+ *       sort;</li>
+ *   <li>represents bootstrap samples as per-row counts instead of copied rows;</li>
+ *   <li>builds trees in parallel on {@code executionSlots} threads;</li>
+ *   <li>stores each tree as flat arrays (feature, threshold, children, leaf outputs), so inference
+ *       walks a few contiguous arrays.</li>
+ * </ul>
+ *
+ * <p>The forest can also learn several targets at once, e.g. prices at several horizons
+ * ({@link #fit(double[][], double[][])}). Each split then maximizes the variance reduction summed
+ * over all targets, each scaled by its overall variance, and every leaf stores one mean per target,
+ * so all targets cost one training pass over the shared feature columns.</p>
+ *
+ * <p>Tree growth follows Weka's RandomTree defaults: variance reduction splits on {@code log2(d) + 1}
+ * randomly chosen features, leaves of at least one row, and no split once a node's variance drops
+ * below 0.1% of the root's. The class extends {@link AbstractClassifier} so it can be used wherever
+ * the advisor expects a Weka model, including the {@link ModelCache}. Training is interruptible
+ * between trees, like {@link SpreadRandomForest}.</p>
+ */
+public class NativeRandomForest extends AbstractClassifier {
+
+    private static final long serialVersionUID = 2L;
+
+    // Weka RandomTree defaults: minimum leaf weight and minimum variance proportion for a split
+    private static final double MIN_LEAF_WEIGHT = 1.0;
+    private static final double MIN_VARIANCE_PROP = 1e-3;
+
+    private final int numTrees;
+    private final int maxDepth;
+    private final int numFeatures;
+    private final int executionSlots;
+    private long seed = 1;
+
+    private int classIndex = -1;
+    private int[] featureAttributes;   // attribute index of each feature column
+    private double[] fillValues;       // per-feature training mean, used for missing values
+    private int numOutputs;
+    private Tree[] trees;
+
+    /**
+     * Creates a forest with Weka's defaults: 100 trees, unlimited depth, default features per split.
+     */
+    public NativeRandomForest() {
+        this(100, 0, 0, 1);
+    }
+
+    /**
+     * Creates a forest.
+     *
+     * @param numTrees       Number of trees.
+     * @param maxDepth       Maximum tree depth, or 0 for unlimited.
+     * @param numFeatures    Features sampled per split, or 0 for {@code log2(d) + 1}.
+     * @param executionSlots Number of threads used to build trees.
+     */
+    public NativeRandomForest(int numTrees, int maxDepth, int numFeatures, int executionSlots) {
+        if (numTrees < 1) throw new IllegalArgumentException("Forest needs at least one tree");
+        if (maxDepth < 0 || numFeatures < 0) throw new IllegalArgumentException("Depth and features must not be negative");
+        if (executionSlots < 1) throw new IllegalArgumentException("Execution slots must be positive");
+        this.numTrees = numTrees;
+        this.maxDepth = maxDepth;
+        this.numFeatures = numFeatures;
+        this.executionSlots = executionSlots;
+    }
+
+    /**
+     * Sets the random seed; tree {@code t} uses {@code seed + t}, so results do not depend on the
+     * number of execution slots.
+     *
+     * @param seed The random seed (default 1).
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    @Override
+    public Capabilities getCapabilities() {
+        Capabilities result = super.getCapabilities();
+        result.disableAll();
+        result.enable(Capability.NUMERIC_ATTRIBUTES);
+        result.enable(Capability.MISSING_VALUES);
+        result.enable(Capability.NUMERIC_CLASS);
+        result.enable(Capability.MISSING_CLASS_VALUES);
+        return result;
+    }
+
+    /**
+     * Copies the dataset into columns once and trains on them. Rows with a missing class are
+     * skipped and missing feature values are replaced by the feature's mean.
+     *
+     * @param data Training data with a numeric class attribute.
+     * @throws InterruptedException if the building thread is interrupted.
+     * @throws Exception            if the data is not supported.
+     */
+    @Override
+    public void buildClassifier(Instances data) throws Exception {
+        getCapabilities().testWithFail(data);
+
+        int d = data.numAttributes() - 1;
+        int[] attributes = new int[d];
+        for (int a = 0, f = 0; a < data.numAttributes(); a++) {
+            if (a != data.classIndex()) attributes[f++] = a;
+        }
+
+        int n = 0;
+        for (int i = 0; i < data.numInstances(); i++) {
+            if (!data.instance(i).classIsMissing()) n++;
+        }
+        double[][] columns = new double[d][n];
+        double[] target = new double[n];
+        double[] means = new double[d];
+        for (int f = 0; f < d; f++) {
+            means[f] = data.meanOrMode(attributes[f]);
+        }
+        for (int i = 0, row = 0; i < data.numInstances(); i++) {
+            Instance instance = data.instance(i);
+            if (instance.classIsMissing()) continue;
+            for (int f = 0; f < d; f++) {
+                columns[f][row] = instance.isMissing(attributes[f]) ? means[f] : instance.value(attributes[f]);
+            }
+            target[row++] = instance.classValue();
+        }
+
+        fit(columns, target);
+        classIndex = data.classIndex();
+        featureAttributes = attributes;
+        fillValues = means;
+    }
+
+    /**
+     * Trains the forest on column-major data.
+     *
+     * @param columns One array of row values per feature; all of equal length.
+     * @param target  Target value of each row.
+     * @throws InterruptedException if the building thread is interrupted.
+     * @throws Exception            if a tree cannot be built.
+     */
+    public void fit(double[][] columns, double[] target) throws Exception {
+        fit(columns, new double[][]{target});
+    }
+
+    /**
+     * Trains the forest on column-major data with several targets per row.
+     *
+     * @param columns One array of row values per feature; all of equal length.
+     * @param targets One array of row values per target; all of the same length as the columns.
+     * @throws InterruptedException if the building thread is interrupted.
+     * @throws Exception            if a tree cannot be built.
+     */
+    public void fit(double[][] columns, double[][] targets) throws Exception {
+        if (targets.length == 0) throw new IllegalArgumentException("No targets");
+        int n = targets[0].length;
+        if (n == 0) throw new IllegalArgumentException("No training rows");
+        for (double[] column : columns) {
+            if (column.length != n) throw new IllegalArgumentException("Columns and targets differ in length");
+        }
+        double[] outputScales = new double[targets.length];
+        for (int o = 0; o < targets.length; o++) {
+            if (targets[o].length != n) throw new IllegalArgumentException("Columns and targets differ in length");
+            // Weight each target by its inverse variance, so all targets count equally in a split
+            double variance = variance(targets[o]);
+            outputScales[o] = variance > 0 ? 1.0 / variance : 1.0;
+        }
+
+        // Sort every feature once; each tree keeps these orders partitioned per node
+        int[][] presorted = new int[columns.length][];
+        for (int f = 0; f < columns.length; f++) {
+            presorted[f] = sortedRows(columns[f]);
+        }
+
+        Tree[] built = new Tree[numTrees];
+        if (executionSlots == 1) {
+            for (int t = 0; t < numTrees; t++) {
+                if (Thread.interrupted()) throw new InterruptedException("Forest training interrupted");
+                built[t] = new TreeBuilder(columns, targets, outputScales, presorted, seed + t).build();
+            }
+        } else {
+            ExecutorService treePool = Executors.newFixedThreadPool(executionSlots);
+            try {
+                List<Future<Tree>> futures = new ArrayList<>(numTrees);
+                for (int t = 0; t < numTrees; t++) {
+                    long treeSeed = seed + t;
+                    futures.add(treePool.submit(() -> new TreeBuilder(columns, targets, outputScales, presorted, treeSeed).build()));
+                }
+                for (int t = 0; t < numTrees; t++) {
+                    built[t] = futures.get(t).get();
+                }
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof Exception) throw (Exception) cause;
+                throw e;
+            } finally {
+                // Also reached on interrupt: queued trees are dropped
+                treePool.shutdownNow();
+            }
+        }
+
+        trees = built;
+        numOutputs = targets.length;
+        classIndex = -1;
+        featureAttributes = null;
+        fillValues = null;
+    }
+
+    /**
+     * Predicts the mean over all trees of the first (or only) target.
+     *
+     * @param features One value per feature column, in training order.
+     * @return The predicted target value.
+     */
+    public double predict(double[] features) {
+        return predictAll(features)[0];
+    }
+
+    /**
+     * Predicts the mean over all trees of every target.
+     *
+     * @param features One value per feature column, in training order.
+     * @return One prediction per target.
+     */
+    public double[] predictAll(double[] features) {
+        requireTrees();
+        double[] sums = new double[numOutputs];
+        for (Tree tree : trees) {
+            int leaf = tree.leafOf(features);
+            for (int o = 0; o < numOutputs; o++) {
+                sums[o] += tree.output[leaf * numOutputs + o];
+            }
+        }
+        for (int o = 0; o < numOutputs; o++) {
+            sums[o] /= trees.length;
+        }
+        return sums;
+    }
+
+    /**
+     * Returns the prediction of each tree for the first (or only) target.
+     *
+     * @param features One value per feature column, in training order.
+     * @return One prediction per tree.
+     */
+    public double[] treePredictions(double[] features) {
+        return treePredictionsAll(features)[0];
+    }
+
+    /**
+     * Returns the prediction of each tree for every target.
+     *
+     * @param features One value per feature column, in training order.
+     * @return {@code [target][tree]} predictions.
+     */
+    public double[][] treePredictionsAll(double[] features) {
+        requireTrees();
+        double[][] predictions = new double[numOutputs][trees.length];
+        for (int t = 0; t < trees.length; t++) {
+            int leaf = trees[t].leafOf(features);
+            for (int o = 0; o < numOutputs; o++) {
+                predictions[o][t] = trees[t].output[leaf * numOutputs + o];
+            }
+        }
+        return predictions;
+    }
+
+    /**
+     * Returns the number of targets the forest was trained on.
+     *
+     * @return The number of targets, or 0 before training.
+     */
+    public int getNumOutputs() {
+        return numOutputs;
+    }
+
+    /**
+     * Returns the prediction of each tree for an instance of the training layout.
+     *
+     * @param instance The instance to predict.
+     * @return One prediction per tree.
+     */
+    public double[] treePredictions(Instance instance) {
+        return treePredictions(features(instance));
+    }
+
+    @Override
+    public double classifyInstance(Instance instance) {
+        return predict(features(instance));
+    }
+
+    /**
+     * Returns the options that define the model, so differently configured forests get different
+     * {@link ModelCache} keys. Execution slots are listed but ignored by the cache.
+     */
+    @Override
+    public String[] getOptions() {
+        return new String[]{
+                "-I", String.valueOf(numTrees),
+                "-depth", String.valueOf(maxDepth),
+                "-K", String.valueOf(numFeatures),
+                "-S", String.valueOf(seed),
+                "-num-slots", String.valueOf(executionSlots)
+        };
+    }
+
+    public int getNumTrees() { return numTrees; }
+    public int getMaxDepth() { return maxDepth; }
+    public int getNumFeatures() { return numFeatures; }
+
+    @Override
+    public String toString() {
+        if (trees == null) return "NativeRandomForest: not built";
+        int nodes = 0;
+        for (Tree tree : trees) nodes += tree.feature.length;
+        return String.format("NativeRandomForest: %d trees, %d nodes", trees.length, nodes);
+    }
+
+    private double[] features(Instance instance) {
+        if (featureAttributes == null) throw new IllegalStateException("Forest was not built from Weka data");
+        double[] features = new double[featureAttributes.length];
+        for (int f = 0; f < features.length; f++) {
+            int a = featureAttributes[f];
+            features[f] = instance.isMissing(a) ? fillValues[f] : instance.value(a);
+        }
+        return features;
+    }
+
+    /**
+     * Returns the row indices of a column ordered by value, equal values in row order. A bottom-up
+     * merge sort on primitive indices, so no row is boxed; runs that are already in order (common
+     * for price series) are not merged.
+     */
+    static int[] sortedRows(double[] column) {
+        int n = column.length;
+        int[] rows = new int[n];
+        for (int i = 0; i < n; i++) rows[i] = i;
+        int[] buffer = new int[n];
+        for (int width = 1; width < n; width *= 2) {
+            for (int lo = 0; lo < n - width; lo += 2 * width) {
+                int mid = lo + width;
+                int hi = Math.min(lo + 2 * width, n);
+                if (Double.compare(column[rows[mid - 1]], column[rows[mid]]) <= 0) continue;
+                System.arraycopy(rows, lo, buffer, lo, hi - lo);
+                int i = lo, j = mid, k = lo;
+                while (i < mid && j < hi) {
+                    // Take from the right run only if strictly smaller, so equal values keep their order
+                    rows[k++] = Double.compare(column[buffer[j]], column[buffer[i]]) < 0 ? buffer[j++] : buffer[i++];
+                }
+                while (i < mid) rows[k++] = buffer[i++];
+                while (j < hi) rows[k++] = buffer[j++];
+            }
+        }
+        return rows;
+    }
+
+    private static double variance(double[] values) {
+        double mean = 0.0;
+        for (double v : values) mean += v / values.length;
+        double sumSq = 0.0;
+        for (double v : values) sumSq += (v - mean) * (v - mean);
+        return sumSq / values.length;
+    }
+
+    private void requireTrees() {
+        if (trees == null) throw new IllegalStateException("Forest has not been built");
+    }
+
+    /**
+     * A trained tree as flat arrays. Node 0 is the root; {@code feature[node] < 0} marks a leaf,
+     * whose predictions are {@code output[node * numOutputs + o]}. Inner nodes send
+     * {@code x[feature] <= threshold} left.
+     */
+    private static class Tree implements Serializable {
+        private static final long serialVersionUID = 2L;
+
+        private final int[] feature;
+        private final double[] threshold;
+        private final int[] left;
+        private final int[] right;
+        private final double[] output;
+
+        Tree(int[] feature, double[] threshold, int[] left, int[] right, double[] output) {
+            this.feature = feature;
+            this.threshold = threshold;
+            this.left = left;
+            this.right = right;
+            this.output = output;
+        }
+
+        int leafOf(double[] x) {
+            int node = 0;
+            while (feature[node] >= 0) {
+                node = x[feature[node]] <= threshold[node] ? left[node] : right[node];
+            }
+            return node;
+        }
+    }
+
+    /**
+     * Grows one tree on a bootstrap sample. Every feature's in-bag rows are kept in sorted order,
+     * and each node owns the same range {@code [start, end)} of every feature's array; splitting
+     * a node stably partitions that range into its left and right child.
+     */
+    private class TreeBuilder {
+        private final double[][] columns;
+        private final double[][] targets;
+        private final double[] outputScales;
+        private final int outputs;
+        private final Random random;
+        private final int[] weights;        // bootstrap count per row
+        private final int[][] sorted;       // in-bag rows per feature, sorted within each node range
+        private final boolean[] goesLeft;   // scratch: side of each row in the current split
+        private final int[] buffer;         // scratch: right-hand rows during partitioning
+        private final int[] featureOrder;   // scratch: random feature permutation
+        private final double[] leftSums;    // scratch: per-target sums left of a candidate split
+        private final int featuresPerSplit;
+        private double minImpurity;
+
+        private int[] nodeFeature = new int[16];
+        private double[] nodeThreshold = new double[16];
+        private int[] nodeLeft = new int[16];
+        private int[] nodeRight = new int[16];
+        private double[] nodeOutput;
+        private int numNodes;
+
+        TreeBuilder(double[][] columns, double[][] targets, double[] outputScales, int[][] presorted, long treeSeed) {
+            this.columns = columns;
+            this.targets = targets;
+            this.outputScales = outputScales;
+            this.outputs = targets.length;
+            this.random = new Random(treeSeed);
+            int n = targets[0].length;
+            int d = columns.length;
+
+            weights = new int[n];
+            for (int i = 0; i < n; i++) {
+                weights[random.nextInt(n)]++;
+            }
+            int inBag = 0;
+            for (int w : weights) {
+                if (w > 0) inBag++;
+            }
+            sorted = new int[d][inBag];
+            for (int f = 0; f < d; f++) {
+                int k = 0;
+                for (int row : presorted[f]) {
+                    if (weights[row] > 0) sorted[f][k++] = row;
+                }
+            }
+
+            goesLeft = new boolean[n];
+            buffer = new int[inBag];
+            featureOrder = new int[d];
+            for (int f = 0; f < d; f++) featureOrder[f] = f;
+            leftSums = new double[outputs];
+            nodeOutput = new double[16 * outputs];
+            int k = numFeatures > 0 ? numFeatures : (int) (Math.log(d) / Math.log(2)) + 1;
+            featuresPerSplit = Math.max(1, Math.min(d, k));
+        }
+
+        Tree build() {
+            buildNode(0, buffer.length, 0);
+            return new Tree(Arrays.copyOf(nodeFeature, numNodes), Arrays.copyOf(nodeThreshold, numNodes),
+                    Arrays.copyOf(nodeLeft, numNodes), Arrays.copyOf(nodeRight, numNodes),
+                    Arrays.copyOf(nodeOutput, numNodes * outputs));
+        }
+
+        private int buildNode(int start, int end, int depth) {
+            // Weighted sums of the node's rows, per target
+            int[] rows = sorted[0];
+            double weight = 0.0;
+            for (int i = start; i < end; i++) {
+                weight += weights[rows[i]];
+            }
+            double[] sums = new double[outputs];
+            double impurity = 0.0;  // Sum of the targets' scaled variances
+            for (int o = 0; o < outputs; o++) {
+                double[] y = targets[o];
+                double sum = 0.0, sumSq = 0.0;
+                for (int i = start; i < end; i++) {
+                    int w = weights[rows[i]];
+                    sum += w * y[rows[i]];
+                    sumSq += w * y[rows[i]] * y[rows[i]];
+                }
+                double mean = sum / weight;
+                sums[o] = sum;
+                impurity += outputScales[o] * Math.max(0.0, sumSq / weight - mean * mean);
+            }
+            if (depth == 0) {
+                minImpurity = MIN_VARIANCE_PROP * impurity;
+            }
+
+            int node = newNode(sums, weight);
+            if (weight < 2 * MIN_LEAF_WEIGHT || (maxDepth > 0 && depth >= maxDepth) || impurity <= minImpurity) {
+                return node;
+            }
+
+            // Scan random features until enough were tried and one of them improves the fit
+            double parentScore = 0.0;
+            for (int o = 0; o < outputs; o++) {
+                parentScore += outputScales[o] * sums[o] * sums[o] / weight;
+            }
+            double bestGain = 1e-12 * Math.max(1.0, Math.abs(parentScore));
+            int bestFeature = -1;
+            int bestCount = 0;
+            double bestThreshold = 0.0;
+            for (int tried = 0; tried < featureOrder.length && (tried < featuresPerSplit || bestFeature < 0); tried++) {
+                int swap = tried + random.nextInt(featureOrder.length - tried);
+                int f = featureOrder[swap];
+                featureOrder[swap] = featureOrder[tried];
+                featureOrder[tried] = f;
+
+                double[] x = columns[f];
+                int[] order = sorted[f];
+                double leftWeight = 0.0;
+                Arrays.fill(leftSums, 0.0);
+                for (int i = start; i < end - 1; i++) {
+                    int row = order[i];
+                    int w = weights[row];
+                    leftWeight += w;
+                    for (int o = 0; o < outputs; o++) {
+                        leftSums[o] += w * targets[o][row];
+                    }
+                    double value = x[row];
+                    double next = x[order[i + 1]];
+                    if (value >= next) continue;  // Only split between distinct values
+                    double rightWeight = weight - leftWeight;
+                    if (leftWeight < MIN_LEAF_WEIGHT || rightWeight < MIN_LEAF_WEIGHT) continue;
+
+                    double gain = -parentScore;
+                    for (int o = 0; o < outputs; o++) {
+                        double rightSum = sums[o] - leftSums[o];
+                        gain += outputScales[o] * (leftSums[o] * leftSums[o] / leftWeight + rightSum * rightSum / rightWeight);
+                    }
+                    if (gain > bestGain) {
+                        bestGain = gain;
+                        bestFeature = f;
+                        bestCount = i + 1 - start;
+                        bestThreshold = (value + next) / 2.0;
+                    }
+                }
+            }
+            if (bestFeature < 0) {
+                return node;
+            }
+
+            // Stable partition of every feature's range into left and right rows
+            double[] splitColumn = columns[bestFeature];
+            for (int i = start; i < end; i++) {
+                int row = sorted[bestFeature][i];
+                goesLeft[row] = splitColumn[row] <= bestThreshold;
+            }
+            for (int[] order : sorted) {
+                int l = start, r = 0;
+                for (int i = start; i < end; i++) {
+                    int row = order[i];
+                    if (goesLeft[row]) {
+                        order[l++] = row;
+                    } else {
+                        buffer[r++] = row;
+                    }
+                }
+                System.arraycopy(buffer, 0, order, l, r);
+            }
+
+            int split = start + bestCount;
+            nodeFeature[node] = bestFeature;
+            nodeThreshold[node] = bestThreshold;
+            int leftChild = buildNode(start, split, depth + 1);
+            int rightChild = buildNode(split, end, depth + 1);
+            nodeLeft[node] = leftChild;
+            nodeRight[node] = rightChild;
+            return node;
+        }
+
+        /**
+         * Appends a node as a leaf predicting the per-target means; splitting turns it into an inner node.
+         */
+        private int newNode(double[] sums, double weight) {
+            if (numNodes == nodeFeature.length) {
+                int capacity = numNodes * 2;
+                nodeFeature = Arrays.copyOf(nodeFeature, capacity);
+                nodeThreshold = Arrays.copyOf(nodeThreshold, capacity);
+                nodeLeft = Arrays.copyOf(nodeLeft, capacity);
+                nodeRight = Arrays.copyOf(nodeRight, capacity);
+                nodeOutput = Arrays.copyOf(nodeOutput, capacity * outputs);
+            }
+            nodeFeature[numNodes] = -1;
+            for (int o = 0; o < outputs; o++) {
+                nodeOutput[numNodes * outputs + o] = sums[o] / weight;
+            }
+            return numNodes++;
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.myapp;
+
+import weka.classifiers.AbstractClassifier;
+import weka.classifiers.UpdateableClassifier;
+import weka.core.Capabilities;
+import weka.core.Capabilities.Capability;
+import weka.core.Instance;
+import weka.core.Instances;
+
+/**
+ * Online linear regression trained with recursive least squares (RLS).
+ *
+ * <p>Implements Weka's {@link UpdateableClassifier}, so the model can be built once on an
+ * initial dataset and then updated one {@link Instance} at a time. Each update costs
+ * O(d²) arithmetic on d features and no allocation, which keeps per-row update latency
+ * in the microsecond range.</p>
+ *
+ * <p>Features and target are standardized with the means and standard deviations of the
+ * initial training data; those scales stay frozen afterwards so that updates remain
+ * consistent with earlier ones. A forgetting factor slightly below 1 gives recent rows more
+ * weight than old ones, which suits drifting price series.</p>
+ */
+public class OnlineLinearRegression extends AbstractClassifier implements UpdateableClassifier {
+
+    private static final long serialVersionUID = 1L;
+
+    // Initial inverse-covariance scale; acts as a weak ridge prior on the weights
+    private static final double INITIAL_P = 100.0;
+
+    private final double forgettingFactor;
+
+    private int classIndex;
+    private int numFeatures;
+    private double[] featureMeans;
+    private double[] featureScales;
+    private double classMean;
+    private double classScale;
+
+    private double[] weights;  // [intercept, w_1..w_d]
+    private double[][] p;      // inverse covariance estimate
+    private double[] x;        // scratch: augmented standardized input
+    private double[] px;       // scratch: P * x
+    private long numUpdates;
+
+    /**
+     * Creates a model with a forgetting factor of 0.98.
+     */
+    public OnlineLinearRegression() {
+        this(0.98);
+    }
+
+    /**
+     * Creates a model with the given forgetting factor.
+     *
+     * @param forgettingFactor Weight decay applied to past rows on every update, in (0, 1].
+     */
+    public OnlineLinearRegression(double forgettingFactor) {
+        if (forgettingFactor <= 0 || forgettingFactor > 1) {
+            throw new IllegalArgumentException("Forgetting factor must be in (0, 1]");
+        }
+        this.forgettingFactor = forgettingFactor;
+    }
+
+    @Override
+    public Capabilities getCapabilities() {
+        Capabilities result = super.getCapabilities();
+        result.disableAll();
+        result.enable(Capability.NUMERIC_ATTRIBUTES);
+        result.enable(Capability.NUMERIC_CLASS);
+        result.enable(Capability.MISSING_CLASS_VALUES);
+        return result;
+    }
+
+    /**
+     * Fits feature scales on the dataset and trains the weights from scratch by
+     * replaying every row through the RLS update.
+     *
+     * @param data Training data with a numeric class attribute.
+     * @throws Exception if the data is not supported.
+     */
+    @Override
+    public void buildClassifier(Instances data) throws Exception {
+        getCapabilities().testWithFail(data);
+
+        classIndex = data.classIndex();
+        numFeatures = data.numAttributes() - 1;
+        featureMeans = new double[numFeatures];
+        featureScales = new double[numFeatures];
+
+        int f = 0;
+        for (int a = 0; a < data.numAttributes(); a++) {
+            if (a == classIndex) continue;
+            featureMeans[f] = data.meanOrMode(a);
+            featureScales[f] = scaleOf(data.variance(a));
+            f++;
+        }
+        classMean = data.meanOrMode(classIndex);
+        classScale = scaleOf(data.variance(classIndex));
+
+        int dim = numFeatures + 1;
+        weights = new double[dim];
+        p = new double[dim][dim];
+        for (int i = 0; i < dim; i++) {
+            p[i][i] = INITIAL_P;
+        }
+        x = new double[dim];
+        px = new double[dim];
+        numUpdates = 0;
+
+        for (int i = 0; i < data.numInstances(); i++) {
+            updateClassifier(data.instance(i));
+        }
+    }
+
+    /**
+     * Folds one new row into the model.
+     *
+     * @param instance A row with the same attribute layout as the training data.
+     */
+    @Override
+    public void updateClassifier(Instance instance) {
+        if (weights == null) throw new IllegalStateException("Model has not been built");
+        if (instance.classIsMissing()) return;
+
+        loadFeatures(instance);
+        double target = (instance.value(classIndex) - classMean) / classScale;
+        int dim = x.length;
+
+        // px = P x, denominator = lambda + x' P x
+        double denominator = forgettingFactor;
+        for (int i = 0; i < dim; i++) {
+            double sum = 0.0;
+            for (int j = 0; j < dim; j++) {
+                sum += p[i][j] * x[j];
+            }
+            px[i] = sum;
+            denominator += x[i] * sum;
+        }
+
+        double error = target - dot(weights, x);
+
+        // w += k * error with k = px / denominator; P = (P - k px') / lambda
+        for (int i = 0; i < dim; i++) {
+            double k = px[i] / denominator;
+            weights[i] += k * error;
+            for (int j = 0; j < dim; j++) {
+                p[i][j] = (p[i][j] - k * px[j]) / forgettingFactor;
+            }
+        }
+        numUpdates++;
+    }
+
+    /**
+     * Predicts the target value for an instance.
+     *
+     * @param instance The instance to predict.
+     * @return The predicted class value in original units.
+     */
+    @Override
+    public double classifyInstance(Instance instance) {
+        if (weights == null) throw new IllegalStateException("Model has not been built");
+        double[] input = new double[weights.length];
+        input[0] = 1.0;
+        int f = 0;
+        for (int a = 0; a < instance.numAttributes(); a++) {
+            if (a == classIndex) continue;
+            input[f + 1] = (instance.value(a) - featureMeans[f]) / featureScales[f];
+            f++;
+        }
+        return dot(weights, input) * classScale + classMean;
+    }
+
+    /**
+     * Returns the number of rows folded into the model since it was last built.
+     *
+     * @return The number of updates.
+     */
+    public long getNumUpdates() {
+        return numUpdates;
+    }
+
+    @Override
+    public String toString() {
+        if (weights == null) return "OnlineLinearRegression: not built";
+        return String.format("OnlineLinearRegression: %d features, %d updates, lambda=%.3f",
+                numFeatures, numUpdates, forgettingFactor);
+    }
+
+    private void loadFeatures(Instance instance) {
+        x[0] = 1.0;
+        int f = 0;
+        for (int a = 0; a < instance.numAttributes(); a++) {
+            if (a == classIndex) continue;
+            x[f + 1] = (instance.value(a) - featureMeans[f]) / featureScales[f];
+            f++;
+        }
+    }
+
+    private static double scaleOf(double variance) {
+        double std = Math.sqrt(variance);
+        return (Double.isNaN(std) || std == 0.0) ? 1.0 : std;
+    }
+
+    private static double dot(double[] a, double[] b) {
+        double sum = 0.0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,169 @@
+package com.myapp;
+
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.SerializationHelper;
+
+import java.io.File;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@code OnlineModelStore} keeps one {@link OnlineLinearRegression} per coin warm in memory and
+ * on disk, and feeds it only the rows that were appended since its last update.
+ *
+ * <p>The feature pipeline returns a sliding window of rows, so the store remembers the last
+ * row each model has seen. On the next call it locates that row in the new dataset and
+ * updates the model with the rows after it. If the row is no longer present (the gap was
+ * larger than the window) or the attribute layout changed, the model is rebuilt from the
+ * whole dataset.</p>
+ */
+public class OnlineModelStore {
+    // Default directory for serialized model state
+    private static final String MODEL_DIR = "data/cache/models";
+    private static final String FILE_PREFIX = "online_";
+
+    private final File modelDir;  // null for a memory-only store
+    private final Map<String, OnlineState> states = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a store backed by the default model directory.
+     */
+    public OnlineModelStore() {
+        this(new File(MODEL_DIR));
+    }
+
+    /**
+     * Creates a store backed by the given directory.
+     *
+     * @param modelDir Directory for serialized model state. Created if missing.
+     */
+    public OnlineModelStore(File modelDir) {
+        this.modelDir = modelDir;
+        if (modelDir != null && !modelDir.exists()) {
+            modelDir.mkdirs();
+        }
+    }
+
+    /**
+     * Creates a store that keeps model state in memory only.
+     *
+     * @return A new memory-only store.
+     */
+    public static OnlineModelStore memoryOnly() {
+        return new OnlineModelStore((File) null);
+    }
+
+    /**
+     * Brings the coin's model up to date with the dataset and returns it.
+     * Only rows appended since the previous call are folded in. The returned model is shared
+     * with later calls; synchronize on it while using it, as updates do.
+     *
+     * @param symbol The coin symbol (e.g., "BTC").
+     * @param data   The current feature dataset, oldest row first, with its class attribute set.
+     * @return The up-to-date model.
+     * @throws Exception if the model cannot be built.
+     */
+    public OnlineLinearRegression update(String symbol, Instances data) throws Exception {
+        OnlineState state = states.computeIfAbsent(symbol, this::load);
+
+        synchronized (state) {
+            int firstNew = state.firstNewRow(data);
+            if (firstNew < 0) {
+                // Unknown model, changed layout, or gap wider than the window: rebuild
+                OnlineLinearRegression model = new OnlineLinearRegression();
+                model.buildClassifier(data);
+                state.model = model;
+                state.numAttributes = data.numAttributes();
+                state.classIndex = data.classIndex();
+            } else {
+                // Runs may still be classifying with this model; they lock the model itself, so
+                // the in-place update takes the same monitor. A rebuilt model is new and unshared.
+                synchronized (state.model) {
+                    for (int i = firstNew; i < data.numInstances(); i++) {
+                        state.model.updateClassifier(data.instance(i));
+                    }
+                }
+            }
+
+            boolean changed = firstNew != data.numInstances();
+            state.lastRow = data.lastInstance().toDoubleArray();
+            if (changed) {
+                save(symbol, state);
+            }
+            return state.model;
+        }
+    }
+
+    /**
+     * Removes all model state from memory and disk.
+     */
+    public void clear() {
+        states.clear();
+        if (modelDir == null) return;
+        File[] files = modelDir.listFiles((dir, name) -> name.startsWith(FILE_PREFIX));
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+    }
+
+    private OnlineState load(String symbol) {
+        if (modelDir == null) return new OnlineState();
+        File file = fileFor(symbol);
+        if (file.exists()) {
+            try {
+                return (OnlineState) SerializationHelper.read(file.getPath());
+            } catch (Exception e) {
+                System.err.println("Error reading online model for " + symbol + ": " + e.getMessage());
+            }
+        }
+        return new OnlineState();
+    }
+
+    private void save(String symbol, OnlineState state) {
+        if (modelDir == null) return;
+        try {
+            SerializationHelper.write(fileFor(symbol).getPath(), state);
+        } catch (Exception e) {
+            System.err.println("Failed to write online model for " + symbol + ": " + e.getMessage());
+        }
+    }
+
+    private File fileFor(String symbol) {
+        return new File(modelDir, FILE_PREFIX + symbol + ".model");
+    }
+
+    /**
+     * Per-coin model together with the last row it was updated with.
+     */
+    private static class OnlineState implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private OnlineLinearRegression model;
+        private double[] lastRow;
+        private int numAttributes;
+        private int classIndex;
+
+        /**
+         * Returns the index of the first row the model has not seen yet, or -1 if the model
+         * has to be rebuilt from scratch.
+         */
+        int firstNewRow(Instances data) {
+            if (model == null || lastRow == null
+                    || numAttributes != data.numAttributes() || classIndex != data.classIndex()) {
+                return -1;
+            }
+            for (int i = data.numInstances() - 1; i >= 0; i--) {
+                Instance row = data.instance(i);
+                if (Arrays.equals(lastRow, row.toDoubleArray())) {
+                    return i + 1;
+                }
+            }
+            return -1;
+        }
+    }
+}
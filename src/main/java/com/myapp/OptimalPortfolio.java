@@ -0,0 +1,145 @@
+package com.myapp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Long-only allocation found by {@link PortfolioOptimizer}, with its expected daily log return and
+ * daily volatility.
+ *
+ * <p>Weights sum to one. {@link #targetAmounts(double, Map)} and
+ * {@link #rebalancingTrades(Map, double, Map)} turn them into coin amounts that the trading layer
+ * can execute with {@link Portfolio#buyCrypto(String, double, double)} and
+ * {@link Portfolio#sellCrypto(String, double, double)}.</p>
+ */
+public class OptimalPortfolio {
+    private final List<String> symbols;
+    private final double[] weights;
+    private final double expectedReturn;
+    private final double volatility;
+
+    /**
+     * Creates an allocation.
+     *
+     * @param symbols        Coin symbols, in weight order.
+     * @param weights        Non-negative weight per coin, summing to one.
+     * @param expectedReturn Expected daily log return of the allocation.
+     * @param volatility     Standard deviation of the allocation's daily log return.
+     */
+    public OptimalPortfolio(List<String> symbols, double[] weights, double expectedReturn, double volatility) {
+        if (symbols.size() != weights.length) throw new IllegalArgumentException("Need one weight per symbol");
+        this.symbols = List.copyOf(symbols);
+        this.weights = weights.clone();
+        this.expectedReturn = expectedReturn;
+        this.volatility = volatility;
+    }
+
+    public double getExpectedReturn() { return expectedReturn; }
+    public double getVolatility() { return volatility; }
+
+    /**
+     * Returns the weight of every coin.
+     *
+     * @return Unmodifiable map from symbol to weight, in symbol order.
+     */
+    public Map<String, Double> getWeights() {
+        Map<String, Double> result = new LinkedHashMap<>();
+        for (int i = 0; i < weights.length; i++) {
+            result.put(symbols.get(i), weights[i]);
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * Returns the weight of one coin.
+     *
+     * @param symbol The coin symbol (e.g., "BTC").
+     * @return Its weight, or 0.0 if the coin was not part of the optimization.
+     */
+    public double getWeight(String symbol) {
+        int index = symbols.indexOf(symbol);
+        return index < 0 ? 0.0 : weights[index];
+    }
+
+    /**
+     * Converts the weights into coin amounts for a given capital.
+     *
+     * @param capital Fiat value to allocate.
+     * @param prices  Current price per symbol.
+     * @return Map from symbol to coin amount, for coins with a positive weight.
+     * @throws IllegalArgumentException if a coin with a positive weight has no valid price.
+     */
+    public Map<String, Double> targetAmounts(double capital, Map<String, Double> prices) {
+        Map<String, Double> amounts = new LinkedHashMap<>();
+        for (int i = 0; i < weights.length; i++) {
+            if (weights[i] <= 0.0) continue;
+            amounts.put(symbols.get(i), capital * weights[i] / priceOf(symbols.get(i), prices));
+        }
+        return amounts;
+    }
+
+    /**
+     * Computes the trades that move current holdings to this allocation.
+     *
+     * @param holdings Current coin amount per symbol; coins outside the allocation are sold.
+     * @param capital  Fiat value the target allocation should have.
+     * @param prices   Current price per symbol.
+     * @return Map from symbol to coin amount to trade: positive to buy, negative to sell.
+     */
+    public Map<String, Double> rebalancingTrades(Map<String, Double> holdings, double capital, Map<String, Double> prices) {
+        Map<String, Double> trades = new LinkedHashMap<>();
+        Map<String, Double> targets = targetAmounts(capital, prices);
+        for (Map.Entry<String, Double> target : targets.entrySet()) {
+            double delta = target.getValue() - holdings.getOrDefault(target.getKey(), 0.0);
+            if (delta != 0.0) trades.put(target.getKey(), delta);
+        }
+        for (Map.Entry<String, Double> held : holdings.entrySet()) {
+            if (!targets.containsKey(held.getKey()) && held.getValue() > 0.0) {
+                trades.put(held.getKey(), -held.getValue());
+            }
+        }
+        return trades;
+    }
+
+    /**
+     * Turns {@link #rebalancingTrades(Map, double, Map)} into orders for
+     * {@link Portfolio#executeBatch(List, Map)}, sells first.
+     *
+     * @param holdings Current coin amount per symbol; coins outside the allocation are sold.
+     * @param capital  Fiat value the target allocation should have.
+     * @param prices   Current price per symbol.
+     * @return The rebalancing orders.
+     */
+    public List<Order> rebalancingOrders(Map<String, Double> holdings, double capital, Map<String, Double> prices) {
+        List<Order> sells = new ArrayList<>();
+        List<Order> buys = new ArrayList<>();
+        for (Map.Entry<String, Double> trade : rebalancingTrades(holdings, capital, prices).entrySet()) {
+            double delta = trade.getValue();
+            if (delta < 0) sells.add(new Order(trade.getKey(), OrderSide.SELL, -delta));
+            else buys.add(new Order(trade.getKey(), OrderSide.BUY, delta));
+        }
+        sells.addAll(buys);
+        return sells;
+    }
+
+    private static double priceOf(String symbol, Map<String, Double> prices) {
+        Double price = prices.get(symbol);
+        if (price == null || price <= 0) throw new IllegalArgumentException("Missing or invalid price for " + symbol);
+        return price;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder(String.format("Return %+.3f%%/day, volatility %.3f%%/day:",
+                expectedReturn * 100, volatility * 100));
+        for (int i = 0; i < weights.length; i++) {
+            if (weights[i] >= 0.0005) {
+                text.append(String.format(" %s %.1f%%", symbols.get(i), weights[i] * 100));
+            }
+        }
+        return text.toString();
+    }
+}
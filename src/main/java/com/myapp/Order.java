@@ -0,0 +1,103 @@
+package com.myapp;
+
+/**
+ * A market order for {@link Portfolio#executeBatch(java.util.List)}.
+ *
+ * <p>The amount is either a coin amount or, for a fiat-denominated order, the fiat value to trade;
+ * the batch converts it to coins at its price snapshot. After execution the order carries the price
+ * and coin amount it executed at.</p>
+ */
+public class Order {
+    private final String symbol;
+    private final OrderSide side;
+    private final double amount;
+    private final boolean fiatDenominated;
+    private volatile double fillPrice = Double.NaN;
+    private volatile double filledAmount;
+
+    /**
+     * Constructs an order for a coin amount.
+     *
+     * @param symbol The symbol of the cryptocurrency (e.g., "BTC").
+     * @param side   Buy or sell.
+     * @param amount The amount of cryptocurrency to trade.
+     */
+    public Order(String symbol, OrderSide side, double amount) {
+        this(symbol, side, amount, false);
+    }
+
+    /**
+     * Constructs an order.
+     *
+     * @param symbol          The symbol of the cryptocurrency (e.g., "BTC").
+     * @param side            Buy or sell.
+     * @param amount          The amount to trade, in coins or in fiat.
+     * @param fiatDenominated True if {@code amount} is a fiat value.
+     */
+    public Order(String symbol, OrderSide side, double amount, boolean fiatDenominated) {
+        if (symbol == null || symbol.isBlank()) throw new IllegalArgumentException("Symbol is required");
+        if (side == null) throw new IllegalArgumentException("Side is required");
+        if (amount <= 0) throw new IllegalArgumentException("Amount must be positive");
+        this.symbol = symbol;
+        this.side = side;
+        this.amount = amount;
+        this.fiatDenominated = fiatDenominated;
+    }
+
+    /**
+     * Parses one order line such as {@code "BUY BTC 0.5"} (coins) or {@code "SELL ETH $250"} (fiat).
+     *
+     * @param line The order text: side, symbol and amount separated by whitespace.
+     * @return The parsed order.
+     * @throws IllegalArgumentException If the line is not a valid order.
+     */
+    public static Order parse(String line) {
+        String[] parts = line.trim().split("\\s+");
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Expected \"BUY|SELL SYMBOL AMOUNT\", got: " + line.trim());
+        }
+        OrderSide side;
+        try {
+            side = OrderSide.valueOf(parts[0].toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown order side: " + parts[0]);
+        }
+        boolean fiat = parts[2].startsWith("$");
+        double amount = Double.parseDouble(fiat ? parts[2].substring(1) : parts[2]);
+        return new Order(parts[1].toUpperCase(), side, amount, fiat);
+    }
+
+    public String getSymbol() { return symbol; }
+    public OrderSide getSide() { return side; }
+    public double getAmount() { return amount; }
+    public boolean isFiatDenominated() { return fiatDenominated; }
+
+    /**
+     * Returns the price the order executed at.
+     *
+     * @return The fill price, or NaN while the order has not executed.
+     */
+    public double getFillPrice() { return fillPrice; }
+
+    /**
+     * Returns the coin amount the order executed.
+     *
+     * @return The filled coin amount, or 0 while the order has not executed.
+     */
+    public double getFilledAmount() { return filledAmount; }
+
+    public boolean isFilled() { return !Double.isNaN(fillPrice); }
+
+    void markFilled(double price, double coins) {
+        this.filledAmount = coins;
+        this.fillPrice = price;
+    }
+
+    @Override
+    public String toString() {
+        String text = fiatDenominated
+                ? String.format("%s $%.2f of %s", side, amount, symbol)
+                : String.format("%s %.8f %s", side, amount, symbol);
+        return isFilled() ? text + String.format(" filled %.8f at $%.4f", filledAmount, fillPrice) : text;
+    }
+}
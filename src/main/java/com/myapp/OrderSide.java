@@ -0,0 +1,8 @@
+package com.myapp;
+
+/**
+ * Direction of an order.
+ */
+public enum OrderSide {
+    BUY, SELL
+}
@@ -0,0 +1,103 @@
+package com.myapp;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * The realized gains of a {@link Portfolio}, with totals kept up to date as gains are recorded.
+ *
+ * <p>The total, the total per coin and the total per calendar year of the sale are adjusted on every
+ * record, so they are read in O(1) per entry however long the history is, and a yearly tax report
+ * lists its gains in one pass over the journal instead of replaying every trade. Years are taken in
+ * the system time zone.</p>
+ *
+ * <p>The portfolio records gains under the user's lock; all getters read concurrent collections and
+ * need no lock.</p>
+ */
+public class PnlLedger {
+    private final Queue<RealizedGain> gains = new ConcurrentLinkedQueue<>();
+    private final Map<String, Long> bySymbol = new ConcurrentHashMap<>();
+    private final Map<Integer, Long> byYear = new ConcurrentSkipListMap<>();
+    private volatile long totalCents;
+
+    void record(RealizedGain gain) {
+        gains.add(gain);
+        bySymbol.merge(gain.getSymbol(), gain.getGainCents(), Long::sum);
+        byYear.merge(yearOf(gain.getClosedAt()), gain.getGainCents(), Long::sum);
+        totalCents += gain.getGainCents();
+    }
+
+    /**
+     * Returns the total realized gain, negative for a net loss.
+     *
+     * @return The realized gain in fiat.
+     */
+    public double getRealizedPnl() {
+        return Money.fiat(totalCents);
+    }
+
+    public long getRealizedPnlCents() {
+        return totalCents;
+    }
+
+    /**
+     * Returns the realized gain of one coin.
+     *
+     * @param symbol The crypto symbol
+     * @return The realized gain in fiat, or 0.0 if nothing was realized
+     */
+    public double getRealizedPnl(String symbol) {
+        return Money.fiat(bySymbol.getOrDefault(symbol, 0L));
+    }
+
+    /**
+     * Returns the realized gain per calendar year of the sale.
+     *
+     * @return Sorted map of year to realized gain in fiat
+     */
+    public Map<Integer, Double> getRealizedPnlByYear() {
+        Map<Integer, Double> result = new TreeMap<>();
+        byYear.forEach((year, cents) -> result.put(year, Money.fiat(cents)));
+        return result;
+    }
+
+    /**
+     * Returns all realized gains in the order they were recorded.
+     *
+     * @return Unmodifiable copy of the journal
+     */
+    public List<RealizedGain> getGains() {
+        return Collections.unmodifiableList(new ArrayList<>(gains));
+    }
+
+    /**
+     * Returns the realized gains of one calendar year of sale, e.g. for a tax report.
+     *
+     * @param year The calendar year
+     * @return Unmodifiable list of the year's gains, in the order they were recorded
+     */
+    public List<RealizedGain> getGains(int year) {
+        List<RealizedGain> result = new ArrayList<>();
+        for (RealizedGain gain : gains) {
+            if (yearOf(gain.getClosedAt()) == year) result.add(gain);
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    public boolean isEmpty() {
+        return gains.isEmpty();
+    }
+
+    private static int yearOf(long epochMillis) {
+        return Instant.ofEpochMilli(epochMillis).atZone(ZoneId.systemDefault()).getYear();
+    }
+}
@@ -0,0 +1,157 @@
+package com.myapp;
+
+import weka.classifiers.Classifier;
+import weka.classifiers.meta.FilteredClassifier;
+import weka.core.Attribute;
+import weka.core.DenseInstance;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.Utils;
+import weka.filters.Filter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Cross-sectional forecaster that trains one RandomForest on the rows of all coins at once.
+ *
+ * <p>With a short lookback every coin has only a handful of rows, so training one forest per
+ * coin is both wasteful and statistically weak. Pooling works because price levels are removed
+ * first: every row of {@link LiveDataLoader#buildDataset(double[])} is turned into scale-free
+ * features relative to the previous price, and the target becomes the next-day return.</p>
+ *
+ * <ul>
+ *   <li>{@code Coin}: nominal attribute, so the forest can still learn coin-specific behaviour</li>
+ *   <li>{@code Return1}: previous day's return (missing on a coin's first row)</li>
+ *   <li>{@code MA3Gap}, {@code MA7Gap}: moving averages relative to the previous price, minus one</li>
+ *   <li>{@code RelVolatility3}: 3-day volatility divided by the previous price</li>
+ *   <li>{@code NextReturn}: target, the return from the previous price to the price</li>
+ * </ul>
+ *
+ * <p>The pooled model is trained once per run (or loaded from the {@link ModelCache}) and then
+ * forecasts the latest row of every coin in one batch: the rows are standardized together and
+ * each tree's return is converted back to a price for the confidence band. Training work drops
+ * by roughly the number of coins, and a universe of hundreds of coins still trains one forest.</p>
+ */
+public class PooledForecaster {
+    /** Symbol under which the pooled model is cached and its tuned parameters are stored. */
+    public static final String POOLED_KEY = "POOLED";
+
+    private final ModelCache modelCache;
+    private final ForestParams params;
+    private final int executionSlots;
+
+    /**
+     * Creates a pooled forecaster.
+     *
+     * @param modelCache     Cache used to reuse the pooled model on unchanged data.
+     * @param params         Hyperparameters of the pooled forest.
+     * @param executionSlots Number of threads the forest may use while training.
+     */
+    public PooledForecaster(ModelCache modelCache, ForestParams params, int executionSlots) {
+        this.modelCache = modelCache;
+        this.params = params;
+        this.executionSlots = executionSlots;
+    }
+
+    /**
+     * Trains the pooled model on every coin's rows and forecasts each coin's latest row.
+     *
+     * @param dataBySymbol Each coin's feature dataset from {@link LiveDataLoader}, keyed by symbol.
+     * @return One forecast per coin, in symbol order (not ranked).
+     * @throws Exception If training or prediction fails.
+     */
+    public List<CoinForecast> forecastAll(Map<String, Instances> dataBySymbol) throws Exception {
+        if (dataBySymbol.isEmpty()) throw new IllegalArgumentException("No coin data to pool");
+        List<String> symbols = new ArrayList<>(new TreeSet<>(dataBySymbol.keySet()));
+        Instances training = buildPooledDataset(dataBySymbol, symbols);
+        Classifier model = modelCache.getOrBuild(POOLED_KEY, training, params.newModel(executionSlots));
+
+        // The latest row of every coin, forecast in one batch
+        Instances latestRows = new Instances(training, symbols.size());
+        for (String symbol : symbols) {
+            Instances data = dataBySymbol.get(symbol);
+            latestRows.add(pooledRow(data, data.numInstances() - 1, symbol, training));
+        }
+
+        List<CoinForecast> forecasts = new ArrayList<>(symbols.size());
+        synchronized (model) {
+            // Cached models are shared between runs, so inference must not interleave
+            FilteredClassifier filtered = (FilteredClassifier) model;
+            SpreadRandomForest forest = (SpreadRandomForest) filtered.getClassifier();
+            Instances standardized = Filter.useFilter(latestRows, filtered.getFilter());
+
+            for (int i = 0; i < symbols.size(); i++) {
+                Instances data = dataBySymbol.get(symbols.get(i));
+                Instance latest = data.lastInstance();
+                double previousPrice = latest.value(data.attribute("PrevPrice"));
+                double currentPrice = latest.value(data.classIndex());
+
+                double[] treeReturns = forest.treePredictions(standardized.instance(i));
+                double[] treePrices = new double[treeReturns.length];
+                for (int t = 0; t < treeReturns.length; t++) {
+                    treePrices[t] = previousPrice * (1.0 + treeReturns[t]);
+                }
+                // A regression forest predicts the mean of its trees
+                double predictedPrice = previousPrice * (1.0 + Utils.mean(treeReturns));
+                forecasts.add(CryptoAdvisor.toForecast(symbols.get(i), currentPrice, predictedPrice, treePrices));
+            }
+        }
+        return forecasts;
+    }
+
+    /**
+     * Converts every coin's dataset to scale-free return features and stacks them into one
+     * dataset with the coin as a nominal attribute.
+     *
+     * @param dataBySymbol Each coin's feature dataset, keyed by symbol.
+     * @param symbols      The values of the {@code Coin} attribute, in a stable order.
+     * @return The pooled training dataset, with {@code NextReturn} as class.
+     */
+    static Instances buildPooledDataset(Map<String, Instances> dataBySymbol, List<String> symbols) {
+        ArrayList<Attribute> attributes = new ArrayList<>();
+        attributes.add(new Attribute("Coin", symbols));
+        attributes.add(new Attribute("Return1"));
+        attributes.add(new Attribute("MA3Gap"));
+        attributes.add(new Attribute("MA7Gap"));
+        attributes.add(new Attribute("RelVolatility3"));
+        attributes.add(new Attribute("NextReturn"));  // Target variable
+
+        int rows = 0;
+        for (Instances data : dataBySymbol.values()) rows += data.numInstances();
+        Instances pooled = new Instances("PooledCryptoReturns", attributes, rows);
+        pooled.setClassIndex(5);
+
+        for (String symbol : symbols) {
+            Instances data = dataBySymbol.get(symbol);
+            for (int r = 0; r < data.numInstances(); r++) {
+                pooled.add(pooledRow(data, r, symbol, pooled));
+            }
+        }
+        return pooled;
+    }
+
+    /**
+     * Converts one row of a coin's dataset to the pooled layout.
+     */
+    private static Instance pooledRow(Instances data, int row, String symbol, Instances header) {
+        Instance source = data.instance(row);
+        double previousPrice = source.value(data.attribute("PrevPrice"));
+
+        DenseInstance instance = new DenseInstance(header.numAttributes());
+        instance.setDataset(header);
+        instance.setValue(0, symbol);
+        if (row > 0) {
+            instance.setValue(1, previousPrice / data.instance(row - 1).value(data.attribute("PrevPrice")) - 1.0);
+        } else {
+            instance.setMissing(1);
+        }
+        instance.setValue(2, source.value(data.attribute("MA3")) / previousPrice - 1.0);
+        instance.setValue(3, source.value(data.attribute("MA7")) / previousPrice - 1.0);
+        instance.setValue(4, source.value(data.attribute("Volatility3")) / previousPrice);
+        instance.setValue(5, source.value(data.classIndex()) / previousPrice - 1.0);
+        return instance;
+    }
+}
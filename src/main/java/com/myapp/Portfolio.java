@@ -1,15 +1,51 @@
 package com.myapp;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
 
 /**
  * Represents a user's crypto portfolio, tracking owned cryptocurrencies and transactions.
+ *
+ * <p>The portfolio shares its {@link Account}'s lock, so a trade changes the balance and the
+ * holdings atomically and the trades of one user are serialized, while different users never
+ * contend. Getters do not lock: they read concurrent collections and may observe a trade
+ * that is still in progress, but never block it.</p>
+ *
+ * <p>Holdings, prices and cash are fixed-point {@link Money} units internally; the {@code double}
+ * methods convert at the boundary.</p>
+ *
+ * <p>Each holding is kept as the lots it was bought in. A sale relieves lots in the order of the
+ * portfolio's {@link CostBasisMethod} and records one {@link RealizedGain} per relieved lot in the
+ * {@link PnlLedger}; the cost of the remaining lots is a running total, so unrealized gains are
+ * computed without visiting the lots.</p>
+ *
+ * <p>After every trade a new immutable {@link PortfolioSnapshot} of the holdings, purchase prices
+ * and short positions is published. {@link #getSnapshot()}, {@link #getHoldings()},
+ * {@link #getPurchasePrices()} and {@link #getShortPositions()} return it, or its maps, without
+ * copying, and a reader that keeps one snapshot sees one consistent state.</p>
  */
 public class Portfolio {
     private final Account account;
-    private final Map<String, Double> holdings;  // Symbol -> Amount
-    private final Map<String, Double> purchasePrices;  // Symbol -> Average Purchase Price
-    private final Map<String, List<Position>> positions; // Symbol -> List of positions
+    private final ReentrantLock lock;
+    private final Map<String, BuyLots> holdings;  // Symbol -> open buy lots with running totals
+    private final Map<String, ShortLots> positions; // Symbol -> open short lots with running totals
+    private final PnlLedger ledger = new PnlLedger();
+    private volatile CostBasisMethod costBasisMethod = CostBasisMethod.FIFO;
+    // Replaced under the lock after every change to the lots; never modified
+    private volatile PortfolioSnapshot snapshot = PortfolioSnapshot.EMPTY;
+    // Told about every short open and close, so it can re-index the liquidation price
+    private volatile MarginEngine marginEngine;
+    // Resting limit orders per symbol, sorted by limit price
+    private final Map<String, ThresholdIndex<LimitOrder>> buyLimits = new HashMap<>();
+    private final Map<String, ThresholdIndex<LimitOrder>> sellLimits = new HashMap<>();
+    private final Map<Long, LimitOrder> openOrders = new ConcurrentSkipListMap<>();
+    private long nextOrderId = 1;
+    // Stop-loss, take-profit and trailing stop triggers per symbol
+    private final ExitTriggerBook exitTriggers = new ExitTriggerBook();
+    private long nextTriggerId = 1;
 
     /**
      * Creates a new portfolio linked to a user account.
@@ -17,9 +53,9 @@ public class Portfolio {
      */
     public Portfolio(Account account) {
         this.account = account;
-        this.holdings = new HashMap<>();
-        this.purchasePrices = new HashMap<>();
-        this.positions = new HashMap<>();
+        this.lock = account.getLock();
+        this.holdings = new ConcurrentHashMap<>();
+        this.positions = new ConcurrentHashMap<>();
     }
 
     /**
@@ -31,28 +67,242 @@ public class Portfolio {
     }
 
     /**
-     * Gets a copy of the current crypto holdings.
-     * @return Map of crypto symbol to amount held
+     * Gets the latest published snapshot of the holdings and short positions.
+     * @return The current snapshot; it never changes, later trades publish a new one
+     */
+    public PortfolioSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Gets the current crypto holdings from the latest snapshot.
+     * @return Unmodifiable map of crypto symbol to amount held
      */
     public Map<String, Double> getHoldings() {
-        return new HashMap<>(holdings);
+        return snapshot.getHoldings();
+    }
+
+    /**
+     * Gets the amount held of a coin in base units.
+     * @param symbol The crypto symbol
+     * @return The amount held in coin base units, or 0 if none
+     */
+    public long getHoldingUnits(String symbol) {
+        BuyLots lots = holdings.get(symbol);
+        return lots == null ? 0L : lots.totals().units;
     }
     
     /**
-     * Gets a copy of the average purchase prices for each holding.
-     * @return Map of crypto symbol to average purchase price
+     * Gets the average purchase price of the open lots of a coin in price units.
+     * @param symbol The crypto symbol
+     * @return The average purchase price in price units, or 0 if not held
+     */
+    public long getPurchasePriceUnits(String symbol) {
+        BuyLots lots = holdings.get(symbol);
+        if (lots == null) return 0L;
+        return lots.totals().averagePriceUnits();
+    }
+
+    /**
+     * Gets the average purchase prices for each holding from the latest snapshot.
+     * @return Unmodifiable map of crypto symbol to average purchase price
      */
     public Map<String, Double> getPurchasePrices() {
-        return new HashMap<>(purchasePrices);
+        return snapshot.getPurchasePrices();
     }
     
     /**
-     * Gets the average purchase price for a specific coin.
+     * Gets the average purchase price of the open lots of a coin, so that it changes with
+     * the lots a sale relieves.
      * @param symbol The crypto symbol
      * @return The average purchase price, or 0.0 if not found
      */
     public double getAveragePurchasePrice(String symbol) {
-        return purchasePrices.getOrDefault(symbol, 0.0);
+        return Money.price(getPurchasePriceUnits(symbol));
+    }
+
+    /**
+     * Gets what the open lots of a coin cost.
+     * @param symbol The crypto symbol
+     * @return The cost basis of the holding, or 0.0 if not held
+     */
+    public double getCostBasis(String symbol) {
+        BuyLots lots = holdings.get(symbol);
+        return lots == null ? 0.0 : Money.fiat(lots.totals().costCents);
+    }
+
+    /**
+     * Gets the open buy lots of a coin in purchase order. This visits every lot.
+     * @param symbol The crypto symbol
+     * @return A new list of lots; each lot's amount is what is left of it
+     */
+    public List<Position> getBuyLots(String symbol) {
+        BuyLots lots = holdings.get(symbol);
+        return lots == null ? new ArrayList<>() : lots.toList();
+    }
+
+    /**
+     * Gets copies of the open buy lots of every coin, taken under the lock so that they all
+     * belong to the same state and later sales do not change them, e.g. for saving the portfolio.
+     * This visits every lot.
+     * @return A new map of crypto symbol to its lots in purchase order, sorted by symbol
+     */
+    public Map<String, List<Position>> getAllBuyLots() {
+        lock.lock();
+        try {
+            return copyLots(holdings, BuyLots::toList);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets copies of the open short lots of every coin, taken under the lock like
+     * {@link #getAllBuyLots()}. This visits every lot.
+     * @return A new map of crypto symbol to its short lots oldest first, sorted by symbol
+     */
+    public Map<String, List<Position>> getAllShortLots() {
+        lock.lock();
+        try {
+            return copyLots(positions, ShortLots::toList);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Copies the lots of every coin, leaving out coins without open lots. Called under the lock.
+     */
+    private static <L> Map<String, List<Position>> copyLots(Map<String, L> lotsBySymbol,
+                                                            Function<L, List<Position>> toList) {
+        Map<String, List<Position>> lots = new TreeMap<>();
+        for (Map.Entry<String, L> entry : lotsBySymbol.entrySet()) {
+            List<Position> symbolLots = new ArrayList<>();
+            for (Position lot : toList.apply(entry.getValue())) {
+                symbolLots.add(Position.ofUnits(lot.getSymbol(), lot.getUnits(), lot.getEntryPriceUnits(),
+                        lot.getType(), lot.getTimestamp()));
+            }
+            if (!symbolLots.isEmpty()) lots.put(entry.getKey(), symbolLots);
+        }
+        return lots;
+    }
+
+    /**
+     * Gets the order in which sales relieve buy lots.
+     * @return The cost basis method, FIFO unless changed
+     */
+    public CostBasisMethod getCostBasisMethod() {
+        return costBasisMethod;
+    }
+
+    /**
+     * Sets the order in which later sales relieve buy lots. Past sales keep their cost basis.
+     * @param method The cost basis method
+     */
+    public void setCostBasisMethod(CostBasisMethod method) {
+        if (method == null) throw new IllegalArgumentException("Cost basis method is required");
+        this.costBasisMethod = method;
+    }
+
+    /**
+     * Gets the ledger of realized gains.
+     * @return The portfolio's ledger
+     */
+    public PnlLedger getPnlLedger() {
+        return ledger;
+    }
+
+    /**
+     * Calculates the unrealized gain of the holdings from their running cost totals.
+     * Coins without a price are left out.
+     * @param prices Map of crypto symbol to current price
+     * @return The unrealized gain in fiat, negative for a loss
+     */
+    public double getUnrealizedPnl(Map<String, Double> prices) {
+        long total = 0L;
+        for (Map.Entry<String, BuyLots> entry : holdings.entrySet()) {
+            Double price = prices.get(entry.getKey());
+            BuyLots.Totals totals = entry.getValue().totals();
+            if (price != null && price > 0 && totals.units > 0) {
+                total += Money.value(totals.units, Money.priceUnits(price)) - totals.costCents;
+            }
+        }
+        return Money.fiat(total);
+    }
+
+    /**
+     * Restores a persisted holding as one lot, replacing any current lots of the coin.
+     * Used for data saved before lots were kept; the lot's purchase date is unknown (0).
+     * @param symbol The crypto symbol
+     * @param units The amount held in coin base units; 0 removes the holding
+     * @param averagePriceUnits The average purchase price in price units
+     */
+    public void restoreHolding(String symbol, long units, long averagePriceUnits) {
+        if (units < 0 || averagePriceUnits < 0) throw new IllegalArgumentException("Amounts must not be negative");
+        lock.lock();
+        try {
+            holdings.remove(symbol);
+            if (units > 0) {
+                restoreLot(symbol, units, averagePriceUnits, 0L);
+            } else {
+                publish(List.of(symbol));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Restores a persisted buy lot after the lots already restored for the coin.
+     * @param symbol The crypto symbol
+     * @param units The lot's remaining amount in coin base units
+     * @param priceUnits The lot's purchase price in price units
+     * @param timestamp When the lot was bought (epoch milliseconds)
+     */
+    public void restoreLot(String symbol, long units, long priceUnits, long timestamp) {
+        if (units <= 0 || priceUnits < 0) throw new IllegalArgumentException("Invalid lot for " + symbol);
+        lock.lock();
+        try {
+            holdings.computeIfAbsent(symbol, k -> new BuyLots())
+                    .add(Position.ofUnits(symbol, units, priceUnits, PositionType.LONG, timestamp));
+            publish(List.of(symbol));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Restores a persisted short lot after the short lots already restored for the coin. The
+     * collateral is not withdrawn: the restored transaction history already withdrew it.
+     * @param symbol The crypto symbol
+     * @param units The lot's remaining amount in coin base units
+     * @param priceUnits The lot's entry price in price units
+     * @param timestamp When the lot was opened (epoch milliseconds)
+     */
+    public void restoreShortLot(String symbol, long units, long priceUnits, long timestamp) {
+        if (units <= 0 || priceUnits <= 0) throw new IllegalArgumentException("Invalid short lot for " + symbol);
+        lock.lock();
+        try {
+            positions.computeIfAbsent(symbol, k -> new ShortLots())
+                    .add(Position.ofUnits(symbol, units, priceUnits, PositionType.SHORT, timestamp));
+            publish(List.of(symbol));
+            notifyMarginEngine(symbol);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Restores a persisted realized gain into the ledger.
+     * @param gain The gain, in the order it was recorded
+     */
+    public void restoreRealizedGain(RealizedGain gain) {
+        lock.lock();
+        try {
+            ledger.record(gain);
+        } finally {
+            lock.unlock();
+        }
     }
     
     /**
@@ -72,13 +322,14 @@ public class Portfolio {
         double price = service.getCurrentPrices().get(symbol);
         if (price <= 0) throw new IllegalStateException("Invalid price for " + symbol);
         
-        // Calculate crypto amount
-        double cryptoAmount = fiatAmount / price;
+        // Calculate crypto amount, rounded down to whole base units
+        long priceUnits = Money.priceUnits(price);
+        long units = Money.coinsFor(Money.fiatUnits(fiatAmount), priceUnits);
         
         // Execute the purchase
-        buyCrypto(symbol, cryptoAmount, price);
+        buyUnits(symbol, units, priceUnits);
         
-        return cryptoAmount;
+        return Money.coins(units);
     }
 
     /**
@@ -91,26 +342,26 @@ public class Portfolio {
         if (amount <= 0) throw new IllegalArgumentException("Amount must be positive");
         if (price <= 0) throw new IllegalArgumentException("Price must be positive");
         
-        double totalCost = amount * price;
-        account.withdraw(totalCost, "Purchase of " + amount + " " + symbol, TransactionType.CRYPTO_PURCHASE);
-        
-        // Update holdings
-        double currentAmount = holdings.getOrDefault(symbol, 0.0);
-        double currentAvgPrice = purchasePrices.getOrDefault(symbol, 0.0);
-        
-        // Calculate new average purchase price (weighted average)
-        double newTotalAmount = currentAmount + amount;
-        double newAvgPrice;
-        
-        if (currentAmount > 0) {
-            // Calculate weighted average: (currentAmount * currentPrice + newAmount * newPrice) / totalAmount
-            newAvgPrice = ((currentAmount * currentAvgPrice) + (amount * price)) / newTotalAmount;
-        } else {
-            newAvgPrice = price;
+        buyUnits(symbol, Money.coinUnits(amount), Money.priceUnits(price));
+    }
+
+    private void buyUnits(String symbol, long units, long priceUnits) {
+        if (units <= 0) throw new IllegalArgumentException("Amount must be positive");
+        if (priceUnits <= 0) throw new IllegalArgumentException("Price must be positive");
+
+        long totalCost = Money.value(units, priceUnits);
+        if (totalCost <= 0) throw new IllegalArgumentException("Amount is worth less than one cent");
+        lock.lock();
+        try {
+            account.withdrawCents(Transaction.ofTrade(TransactionType.CRYPTO_PURCHASE, totalCost,
+                    "Purchase of " + Money.coins(units) + " " + symbol, symbol, units));
+
+            // Each purchase becomes a lot of its own
+            addLot(symbol, units, priceUnits, System.currentTimeMillis());
+            publish(List.of(symbol));
+        } finally {
+            lock.unlock();
         }
-        
-        holdings.put(symbol, newTotalAmount);
-        purchasePrices.put(symbol, newAvgPrice);
     }
     
     /**
@@ -140,7 +391,8 @@ public class Portfolio {
     }
 
     /**
-     * Sells a cryptocurrency, converting to fiat in the linked account.
+     * Sells a cryptocurrency, converting to fiat in the linked account. The sold amount
+     * relieves buy lots in the order of {@link #getCostBasisMethod()}.
      * @param symbol The crypto symbol (e.g., "BTC")
      * @param amount The amount to sell
      * @param price The price per unit in fiat
@@ -149,26 +401,163 @@ public class Portfolio {
         if (amount <= 0) throw new IllegalArgumentException("Amount must be positive");
         if (price <= 0) throw new IllegalArgumentException("Price must be positive");
         
-        // Check if we have enough of the crypto
-        double currentAmount = holdings.getOrDefault(symbol, 0.0);
-        if (amount > currentAmount) {
-            throw new IllegalStateException("Insufficient " + symbol + " balance");
-        }
-        
-        double totalValue = amount * price;
-        account.deposit(totalValue, "Sale of " + amount + " " + symbol, TransactionType.CRYPTO_SALE);
-        
-        // Update holdings
-        double newAmount = currentAmount - amount;
-        if (newAmount > 0) {
-            holdings.put(symbol, newAmount);
-            // Purchase price remains the same when selling
-        } else {
-            holdings.remove(symbol);
-            purchasePrices.remove(symbol);
+        long units = Money.coinUnits(amount);
+        long priceUnits = Money.priceUnits(price);
+        if (units <= 0) throw new IllegalArgumentException("Amount must be positive");
+        lock.lock();
+        try {
+            // Check if we have enough of the crypto
+            if (units > getHoldingUnits(symbol)) {
+                throw new IllegalStateException("Insufficient " + symbol + " balance");
+            }
+
+            long totalValue = Money.value(units, priceUnits);
+            Transaction sale = Transaction.ofTrade(TransactionType.CRYPTO_SALE, totalValue,
+                    "Sale of " + Money.coins(units) + " " + symbol, symbol, units);
+            // Dust worth less than half a cent is sold without a cash movement, but still journaled
+            if (totalValue > 0) {
+                account.depositCents(sale);
+            } else {
+                account.recordWithoutCash(sale);
+            }
+
+            relieveLots(symbol, units, priceUnits, System.currentTimeMillis());
+            publish(List.of(symbol));
+        } finally {
+            lock.unlock();
         }
     }
     
+    /**
+     * Executes a batch of market orders against one price snapshot from {@link CryptoService}.
+     *
+     * @param orders The orders, in execution order
+     * @return The transactions appended to the account, in execution order
+     * @throws Exception if prices cannot be fetched or the batch is invalid
+     * @see #executeBatch(List, Map)
+     */
+    public List<Transaction> executeBatch(List<Order> orders) throws Exception {
+        return executeBatch(orders, new CryptoService().getCurrentPrices());
+    }
+
+    /**
+     * Executes a batch of market orders atomically at the given prices. The whole batch is
+     * validated before anything changes: every symbol needs a price, every sell needs the coins
+     * held at that point of the batch (earlier buys count), and the balance must cover the net
+     * cash need of all orders together, so sells anywhere in the batch fund its buys. If any check
+     * fails nothing is executed. Otherwise holdings are updated and one transaction per order is
+     * appended to the account in a single write.
+     *
+     * @param orders The orders, in execution order
+     * @param prices Price snapshot per symbol
+     * @return The transactions appended to the account, in execution order
+     * @throws IllegalArgumentException If a price is missing or invalid
+     * @throws IllegalStateException If the balance or a holding does not cover the batch
+     */
+    public List<Transaction> executeBatch(List<Order> orders, Map<String, Double> prices) {
+        // Price every order against the snapshot before taking the lock
+        long[] fillPrices = new long[orders.size()];
+        long[] coins = new long[orders.size()];
+        for (int i = 0; i < orders.size(); i++) {
+            Order order = orders.get(i);
+            Double price = prices.get(order.getSymbol());
+            if (price == null || price <= 0) {
+                throw new IllegalArgumentException("Missing or invalid price for " + order.getSymbol());
+            }
+            fillPrices[i] = Money.priceUnits(price);
+            coins[i] = order.isFiatDenominated()
+                    ? Money.coinsFor(Money.fiatUnits(order.getAmount()), fillPrices[i])
+                    : Money.coinUnits(order.getAmount());
+            if (coins[i] <= 0) throw new IllegalArgumentException("Amount too small: " + order);
+        }
+
+        lock.lock();
+        try {
+            // Replay the batch on copies of the touched holding amounts
+            Map<String, Long> newHoldings = new HashMap<>();
+            for (Order order : orders) {
+                newHoldings.putIfAbsent(order.getSymbol(), getHoldingUnits(order.getSymbol()));
+            }
+
+            long cashDelta = 0L;
+            List<Transaction> entries = new ArrayList<>(orders.size());
+            for (int i = 0; i < orders.size(); i++) {
+                String symbol = orders.get(i).getSymbol();
+                long units = coins[i];
+                long value = Money.value(units, fillPrices[i]);
+                long currentUnits = newHoldings.get(symbol);
+                if (orders.get(i).getSide() == OrderSide.BUY) {
+                    newHoldings.put(symbol, Math.addExact(currentUnits, units));
+                    cashDelta -= value;
+                    entries.add(Transaction.ofTrade(TransactionType.CRYPTO_PURCHASE, value,
+                            "Purchase of " + Money.coins(units) + " " + symbol, symbol, units));
+                } else {
+                    if (units > currentUnits) {
+                        throw new IllegalStateException("Insufficient " + symbol + " balance");
+                    }
+                    newHoldings.put(symbol, currentUnits - units);
+                    cashDelta += value;
+                    entries.add(Transaction.ofTrade(TransactionType.CRYPTO_SALE, value,
+                            "Sale of " + Money.coins(units) + " " + symbol, symbol, units));
+                }
+            }
+
+            // Checks the net cash need, then publishes balance and journal together
+            account.applyBatch(cashDelta, entries);
+            // The replay succeeded, so every sell finds its lots
+            long now = System.currentTimeMillis();
+            for (int i = 0; i < orders.size(); i++) {
+                Order order = orders.get(i);
+                if (order.getSide() == OrderSide.BUY) {
+                    addLot(order.getSymbol(), coins[i], fillPrices[i], now);
+                } else {
+                    relieveLots(order.getSymbol(), coins[i], fillPrices[i], now);
+                }
+                order.markFilled(Money.price(fillPrices[i]), Money.coins(coins[i]));
+            }
+            // One snapshot for the whole batch, so readers never see half of it
+            publish(newHoldings.keySet());
+            return entries;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Publishes the next snapshot with the given coins recomputed. The caller holds the lock.
+     */
+    private void publish(Collection<String> symbols) {
+        snapshot = snapshot.update(symbols, holdings, positions);
+    }
+
+    private void addLot(String symbol, long units, long priceUnits, long timestamp) {
+        holdings.computeIfAbsent(symbol, k -> new BuyLots())
+                .add(Position.ofUnits(symbol, units, priceUnits, PositionType.LONG, timestamp));
+    }
+
+    /**
+     * Relieves sold units from the buy lots of a coin and records a realized gain per lot.
+     * The caller holds the lock and has checked the holding covers the amount.
+     */
+    private void relieveLots(String symbol, long units, long priceUnits, long soldAt) {
+        BuyLots lots = holdings.get(symbol);
+        CostBasisMethod method = costBasisMethod;
+        long relieved = 0L;
+        long proceedsSoFar = 0L;
+        while (relieved < units) {
+            Position lot = lots.next(method);
+            long slice = Math.min(units - relieved, lot.getUnits());
+            long openedAt = lot.getTimestamp();
+            long cost = lots.relieve(method, slice);
+            relieved += slice;
+            // Proceeds of the running total, so the slices add up to exactly what the sale deposited
+            long proceedsUpToHere = Money.value(relieved, priceUnits);
+            ledger.record(new RealizedGain(symbol, PositionType.LONG, slice, cost,
+                    proceedsUpToHere - proceedsSoFar, openedAt, soldAt));
+            proceedsSoFar = proceedsUpToHere;
+        }
+    }
+
     /**
      * Calculates the total value of the portfolio using current market prices.
      * @return The total portfolio value in fiat
@@ -183,9 +572,9 @@ public class Portfolio {
         Map<String, Double> prices = service.getCurrentPrices();
         
         double totalValue = 0.0;
-        for (Map.Entry<String, Double> entry : holdings.entrySet()) {
+        for (Map.Entry<String, BuyLots> entry : holdings.entrySet()) {
             String symbol = entry.getKey();
-            double amount = entry.getValue();
+            double amount = Money.coins(entry.getValue().totals().units);
             double price = prices.getOrDefault(symbol, 0.0);
             totalValue += (amount * price);
         }
@@ -200,7 +589,7 @@ public class Portfolio {
      * @throws Exception if prices cannot be fetched
      */
     public double calculateProfitLossPercent(String symbol) throws Exception {
-        if (!holdings.containsKey(symbol) || !purchasePrices.containsKey(symbol)) {
+        if (getHoldingUnits(symbol) == 0) {
             return 0.0;
         }
         
@@ -208,7 +597,7 @@ public class Portfolio {
         Map<String, Double> prices = service.getCurrentPrices();
         
         double currentPrice = prices.getOrDefault(symbol, 0.0);
-        double purchasePrice = purchasePrices.get(symbol);
+        double purchasePrice = getAveragePurchasePrice(symbol);
         
         if (purchasePrice <= 0 || currentPrice <= 0) {
             return 0.0;
@@ -233,14 +622,24 @@ public class Portfolio {
         if (amount <= 0) throw new IllegalArgumentException("Amount must be positive");
         if (price <= 0) throw new IllegalArgumentException("Price must be positive");
 
-        double collateral = amount * price; // Collaterale richiesto per la posizione short
-        account.withdraw(collateral, "Short position collateral for " + amount + " " + symbol,
-                TransactionType.CRYPTO_SHORT_OPEN);
+        long units = Money.coinUnits(amount);
+        long priceUnits = Money.priceUnits(price);
+        long collateral = Money.value(units, priceUnits); // Collaterale richiesto per la posizione short
+        if (collateral <= 0) throw new IllegalArgumentException("Amount is worth less than one cent");
+        lock.lock();
+        try {
+            account.withdrawCents(Transaction.ofTrade(TransactionType.CRYPTO_SHORT_OPEN, collateral,
+                    "Short position collateral for " + Money.coins(units) + " " + symbol, symbol, units));
 
-        long timestamp = System.currentTimeMillis();
-        Position shortPosition = new Position(symbol, amount, price, PositionType.SHORT, timestamp);
+            long timestamp = System.currentTimeMillis();
+            Position shortPosition = Position.ofUnits(symbol, units, priceUnits, PositionType.SHORT, timestamp);
 
-        positions.computeIfAbsent(symbol, k -> new ArrayList<>()).add(shortPosition);
+            positions.computeIfAbsent(symbol, k -> new ShortLots()).add(shortPosition);
+            publish(List.of(symbol));
+            notifyMarginEngine(symbol);
+        } finally {
+            lock.unlock();
+        }
     }
 
 
@@ -252,7 +651,13 @@ public class Portfolio {
      * collateral plus any profit to the account.
      *
      * If the amount to be closed exceeds the existing positions,
-     * an exception is thrown.
+     * an exception is thrown and nothing is closed. Positions are closed
+     * oldest first, and only the positions actually closed are visited.
+     * Each closed position is recorded as a {@link RealizedGain} in the ledger.
+     *
+     * The loss of a position is capped at its collateral: once the price has
+     * more than doubled, closing returns nothing and charges nothing more.
+     * A {@link MarginEngine} liquidates positions well before that.
      *
      * @param symbol       The symbol of the cryptocurrency (e.g., "BTC")
      * @param amount       The amount to close
@@ -261,63 +666,128 @@ public class Portfolio {
      * @throws IllegalStateException If there are not enough open short positions
      */
     public double closeShortPosition(String symbol, double amount, double currentPrice) {
-        List<Position> symbolPositions = positions.get(symbol);
-        if (symbolPositions == null) throw new IllegalStateException("No short positions for " + symbol);
+        if (amount <= 0) throw new IllegalArgumentException("Amount must be positive");
+        long units = Money.coinUnits(amount);
+        long priceUnits = Money.priceUnits(currentPrice);
 
-        double remainingToClose = amount;
-        double totalPnL = 0.0;
-        Iterator<Position> iterator = symbolPositions.iterator();
+        lock.lock();
+        try {
+            ShortLots lots = positions.get(symbol);
+            if (lots == null) throw new IllegalStateException("No short positions for " + symbol);
 
-        while (iterator.hasNext() && remainingToClose > 0) {
-            Position pos = iterator.next();
-            if (pos.getType() != PositionType.SHORT) continue;
+            // Validate the whole amount against the running total, so a failed close changes nothing
+            if (units > lots.totals().units) {
+                throw new IllegalStateException("Not enough short positions to close the requested amount.");
+            }
 
-            double positionAmount = pos.getAmount();
-            double amountToClose = Math.min(remainingToClose, positionAmount);
+            long remainingToClose = units;
+            long totalPnL = 0L;
+            long closedAt = System.currentTimeMillis();
 
-            // PnL per short: guadagno quando prezzo scende
-            double returnAmount = amountToClose * (2 * pos.getEntryPrice() - currentPrice);
-            totalPnL += amountToClose * (pos.getEntryPrice() - currentPrice);
-            account.deposit(returnAmount, "Close short position " + amountToClose + " " + symbol,
-                    TransactionType.CRYPTO_SHORT_CLOSE);
+            while (remainingToClose > 0) {
+                Position pos = lots.oldest();
+                // Exact in base units, so a fully closed lot is always recognized
+                long unitsToClose = Math.min(remainingToClose, pos.getUnits());
 
-            if (amountToClose == positionAmount) {
-                iterator.remove();
-            } else {
-                pos.setAmount(positionAmount - amountToClose);
-            }
+                // PnL per short: guadagno quando prezzo scende
+                long returnAmount = Money.signedValue(unitsToClose, 2 * pos.getEntryPriceUnits() - priceUnits);
+                long entryValue = Money.value(unitsToClose, pos.getEntryPriceUnits());
+                long pnl = Money.signedValue(unitsToClose, pos.getEntryPriceUnits() - priceUnits);
+                String description = "Close short position " + Money.coins(unitsToClose) + " " + symbol;
+                if (returnAmount <= 0) {
+                    // The collateral is used up; the loss stops there, but the close is still journaled
+                    returnAmount = 0L;
+                    pnl = -entryValue;
+                    account.recordWithoutCash(Transaction.ofTrade(TransactionType.CRYPTO_SHORT_CLOSE, 0L, description,
+                            symbol, unitsToClose));
+                } else {
+                    account.depositCents(Transaction.ofTrade(TransactionType.CRYPTO_SHORT_CLOSE, returnAmount,
+                            description, symbol, unitsToClose));
+                }
+                totalPnL += pnl;
 
-            remainingToClose -= amountToClose;
+                ledger.record(new RealizedGain(symbol, PositionType.SHORT, unitsToClose, entryValue - pnl, entryValue,
+                        pos.getTimestamp(), closedAt));
 
-            if (remainingToClose > 0) {
-                throw new IllegalStateException("Not enough short positions to close the requested amount.");
+                lots.closeOldest(unitsToClose);
+                remainingToClose -= unitsToClose;
             }
+            publish(List.of(symbol));
+            notifyMarginEngine(symbol);
 
+            return Money.fiat(totalPnL);
+        } finally {
+            lock.unlock();
         }
-
-        return totalPnL;
     }
 
 
     /**
      * Returns a map of currently open short positions.
      *
-     * The map contains the total shorted amount for each cryptocurrency.
+     * The map contains the total shorted amount for each cryptocurrency
+     * and is taken from the latest snapshot without copying.
      *
-     * @return A map from cryptocurrency symbol to total shorted amount
+     * @return An unmodifiable map from cryptocurrency symbol to total shorted amount
      */
     public Map<String, Double> getShortPositions() {
-        Map<String, Double> shorts = new HashMap<>();
-        for (Map.Entry<String, List<Position>> entry : positions.entrySet()) {
-            double totalShort = entry.getValue().stream()
-                    .filter(p -> p.getType() == PositionType.SHORT)
-                    .mapToDouble(Position::getAmount)
-                    .sum();
-            if (totalShort > 0) {
-                shorts.put(entry.getKey(), totalShort);
-            }
-        }
-        return shorts;
+        return snapshot.getShortPositions();
+    }
+
+    /**
+     * Returns the total shorted amount of a coin in base units.
+     *
+     * @param symbol The symbol of the cryptocurrency (e.g., "BTC")
+     * @return The open short amount in coin base units, or 0 if none
+     */
+    public long getShortUnits(String symbol) {
+        ShortLots lots = positions.get(symbol);
+        return lots == null ? 0L : lots.totals().units;
+    }
+
+    /**
+     * Returns the entry value of the open short positions of a coin, i.e. their collateral, in cents.
+     */
+    long getShortEntryValueCents(String symbol) {
+        ShortLots lots = positions.get(symbol);
+        return lots == null ? 0L : lots.totals().entryValueCents;
+    }
+
+    MarginEngine getMarginEngine() {
+        return marginEngine;
+    }
+
+    void setMarginEngine(MarginEngine engine) {
+        this.marginEngine = engine;
+    }
+
+    private void notifyMarginEngine(String symbol) {
+        MarginEngine engine = marginEngine;
+        if (engine != null) engine.onShortChanged(this, symbol);
+    }
+
+    /**
+     * Returns the average entry price of the open short positions of a coin,
+     * weighted by amount.
+     *
+     * @param symbol The symbol of the cryptocurrency (e.g., "BTC")
+     * @return The average entry price, or 0.0 if no short position is open
+     */
+    public double getAverageShortEntryPrice(String symbol) {
+        ShortLots lots = positions.get(symbol);
+        if (lots == null) return 0.0;
+        return Money.price(lots.totals().averageEntryPriceUnits());
+    }
+
+    /**
+     * Returns the number of open short positions of a coin.
+     *
+     * @param symbol The symbol of the cryptocurrency (e.g., "BTC")
+     * @return The number of open lots
+     */
+    public int getShortLotCount(String symbol) {
+        ShortLots lots = positions.get(symbol);
+        return lots == null ? 0 : lots.totals().lotCount;
     }
 
 
@@ -325,11 +795,266 @@ public class Portfolio {
      * Returns all open positions (both long and short) in the portfolio.
      *
      * The resulting map is unmodifiable and shows each symbol associated with
-     * the list of corresponding positions (either long or short).
+     * a copy of the list of corresponding positions, oldest first. This
+     * visits every position; totals are cheaper through
+     * {@link #getShortPositions()} and {@link #getAverageShortEntryPrice(String)}.
      *
      * @return An unmodifiable map from symbol to list of positions
      */
     public Map<String, List<Position>> getAllPositions() {
-        return Collections.unmodifiableMap(positions);
+        Map<String, List<Position>> result = new HashMap<>();
+        positions.forEach((symbol, lots) -> result.put(symbol, lots.toList()));
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * Places a resting limit order. A buy executes once the price falls to or below the limit,
+     * a sell once it rises to or above it; see {@link #onPriceTick(String, double)}.
+     *
+     * @param symbol     The crypto symbol (e.g., "BTC")
+     * @param side       Buy or sell
+     * @param amount     The amount of crypto to trade
+     * @param limitPrice The worst acceptable price per unit
+     * @return The placed order
+     * @throws IllegalArgumentException If amount or limit price are <= 0
+     */
+    public LimitOrder placeLimitOrder(String symbol, OrderSide side, double amount, double limitPrice) {
+        if (amount <= 0) throw new IllegalArgumentException("Amount must be positive");
+        if (limitPrice <= 0) throw new IllegalArgumentException("Limit price must be positive");
+
+        lock.lock();
+        try {
+            LimitOrder order = new LimitOrder(nextOrderId++, symbol, side, amount, limitPrice, System.currentTimeMillis());
+            limitBook(side).computeIfAbsent(symbol, k -> new ThresholdIndex<>()).add(limitPrice, order);
+            openOrders.put(order.getId(), order);
+            return order;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Cancels an open limit order.
+     *
+     * @param orderId The order's identifier
+     * @return True if the order was open and is now cancelled
+     */
+    public boolean cancelLimitOrder(long orderId) {
+        lock.lock();
+        try {
+            LimitOrder order = openOrders.remove(orderId);
+            if (order == null) {
+                return false;
+            }
+            limitBook(order.getSide()).get(order.getSymbol()).remove(order.getLimitPrice(), order);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the open limit orders in the order they were placed.
+     *
+     * @return A new list of open orders
+     */
+    public List<LimitOrder> getOpenOrders() {
+        return new ArrayList<>(openOrders.values());
+    }
+
+    /**
+     * Adds a stop-loss: exits a holding once the price falls to the stop price, or buys back short
+     * positions once the price rises to it.
+     *
+     * @param symbol    The crypto symbol (e.g., "BTC")
+     * @param side      LONG for a holding, SHORT for short positions
+     * @param amount    The amount to exit
+     * @param stopPrice The price at which to exit
+     * @return The armed trigger
+     */
+    public ExitTrigger addStopLoss(String symbol, PositionType side, double amount, double stopPrice) {
+        return addExitTrigger(symbol, TriggerType.STOP_LOSS, side, amount, stopPrice, 0.0, stopPrice);
+    }
+
+    /**
+     * Adds a take-profit: exits a holding once the price rises to the target price, or buys back
+     * short positions once the price falls to it.
+     *
+     * @param symbol      The crypto symbol (e.g., "BTC")
+     * @param side        LONG for a holding, SHORT for short positions
+     * @param amount      The amount to exit
+     * @param targetPrice The price at which to exit
+     * @return The armed trigger
+     */
+    public ExitTrigger addTakeProfit(String symbol, PositionType side, double amount, double targetPrice) {
+        return addExitTrigger(symbol, TriggerType.TAKE_PROFIT, side, amount, targetPrice, 0.0, targetPrice);
+    }
+
+    /**
+     * Adds a trailing stop that follows the best price seen from now on: for a holding it exits
+     * once the price falls {@code trailFraction} below the highest tick, for short positions once
+     * it rises {@code trailFraction} above the lowest tick.
+     *
+     * @param symbol        The crypto symbol (e.g., "BTC")
+     * @param side          LONG for a holding, SHORT for short positions
+     * @param amount        The amount to exit
+     * @param trailFraction Distance from the best price, in (0, 1), e.g. 0.05 for 5%
+     * @param currentPrice  The current price, where trailing starts
+     * @return The armed trigger
+     */
+    public ExitTrigger addTrailingStop(String symbol, PositionType side, double amount, double trailFraction,
+                                       double currentPrice) {
+        if (!(trailFraction > 0 && trailFraction < 1)) {
+            throw new IllegalArgumentException("Trailing distance must be between 0 and 1");
+        }
+        return addExitTrigger(symbol, TriggerType.TRAILING_STOP, side, amount, Double.NaN, trailFraction, currentPrice);
+    }
+
+    /**
+     * Cancels an armed exit trigger.
+     *
+     * @param triggerId The trigger's identifier
+     * @return True if the trigger was armed and is now cancelled
+     */
+    public boolean cancelExitTrigger(long triggerId) {
+        lock.lock();
+        try {
+            return exitTriggers.cancel(triggerId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the armed exit triggers in the order they were placed.
+     *
+     * @return A new list of armed triggers
+     */
+    public List<ExitTrigger> getExitTriggers() {
+        return exitTriggers.getArmed();
+    }
+
+    /**
+     * Executes the resting limit orders and exit triggers of a symbol that a new price crosses.
+     * Only the crossed entries are visited: buys with a limit at or above the price (highest limit
+     * first), sells with a limit at or below it (lowest limit first), then the fired exit triggers.
+     * Orders fill at the tick price through {@link #buyCrypto(String, double, double)} and
+     * {@link #sellCrypto(String, double, double)}; exits go through {@link #sellCrypto(String, double, double)}
+     * and {@link #closeShortPosition(String, double, double)}. An order or exit that cannot be
+     * executed (e.g. insufficient balance, or nothing left to close) is dropped, logged and
+     * reported in the result's rejections.
+     *
+     * @param symbol The crypto symbol (e.g., "BTC")
+     * @param price  The new market price
+     * @return The orders filled, exits triggered and entries rejected by this tick
+     */
+    public TickResult onPriceTick(String symbol, double price) {
+        TickResult result = new TickResult();
+        if (price <= 0) return result;
+
+        lock.lock();
+        try {
+            ThresholdIndex<LimitOrder> buys = buyLimits.get(symbol);
+            if (buys != null && !buys.isEmpty()) {
+                for (LimitOrder order : buys.pollAtOrAbove(price)) {
+                    fill(order, price, result);
+                }
+            }
+            ThresholdIndex<LimitOrder> sells = sellLimits.get(symbol);
+            if (sells != null && !sells.isEmpty()) {
+                for (LimitOrder order : sells.pollAtOrBelow(price)) {
+                    fill(order, price, result);
+                }
+            }
+            if (!exitTriggers.isEmpty()) {
+                for (ExitTrigger trigger : exitTriggers.onTick(symbol, price)) {
+                    exit(trigger, price, result);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return result;
+    }
+
+    /**
+     * Feeds a batch of prices, e.g. one refresh of {@link CryptoService#getCurrentPrices()},
+     * to {@link #onPriceTick(String, double)}.
+     *
+     * @param prices Map of crypto symbol to new market price
+     * @return The orders filled and exits triggered by these ticks
+     */
+    public TickResult onPriceTicks(Map<String, Double> prices) {
+        TickResult result = new TickResult();
+        if (openOrders.isEmpty() && exitTriggers.isEmpty()) return result;
+        lock.lock();
+        try {
+            for (Map.Entry<String, Double> entry : prices.entrySet()) {
+                if (entry.getValue() != null) {
+                    result.addAll(onPriceTick(entry.getKey(), entry.getValue()));
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return result;
+    }
+
+    private ExitTrigger addExitTrigger(String symbol, TriggerType type, PositionType side, double amount,
+                                       double threshold, double trailFraction, double currentPrice) {
+        if (amount <= 0) throw new IllegalArgumentException("Amount must be positive");
+        if (currentPrice <= 0) throw new IllegalArgumentException("Price must be positive");
+
+        lock.lock();
+        try {
+            ExitTrigger trigger = new ExitTrigger(nextTriggerId++, symbol, type, side, amount, threshold, trailFraction,
+                    System.currentTimeMillis());
+            exitTriggers.add(trigger, currentPrice);
+            return trigger;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void exit(ExitTrigger trigger, double price, TickResult result) {
+        String symbol = trigger.getSymbol();
+        try {
+            if (trigger.getSide() == PositionType.LONG) {
+                double amount = Math.min(trigger.getAmount(), Money.coins(getHoldingUnits(symbol)));
+                if (amount <= 0) throw new IllegalStateException("No " + symbol + " holding left");
+                sellCrypto(symbol, amount, price);
+            } else {
+                double amount = Math.min(trigger.getAmount(), Money.coins(getShortUnits(symbol)));
+                if (amount <= 0) throw new IllegalStateException("No " + symbol + " short position left");
+                closeShortPosition(symbol, amount, price);
+            }
+            trigger.markTriggered(price);
+            result.addTriggeredExit(trigger);
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            String message = "Exit trigger " + trigger.getId() + " dropped: " + e.getMessage();
+            System.err.println(message);
+            result.addRejection(message);
+        }
+    }
+
+    private Map<String, ThresholdIndex<LimitOrder>> limitBook(OrderSide side) {
+        return side == OrderSide.BUY ? buyLimits : sellLimits;
+    }
+
+    private void fill(LimitOrder order, double price, TickResult result) {
+        openOrders.remove(order.getId());
+        try {
+            if (order.getSide() == OrderSide.BUY) {
+                buyCrypto(order.getSymbol(), order.getAmount(), price);
+            } else {
+                sellCrypto(order.getSymbol(), order.getAmount(), price);
+            }
+            order.markFilled(price);
+            result.addFilledOrder(order);
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            String message = "Limit order " + order.getId() + " rejected: " + e.getMessage();
+            System.err.println(message);
+            result.addRejection(message);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,366 @@
+package com.myapp;
+
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.linear.DecompositionSolver;
+import org.apache.commons.math3.linear.LUDecomposition;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.RealVector;
+import org.apache.commons.math3.linear.SingularValueDecomposition;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * {@code PortfolioOptimizer} finds long-only mean-variance allocations over all coins tracked by a
+ * {@link CorrelationService}.
+ *
+ * <p>For a target daily return {@code r} it solves the quadratic program</p>
+ * <pre>
+ *     minimize   w'Σw
+ *     subject to Σ w = 1,  μ'w = r,  w ≥ 0
+ * </pre>
+ * <p>with a primal active-set method: coins whose weight hits zero are fixed there, the remaining
+ * equality-constrained problem is solved through its KKT system with a commons-math LU
+ * decomposition (falling back to an SVD least-squares solve when a short window makes the system
+ * singular), and a fixed coin is released again when its Lagrange multiplier turns negative.</p>
+ *
+ * <p>The efficient frontier runs from the minimum-variance allocation to the coin with the highest
+ * mean return; its points are independent programs and are solved in parallel on a fork/join pool.
+ * Inputs and results are cached until the {@link CorrelationService#getVersion() covariance
+ * version} changes, so repeated requests on the same data cost nothing.</p>
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ *     CorrelationService correlations = new CorrelationService(new CryptoService(), 60);
+ *     correlations.load(90);
+ *     PortfolioOptimizer optimizer = new PortfolioOptimizer(correlations, 4);
+ *     for (OptimalPortfolio point : optimizer.efficientFrontier(10)) {
+ *         System.out.println(point);
+ *     }
+ * }</pre>
+ */
+public class PortfolioOptimizer {
+    // Steps shorter than this are treated as zero
+    private static final double STEP_TOLERANCE = 1e-12;
+    // Multipliers above -MULTIPLIER_TOLERANCE × (largest variance) keep a coin fixed at zero
+    private static final double MULTIPLIER_TOLERANCE = 1e-9;
+
+    private final CorrelationService correlations;
+    private final int parallelism;
+
+    // Inputs and results for cachedVersion of the covariance matrix
+    private long cachedVersion = Long.MIN_VALUE;
+    private List<String> symbols;
+    private double[] means;
+    private double[][] covariance;
+    private OptimalPortfolio minimumVariance;
+    private final Map<Integer, List<OptimalPortfolio>> frontiers = new HashMap<>();
+
+    /**
+     * Creates an optimizer.
+     *
+     * @param correlations Source of mean returns and the covariance matrix; must be loaded.
+     * @param parallelism  Number of threads solving frontier points.
+     */
+    public PortfolioOptimizer(CorrelationService correlations, int parallelism) {
+        if (parallelism < 1) throw new IllegalArgumentException("Parallelism must be positive");
+        this.correlations = correlations;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Returns the long-only allocation with the lowest variance, regardless of return.
+     *
+     * @return The minimum-variance allocation.
+     */
+    public synchronized OptimalPortfolio minimumVariance() {
+        refreshInputs();
+        if (minimumVariance == null) {
+            minimumVariance = toPortfolio(solve(covariance, means, Double.NaN));
+        }
+        return minimumVariance;
+    }
+
+    /**
+     * Returns the long-only allocation with the lowest variance for a target mean return.
+     *
+     * @param targetReturn Target daily log return, between the lowest and highest coin mean.
+     * @return The optimal allocation.
+     * @throws IllegalArgumentException if no long-only allocation reaches the target.
+     */
+    public synchronized OptimalPortfolio minimizeVariance(double targetReturn) {
+        refreshInputs();
+        return toPortfolio(solve(covariance, means, targetReturn));
+    }
+
+    /**
+     * Traces the efficient frontier from the minimum-variance allocation to the highest-return coin.
+     *
+     * @param points Number of frontier points, at least 2.
+     * @return Allocations with evenly spaced target returns, in ascending return order.
+     * @throws InterruptedException if interrupted while waiting for the frontier points.
+     */
+    public synchronized List<OptimalPortfolio> efficientFrontier(int points) throws InterruptedException {
+        if (points < 2) throw new IllegalArgumentException("A frontier needs at least 2 points");
+        refreshInputs();
+        List<OptimalPortfolio> cached = frontiers.get(points);
+        if (cached != null) {
+            return cached;
+        }
+
+        double lowest = minimumVariance().getExpectedReturn();
+        double highest = Double.NEGATIVE_INFINITY;
+        for (double mean : means) {
+            highest = Math.max(highest, mean);
+        }
+
+        double[][] sigma = covariance;
+        double[] mu = means;
+        List<Callable<OptimalPortfolio>> tasks = new ArrayList<>(points);
+        for (int k = 0; k < points; k++) {
+            // Clamp to the range of means so rounding never makes the last target unreachable
+            double target = Math.min(highest, lowest + (highest - lowest) * k / (points - 1));
+            tasks.add(() -> toPortfolio(solve(sigma, mu, target)));
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<OptimalPortfolio> frontier = new ArrayList<>(points);
+            for (Future<OptimalPortfolio> future : pool.invokeAll(tasks)) {
+                frontier.add(future.get());
+            }
+            List<OptimalPortfolio> result = List.copyOf(frontier);
+            frontiers.put(points, result);
+            return result;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Frontier optimization failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Reloads means and covariance and drops cached results when the covariance version changed.
+     */
+    private void refreshInputs() {
+        long version = correlations.getVersion();
+        if (version == cachedVersion) {
+            return;
+        }
+        List<String> newSymbols;
+        double[] newMeans;
+        RealMatrix newCovariance;
+        do {
+            // Retry if a new day was folded in between the reads
+            version = correlations.getVersion();
+            newSymbols = correlations.getSymbols();
+            newMeans = correlations.getMeanReturns();
+            newCovariance = correlations.getCovarianceMatrix();
+        } while (version != correlations.getVersion());
+
+        symbols = newSymbols;
+        means = newMeans;
+        covariance = newCovariance.getData();
+        minimumVariance = null;
+        frontiers.clear();
+        cachedVersion = version;
+    }
+
+    private OptimalPortfolio toPortfolio(double[] weights) {
+        double expected = 0.0;
+        double variance = 0.0;
+        for (int i = 0; i < weights.length; i++) {
+            expected += means[i] * weights[i];
+            for (int j = 0; j < weights.length; j++) {
+                variance += weights[i] * covariance[i][j] * weights[j];
+            }
+        }
+        return new OptimalPortfolio(symbols, weights, expected, Math.sqrt(Math.max(variance, 0.0)));
+    }
+
+    /**
+     * Solves the long-only mean-variance program with a primal active-set method.
+     *
+     * @param covariance   Covariance matrix of the coins' returns.
+     * @param means        Mean return per coin.
+     * @param targetReturn Target mean return, or NaN to minimize variance without a return constraint.
+     * @return Non-negative weights summing to one.
+     * @throws IllegalArgumentException if the target return cannot be reached without shorting.
+     */
+    static double[] solve(double[][] covariance, double[] means, double targetReturn) {
+        int n = means.length;
+        if (n == 0) throw new IllegalArgumentException("No coins to optimize");
+        boolean constrainReturn = !Double.isNaN(targetReturn);
+
+        // Equality constraints: full investment and, optionally, the target return
+        double[][] equalities = constrainReturn ? new double[][]{new double[n], means} : new double[][]{new double[n]};
+        Arrays.fill(equalities[0], 1.0);
+
+        double[] weights = feasibleStart(means, targetReturn);
+        boolean[] fixed = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            fixed[i] = weights[i] == 0.0;
+        }
+
+        double maxVariance = 0.0;
+        for (int i = 0; i < n; i++) maxVariance = Math.max(maxVariance, covariance[i][i]);
+        double multiplierTolerance = MULTIPLIER_TOLERANCE * Math.max(maxVariance, Double.MIN_NORMAL);
+
+        int maxIterations = 20 * n + 20;
+        for (int iteration = 0; iteration < maxIterations; iteration++) {
+            int[] free = indicesWhere(fixed, false);
+            double[] gradient = new double[n];
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    gradient[i] += 2.0 * covariance[i][j] * weights[j];
+                }
+            }
+
+            // KKT system of the step on the free coins: [2Σ_F  -A_F'; A_F  0] [p; ν] = [-g_F; 0]
+            int f = free.length;
+            int m = equalities.length;
+            double[][] kkt = new double[f + m][f + m];
+            double[] rhs = new double[f + m];
+            for (int a = 0; a < f; a++) {
+                for (int b = 0; b < f; b++) {
+                    kkt[a][b] = 2.0 * covariance[free[a]][free[b]];
+                }
+                for (int r = 0; r < m; r++) {
+                    kkt[a][f + r] = -equalities[r][free[a]];
+                    kkt[f + r][a] = equalities[r][free[a]];
+                }
+                rhs[a] = -gradient[free[a]];
+            }
+            double[] solution = solveLinear(kkt, rhs);
+
+            double stepNorm = 0.0;
+            for (int a = 0; a < f; a++) stepNorm = Math.max(stepNorm, Math.abs(solution[a]));
+
+            if (stepNorm <= STEP_TOLERANCE) {
+                // Stationary on the free coins: release the fixed coin with the most negative multiplier
+                int release = -1;
+                double mostNegative = -multiplierTolerance;
+                for (int i = 0; i < n; i++) {
+                    if (!fixed[i]) continue;
+                    double multiplier = gradient[i];
+                    for (int r = 0; r < m; r++) {
+                        multiplier -= solution[f + r] * equalities[r][i];
+                    }
+                    if (multiplier < mostNegative) {
+                        mostNegative = multiplier;
+                        release = i;
+                    }
+                }
+                if (release < 0) {
+                    return normalize(weights);
+                }
+                fixed[release] = false;
+                continue;
+            }
+
+            // Longest step along p that keeps every free weight non-negative
+            double alpha = 1.0;
+            int blocking = -1;
+            for (int a = 0; a < f; a++) {
+                double step = solution[a];
+                if (step < -STEP_TOLERANCE) {
+                    double limit = -weights[free[a]] / step;
+                    if (limit < alpha) {
+                        alpha = limit;
+                        blocking = free[a];
+                    }
+                }
+            }
+            for (int a = 0; a < f; a++) {
+                weights[free[a]] += alpha * solution[a];
+            }
+            if (blocking >= 0) {
+                weights[blocking] = 0.0;
+                fixed[blocking] = true;
+            }
+        }
+        throw new IllegalStateException("Mean-variance optimization did not converge");
+    }
+
+    /**
+     * Builds a long-only allocation meeting the equality constraints: equal weights without a
+     * return target, otherwise a mix of the lowest- and highest-return coins.
+     */
+    private static double[] feasibleStart(double[] means, double targetReturn) {
+        int n = means.length;
+        double[] weights = new double[n];
+        if (Double.isNaN(targetReturn)) {
+            Arrays.fill(weights, 1.0 / n);
+            return weights;
+        }
+
+        int low = 0;
+        int high = 0;
+        for (int i = 1; i < n; i++) {
+            if (means[i] < means[low]) low = i;
+            if (means[i] > means[high]) high = i;
+        }
+        double range = means[high] - means[low];
+        double slack = 1e-12 * Math.max(Math.abs(means[high]), Math.abs(means[low]));
+        if (targetReturn < means[low] - slack || targetReturn > means[high] + slack) {
+            throw new IllegalArgumentException(String.format(
+                    "Target return %.6f is outside the reachable range [%.6f, %.6f]", targetReturn, means[low], means[high]));
+        }
+        if (range <= slack) {
+            Arrays.fill(weights, 1.0 / n);
+            return weights;
+        }
+        double highShare = Math.min(1.0, Math.max(0.0, (targetReturn - means[low]) / range));
+        weights[high] = highShare;
+        weights[low] += 1.0 - highShare;
+        return weights;
+    }
+
+    /**
+     * Solves a KKT system with LU, or in the least-squares sense when it is singular
+     * (e.g. a singular covariance from a short window, or coins with identical means).
+     */
+    private static double[] solveLinear(double[][] matrix, double[] rhs) {
+        RealMatrix system = new Array2DRowRealMatrix(matrix, false);
+        RealVector vector = new ArrayRealVector(rhs, false);
+        DecompositionSolver solver = new LUDecomposition(system).getSolver();
+        if (!solver.isNonSingular()) {
+            solver = new SingularValueDecomposition(system).getSolver();
+        }
+        return solver.solve(vector).toArray();
+    }
+
+    private static int[] indicesWhere(boolean[] flags, boolean value) {
+        int count = 0;
+        for (boolean flag : flags) if (flag == value) count++;
+        int[] indices = new int[count];
+        int k = 0;
+        for (int i = 0; i < flags.length; i++) {
+            if (flags[i] == value) indices[k++] = i;
+        }
+        return indices;
+    }
+
+    /**
+     * Clears rounding noise: tiny negative weights become zero and the sum is rescaled to one.
+     */
+    private static double[] normalize(double[] weights) {
+        double sum = 0.0;
+        for (int i = 0; i < weights.length; i++) {
+            if (weights[i] < 0.0) weights[i] = 0.0;
+            sum += weights[i];
+        }
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] /= sum;
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,152 @@
+package com.myapp;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An immutable, versioned view of a {@link Portfolio}'s holdings and short positions.
+ *
+ * <p>The portfolio publishes a new snapshot under its lock after every trade, so the holdings,
+ * average purchase prices and short positions of one snapshot always belong together. Readers
+ * take the current snapshot with {@link Portfolio#getSnapshot()} in O(1), without locking or
+ * copying, and may keep it as long as they like; the maps never change.</p>
+ *
+ * <p>The version increases by one with every published snapshot, so a reader can tell whether
+ * the portfolio changed since it last looked.</p>
+ */
+public final class PortfolioSnapshot {
+    static final PortfolioSnapshot EMPTY = new PortfolioSnapshot(0L, Map.of(), Map.of(), Map.of(), Map.of());
+
+    private final long version;
+    private final Map<String, Double> holdings;
+    private final Map<String, Double> purchasePrices;
+    private final Map<String, Double> shortPositions;
+    private final Map<String, Double> shortEntryPrices;
+
+    private PortfolioSnapshot(long version, Map<String, Double> holdings, Map<String, Double> purchasePrices,
+                              Map<String, Double> shortPositions, Map<String, Double> shortEntryPrices) {
+        this.version = version;
+        this.holdings = holdings;
+        this.purchasePrices = purchasePrices;
+        this.shortPositions = shortPositions;
+        this.shortEntryPrices = shortEntryPrices;
+    }
+
+    /**
+     * Returns the next snapshot, with the given coins recomputed from their running totals and
+     * every other coin shared with this one. Called by the portfolio under its lock.
+     *
+     * @param symbols The coins a trade changed.
+     * @param holdings The portfolio's buy lots per coin.
+     * @param shorts   The portfolio's short lots per coin.
+     * @return The new snapshot, one version later.
+     */
+    PortfolioSnapshot update(Iterable<String> symbols, Map<String, BuyLots> holdings, Map<String, ShortLots> shorts) {
+        Map<String, Double> newHoldings = new HashMap<>(this.holdings);
+        Map<String, Double> newPurchasePrices = new HashMap<>(this.purchasePrices);
+        Map<String, Double> newShorts = new HashMap<>(this.shortPositions);
+        Map<String, Double> newShortEntryPrices = new HashMap<>(this.shortEntryPrices);
+        for (String symbol : symbols) {
+            newHoldings.remove(symbol);
+            newPurchasePrices.remove(symbol);
+            BuyLots lots = holdings.get(symbol);
+            BuyLots.Totals totals = lots == null ? null : lots.totals();
+            if (totals != null && totals.units > 0) {
+                newHoldings.put(symbol, Money.coins(totals.units));
+                long priceUnits = totals.averagePriceUnits();
+                if (priceUnits > 0) newPurchasePrices.put(symbol, Money.price(priceUnits));
+            }
+
+            newShorts.remove(symbol);
+            newShortEntryPrices.remove(symbol);
+            ShortLots shortLots = shorts.get(symbol);
+            ShortLots.Totals shortTotals = shortLots == null ? null : shortLots.totals();
+            if (shortTotals != null && shortTotals.units > 0) {
+                newShorts.put(symbol, Money.coins(shortTotals.units));
+                newShortEntryPrices.put(symbol, Money.price(shortTotals.averageEntryPriceUnits()));
+            }
+        }
+        return new PortfolioSnapshot(version + 1,
+                Collections.unmodifiableMap(newHoldings),
+                Collections.unmodifiableMap(newPurchasePrices),
+                Collections.unmodifiableMap(newShorts),
+                Collections.unmodifiableMap(newShortEntryPrices));
+    }
+
+    /**
+     * Returns the version of this snapshot; 0 for a portfolio that never changed.
+     *
+     * @return The number of snapshots published before this one.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the crypto holdings.
+     *
+     * @return An unmodifiable map of crypto symbol to amount held.
+     */
+    public Map<String, Double> getHoldings() {
+        return holdings;
+    }
+
+    /**
+     * Returns the average purchase prices of the open buy lots.
+     *
+     * @return An unmodifiable map of crypto symbol to average purchase price.
+     */
+    public Map<String, Double> getPurchasePrices() {
+        return purchasePrices;
+    }
+
+    /**
+     * Returns the total shorted amount per coin.
+     *
+     * @return An unmodifiable map of crypto symbol to open short amount.
+     */
+    public Map<String, Double> getShortPositions() {
+        return shortPositions;
+    }
+
+    /**
+     * Returns the amount held of a coin.
+     *
+     * @param symbol The crypto symbol.
+     * @return The amount held, or 0.0 if none.
+     */
+    public double getHolding(String symbol) {
+        return holdings.getOrDefault(symbol, 0.0);
+    }
+
+    /**
+     * Returns the average purchase price of the open lots of a coin.
+     *
+     * @param symbol The crypto symbol.
+     * @return The average purchase price, or 0.0 if not held.
+     */
+    public double getAveragePurchasePrice(String symbol) {
+        return purchasePrices.getOrDefault(symbol, 0.0);
+    }
+
+    /**
+     * Returns the open short amount of a coin.
+     *
+     * @param symbol The crypto symbol.
+     * @return The shorted amount, or 0.0 if none.
+     */
+    public double getShortPosition(String symbol) {
+        return shortPositions.getOrDefault(symbol, 0.0);
+    }
+
+    /**
+     * Returns the average entry price of the open short positions of a coin, weighted by amount.
+     *
+     * @param symbol The crypto symbol.
+     * @return The average entry price, or 0.0 if no short position is open.
+     */
+    public double getAverageShortEntryPrice(String symbol) {
+        return shortEntryPrices.getOrDefault(symbol, 0.0);
+    }
+}
@@ -0,0 +1,313 @@
+package com.myapp;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Portfolio value over time, reconstructed by replaying an account's transaction log against a
+ * {@link PriceHistory}.
+ *
+ * <p>The value of a step is the cash balance plus the holdings and short positions at that step's
+ * prices, after every transaction made before the step ends; the last step includes every
+ * transaction. Holdings are worth their amount times the price, and a short position what closing
+ * it would return: twice its collateral minus the buy-back cost. Coins without a known price yet
+ * count as zero.</p>
+ *
+ * <p>Values are computed lazily and cached. Every {@code checkpointInterval} steps the replay state
+ * (cash, holdings, shorts, last prices) is saved, so a transaction added in the past only replays
+ * from the checkpoint before it, appending a price step only replays the last step, and rendering
+ * any range of already computed steps replays nothing.</p>
+ *
+ * <p>Methods are synchronized, so a curve can be extended on a background thread while the UI
+ * reads it.</p>
+ */
+public class PortfolioValueCurve {
+    /** Steps between saved replay states. */
+    public static final int DEFAULT_CHECKPOINT_INTERVAL = 32;
+
+    private final PriceHistory history;
+    private final int checkpointInterval;
+    // Replay events sorted by time; among equal times in log order
+    private final List<Event> events = new ArrayList<>();
+    private final List<ReplayState> checkpoints = new ArrayList<>();
+    private ReplayState current = new ReplayState();
+    private long[] valueCents = new long[16];
+    private int computed;
+    // Log entries already turned into events, and the id of the last one, to detect a new log
+    private int seenTransactions;
+    private String lastSeenId;
+    private long replayedSteps;
+
+    /**
+     * A transaction reduced to its effect on the replay state.
+     */
+    private static final class Event {
+        final long time;
+        final TransactionType type;
+        final long cashDelta;
+        final String symbol;
+        final long units;
+
+        Event(long time, TransactionType type, long cashDelta, String symbol, long units) {
+            this.time = time;
+            this.type = type;
+            this.cashDelta = cashDelta;
+            this.symbol = symbol;
+            this.units = units;
+        }
+    }
+
+    /**
+     * Cash, holdings and shorts at the start of a step, and the events applied so far.
+     */
+    private static final class ReplayState {
+        long cashCents;
+        int nextEvent;
+        final Map<String, Long> holdings = new HashMap<>();
+        final Map<String, Long> shortUnits = new HashMap<>();
+        final Map<String, Long> shortCollateral = new HashMap<>();
+        // Last known price per coin, carried over steps without data
+        final Map<String, Long> lastPrices = new HashMap<>();
+
+        ReplayState copy() {
+            ReplayState copy = new ReplayState();
+            copy.cashCents = cashCents;
+            copy.nextEvent = nextEvent;
+            copy.holdings.putAll(holdings);
+            copy.shortUnits.putAll(shortUnits);
+            copy.shortCollateral.putAll(shortCollateral);
+            copy.lastPrices.putAll(lastPrices);
+            return copy;
+        }
+    }
+
+    /**
+     * Creates a curve with the default checkpoint interval.
+     *
+     * @param history The aligned prices; extend it through {@link #appendPrices(Map)}.
+     */
+    public PortfolioValueCurve(PriceHistory history) {
+        this(history, DEFAULT_CHECKPOINT_INTERVAL);
+    }
+
+    /**
+     * Creates a curve.
+     *
+     * @param history            The aligned prices; extend it through {@link #appendPrices(Map)}.
+     * @param checkpointInterval Steps between saved replay states.
+     */
+    public PortfolioValueCurve(PriceHistory history, int checkpointInterval) {
+        if (checkpointInterval <= 0) throw new IllegalArgumentException("Checkpoint interval must be positive");
+        this.history = history;
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    /**
+     * Brings the curve up to date with a transaction log, e.g. {@link Account#getTransactions()}.
+     * Entries appended since the last call are added; only the steps from the checkpoint before
+     * the earliest of them are replayed again. A different log starts over.
+     *
+     * @param transactions The full transaction log, in the order it was recorded.
+     */
+    public synchronized void refresh(List<Transaction> transactions) {
+        if (seenTransactions > transactions.size() || (seenTransactions > 0
+                && !transactions.get(seenTransactions - 1).getTransactionId().equals(lastSeenId))) {
+            events.clear();
+            seenTransactions = 0;
+            invalidateFrom(0);
+        }
+        for (int i = seenTransactions; i < transactions.size(); i++) {
+            addEvent(toEvent(transactions.get(i)));
+        }
+        seenTransactions = transactions.size();
+        lastSeenId = seenTransactions == 0 ? null : transactions.get(seenTransactions - 1).getTransactionId();
+    }
+
+    /**
+     * Appends one price step, e.g. the latest {@link CryptoService#getCurrentPrices()}.
+     * Transactions after the previous last step now count towards the new step.
+     *
+     * @param prices Map of coin symbol to price.
+     */
+    public synchronized void appendPrices(Map<String, Double> prices) {
+        int previousLast = history.length() - 1;
+        history.append(prices);
+        if (previousLast >= 0) invalidateFrom(previousLast);
+    }
+
+    public synchronized int size() {
+        return history.length();
+    }
+
+    /**
+     * Returns when a step starts.
+     *
+     * @param step The step index.
+     * @return The start of the step (epoch milliseconds).
+     */
+    public long timeAt(int step) {
+        return history.timeAt(step);
+    }
+
+    /**
+     * Returns the portfolio value at a step.
+     *
+     * @param step The step index.
+     * @return The value in fiat.
+     */
+    public synchronized double valueAt(int step) {
+        checkStep(step);
+        computeThrough(step);
+        return Money.fiat(valueCents[step]);
+    }
+
+    /**
+     * Returns the portfolio values of a range of steps.
+     *
+     * @param from First step, inclusive.
+     * @param to   Last step, exclusive.
+     * @return The values in fiat.
+     */
+    public synchronized double[] values(int from, int to) {
+        if (from < 0 || to > history.length() || from > to) {
+            throw new IllegalArgumentException("Invalid range " + from + ".." + to);
+        }
+        double[] result = new double[to - from];
+        if (to > from) computeThrough(to - 1);
+        for (int i = from; i < to; i++) {
+            result[i - from] = Money.fiat(valueCents[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Returns how many steps have been replayed in total, including replays after invalidation.
+     */
+    synchronized long getReplayedSteps() {
+        return replayedSteps;
+    }
+
+    private void checkStep(int step) {
+        if (step < 0 || step >= history.length()) throw new IllegalArgumentException("Invalid step " + step);
+    }
+
+    private void addEvent(Event event) {
+        // Upper bound by time, so events with equal times keep their log order
+        int low = 0;
+        int high = events.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (events.get(mid).time <= event.time) low = mid + 1; else high = mid;
+        }
+        events.add(low, event);
+        invalidateFrom(history.stepOf(event.time));
+    }
+
+    /**
+     * Drops the values from a step on and resumes from the checkpoint at or before it.
+     */
+    private void invalidateFrom(int step) {
+        if (step >= computed) return;
+        int checkpoint = step / checkpointInterval;
+        current = checkpoints.get(checkpoint).copy();
+        checkpoints.subList(checkpoint + 1, checkpoints.size()).clear();
+        computed = checkpoint * checkpointInterval;
+    }
+
+    private void computeThrough(int step) {
+        if (valueCents.length < history.length()) {
+            valueCents = Arrays.copyOf(valueCents, Math.max(history.length(), valueCents.length * 2));
+        }
+        while (computed <= step) {
+            if (computed % checkpointInterval == 0 && checkpoints.size() == computed / checkpointInterval) {
+                checkpoints.add(current.copy());
+            }
+            boolean last = computed == history.length() - 1;
+            long end = history.timeAt(computed + 1);
+            while (current.nextEvent < events.size() && (last || events.get(current.nextEvent).time < end)) {
+                apply(current, events.get(current.nextEvent++));
+            }
+            valueCents[computed] = value(current, computed);
+            computed++;
+            replayedSteps++;
+        }
+    }
+
+    private void apply(ReplayState state, Event event) {
+        state.cashCents += event.cashDelta;
+        if (event.symbol == null) return;
+        String symbol = event.symbol;
+        switch (event.type) {
+            case CRYPTO_PURCHASE -> state.holdings.merge(symbol, event.units, Long::sum);
+            case CRYPTO_SALE -> {
+                long left = state.holdings.getOrDefault(symbol, 0L) - event.units;
+                if (left > 0) state.holdings.put(symbol, left); else state.holdings.remove(symbol);
+            }
+            case CRYPTO_SHORT_OPEN -> {
+                state.shortUnits.merge(symbol, event.units, Long::sum);
+                state.shortCollateral.merge(symbol, -event.cashDelta, Long::sum);
+            }
+            case CRYPTO_SHORT_CLOSE -> {
+                long open = state.shortUnits.getOrDefault(symbol, 0L);
+                if (event.units >= open) {
+                    state.shortUnits.remove(symbol);
+                    state.shortCollateral.remove(symbol);
+                } else {
+                    // Collateral is released in proportion to the amount closed
+                    long collateral = state.shortCollateral.getOrDefault(symbol, 0L);
+                    long released = Money.mulDiv(collateral, event.units, open, true);
+                    state.shortUnits.put(symbol, open - event.units);
+                    state.shortCollateral.put(symbol, collateral - released);
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    private long value(ReplayState state, int step) {
+        for (String symbol : history.getSymbols()) {
+            double price = history.price(symbol, step);
+            if (!Double.isNaN(price) && price > 0) state.lastPrices.put(symbol, Money.priceUnits(price));
+        }
+        long total = state.cashCents;
+        for (Map.Entry<String, Long> entry : state.holdings.entrySet()) {
+            total += Money.value(entry.getValue(), state.lastPrices.getOrDefault(entry.getKey(), 0L));
+        }
+        for (Map.Entry<String, Long> entry : state.shortUnits.entrySet()) {
+            long price = state.lastPrices.getOrDefault(entry.getKey(), 0L);
+            total += 2 * state.shortCollateral.getOrDefault(entry.getKey(), 0L) - Money.value(entry.getValue(), price);
+        }
+        return total;
+    }
+
+    /**
+     * Reduces a transaction to its cash effect and, for trades, the coin and amount recorded on
+     * it. Trades recorded without a coin, e.g. in files older than those fields, count as cash only.
+     */
+    private static Event toEvent(Transaction tx) {
+        long time = tx.getTimestamp().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        long amount = tx.getAmountCents();
+        TransactionType type = tx.getType();
+        switch (type) {
+            case DEPOSIT:
+                return new Event(time, type, amount, null, 0L);
+            case WITHDRAWAL:
+                return new Event(time, type, -amount, null, 0L);
+            case TRANSFER:
+                return new Event(time, type, tx.getDescription().startsWith("Outgoing") ? -amount : amount, null, 0L);
+            default:
+                long cashDelta = type == TransactionType.CRYPTO_SALE || type == TransactionType.CRYPTO_SHORT_CLOSE
+                        ? amount : -amount;
+                if (tx.getSymbol() == null) {
+                    System.err.println("No coin recorded for \"" + tx.getDescription() + "\"; counting cash only");
+                    return new Event(time, type, cashDelta, null, 0L);
+                }
+                return new Event(time, type, cashDelta, tx.getSymbol(), tx.getCoinUnits());
+        }
+    }
+}
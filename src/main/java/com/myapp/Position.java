@@ -4,11 +4,12 @@ package com.myapp;
  * Represents a trading position for a specific cryptocurrency.
  * Contains details about the coin symbol, amount held,
  * entry price, position type (LONG or SHORT), and timestamp of the position.
+ * Amount and entry price are kept as fixed-point units (see {@link Money}).
  */
 public class Position {
     private String symbol;
-    private double amount;
-    private double entryPrice;
+    private volatile long units;
+    private long entryPriceUnits;
     private PositionType type;
     private long timestamp;
 
@@ -22,20 +23,44 @@ public class Position {
      * @param timestamp  The timestamp (epoch milliseconds) when the position was created.
      */
     public Position(String symbol, double amount, double entryPrice, PositionType type, long timestamp) {
+        this(symbol, Money.coinUnits(amount), Money.priceUnits(entryPrice), type, timestamp);
+    }
+
+    private Position(String symbol, long units, long entryPriceUnits, PositionType type, long timestamp) {
         this.symbol = symbol;
-        this.amount = amount;
-        this.entryPrice = entryPrice;
+        this.units = units;
+        this.entryPriceUnits = entryPriceUnits;
         this.type = type;
         this.timestamp = timestamp;
     }
 
+    /**
+     * Creates a position from fixed-point units.
+     *
+     * @param symbol          The symbol of the cryptocurrency (e.g., "BTC").
+     * @param units           The amount held, in coin base units.
+     * @param entryPriceUnits The entry price, in price units.
+     * @param type            The type of position (LONG or SHORT).
+     * @param timestamp       The timestamp (epoch milliseconds) when the position was created.
+     * @return The new position.
+     */
+    static Position ofUnits(String symbol, long units, long entryPriceUnits, PositionType type, long timestamp) {
+        return new Position(symbol, units, entryPriceUnits, type, timestamp);
+    }
+
     public String getSymbol() { return symbol; }
-    public double getAmount() { return amount; }
-    public double getEntryPrice() { return entryPrice; }
+    public double getAmount() { return Money.coins(units); }
+    public double getEntryPrice() { return Money.price(entryPriceUnits); }
+    public long getUnits() { return units; }
+    public long getEntryPriceUnits() { return entryPriceUnits; }
     public PositionType getType() { return type; }
     public long getTimestamp() { return timestamp; }
 
     public void setAmount(double amount) {
-        this.amount = amount;
+        this.units = Money.coinUnits(amount);
+    }
+
+    void setUnits(long units) {
+        this.units = units;
     }
 }
\ No newline at end of file
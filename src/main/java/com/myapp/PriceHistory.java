@@ -0,0 +1,139 @@
+package com.myapp;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Price series of several coins aligned on one time grid, e.g. daily closes, for
+ * {@link PortfolioValueCurve}.
+ *
+ * <p>Step {@code i} starts at {@code start + i × step}. Each coin has one price per step, or NaN
+ * where its series has no data. Prices are kept in primitive arrays that grow as steps are
+ * appended.</p>
+ */
+public class PriceHistory {
+    private static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+
+    private final long startMillis;
+    private final long stepMillis;
+    private final Map<String, double[]> prices = new HashMap<>();
+    private int length;
+
+    /**
+     * Creates an empty history.
+     *
+     * @param startMillis Start of the first step (epoch milliseconds).
+     * @param stepMillis  Length of one step, e.g. one day or one hour.
+     */
+    public PriceHistory(long startMillis, long stepMillis) {
+        if (stepMillis <= 0) throw new IllegalArgumentException("Step must be positive");
+        this.startMillis = startMillis;
+        this.stepMillis = stepMillis;
+    }
+
+    /**
+     * Aligns daily price lists, such as those of {@link CryptoService#getHistoricalPrices(int)}, on
+     * their last day. Lists shorter than the longest one get NaN for their missing first days.
+     *
+     * @param dailyPrices Map of coin symbol to daily prices, oldest first.
+     * @param lastDay     The day of the last price in every list.
+     * @return The aligned history, one step per day starting at midnight in the system time zone.
+     */
+    public static PriceHistory daily(Map<String, List<Double>> dailyPrices, LocalDate lastDay) {
+        int days = 0;
+        for (List<Double> series : dailyPrices.values()) {
+            days = Math.max(days, series.size());
+        }
+        long start = lastDay.minusDays(Math.max(days - 1, 0)).atStartOfDay(ZoneId.systemDefault())
+                .toInstant().toEpochMilli();
+        PriceHistory history = new PriceHistory(start, DAY_MILLIS);
+        for (int day = 0; day < days; day++) {
+            Map<String, Double> step = new HashMap<>();
+            for (Map.Entry<String, List<Double>> entry : dailyPrices.entrySet()) {
+                List<Double> series = entry.getValue();
+                int index = day - (days - series.size());
+                if (index >= 0 && series.get(index) != null) step.put(entry.getKey(), series.get(index));
+            }
+            history.append(step);
+        }
+        return history;
+    }
+
+    /**
+     * Appends one step.
+     *
+     * @param stepPrices Map of coin symbol to price; coins left out get NaN.
+     */
+    void append(Map<String, Double> stepPrices) {
+        for (String symbol : stepPrices.keySet()) {
+            prices.computeIfAbsent(symbol, k -> {
+                double[] series = new double[Math.max(16, length + 1)];
+                Arrays.fill(series, Double.NaN);
+                return series;
+            });
+        }
+        for (Map.Entry<String, double[]> entry : prices.entrySet()) {
+            double[] series = entry.getValue();
+            if (series.length == length) {
+                int oldLength = series.length;
+                series = Arrays.copyOf(series, oldLength * 2);
+                Arrays.fill(series, oldLength, series.length, Double.NaN);
+                entry.setValue(series);
+            }
+            Double price = stepPrices.get(entry.getKey());
+            series[length] = price == null ? Double.NaN : price;
+        }
+        length++;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public long getStepMillis() {
+        return stepMillis;
+    }
+
+    public Set<String> getSymbols() {
+        return prices.keySet();
+    }
+
+    /**
+     * Returns when a step starts.
+     *
+     * @param step The step index; may be {@code length()} for the end of the last step.
+     * @return The start of the step (epoch milliseconds).
+     */
+    public long timeAt(int step) {
+        return startMillis + step * stepMillis;
+    }
+
+    /**
+     * Returns the step a time falls in, clamped to the steps of the history.
+     *
+     * @param epochMillis The time.
+     * @return The step index, 0 for times before the history and the last step for later times.
+     */
+    public int stepOf(long epochMillis) {
+        if (length == 0 || epochMillis < startMillis) return 0;
+        long step = (epochMillis - startMillis) / stepMillis;
+        return (int) Math.min(step, length - 1);
+    }
+
+    /**
+     * Returns a coin's price at a step.
+     *
+     * @param symbol The coin symbol.
+     * @param step   The step index.
+     * @return The price, or NaN if unknown.
+     */
+    public double price(String symbol, int step) {
+        double[] series = prices.get(symbol);
+        return series == null || step >= length ? Double.NaN : series[step];
+    }
+}
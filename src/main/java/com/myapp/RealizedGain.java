@@ -0,0 +1,65 @@
+package com.myapp;
+
+/**
+ * One realized slice of a lot: the part of a buy lot relieved by a sale, or the part of a short lot
+ * bought back. A sale that spans several lots yields one gain per lot, as a tax report lists them.
+ */
+public class RealizedGain {
+    private final String symbol;
+    private final PositionType side;
+    private final long units;
+    private final long costBasisCents;
+    private final long proceedsCents;
+    private final long openedAt;
+    private final long closedAt;
+
+    /**
+     * Constructs a realized gain from fixed-point units.
+     *
+     * @param symbol         The symbol of the cryptocurrency (e.g., "BTC").
+     * @param side           LONG for a sold holding, SHORT for a bought-back short.
+     * @param units          The amount realized, in coin base units.
+     * @param costBasisCents What the amount cost: its purchase price, or for a short the buy-back price.
+     * @param proceedsCents  What the amount fetched: its sale price, or for a short the entry price.
+     * @param openedAt       When the lot was opened (epoch milliseconds); 0 if unknown.
+     * @param closedAt       When the amount was sold or bought back (epoch milliseconds).
+     */
+    public RealizedGain(String symbol, PositionType side, long units, long costBasisCents, long proceedsCents,
+                        long openedAt, long closedAt) {
+        if (symbol == null || side == null) throw new IllegalArgumentException("Symbol and side are required");
+        if (units <= 0) throw new IllegalArgumentException("Amount must be positive");
+        this.symbol = symbol;
+        this.side = side;
+        this.units = units;
+        this.costBasisCents = costBasisCents;
+        this.proceedsCents = proceedsCents;
+        this.openedAt = openedAt;
+        this.closedAt = closedAt;
+    }
+
+    public String getSymbol() { return symbol; }
+    public PositionType getSide() { return side; }
+    public double getAmount() { return Money.coins(units); }
+    public long getUnits() { return units; }
+    public double getCostBasis() { return Money.fiat(costBasisCents); }
+    public long getCostBasisCents() { return costBasisCents; }
+    public double getProceeds() { return Money.fiat(proceedsCents); }
+    public long getProceedsCents() { return proceedsCents; }
+    public long getOpenedAt() { return openedAt; }
+    public long getClosedAt() { return closedAt; }
+
+    /**
+     * Returns the gain, negative for a loss.
+     *
+     * @return Proceeds minus cost basis.
+     */
+    public double getGain() { return Money.fiat(getGainCents()); }
+
+    public long getGainCents() { return proceedsCents - costBasisCents; }
+
+    @Override
+    public String toString() {
+        return String.format("%s %s %.8f: cost $%.2f, proceeds $%.2f, gain $%.2f",
+                side, symbol, getAmount(), getCostBasis(), getProceeds(), getGain());
+    }
+}
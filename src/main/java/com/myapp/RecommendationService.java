@@ -0,0 +1,300 @@
+package com.myapp;
+
+import weka.core.Instances;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * {@code RecommendationService} computes coin recommendations in the background and serves the
+ * latest result to every caller.
+ *
+ * <p>One daemon thread polls a market data version and runs the {@link CryptoAdvisor} pipeline
+ * only when that version has changed since the last run. The default version is a fingerprint of
+ * every coin's feature dataset, read through the {@link LiveDataLoader} caches, so it changes
+ * when fresh prices arrive and costs no API calls in between. The result is stored as an
+ * immutable {@link RecommendationSnapshot}; answering a request is a single volatile read, no
+ * matter how many users ask.</p>
+ *
+ * <p>The Trading panel and the CLI use {@link #getShared()}, so all sessions in one JVM share one
+ * computation instead of each starting their own.</p>
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ *     RecommendationSnapshot latest = RecommendationService.getShared().getLatest();
+ *     if (latest != null) {
+ *         System.out.println(latest.getRecommendedSymbol());
+ *     }
+ * }</pre>
+ */
+public class RecommendationService implements AutoCloseable {
+    // Settings of the shared instance
+    private static final int DEFAULT_LOOKBACK_DAYS = 14;
+    private static final long DEFAULT_POLL_INTERVAL_MS = TimeUnit.MINUTES.toMillis(5);
+    // How often awaitLatest() checks the caller's cancel flag
+    private static final long WAIT_POLL_MS = 10;
+
+    private final Callable<String> versionProbe;
+    private final Supplier<CryptoAdvisor> advisorFactory;
+    private final long pollIntervalMs;
+    private final ScheduledExecutorService executor;
+    private final List<Consumer<CoinForecast>> forecastListeners = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean started = new AtomicBoolean(false);
+    // Doubles as the cancel flag of an in-flight advisor run
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    private volatile RecommendationSnapshot latest;
+    // The last run's failure, cleared by the next success, and the number of failed runs so far
+    private volatile Exception lastFailure;
+    private final AtomicLong failureCount = new AtomicLong();
+    // Set while a retry queued by a waiter has not finished, so waiters share one retry
+    private final AtomicBoolean retryPending = new AtomicBoolean(false);
+
+    /**
+     * Creates a service. Call {@link #start()} to begin polling.
+     *
+     * @param versionProbe   Returns the current market data version; a run starts whenever it changes.
+     * @param advisorFactory Creates the advisor used for each run.
+     * @param pollIntervalMs Delay between the end of one poll and the start of the next.
+     */
+    public RecommendationService(Callable<String> versionProbe, Supplier<CryptoAdvisor> advisorFactory, long pollIntervalMs) {
+        if (pollIntervalMs <= 0) {
+            throw new IllegalArgumentException("Poll interval must be positive");
+        }
+        this.versionProbe = versionProbe;
+        this.advisorFactory = advisorFactory;
+        this.pollIntervalMs = pollIntervalMs;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "recommendation-service");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Returns the service shared by every panel and CLI session of this JVM, starting it on first use.
+     *
+     * @return The shared, running service.
+     */
+    public static RecommendationService getShared() {
+        RecommendationService shared = SharedHolder.INSTANCE;
+        shared.start();
+        return shared;
+    }
+
+    /**
+     * Starts polling right away and then every poll interval. Calling it again has no effect.
+     */
+    public void start() {
+        if (closed.get() || !started.compareAndSet(false, true)) {
+            return;
+        }
+        executor.scheduleWithFixedDelay(this::refresh, 0, pollIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns the latest recommendation without computing anything.
+     *
+     * @return The latest snapshot, or null if the first run has not finished yet.
+     */
+    public RecommendationSnapshot getLatest() {
+        return latest;
+    }
+
+    /**
+     * Returns the failure of the last run, if it failed.
+     *
+     * @return The exception of the last run, or null if it succeeded or none has run yet.
+     */
+    public Exception getLastFailure() {
+        return lastFailure;
+    }
+
+    /**
+     * Returns the latest recommendation, waiting for the first run if none has finished yet.
+     *
+     * @param cancelRequested Flag polled while waiting; setting it stops waiting, not the shared run.
+     * @param progress        Receives forecasts of the running computation while waiting.
+     * @return The latest snapshot, or null if cancelled or the service was closed.
+     * @throws InterruptedException if the waiting thread is interrupted.
+     * @throws IllegalStateException if the run waited for fails.
+     * @see #awaitLatest(AtomicBoolean, Consumer, long)
+     */
+    public RecommendationSnapshot awaitLatest(AtomicBoolean cancelRequested, Consumer<CoinForecast> progress)
+            throws InterruptedException {
+        return awaitLatest(cancelRequested, progress, Long.MAX_VALUE);
+    }
+
+    /**
+     * Returns the latest recommendation, waiting for the first run if none has finished yet.
+     * While waiting, the forecasts of the running computation (including fast-tier estimates)
+     * are passed to {@code progress}, so a caller can show a partial ranking.
+     *
+     * <p>If a run had already failed when the caller subscribed, a retry starts right away instead
+     * of at the next poll; waiters arriving while that retry is pending share it. A failure of the
+     * run waited for is thrown to every waiter rather than waiting for a later poll to succeed.</p>
+     *
+     * @param cancelRequested Flag polled while waiting; setting it stops waiting, not the shared run.
+     * @param progress        Receives forecasts of the running computation while waiting.
+     * @param timeoutMs       Longest time to wait, in milliseconds.
+     * @return The latest snapshot, or null if cancelled, timed out or the service was closed.
+     * @throws InterruptedException if the waiting thread is interrupted.
+     * @throws IllegalStateException if the run waited for fails.
+     */
+    public RecommendationSnapshot awaitLatest(AtomicBoolean cancelRequested, Consumer<CoinForecast> progress,
+                                              long timeoutMs) throws InterruptedException {
+        RecommendationSnapshot current = latest;
+        if (current != null) {
+            return current;
+        }
+
+        // Subscribe before starting, so no forecast of the first run is missed
+        forecastListeners.add(progress);
+        long failuresBefore = failureCount.get();
+        // Read before starting, so a failure of the run started here is thrown, not retried
+        boolean failedBefore = lastFailure != null;
+        start();
+        if (failedBefore) {
+            retryNow();
+        }
+        // Saturates at Long.MAX_VALUE, so an unbounded wait never times out
+        long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        long startedAt = System.nanoTime();
+        try {
+            while ((current = latest) == null) {
+                if (failureCount.get() != failuresBefore) {
+                    Exception failure = lastFailure;
+                    String reason = failure == null ? "unknown error" : failure.getMessage();
+                    throw new IllegalStateException("Recommendation failed: " + reason, failure);
+                }
+                if (cancelRequested.get() || closed.get() || System.nanoTime() - startedAt >= timeoutNanos) {
+                    return null;
+                }
+                Thread.sleep(WAIT_POLL_MS);
+            }
+            return current;
+        } finally {
+            forecastListeners.remove(progress);
+        }
+    }
+
+    /**
+     * Probes the market data version and recomputes the ranking if it changed. Failures are
+     * logged, recorded for {@link #awaitLatest} and keep the previous snapshot, so the next poll retries.
+     *
+     * @return True if a new snapshot was stored.
+     */
+    boolean refresh() {
+        try {
+            String version = versionProbe.call();
+            RecommendationSnapshot current = latest;
+            if (current != null && current.getVersion().equals(version)) {
+                return false;
+            }
+
+            List<CoinForecast> ranking = advisorFactory.get().rankCoins(closed, this::publishProgress);
+            if (ranking == null) {
+                return false;  // Closed while computing
+            }
+            latest = new RecommendationSnapshot(version, ranking, LocalDateTime.now());
+            lastFailure = null;
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            System.err.println("Background recommendation failed: " + e.getMessage());
+            // Set before counting, so a waiter that sees the new count also sees the failure
+            lastFailure = e;
+            failureCount.incrementAndGet();
+            return false;
+        } finally {
+            retryPending.set(false);
+        }
+    }
+
+    /**
+     * Runs a refresh on the polling thread as soon as it is free, without waiting for the next poll.
+     * Does nothing if such a retry is already pending.
+     */
+    private void retryNow() {
+        if (!retryPending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(this::refresh);
+        } catch (RejectedExecutionException e) {
+            // Closed; the waiter returns null
+            retryPending.set(false);
+        }
+    }
+
+    /**
+     * Computes the default market data version: the fingerprint of every coin's feature dataset.
+     * Datasets come from the loader's caches, so the version only changes once they expire and
+     * fresh prices have been fetched.
+     *
+     * @param cryptoService Source of the coin list.
+     * @param loader        Loader whose caches are reused between polls.
+     * @param lookbackDays  Days of history per coin.
+     * @return A string that changes whenever any coin's data changes.
+     */
+    static String marketDataVersion(CryptoService cryptoService, LiveDataLoader loader, int lookbackDays) {
+        StringBuilder version = new StringBuilder();
+        Map<String, String> coins = new TreeMap<>(cryptoService.getCoinIdToSymbolMap());
+        for (String coinId : coins.keySet()) {
+            version.append(coinId).append('=');
+            try {
+                Instances data = loader.getHistoricalData(coinId, lookbackDays);
+                version.append(ModelCache.fingerprint(data));
+            } catch (Exception e) {
+                // A coin that cannot be loaded yet changes the version once it can
+                version.append('-');
+            }
+            version.append(';');
+        }
+        return version.toString();
+    }
+
+    /**
+     * Stops polling and cancels a run in progress.
+     */
+    @Override
+    public void close() {
+        closed.set(true);
+        executor.shutdownNow();
+    }
+
+    private void publishProgress(CoinForecast forecast) {
+        for (Consumer<CoinForecast> listener : forecastListeners) {
+            listener.accept(forecast);
+        }
+    }
+
+    /**
+     * Lazily created shared instance (initialization-on-demand holder).
+     */
+    private static class SharedHolder {
+        private static final RecommendationService INSTANCE = createDefault();
+
+        private static RecommendationService createDefault() {
+            CryptoService cryptoService = new CryptoService();
+            LiveDataLoader loader = new LiveDataLoader();
+            return new RecommendationService(
+                    () -> marketDataVersion(cryptoService, loader, DEFAULT_LOOKBACK_DAYS),
+                    () -> new CryptoAdvisor(cryptoService, DEFAULT_LOOKBACK_DAYS, true),
+                    DEFAULT_POLL_INTERVAL_MS);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.myapp;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Immutable result of one background recommendation run.
+ *
+ * <p>Holds the final ranking computed by {@link RecommendationService}, the market data version
+ * it was computed from and the time it was computed. Snapshots are shared by every caller, so
+ * the ranking cannot be modified.</p>
+ */
+public class RecommendationSnapshot {
+    private final String version;
+    private final List<CoinForecast> ranking;
+    private final LocalDateTime computedAt;
+
+    /**
+     * Creates a snapshot.
+     *
+     * @param version    The market data version the ranking was computed from.
+     * @param ranking    Final forecasts, highest predicted growth first.
+     * @param computedAt When the ranking was computed.
+     */
+    public RecommendationSnapshot(String version, List<CoinForecast> ranking, LocalDateTime computedAt) {
+        this.version = version;
+        this.ranking = List.copyOf(ranking);
+        this.computedAt = computedAt;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public List<CoinForecast> getRanking() {
+        return ranking;
+    }
+
+    public LocalDateTime getComputedAt() {
+        return computedAt;
+    }
+
+    /**
+     * Returns the coin with the highest predicted growth.
+     *
+     * @return The recommended symbol, or null if no coin had usable data.
+     */
+    public String getRecommendedSymbol() {
+        return ranking.isEmpty() ? null : ranking.get(0).getSymbol();
+    }
+}
@@ -0,0 +1,116 @@
+package com.myapp;
+
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.linear.CholeskyDecomposition;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.RealVector;
+import weka.core.Instance;
+import weka.core.Instances;
+
+/**
+ * Closed-form ridge regression used as the advisor's fast tier.
+ *
+ * <p>Features are standardized and the target is centred, then the weights are the solution of
+ * {@code (Z'Z + lambda I) w = Z'y}, obtained with a Cholesky decomposition. On the advisor's
+ * datasets (a few dozen rows, four features) a fit and prediction take microseconds, so every
+ * coin gets an estimate as soon as its data has been fetched, long before its RandomForest is
+ * trained.</p>
+ *
+ * <p>The forecast band assumes normally distributed residuals: it spans the prediction plus or
+ * minus 1.28 residual standard deviations, i.e. the 10th to 90th percentile, matching the band
+ * reported for forests.</p>
+ */
+public class RidgeForecaster {
+    public static final double DEFAULT_LAMBDA = 1.0;
+    // z-score of the 90th percentile of the standard normal distribution
+    private static final double Z_90 = 1.2815515655446004;
+
+    private final double lambda;
+
+    /**
+     * Creates a forecaster with a ridge penalty of {@value #DEFAULT_LAMBDA}.
+     */
+    public RidgeForecaster() {
+        this(DEFAULT_LAMBDA);
+    }
+
+    /**
+     * Creates a forecaster with the given ridge penalty.
+     *
+     * @param lambda Penalty on the squared weights of the standardized features; must be positive.
+     */
+    public RidgeForecaster(double lambda) {
+        if (lambda <= 0) throw new IllegalArgumentException("Ridge penalty must be positive");
+        this.lambda = lambda;
+    }
+
+    /**
+     * Fits the model on all rows and forecasts the latest one, the same way the advisor's
+     * other models are used.
+     *
+     * @param data   The coin's feature dataset with its class attribute set.
+     * @param symbol The coin symbol (e.g., "BTC").
+     * @return A preliminary forecast.
+     */
+    public CoinForecast forecast(Instances data, String symbol) {
+        int rows = data.numInstances();
+        int classIndex = data.classIndex();
+        int features = data.numAttributes() - 1;
+        if (rows == 0) throw new IllegalArgumentException("No data for " + symbol);
+
+        double[] means = new double[features];
+        double[] scales = new double[features];
+        int f = 0;
+        for (int a = 0; a < data.numAttributes(); a++) {
+            if (a == classIndex) continue;
+            means[f] = data.meanOrMode(a);
+            double std = Math.sqrt(data.variance(a));
+            scales[f] = (Double.isNaN(std) || std == 0.0) ? 1.0 : std;
+            f++;
+        }
+        double targetMean = data.meanOrMode(classIndex);
+
+        double[][] z = new double[rows][];
+        double[] y = new double[rows];
+        for (int i = 0; i < rows; i++) {
+            z[i] = standardize(data.instance(i), classIndex, means, scales);
+            y[i] = data.instance(i).value(classIndex) - targetMean;
+        }
+
+        // Solve (Z'Z + lambda I) w = Z'y
+        RealMatrix design = new Array2DRowRealMatrix(z, false);
+        RealMatrix gram = design.transpose().multiply(design);
+        for (int j = 0; j < features; j++) {
+            gram.addToEntry(j, j, lambda);
+        }
+        RealVector weights = new CholeskyDecomposition(gram).getSolver()
+                .solve(design.transpose().operate(new ArrayRealVector(y, false)));
+
+        double sumSq = 0.0;
+        for (int i = 0; i < rows; i++) {
+            double residual = y[i] - weights.dotProduct(new ArrayRealVector(z[i], false));
+            sumSq += residual * residual;
+        }
+        double residualStd = Math.sqrt(sumSq / Math.max(1, rows - features - 1));
+
+        Instance latest = data.lastInstance();
+        double currentPrice = latest.value(classIndex);
+        double predictedPrice = targetMean + weights.dotProduct(new ArrayRealVector(z[rows - 1], false));
+        double halfWidth = Z_90 * residualStd / currentPrice;
+        double growth = (predictedPrice - currentPrice) / currentPrice;
+        return new CoinForecast(symbol, currentPrice, predictedPrice, growth - halfWidth, growth + halfWidth,
+                residualStd / currentPrice, true);
+    }
+
+    private static double[] standardize(Instance instance, int classIndex, double[] means, double[] scales) {
+        double[] row = new double[means.length];
+        int f = 0;
+        for (int a = 0; a < instance.numAttributes(); a++) {
+            if (a == classIndex) continue;
+            row[f] = (instance.value(a) - means[f]) / scales[f];
+            f++;
+        }
+        return row;
+    }
+}
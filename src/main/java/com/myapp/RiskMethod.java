@@ -0,0 +1,11 @@
+package com.myapp;
+
+/**
+ * How {@link MonteCarloRiskEngine} draws the daily return vectors of a simulated path.
+ */
+public enum RiskMethod {
+    /** Multivariate normal returns from the Cholesky factor of the sample covariance matrix. */
+    CHOLESKY,
+    /** Whole historical days resampled with replacement, keeping fat tails and cross-coin dependence. */
+    HISTORICAL_BOOTSTRAP
+}
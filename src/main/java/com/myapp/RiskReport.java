@@ -0,0 +1,89 @@
+package com.myapp;
+
+import java.util.Arrays;
+
+/**
+ * Value-at-Risk and Conditional Value-at-Risk of a portfolio, as estimated by {@link MonteCarloRiskEngine}.
+ *
+ * <p>Losses are positive amounts in fiat over the simulated horizon. VaR at a confidence level
+ * is the loss that is not exceeded with that probability; CVaR (expected shortfall) is the
+ * average loss in the remaining tail, so it is never below VaR.</p>
+ */
+public class RiskReport {
+    private final RiskMethod method;
+    private final int paths;
+    private final int horizonDays;
+    private final double grossExposure;
+    private final double[] confidenceLevels;
+    private final double[] valueAtRisk;
+    private final double[] conditionalValueAtRisk;
+
+    /**
+     * Creates a risk report.
+     *
+     * @param method                 How the return paths were simulated.
+     * @param paths                  Number of simulated paths.
+     * @param horizonDays            Horizon of every path in days.
+     * @param grossExposure          Sum of the absolute long and short exposures in fiat.
+     * @param confidenceLevels       Confidence levels, e.g. 0.95 and 0.99.
+     * @param valueAtRisk            VaR per confidence level, in the same order.
+     * @param conditionalValueAtRisk CVaR per confidence level, in the same order.
+     */
+    public RiskReport(RiskMethod method, int paths, int horizonDays, double grossExposure,
+                      double[] confidenceLevels, double[] valueAtRisk, double[] conditionalValueAtRisk) {
+        if (confidenceLevels.length != valueAtRisk.length || confidenceLevels.length != conditionalValueAtRisk.length) {
+            throw new IllegalArgumentException("Need one VaR and CVaR per confidence level");
+        }
+        this.method = method;
+        this.paths = paths;
+        this.horizonDays = horizonDays;
+        this.grossExposure = grossExposure;
+        this.confidenceLevels = confidenceLevels.clone();
+        this.valueAtRisk = valueAtRisk.clone();
+        this.conditionalValueAtRisk = conditionalValueAtRisk.clone();
+    }
+
+    public RiskMethod getMethod() { return method; }
+    public int getPaths() { return paths; }
+    public int getHorizonDays() { return horizonDays; }
+    public double getGrossExposure() { return grossExposure; }
+    public double[] getConfidenceLevels() { return confidenceLevels.clone(); }
+
+    /**
+     * Returns the Value-at-Risk at a confidence level.
+     *
+     * @param confidence One of the confidence levels of this report.
+     * @return The loss in fiat not exceeded with the given probability.
+     */
+    public double getValueAtRisk(double confidence) {
+        return valueAtRisk[indexOf(confidence)];
+    }
+
+    /**
+     * Returns the Conditional Value-at-Risk (expected shortfall) at a confidence level.
+     *
+     * @param confidence One of the confidence levels of this report.
+     * @return The average loss in fiat beyond the Value-at-Risk.
+     */
+    public double getConditionalValueAtRisk(double confidence) {
+        return conditionalValueAtRisk[indexOf(confidence)];
+    }
+
+    private int indexOf(double confidence) {
+        for (int i = 0; i < confidenceLevels.length; i++) {
+            if (confidenceLevels[i] == confidence) return i;
+        }
+        throw new IllegalArgumentException("No estimate at confidence " + confidence + "; have " + Arrays.toString(confidenceLevels));
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder(String.format("%s, %d paths, %d-day horizon, gross exposure $%.2f",
+                method, paths, horizonDays, grossExposure));
+        for (int i = 0; i < confidenceLevels.length; i++) {
+            text.append(String.format("%n  %.1f%%: VaR $%.2f, CVaR $%.2f",
+                    confidenceLevels[i] * 100, valueAtRisk[i], conditionalValueAtRisk[i]));
+        }
+        return text.toString();
+    }
+}
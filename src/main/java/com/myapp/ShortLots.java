@@ -0,0 +1,109 @@
+package com.myapp;
+
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+/**
+ * The open short lots of one coin in a {@link Portfolio}, oldest first, with running totals.
+ *
+ * <p>The total amount and the total entry value are kept up to date on every change, so reading
+ * them is O(1) however many lots are open, and a close only visits the lots it consumes at the head
+ * of the queue. The portfolio changes the lots under the user's lock; readers need no lock, because
+ * the totals are published as one immutable {@link Totals} and the queue is a concurrent deque.</p>
+ */
+class ShortLots {
+    private final Deque<Position> lots = new ConcurrentLinkedDeque<>();
+    private volatile Totals totals = Totals.EMPTY;
+
+    /**
+     * Amount and entry value of all lots, replaced as a whole so readers see a consistent view.
+     * The entry value is kept in cents, the collateral actually withdrawn, and in price units, from
+     * which the average entry price is derived without the rounding of the cents.
+     */
+    static final class Totals {
+        static final Totals EMPTY = new Totals(0L, 0L, 0L, 0);
+
+        final long units;
+        final long entryValueCents;
+        final long preciseEntryValue;
+        final int lotCount;
+
+        Totals(long units, long entryValueCents, long preciseEntryValue, int lotCount) {
+            this.units = units;
+            this.entryValueCents = entryValueCents;
+            this.preciseEntryValue = preciseEntryValue;
+            this.lotCount = lotCount;
+        }
+
+        /**
+         * Returns the average entry price of the lots in price units, or 0 if none is open.
+         */
+        long averageEntryPriceUnits() {
+            return units == 0 ? 0L : Money.preciseUnitPrice(preciseEntryValue, units);
+        }
+    }
+
+    /**
+     * Appends a newly opened lot.
+     */
+    void add(Position lot) {
+        lots.addLast(lot);
+        Totals current = totals;
+        totals = new Totals(current.units + lot.getUnits(),
+                current.entryValueCents + entryValue(lot.getUnits(), lot),
+                Math.addExact(current.preciseEntryValue, preciseEntryValue(lot.getUnits(), lot)), current.lotCount + 1);
+    }
+
+    /**
+     * Returns the oldest lot without removing it.
+     *
+     * @return The oldest lot, or null if none is open.
+     */
+    Position oldest() {
+        return lots.peekFirst();
+    }
+
+    /**
+     * Closes part or all of the oldest lot.
+     *
+     * @param units Units to close, at most the oldest lot's amount.
+     */
+    void closeOldest(long units) {
+        Position lot = lots.peekFirst();
+        long remaining = lot.getUnits() - units;
+        Totals current = totals;
+        long entryValue = current.entryValueCents - entryValue(lot.getUnits(), lot) + entryValue(remaining, lot);
+        long preciseEntryValue = current.preciseEntryValue - preciseEntryValue(lot.getUnits(), lot)
+                + preciseEntryValue(remaining, lot);
+        if (remaining == 0) {
+            lots.pollFirst();
+            totals = new Totals(current.units - units, entryValue, preciseEntryValue, current.lotCount - 1);
+        } else {
+            lot.setUnits(remaining);
+            totals = new Totals(current.units - units, entryValue, preciseEntryValue, current.lotCount);
+        }
+    }
+
+    Totals totals() {
+        return totals;
+    }
+
+    /**
+     * Returns a copy of the open lots, oldest first. This visits every lot; prefer {@link #totals()}.
+     *
+     * @return A new list of lots.
+     */
+    List<Position> toList() {
+        return new ArrayList<>(lots);
+    }
+
+    private static long entryValue(long units, Position lot) {
+        return Money.value(units, lot.getEntryPriceUnits());
+    }
+
+    private static long preciseEntryValue(long units, Position lot) {
+        return Money.preciseValue(units, lot.getEntryPriceUnits());
+    }
+}
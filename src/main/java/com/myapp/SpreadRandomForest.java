@@ -0,0 +1,88 @@
+package com.myapp;
+
+import weka.classifiers.Classifier;
+import weka.core.Instance;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A Weka {@link weka.classifiers.trees.RandomForest} that also exposes the prediction of every
+ * individual tree.
+ *
+ * <p>The forest's own prediction is the mean over its trees; the per-tree predictions show how
+ * much the trees disagree, which {@link CryptoAdvisor} reports as a confidence band around the
+ * predicted growth. The averaged prediction is unchanged.</p>
+ *
+ * <p>Training is interruptible: the forest checks the building thread's interrupt status before
+ * each tree, and with several execution slots an interrupt stops the tree pool immediately,
+ * dropping the trees that have not started. An interrupted build throws
+ * {@link InterruptedException}, so cancelling a recommendation frees the CPU within about one
+ * tree's training time.</p>
+ */
+public class SpreadRandomForest extends weka.classifiers.trees.RandomForest {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Builds the trees, sequentially or on {@code numExecutionSlots} threads, stopping as soon
+     * as the building thread is interrupted.
+     *
+     * @throws InterruptedException if the building thread is interrupted.
+     * @throws Exception            if a tree cannot be built.
+     */
+    @Override
+    protected void buildClassifiers() throws Exception {
+        int slots = m_numExecutionSlots == 0 ? Runtime.getRuntime().availableProcessors() : m_numExecutionSlots;
+        if (slots == 1) {
+            for (int i = 0; i < m_Classifiers.length; i++) {
+                if (Thread.interrupted()) throw new InterruptedException("Forest training interrupted");
+                m_Classifiers[i].buildClassifier(getTrainingSet(i));
+            }
+            return;
+        }
+
+        ExecutorService treePool = Executors.newFixedThreadPool(slots);
+        try {
+            List<Future<?>> trees = new ArrayList<>(m_Classifiers.length);
+            for (int i = 0; i < m_Classifiers.length; i++) {
+                int tree = i;
+                trees.add(treePool.submit(() -> {
+                    m_Classifiers[tree].buildClassifier(getTrainingSet(tree));
+                    return null;
+                }));
+            }
+            for (Future<?> tree : trees) {
+                tree.get();
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) throw (Exception) cause;
+            throw e;
+        } finally {
+            // Also reached on interrupt: running trees finish, queued trees are dropped
+            treePool.shutdownNow();
+        }
+    }
+
+    /**
+     * Returns the prediction of each tree for an instance.
+     *
+     * @param instance The instance to predict, in the forest's (filtered) attribute space.
+     * @return One prediction per tree.
+     * @throws Exception if a tree cannot classify the instance.
+     */
+    public double[] treePredictions(Instance instance) throws Exception {
+        if (m_Classifiers == null) throw new IllegalStateException("Forest has not been built");
+        double[] predictions = new double[m_Classifiers.length];
+        int i = 0;
+        for (Classifier tree : m_Classifiers) {
+            predictions[i++] = tree.classifyInstance(instance);
+        }
+        return predictions;
+    }
+}
@@ -0,0 +1,106 @@
+package com.myapp;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Price-sorted index of items that fire when a price crosses their threshold, such as resting
+ * limit orders or stop triggers.
+ *
+ * <p>Items are kept in a {@link TreeMap} from threshold to the items at that threshold, in
+ * insertion order. Polling the items crossed by a price walks only the crossed part of the
+ * tree, so a tick costs O(log n + k) for k crossed items, no matter how many items rest
+ * beyond the price.</p>
+ *
+ * <p>The index is not thread-safe; its owner synchronizes access.</p>
+ *
+ * @param <T> Type of the indexed items.
+ */
+public class ThresholdIndex<T> {
+    private final NavigableMap<Double, List<T>> byThreshold = new TreeMap<>();
+    private int size;
+
+    /**
+     * Adds an item at a threshold. Items at the same threshold are polled in insertion order.
+     *
+     * @param threshold The price at which the item fires.
+     * @param item      The item.
+     */
+    public void add(double threshold, T item) {
+        if (Double.isNaN(threshold)) throw new IllegalArgumentException("Threshold must be a number");
+        byThreshold.computeIfAbsent(threshold, k -> new ArrayList<>(2)).add(item);
+        size++;
+    }
+
+    /**
+     * Removes an item from a threshold.
+     *
+     * @param threshold The threshold the item was added at.
+     * @param item      The item.
+     * @return True if the item was found and removed.
+     */
+    public boolean remove(double threshold, T item) {
+        List<T> items = byThreshold.get(threshold);
+        if (items == null || !items.remove(item)) {
+            return false;
+        }
+        if (items.isEmpty()) {
+            byThreshold.remove(threshold);
+        }
+        size--;
+        return true;
+    }
+
+    /**
+     * Removes and returns every item whose threshold is at or above a price, highest threshold first
+     * (e.g. buy limits that a falling price has reached).
+     *
+     * @param price The current price.
+     * @return The crossed items, possibly empty.
+     */
+    public List<T> pollAtOrAbove(double price) {
+        return poll(byThreshold.tailMap(price, true).descendingMap());
+    }
+
+    /**
+     * Removes and returns every item whose threshold is at or below a price, lowest threshold first
+     * (e.g. sell limits that a rising price has reached).
+     *
+     * @param price The current price.
+     * @return The crossed items, possibly empty.
+     */
+    public List<T> pollAtOrBelow(double price) {
+        return poll(byThreshold.headMap(price, true));
+    }
+
+    /**
+     * Returns the number of indexed items.
+     *
+     * @return The item count.
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private List<T> poll(NavigableMap<Double, List<T>> crossed) {
+        if (crossed.isEmpty()) {
+            return List.of();
+        }
+        List<T> polled = new ArrayList<>();
+        Iterator<Map.Entry<Double, List<T>>> iterator = crossed.entrySet().iterator();
+        while (iterator.hasNext()) {
+            polled.addAll(iterator.next().getValue());
+            iterator.remove();
+        }
+        size -= polled.size();
+        return polled;
+    }
+}
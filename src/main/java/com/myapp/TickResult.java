@@ -0,0 +1,82 @@
+package com.myapp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * What one or more price ticks executed in a {@link Portfolio}: filled limit orders and fired exit triggers,
+ * and why crossed orders or exits could not be executed.
+ */
+public class TickResult {
+    private final List<LimitOrder> filledOrders = new ArrayList<>();
+    private final List<ExitTrigger> triggeredExits = new ArrayList<>();
+    private final List<String> rejections = new ArrayList<>();
+
+    /**
+     * Returns the limit orders filled by the ticks.
+     *
+     * @return Unmodifiable list of filled orders, in execution order.
+     */
+    public List<LimitOrder> getFilledOrders() {
+        return Collections.unmodifiableList(filledOrders);
+    }
+
+    /**
+     * Returns the exit triggers executed by the ticks.
+     *
+     * @return Unmodifiable list of triggered exits, in execution order.
+     */
+    public List<ExitTrigger> getTriggeredExits() {
+        return Collections.unmodifiableList(triggeredExits);
+    }
+
+    /**
+     * Returns why crossed orders or exits were dropped instead of executed, e.g. insufficient balance.
+     *
+     * @return Unmodifiable list of messages, in the order the entries were crossed.
+     */
+    public List<String> getRejections() {
+        return Collections.unmodifiableList(rejections);
+    }
+
+    /**
+     * Returns whether the ticks executed nothing. Rejections do not count as executions.
+     *
+     * @return True if no order was filled and no exit triggered.
+     */
+    public boolean isEmpty() {
+        return filledOrders.isEmpty() && triggeredExits.isEmpty();
+    }
+
+    /**
+     * Returns one line per execution or rejection, for logs and output areas.
+     *
+     * @return Descriptions of the filled orders, triggered exits and rejections.
+     */
+    public List<String> describe() {
+        List<String> lines = new ArrayList<>();
+        for (LimitOrder order : filledOrders) lines.add("Limit order executed: " + order);
+        for (ExitTrigger trigger : triggeredExits) lines.add("Exit triggered: " + trigger);
+        lines.addAll(rejections);
+        return lines;
+    }
+
+    void addFilledOrder(LimitOrder order) {
+        filledOrders.add(order);
+    }
+
+    void addTriggeredExit(ExitTrigger trigger) {
+        triggeredExits.add(trigger);
+    }
+
+    void addRejection(String message) {
+        rejections.add(message);
+    }
+
+    void addAll(TickResult other) {
+        filledOrders.addAll(other.filledOrders);
+        triggeredExits.addAll(other.triggeredExits);
+        rejections.addAll(other.rejections);
+    }
+}
@@ -7,6 +7,9 @@ import com.myapp.UI.TransactionFilter;
  * Provides user interaction for buying, selling, portfolio management, and transaction history.
  */
 public class TradingCLI {
+    // Longest wait for the first background recommendation
+    private static final long RECOMMENDATION_TIMEOUT_MS = 120_000;
+
     private final Portfolio portfolio;
     private final CryptoService cryptoService;
     private final Scanner scanner;
@@ -48,6 +51,14 @@ public class TradingCLI {
                     case "9" -> handleWithdraw();
                     case "10" -> showTransactions(account.getTransactions());
                     case "11" -> handleFilter();
+                    case "12" -> tuneAdvisor();
+                    case "13" -> forecastHorizons();
+                    case "14" -> showRisk();
+                    case "15" -> optimizeAllocation();
+                    case "16" -> manageLimitOrders();
+                    case "17" -> manageExitTriggers();
+                    case "18" -> executeBatchOrders();
+                    case "19" -> showCostBasisReport();
                     case "0" -> {
                         System.out.println("Exiting...");
                         return;
@@ -73,6 +84,14 @@ public class TradingCLI {
         System.out.println("9. Withdraw");
         System.out.println("10. Show all transactions");
         System.out.println("11. Show filtered transactions");
+        System.out.println("12. Tune Recommendation Models (ML)");
+        System.out.println("13. Multi-Horizon Forecast (1/3/7 days)");
+        System.out.println("14. Portfolio Risk (VaR/CVaR)");
+        System.out.println("15. Optimize Allocation (Efficient Frontier)");
+        System.out.println("16. Limit Orders");
+        System.out.println("17. Stop-Loss / Take-Profit / Trailing Stops");
+        System.out.println("18. Batch Orders");
+        System.out.println("19. Cost Basis & Realized Gains");
         System.out.println("0. Exit");
         System.out.print("Choose an option: ");
     }
@@ -141,6 +160,13 @@ public class TradingCLI {
         Map<String, Double> prices = cryptoService.getCurrentPrices();
         System.out.println("\n--- Current Prices ---");
         prices.forEach((k, v) -> System.out.printf("%s: $%.4f\n", k, v));
+
+        // Fetched prices are a tick for the resting limit orders and exit triggers
+        portfolio.onPriceTicks(prices).describe().forEach(System.out::println);
+        // Margin checks cover every user's shorts; only this user's forced closes are shown
+        for (Liquidation liquidation : MarginEngine.getShared().onPriceTicks(prices)) {
+            if (liquidation.getPortfolio() == portfolio) System.out.println(liquidation);
+        }
     }
 
     private void showPortfolio() {
@@ -148,20 +174,214 @@ public class TradingCLI {
         portfolio.getHoldings().forEach((k, v) -> System.out.printf("%s: %.8f\n", k, v));
 
         System.out.println("\n--- Short Positions ---");
-        portfolio.getAllPositions().forEach((coin, positions) -> {
-            for (Position pos : positions) {
-                if (pos.getType() == PositionType.SHORT) {
-                    System.out.printf("%s: %.8f at entry $%.4f\n", coin, pos.getAmount(), pos.getEntryPrice());
-                }
-            }
-        });
+        portfolio.getShortPositions().forEach((coin, amount) ->
+                System.out.printf("%s: %.8f at average entry $%.4f (%d positions), liquidation at $%.4f\n", coin,
+                        amount, portfolio.getAverageShortEntryPrice(coin), portfolio.getShortLotCount(coin),
+                        MarginEngine.getShared().getLiquidationPrice(portfolio, coin)));
     }
 
     private void recommendCoin() throws Exception {
-        System.out.println("Running ML-based recommendation...");
-        CryptoAdvisor advisor = new CryptoAdvisor(cryptoService, 14, true);
-        String best = advisor.recommendCoin(new java.util.concurrent.atomic.AtomicBoolean(false));
-        System.out.println("Recommended Coin: " + best);
+        // Recommendations are precomputed in the background; only the very first request waits
+        RecommendationService service = RecommendationService.getShared();
+        RecommendationSnapshot snapshot = service.getLatest();
+        if (snapshot == null) {
+            System.out.println("Running ML-based recommendation...");
+            // Fast estimates are printed as soon as each coin's data arrives; the forest ranking follows
+            try {
+                snapshot = service.awaitLatest(new java.util.concurrent.atomic.AtomicBoolean(false), forecast -> {
+                    if (forecast.isPreliminary()) {
+                        System.out.println("  " + forecast);
+                    }
+                }, RECOMMENDATION_TIMEOUT_MS);
+            } catch (IllegalStateException e) {
+                System.out.println(e.getMessage() + ". Try again later.");
+                return;
+            }
+            if (snapshot == null) {
+                System.out.println("No recommendation yet; it is still being computed in the background. Try again later.");
+                return;
+            }
+        }
+        List<CoinForecast> ranking = snapshot.getRanking();
+        System.out.println("Final ranking (computed at " + snapshot.getComputedAt() + "):");
+        for (int i = 0; i < ranking.size(); i++) {
+            System.out.println((i + 1) + ". " + ranking.get(i));
+        }
+        System.out.println("Recommended Coin: " + snapshot.getRecommendedSymbol());
+    }
+
+    private void forecastHorizons() throws Exception {
+        System.out.println("Forecasting 1, 3 and 7 days ahead on 60 days of history...");
+        CryptoAdvisor advisor = new CryptoAdvisor(cryptoService, 60, true);
+        advisor.setVerbose(false);
+        List<HorizonForecast> forecasts = advisor.forecastHorizons(MultiHorizonForecaster.DEFAULT_HORIZONS,
+                new java.util.concurrent.atomic.AtomicBoolean(false));
+        for (HorizonForecast forecast : forecasts) {
+            System.out.println(forecast);
+        }
+    }
+
+    private void showRisk() throws Exception {
+        System.out.println("Simulating 1,000,000 one-day paths on 90 days of history...");
+        Map<String, double[]> returns = CorrelationService.alignedReturns(cryptoService.getHistoricalPrices(90));
+        Map<String, Double> prices = cryptoService.getCurrentPrices();
+        MonteCarloRiskEngine engine = new MonteCarloRiskEngine(1_000_000, 1, Runtime.getRuntime().availableProcessors());
+        for (RiskMethod method : RiskMethod.values()) {
+            System.out.println(engine.assess(portfolio, prices, returns, method, 0.95, 0.99));
+        }
+    }
+
+    private void optimizeAllocation() throws Exception {
+        System.out.println("Computing the long-only efficient frontier on 60 days of returns...");
+        CorrelationService correlations = new CorrelationService(cryptoService, 60);
+        correlations.load(90);
+        PortfolioOptimizer optimizer = new PortfolioOptimizer(correlations, Runtime.getRuntime().availableProcessors());
+        List<OptimalPortfolio> frontier = optimizer.efficientFrontier(10);
+        for (int i = 0; i < frontier.size(); i++) {
+            System.out.println((i + 1) + ". " + frontier.get(i));
+        }
+        System.out.println("Minimum variance: " + optimizer.minimumVariance());
+
+        System.out.print("Rebalance holdings to allocation # (Enter to skip): ");
+        String choice = scanner.nextLine().trim();
+        if (choice.isEmpty()) return;
+        OptimalPortfolio target = frontier.get(Integer.parseInt(choice) - 1);
+
+        // One snapshot prices both the plan and its execution
+        Map<String, Double> prices = cryptoService.getCurrentPrices();
+        Map<String, Double> holdings = portfolio.getHoldings();
+        double capital = account.getBalance();
+        for (Map.Entry<String, Double> entry : holdings.entrySet()) {
+            capital += entry.getValue() * prices.getOrDefault(entry.getKey(), 0.0);
+        }
+        // Keep a small cash buffer for rounding in the conversions
+        List<Order> orders = target.rebalancingOrders(holdings, capital * 0.999, prices);
+        portfolio.executeBatch(orders, prices);
+        orders.forEach(order -> System.out.println("Executed " + order));
+    }
+
+    private void tuneAdvisor() throws Exception {
+        System.out.println("Tuning forest hyperparameters on 90 days of history (this may take a while)...");
+        LiveDataLoader loader = new LiveDataLoader();
+        Map<String, weka.core.Instances> dataBySymbol = new TreeMap<>();
+        for (Map.Entry<String, String> entry : cryptoService.getCoinIdToSymbolMap().entrySet()) {
+            try {
+                dataBySymbol.put(entry.getValue(), loader.getHistoricalData(entry.getKey(), 90));
+            } catch (Exception e) {
+                System.out.println("Skipping " + entry.getValue() + ": " + e.getMessage());
+            }
+        }
+
+        Map<String, ForestParams> best = new HyperparameterTuner().tuneAll(dataBySymbol, HyperparameterTuner.defaultGrid());
+        System.out.println("Saved tuned parameters for " + best.size() + " coins to " + HyperparameterTuner.PARAMS_FILE);
+    }
+
+    private void manageLimitOrders() {
+        System.out.println("\n--- Open Limit Orders ---");
+        List<LimitOrder> orders = portfolio.getOpenOrders();
+        if (orders.isEmpty()) System.out.println("None");
+        orders.forEach(System.out::println);
+
+        System.out.print("1. Place buy limit  2. Place sell limit  3. Cancel order  (Enter to go back): ");
+        String choice = scanner.nextLine().trim();
+        switch (choice) {
+            case "1", "2" -> {
+                System.out.print("Enter coin: ");
+                String coin = scanner.nextLine().trim().toUpperCase();
+                System.out.print("Enter amount: ");
+                double amount = Double.parseDouble(scanner.nextLine());
+                System.out.print("Enter limit price: ");
+                double limitPrice = Double.parseDouble(scanner.nextLine());
+                LimitOrder order = portfolio.placeLimitOrder(coin,
+                        choice.equals("1") ? OrderSide.BUY : OrderSide.SELL, amount, limitPrice);
+                System.out.println("Placed " + order + " (executes when prices are refreshed)");
+            }
+            case "3" -> {
+                System.out.print("Enter order id: ");
+                long id = Long.parseLong(scanner.nextLine().trim());
+                System.out.println(portfolio.cancelLimitOrder(id) ? "Order cancelled." : "No open order #" + id);
+            }
+            default -> { }
+        }
+    }
+
+    private void executeBatchOrders() throws Exception {
+        System.out.println("Enter one order per line, e.g. \"BUY BTC 0.01\" or \"SELL ETH $250\"; empty line to finish:");
+        List<Order> orders = new ArrayList<>();
+        String line;
+        while (!(line = scanner.nextLine().trim()).isEmpty()) {
+            orders.add(Order.parse(line));
+        }
+        if (orders.isEmpty()) return;
+
+        // All orders are priced against one snapshot and executed together, or not at all
+        portfolio.executeBatch(orders);
+        orders.forEach(order -> System.out.println("Executed " + order));
+    }
+
+    private void showCostBasisReport() {
+        System.out.println("\n--- Open Lots (" + portfolio.getCostBasisMethod() + ") ---");
+        for (String coin : portfolio.getHoldings().keySet()) {
+            System.out.printf("%s: cost basis $%.2f\n", coin, portfolio.getCostBasis(coin));
+            for (Position lot : portfolio.getBuyLots(coin)) {
+                System.out.printf("  %.8f at $%.4f (bought %s)\n", lot.getAmount(), lot.getEntryPrice(),
+                        lot.getTimestamp() == 0 ? "unknown" : new java.util.Date(lot.getTimestamp()));
+            }
+        }
+
+        PnlLedger ledger = portfolio.getPnlLedger();
+        System.out.println("\n--- Realized Gains ---");
+        System.out.printf("Total: $%.2f\n", ledger.getRealizedPnl());
+        ledger.getRealizedPnlByYear().forEach((year, gain) -> System.out.printf("%d: $%.2f\n", year, gain));
+
+        System.out.print("Year to list (Enter to skip), or FIFO/LIFO/HIFO to change the method: ");
+        String input = scanner.nextLine().trim().toUpperCase();
+        if (input.isEmpty()) return;
+        if (input.chars().allMatch(Character::isDigit)) {
+            ledger.getGains(Integer.parseInt(input)).forEach(System.out::println);
+        } else {
+            portfolio.setCostBasisMethod(CostBasisMethod.valueOf(input));
+            System.out.println("Later sales relieve lots " + input + ".");
+        }
+    }
+
+    private void manageExitTriggers() throws Exception {
+        System.out.println("\n--- Armed Exit Triggers ---");
+        List<ExitTrigger> triggers = portfolio.getExitTriggers();
+        if (triggers.isEmpty()) System.out.println("None");
+        triggers.forEach(System.out::println);
+
+        System.out.print("1. Stop-loss  2. Take-profit  3. Trailing stop  4. Cancel trigger  (Enter to go back): ");
+        String choice = scanner.nextLine().trim();
+        if (choice.equals("4")) {
+            System.out.print("Enter trigger id: ");
+            long id = Long.parseLong(scanner.nextLine().trim());
+            System.out.println(portfolio.cancelExitTrigger(id) ? "Trigger cancelled." : "No armed trigger #" + id);
+            return;
+        }
+        if (!choice.equals("1") && !choice.equals("2") && !choice.equals("3")) return;
+
+        System.out.print("Enter coin: ");
+        String coin = scanner.nextLine().trim().toUpperCase();
+        System.out.print("Protect holding (L) or short position (S)? ");
+        PositionType side = scanner.nextLine().trim().equalsIgnoreCase("S") ? PositionType.SHORT : PositionType.LONG;
+        System.out.print("Enter amount: ");
+        double amount = Double.parseDouble(scanner.nextLine());
+
+        ExitTrigger trigger;
+        if (choice.equals("3")) {
+            System.out.print("Enter trailing distance in percent: ");
+            double percent = Double.parseDouble(scanner.nextLine());
+            double price = cryptoService.getCurrentPrices().get(coin);
+            trigger = portfolio.addTrailingStop(coin, side, amount, percent / 100.0, price);
+        } else {
+            System.out.print("Enter trigger price: ");
+            double price = Double.parseDouble(scanner.nextLine());
+            trigger = choice.equals("1")
+                    ? portfolio.addStopLoss(coin, side, amount, price)
+                    : portfolio.addTakeProfit(coin, side, amount, price);
+        }
+        System.out.println("Armed " + trigger + " (checked when prices are refreshed)");
     }
 
     private void openShort() throws Exception {
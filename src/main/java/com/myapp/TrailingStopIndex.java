@@ -0,0 +1,113 @@
+package com.myapp;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Trailing stops of one coin, one side and one trail distance, keyed by the best price each stop
+ * has seen since it was placed (the highest price for long stops, the lowest for short stops).
+ *
+ * <p>Every stop in the index sees the same ticks, so once a tick makes a new extreme all stops with
+ * a worse extreme share that tick as their extreme. A tick therefore merges the passed buckets into
+ * one {@link Anchor} instead of updating each stop, and because the trail distance is the same
+ * for all stops, the fired stops are exactly the buckets beyond {@code price / (1 - distance)}
+ * (long) or {@code price / (1 + distance)} (short). Merging moves the smaller buckets into the
+ * largest, so each stop is moved O(log n) times over its lifetime and a tick costs O(log n + k)
+ * amortized.</p>
+ */
+class TrailingStopIndex {
+    private final boolean longSide;
+    private final double trailFraction;
+    private final NavigableMap<Double, Anchor> byExtreme = new TreeMap<>();
+
+    /**
+     * Best price shared by the trailing stops in one bucket.
+     */
+    static class Anchor {
+        double extreme;
+        final List<ExitTrigger> triggers = new ArrayList<>();
+
+        Anchor(double extreme) {
+            this.extreme = extreme;
+        }
+    }
+
+    /**
+     * Creates an index.
+     *
+     * @param longSide      True for stops on holdings, false for stops on short positions.
+     * @param trailFraction Distance of every stop from its extreme, in (0, 1).
+     */
+    TrailingStopIndex(boolean longSide, double trailFraction) {
+        this.longSide = longSide;
+        this.trailFraction = trailFraction;
+    }
+
+    /**
+     * Adds a stop whose extreme starts at the current price.
+     */
+    void add(ExitTrigger trigger, double price) {
+        Anchor anchor = byExtreme.computeIfAbsent(price, Anchor::new);
+        trigger.anchor = anchor;
+        anchor.triggers.add(trigger);
+    }
+
+    /**
+     * Removes and returns the stops that a tick fires, then moves the extremes of the remaining
+     * stops to the tick if it is a new best price.
+     *
+     * @param price The new market price.
+     * @return The fired stops, including cancelled ones, which the caller skips.
+     */
+    List<ExitTrigger> onTick(double price) {
+        List<ExitTrigger> fired = new ArrayList<>();
+        // A long stop fires when price <= extreme × (1 - d), i.e. extreme >= price / (1 - d)
+        NavigableMap<Double, Anchor> firedBuckets = longSide
+                ? byExtreme.tailMap(price / (1.0 - trailFraction), true)
+                : byExtreme.headMap(price / (1.0 + trailFraction), true);
+        Iterator<Anchor> iterator = firedBuckets.values().iterator();
+        while (iterator.hasNext()) {
+            fired.addAll(iterator.next().triggers);
+            iterator.remove();
+        }
+
+        NavigableMap<Double, Anchor> passed = longSide ? byExtreme.headMap(price, false) : byExtreme.tailMap(price, false);
+        if (!passed.isEmpty()) {
+            merge(passed, price);
+        }
+        return fired;
+    }
+
+    boolean isEmpty() {
+        return byExtreme.isEmpty();
+    }
+
+    /**
+     * Merges the passed buckets and any bucket already at {@code price} into the largest one,
+     * re-keyed at the new extreme. Cancelled stops are dropped while moving.
+     */
+    private void merge(NavigableMap<Double, Anchor> passed, double price) {
+        List<Anchor> buckets = new ArrayList<>(passed.values());
+        passed.clear();
+        Anchor existing = byExtreme.remove(price);
+        if (existing != null) buckets.add(existing);
+
+        Anchor base = buckets.get(0);
+        for (Anchor bucket : buckets) {
+            if (bucket.triggers.size() > base.triggers.size()) base = bucket;
+        }
+        for (Anchor bucket : buckets) {
+            if (bucket == base) continue;
+            for (ExitTrigger trigger : bucket.triggers) {
+                if (trigger.cancelled) continue;
+                trigger.anchor = base;
+                base.triggers.add(trigger);
+            }
+        }
+        base.extreme = price;
+        byExtreme.put(price, base);
+    }
+}
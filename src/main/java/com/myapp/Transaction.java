@@ -5,6 +5,7 @@ import java.util.UUID;
 
 /**
  * Represents a financial transaction with a unique ID, timestamp, type, amount, and description.
+ * Trades also record the coin and the amount traded.
  */
 public class Transaction {
     /** Unique identifier for this transaction */
@@ -13,10 +14,14 @@ public class Transaction {
     private final LocalDateTime timestamp;
     /** Type of transaction (e.g., DEPOSIT, WITHDRAWAL) */
     private final TransactionType type;
-    /** Monetary amount involved in this transaction */
-    private final double amount;
+    /** Monetary amount involved in this transaction, in cents */
+    private final long amountCents;
     /** Description or note about this transaction */
     private final String description;
+    /** Coin traded, or null for a cash-only transaction */
+    private final String symbol;
+    /** Amount of the coin traded, in 1e-8 coin units; 0 for a cash-only transaction */
+    private final long coinUnits;
 
     /**
      * Constructs a new Transaction with the specified type, amount, and description.
@@ -27,11 +32,82 @@ public class Transaction {
      * @param description A brief description of the transaction
      */
     public Transaction(TransactionType type, double amount, String description) {
-        this.transactionId = UUID.randomUUID().toString();
-        this.timestamp = LocalDateTime.now();
+        this(type, Money.fiatUnits(amount), description);
+    }
+
+    private Transaction(TransactionType type, long amountCents, String description) {
+        this(UUID.randomUUID().toString(), LocalDateTime.now(), type, amountCents, description, null, 0L);
+    }
+
+    private Transaction(String transactionId, LocalDateTime timestamp, TransactionType type, long amountCents,
+                        String description, String symbol, long coinUnits) {
+        this.transactionId = transactionId;
+        this.timestamp = timestamp;
         this.type = type;
-        this.amount = amount;
+        this.amountCents = amountCents;
         this.description = description;
+        this.symbol = symbol;
+        this.coinUnits = coinUnits;
+    }
+
+    /**
+     * Creates a transaction for an amount already in cents.
+     *
+     * @param type The type of transaction
+     * @param amountCents The amount involved, in cents
+     * @param description A brief description of the transaction
+     * @return The new transaction
+     */
+    static Transaction ofCents(TransactionType type, long amountCents, String description) {
+        return new Transaction(type, amountCents, description);
+    }
+
+    /**
+     * Creates a trade transaction for an amount already in cents.
+     *
+     * @param type The type of transaction
+     * @param amountCents The amount involved, in cents
+     * @param description A brief description of the transaction
+     * @param symbol The coin traded
+     * @param coinUnits The amount of the coin traded, in 1e-8 coin units
+     * @return The new transaction
+     */
+    static Transaction ofTrade(TransactionType type, long amountCents, String description, String symbol,
+                               long coinUnits) {
+        return new Transaction(UUID.randomUUID().toString(), LocalDateTime.now(), type, amountCents, description,
+                symbol, coinUnits);
+    }
+
+    /**
+     * Recreates a recorded transaction with its original identifier and timestamp.
+     *
+     * @param transactionId The recorded identifier
+     * @param timestamp The recorded timestamp
+     * @param type The type of transaction
+     * @param amountCents The amount involved, in cents
+     * @param description A brief description of the transaction
+     * @return The restored transaction
+     */
+    static Transaction restore(String transactionId, LocalDateTime timestamp, TransactionType type, long amountCents,
+                               String description) {
+        return restore(transactionId, timestamp, type, amountCents, description, null, 0L);
+    }
+
+    /**
+     * Recreates a recorded trade with its original identifier and timestamp.
+     *
+     * @param transactionId The recorded identifier
+     * @param timestamp The recorded timestamp
+     * @param type The type of transaction
+     * @param amountCents The amount involved, in cents
+     * @param description A brief description of the transaction
+     * @param symbol The coin traded, or null for a cash-only transaction
+     * @param coinUnits The amount of the coin traded, in 1e-8 coin units
+     * @return The restored transaction
+     */
+    static Transaction restore(String transactionId, LocalDateTime timestamp, TransactionType type, long amountCents,
+                               String description, String symbol, long coinUnits) {
+        return new Transaction(transactionId, timestamp, type, amountCents, description, symbol, coinUnits);
     }
 
     public String getTransactionId() {
@@ -47,18 +123,36 @@ public class Transaction {
     }
 
     public double getAmount() {
-        return amount;
+        return Money.fiat(amountCents);
+    }
+
+    public long getAmountCents() {
+        return amountCents;
     }
 
     public String getDescription() {
         return description;
     }
 
+    /**
+     * @return The coin traded, or null for a cash-only transaction
+     */
+    public String getSymbol() {
+        return symbol;
+    }
+
+    /**
+     * @return The amount of the coin traded, in 1e-8 coin units; 0 for a cash-only transaction
+     */
+    public long getCoinUnits() {
+        return coinUnits;
+    }
+
     @Override
     public String toString() {
         return "Transaction{" +
                 "description='" + description + '\'' +
-                ", amount=" + amount +
+                ", amount=" + getAmount() +
                 '}';
     }
 }
\ No newline at end of file
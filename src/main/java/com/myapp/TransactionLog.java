@@ -0,0 +1,95 @@
+package com.myapp;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Append-only transaction history of an {@link Account}.
+ *
+ * <p>Entries are stored in fixed-size chunks, so an append is O(1) and never copies earlier
+ * entries; only the small directory of chunks is copied when it fills up. Appends happen under the
+ * account's lock. Readers do not lock: an entry and its chunk are written before the volatile size
+ * that publishes them, so a reader that reads the size first sees every entry below it.</p>
+ *
+ * <p>{@link #snapshot()} returns an immutable view of the entries appended so far in O(1); later
+ * appends do not show up in it.</p>
+ */
+class TransactionLog {
+    private static final int CHUNK_BITS = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private volatile Transaction[][] chunks = new Transaction[4][];
+    private volatile int size;
+
+    /**
+     * Appends an entry. The caller holds the account's lock.
+     */
+    void append(Transaction transaction) {
+        int index = size;
+        Transaction[][] directory = chunks;
+        int chunk = index >>> CHUNK_BITS;
+        if (chunk == directory.length) {
+            directory = Arrays.copyOf(directory, directory.length * 2);
+        }
+        if (directory[chunk] == null) {
+            directory[chunk] = new Transaction[CHUNK_SIZE];
+        }
+        directory[chunk][index & CHUNK_MASK] = transaction;
+        chunks = directory;
+        // Publishes the entry, its chunk and the directory
+        size = index + 1;
+    }
+
+    /**
+     * Appends entries in order. The caller holds the account's lock.
+     */
+    void appendAll(List<Transaction> transactions) {
+        for (Transaction transaction : transactions) {
+            append(transaction);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the entries appended so far, oldest first.
+     *
+     * @return An unmodifiable view that does not change with later appends.
+     */
+    List<Transaction> snapshot() {
+        // Size first, so the directory read after it holds every published entry
+        int length = size;
+        return new View(chunks, length);
+    }
+
+    /**
+     * The first {@code length} entries of a chunk directory.
+     */
+    private static final class View extends AbstractList<Transaction> implements RandomAccess {
+        private final Transaction[][] chunks;
+        private final int length;
+
+        View(Transaction[][] chunks, int length) {
+            this.chunks = chunks;
+            this.length = length;
+        }
+
+        @Override
+        public Transaction get(int index) {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + length);
+            }
+            return chunks[index >>> CHUNK_BITS][index & CHUNK_MASK];
+        }
+
+        @Override
+        public int size() {
+            return length;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.myapp;
+
+/**
+ * Kind of automatic exit attached to a holding or a short position.
+ */
+public enum TriggerType {
+    /** Exits once the price moves against the position to a fixed level. */
+    STOP_LOSS,
+    /** Exits once the price moves in favour of the position to a fixed level. */
+    TAKE_PROFIT,
+    /** Stop that follows the best price seen since it was placed, at a fixed fractional distance. */
+    TRAILING_STOP
+}
@@ -1,4 +1,5 @@
 package com.myapp.UI;
+import com.myapp.RecommendationService;
 import com.myapp.User;
 import com.myapp.auth.UserManager;
 import javax.swing.*;
@@ -36,6 +37,9 @@ public class MainFrame extends JFrame {
         accountPanel = new AccountPanel(user.getAccount());
         tradingPanel = new TradingPanel(user.getPortfolio());
 
+        // Start precomputing recommendations so the first click is answered from the shared snapshot
+        RecommendationService.getShared();
+
         // Create tabbed pane with custom styling
         JTabbedPane tabs = new JTabbedPane();
         tabs.setFont(new Font("Arial", Font.BOLD, 14));
@@ -1,7 +1,10 @@
 package com.myapp.UI;
 
 import com.myapp.CryptoService;
+import com.myapp.Liquidation;
+import com.myapp.MarginEngine;
 import com.myapp.Portfolio;
+import com.myapp.PortfolioSnapshot;
 
 import javax.swing.*;
 import javax.swing.table.DefaultTableCellRenderer;
@@ -13,6 +16,7 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.function.Consumer;
 
 /**
  * Panel that displays the user's crypto portfolio with real-time price updates.
@@ -35,6 +39,9 @@ public class PortfolioBalancePanel extends JPanel {
     
     // Current currency selection
     private String currentCurrency = "USD";
+
+    // Receives what automatic refreshes executed or rejected: limit orders, exits and forced closes
+    private volatile Consumer<String> executionListener = message -> { };
     
     /**
      * Creates a new portfolio balance panel.
@@ -195,6 +202,15 @@ public class PortfolioBalancePanel extends JPanel {
         }
     }
     
+    /**
+     * Sets where messages about executions during a refresh go, e.g. the trading panel's output area.
+     * Messages are delivered on the event dispatch thread.
+     * @param listener Receives one message per execution
+     */
+    public void setExecutionListener(Consumer<String> listener) {
+        this.executionListener = listener;
+    }
+
     /**
      * Refreshes the portfolio data with current prices.
      */
@@ -203,18 +219,33 @@ public class PortfolioBalancePanel extends JPanel {
             try {
                 // Clear existing rows
                 tableModel.setRowCount(0);
-                
-                Map<String, Double> holdings = portfolio.getHoldings();
-                if (holdings.isEmpty()) {
-                    lastUpdatedLabel.setText("Last updated: " + java.time.LocalDateTime.now().toString());
-                    totalValueLabel.setText("Total Portfolio Value: " + currencyFormat.format(0));
-                    fiatBalanceLabel.setText("Fiat Balance: " + 
-                            currencyFormat.format(convertCurrency(portfolio.getAccount().getBalance())));
+
+                // Without holdings, shorts, limit orders or exit triggers there is nothing to price
+                PortfolioSnapshot snapshot = portfolio.getSnapshot();
+                if (snapshot.getHoldings().isEmpty() && snapshot.getShortPositions().isEmpty()
+                        && portfolio.getOpenOrders().isEmpty() && portfolio.getExitTriggers().isEmpty()) {
+                    showEmptyPortfolio();
                     return;
                 }
-                
+
                 CryptoService service = new CryptoService();
                 Map<String, Double> prices = service.getCurrentPrices();
+
+                // Every refresh is a price tick for the resting limit orders and exit triggers
+                portfolio.onPriceTicks(prices).describe().forEach(executionListener);
+                // Margin checks cover every user's shorts; only this user's forced closes are shown
+                for (Liquidation liquidation : MarginEngine.getShared().onPriceTicks(prices)) {
+                    if (liquidation.getPortfolio() == portfolio) executionListener.accept(liquidation.toString());
+                }
+
+                // One snapshot for the whole table, taken after the ticks' trades, so amounts and
+                // purchase prices always match
+                snapshot = portfolio.getSnapshot();
+                Map<String, Double> holdings = snapshot.getHoldings();
+                if (holdings.isEmpty()) {
+                    showEmptyPortfolio();
+                    return;
+                }
                 
                 double totalValue = 0.0;
                 
@@ -222,7 +253,7 @@ public class PortfolioBalancePanel extends JPanel {
                 for (Map.Entry<String, Double> entry : holdings.entrySet()) {
                     String symbol = entry.getKey();
                     double amount = entry.getValue();
-                    double purchasePrice = portfolio.getAveragePurchasePrice(symbol);
+                    double purchasePrice = snapshot.getAveragePurchasePrice(symbol);
                     double currentPrice = prices.getOrDefault(symbol, 0.0);
                     
                     // Convert prices to selected currency
@@ -283,6 +314,16 @@ public class PortfolioBalancePanel extends JPanel {
         }
     }
     
+    /**
+     * Shows the summary of a portfolio without holdings.
+     */
+    private void showEmptyPortfolio() {
+        lastUpdatedLabel.setText("Last updated: " + java.time.LocalDateTime.now().toString());
+        totalValueLabel.setText("Total Portfolio Value: " + currencyFormat.format(0));
+        fiatBalanceLabel.setText("Fiat Balance: " + 
+                currencyFormat.format(convertCurrency(portfolio.getAccount().getBalance())));
+    }
+
     /**
      * Starts the automatic refresh timer.
      */
@@ -0,0 +1,115 @@
+package com.myapp.UI;
+
+import com.myapp.CryptoService;
+import com.myapp.Portfolio;
+import com.myapp.PortfolioValueCurve;
+import com.myapp.PriceHistory;
+import org.jfree.chart.ChartFactory;
+import org.jfree.chart.ChartPanel;
+import org.jfree.chart.JFreeChart;
+import org.jfree.data.time.FixedMillisecond;
+import org.jfree.data.time.TimeSeries;
+import org.jfree.data.time.TimeSeriesCollection;
+
+import javax.swing.*;
+import java.awt.*;
+import java.time.LocalDate;
+
+/**
+ * Panel that charts the portfolio value over time, replayed from the account's transactions
+ * against daily historical prices by a {@link PortfolioValueCurve}.
+ */
+public class PortfolioValueChartPanel extends JPanel {
+    private static final Integer[] LOOKBACK_DAYS = {30, 90, 365};
+    private static final String[] RANGES = {"All", "Last 7 days", "Last 30 days"};
+
+    private final Portfolio portfolio;
+    private final TimeSeries series = new TimeSeries("Portfolio value");
+    private final JComboBox<Integer> lookbackSelector = new JComboBox<>(LOOKBACK_DAYS);
+    private final JComboBox<String> rangeSelector = new JComboBox<>(RANGES);
+    private final JLabel statusLabel = new JLabel(" ");
+    private PortfolioValueCurve curve;
+
+    /**
+     * Creates the panel and starts loading the price history in the background.
+     * @param portfolio The user's portfolio
+     */
+    public PortfolioValueChartPanel(Portfolio portfolio) {
+        this.portfolio = portfolio;
+        setLayout(new BorderLayout());
+        setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+
+        JPanel controls = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        controls.add(new JLabel("History (days):"));
+        controls.add(lookbackSelector);
+        controls.add(new JLabel("Show:"));
+        controls.add(rangeSelector);
+        JButton refreshButton = new JButton("Refresh");
+        controls.add(refreshButton);
+        add(controls, BorderLayout.NORTH);
+
+        JFreeChart chart = ChartFactory.createTimeSeriesChart("Portfolio Value", "Date", "Value ($)",
+                new TimeSeriesCollection(series), false, true, false);
+        add(new ChartPanel(chart), BorderLayout.CENTER);
+        add(statusLabel, BorderLayout.SOUTH);
+
+        // A new lookback needs new prices; a new range or refresh reuses the curve's cached values
+        lookbackSelector.addActionListener(e -> loadHistory());
+        rangeSelector.addActionListener(e -> render());
+        refreshButton.addActionListener(e -> render());
+
+        loadHistory();
+    }
+
+    /**
+     * Fetches the daily prices for the selected lookback and builds a new curve.
+     */
+    private void loadHistory() {
+        int days = (Integer) lookbackSelector.getSelectedItem();
+        statusLabel.setText("Loading " + days + " days of prices...");
+        new SwingWorker<PortfolioValueCurve, Void>() {
+            @Override
+            protected PortfolioValueCurve doInBackground() {
+                PriceHistory history = PriceHistory.daily(new CryptoService().getHistoricalPrices(days), LocalDate.now());
+                PortfolioValueCurve newCurve = new PortfolioValueCurve(history);
+                newCurve.refresh(portfolio.getAccount().getTransactions());
+                // Replays the whole history once, off the event thread
+                if (newCurve.size() > 0) newCurve.valueAt(newCurve.size() - 1);
+                return newCurve;
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    curve = get();
+                    render();
+                } catch (Exception ex) {
+                    statusLabel.setText("Could not load prices: " + ex.getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Brings the curve up to date with new transactions and charts the selected range.
+     */
+    private void render() {
+        if (curve == null) return;
+        curve.refresh(portfolio.getAccount().getTransactions());
+        int size = curve.size();
+        int from = switch (rangeSelector.getSelectedIndex()) {
+            case 1 -> Math.max(0, size - 7);
+            case 2 -> Math.max(0, size - 30);
+            default -> 0;
+        };
+        double[] values = curve.values(from, size);
+
+        series.clear();
+        for (int i = 0; i < values.length; i++) {
+            series.add(new FixedMillisecond(curve.timeAt(from + i)), values[i], false);
+        }
+        series.fireSeriesChanged();
+        statusLabel.setText(size == 0 ? "No price history available"
+                : String.format("Latest value: $%.2f", values[values.length - 1]));
+    }
+}
@@ -4,6 +4,9 @@ import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.text.NumberFormat;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.List;
@@ -20,7 +23,8 @@ public class TradingPanel extends JPanel {
     private final JTextArea outputArea;
     private JTable shortPositionsTable;
     private DefaultTableModel shortTableModel;
-    private SwingWorker<Void, Void> currentMLTask;
+    private DefaultTableModel rankingTableModel;
+    private SwingWorker<RecommendationSnapshot, CoinForecast> currentMLTask;
     private final AtomicBoolean cancelRequested = new AtomicBoolean(false);
     private final NumberFormat currencyFormat;
     private final PortfolioBalancePanel portfolioBalancePanel;
@@ -109,6 +113,18 @@ public class TradingPanel extends JPanel {
         JButton closeShortButton = new JButton("Close Short");
         closeShortButton.setPreferredSize(buttonSize);
 
+        JButton limitOrderButton = new JButton("Limit Order");
+        limitOrderButton.setPreferredSize(buttonSize);
+
+        JButton exitTriggerButton = new JButton("Stop / Target");
+        exitTriggerButton.setPreferredSize(buttonSize);
+
+        JButton batchButton = new JButton("Batch Order");
+        batchButton.setPreferredSize(buttonSize);
+
+        JButton valueHistoryButton = new JButton("Value History");
+        valueHistoryButton.setPreferredSize(buttonSize);
+
         // Add buttons to panel
         buttonPanel.add(buyButton);
         buttonPanel.add(sellButton);
@@ -118,20 +134,41 @@ public class TradingPanel extends JPanel {
         buttonPanel.add(clearButton);
         buttonPanel.add(shortButton);
         buttonPanel.add(closeShortButton);
+        buttonPanel.add(limitOrderButton);
+        buttonPanel.add(exitTriggerButton);
+        buttonPanel.add(batchButton);
+        buttonPanel.add(valueHistoryButton);
 
         // Create output area
         outputArea = new JTextArea(8, 40); // Reduced height to save space
+        // Executions found by the balance panel's automatic refresh are shown here too
+        portfolioBalancePanel.setExecutionListener(message -> outputArea.append(message + "\n"));
         outputArea.setEditable(false);
 
         //shorting elements
-        String[] colNames = {"Coin", "Amount", "Entry Price", "Current Price", "PnL"};
+        String[] colNames = {"Coin", "Amount", "Entry Price", "Current Price", "PnL", "Liq. Price"};
         shortTableModel = new DefaultTableModel(colNames, 0);
         shortPositionsTable = new JTable(shortTableModel);
         JScrollPane shortScrollPane = new JScrollPane(shortPositionsTable);
         shortScrollPane.setPreferredSize(new Dimension(400, 120));
 
+        // ML ranking, filled in coin by coin while the recommendation runs
+        String[] rankingColumns = {"Rank", "Coin", "Predicted Growth", "Band (10%-90%)", "Status"};
+        rankingTableModel = new DefaultTableModel(rankingColumns, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        JScrollPane rankingScrollPane = new JScrollPane(new JTable(rankingTableModel));
+        rankingScrollPane.setPreferredSize(new Dimension(400, 120));
+
+        JPanel tablesPanel = new JPanel(new GridLayout(2, 1, 0, 5));
+        tablesPanel.add(shortScrollPane);
+        tablesPanel.add(rankingScrollPane);
+
         JScrollPane scroll = new JScrollPane(outputArea);
-        tradingControlsPanel.add(shortScrollPane, BorderLayout.EAST);
+        tradingControlsPanel.add(tablesPanel, BorderLayout.EAST);
 
         
         // Add components to trading controls panel
@@ -275,6 +312,15 @@ public class TradingPanel extends JPanel {
                             formatCryptoPrice(entry.getValue())));
                 }
                 outputArea.append("---------------------\n");
+
+                // The refreshed prices are a tick for the resting limit orders and exit triggers
+                for (String execution : portfolio.onPriceTicks(prices).describe()) {
+                    outputArea.append(execution + "\n");
+                }
+                // ...and for the margin checks of every user's shorts
+                for (Liquidation liquidation : MarginEngine.getShared().onPriceTicks(prices)) {
+                    if (liquidation.getPortfolio() == portfolio) outputArea.append(liquidation + "\n");
+                }
                 
                 // Refresh portfolio display
                 portfolioBalancePanel.refreshData();
@@ -285,6 +331,15 @@ public class TradingPanel extends JPanel {
         });
 
         recommendButton.addActionListener(e -> {
+            RecommendationService service = RecommendationService.getShared();
+
+            // Recommendations are precomputed in the background and shared by all users
+            RecommendationSnapshot latest = service.getLatest();
+            if (latest != null) {
+                showRecommendation(latest);
+                return;
+            }
+
             // Reset cancel flag
             cancelRequested.set(false);
             
@@ -294,33 +349,50 @@ public class TradingPanel extends JPanel {
             
             showLoadingDialog("Running machine learning model...", () -> {
                 try {
-                    // Use the optimized CryptoAdvisor with parallel processing
-                    CryptoAdvisor advisor = new CryptoAdvisor(new CryptoService(), 14, true);
-                    long startTime = System.currentTimeMillis();
-                    
-                    // Check for cancellation periodically
-                    currentMLTask = new SwingWorker<Void, Void>() {
+                    SwingUtilities.invokeLater(() -> rankingTableModel.setRowCount(0));
+
+                    // The first background run is still going: wait for it, showing each coin's fast
+                    // estimate and forest forecast as soon as they are done
+                    currentMLTask = new SwingWorker<RecommendationSnapshot, CoinForecast>() {
+                        private final Map<String, CoinForecast> partialRanking = new LinkedHashMap<>();
+                        private boolean announcedFastTier;
+
                         @Override
-                        protected Void doInBackground() throws Exception {
-                            String best = advisor.recommendCoin(cancelRequested);
-                            long endTime = System.currentTimeMillis();
-                            long duration = endTime - startTime;
-                            
-                            if (!cancelRequested.get()) {
-                                SwingUtilities.invokeLater(() -> {
-                                    outputArea.append(String.format("Recommended Coin: %s (analysis completed in %.1f seconds)\n", 
-                                            best, duration/1000.0));
-                                });
-                            } else {
-                                SwingUtilities.invokeLater(() -> {
-                                    outputArea.append("ML recommendation was cancelled by user\n");
-                                });
+                        protected RecommendationSnapshot doInBackground() throws Exception {
+                            return service.awaitLatest(cancelRequested, forecast -> publish(forecast));
+                        }
+
+                        @Override
+                        protected void process(List<CoinForecast> chunks) {
+                            for (CoinForecast forecast : chunks) {
+                                CoinForecast previous = partialRanking.get(forecast.getSymbol());
+                                // A fast estimate never replaces a coin's final forecast
+                                if (previous == null || previous.isPreliminary() || !forecast.isPreliminary()) {
+                                    partialRanking.put(forecast.getSymbol(), forecast);
+                                }
+                                if (forecast.isPreliminary() && !announcedFastTier) {
+                                    announcedFastTier = true;
+                                    outputArea.append("Showing fast estimates; refining with RandomForest...\n");
+                                }
                             }
-                            return null;
+                            updateRankingTable(CoinForecast.rank(partialRanking.values()));
                         }
                         
                         @Override
                         protected void done() {
+                            try {
+                                RecommendationSnapshot snapshot = isCancelled() ? null : get();
+                                if (snapshot == null) {
+                                    outputArea.append("ML recommendation was cancelled by user\n");
+                                } else {
+                                    showRecommendation(snapshot);
+                                }
+                            } catch (java.util.concurrent.ExecutionException ex) {
+                                // A failed background run is thrown to every waiter
+                                outputArea.append("Recommendation Error: " + ex.getCause().getMessage() + "\n");
+                            } catch (Exception ex) {
+                                outputArea.append("Recommendation Error: " + ex.getMessage() + "\n");
+                            }
                             recommendButton.setEnabled(true);
                             cancelButton.setEnabled(false);
                         }
@@ -389,12 +461,113 @@ public class TradingPanel extends JPanel {
             }
         });
         
+        limitOrderButton.addActionListener(e -> {
+            try {
+                String coin = (String) coinBox.getSelectedItem();
+                double amount = Double.parseDouble(amountField.getText());
+
+                Object[] sides = {"Buy", "Sell", "Cancel"};
+                int side = JOptionPane.showOptionDialog(this,
+                        String.format("Place a limit order for %.8f %s:", amount, coin),
+                        "Limit Order",
+                        JOptionPane.YES_NO_CANCEL_OPTION,
+                        JOptionPane.QUESTION_MESSAGE,
+                        null,
+                        sides,
+                        sides[2]);
+                if (side != JOptionPane.YES_OPTION && side != JOptionPane.NO_OPTION) return;
+
+                String input = JOptionPane.showInputDialog(this, "Enter limit price for " + coin + ":");
+                if (input == null) return; // User cancelled
+
+                LimitOrder order = portfolio.placeLimitOrder(coin,
+                        side == JOptionPane.YES_OPTION ? OrderSide.BUY : OrderSide.SELL,
+                        amount, Double.parseDouble(input));
+                outputArea.append("Placed limit order " + order + "\n");
+            } catch (Exception ex) {
+                JOptionPane.showMessageDialog(this, "Error: " + ex.getMessage(), "Limit Order Error", JOptionPane.ERROR_MESSAGE);
+            }
+        });
+
+        exitTriggerButton.addActionListener(e -> {
+            try {
+                String coin = (String) coinBox.getSelectedItem();
+                double amount = Double.parseDouble(amountField.getText());
+
+                String[] kinds = {"Stop-loss", "Take-profit", "Trailing stop"};
+                String kind = (String) JOptionPane.showInputDialog(this, "Exit type for " + amount + " " + coin + ":",
+                        "Stop / Target", JOptionPane.QUESTION_MESSAGE, null, kinds, kinds[0]);
+                if (kind == null) return; // User cancelled
+
+                Object[] sides = {"Holding", "Short position"};
+                int sideChoice = JOptionPane.showOptionDialog(this, "Protect which position?", "Stop / Target",
+                        JOptionPane.YES_NO_OPTION, JOptionPane.QUESTION_MESSAGE, null, sides, sides[0]);
+                if (sideChoice == JOptionPane.CLOSED_OPTION) return;
+                PositionType side = sideChoice == JOptionPane.YES_OPTION ? PositionType.LONG : PositionType.SHORT;
+
+                ExitTrigger trigger;
+                if (kind.equals(kinds[2])) {
+                    String input = JOptionPane.showInputDialog(this, "Trailing distance in percent:", "5");
+                    if (input == null) return;
+                    double price = new CryptoService().getCurrentPrices().get(coin);
+                    trigger = portfolio.addTrailingStop(coin, side, amount, Double.parseDouble(input) / 100.0, price);
+                } else {
+                    String input = JOptionPane.showInputDialog(this, "Trigger price for " + coin + ":");
+                    if (input == null) return;
+                    double price = Double.parseDouble(input);
+                    trigger = kind.equals(kinds[0])
+                            ? portfolio.addStopLoss(coin, side, amount, price)
+                            : portfolio.addTakeProfit(coin, side, amount, price);
+                }
+                outputArea.append("Armed " + trigger + "\n");
+            } catch (Exception ex) {
+                JOptionPane.showMessageDialog(this, "Error: " + ex.getMessage(), "Stop / Target Error", JOptionPane.ERROR_MESSAGE);
+            }
+        });
+
+        batchButton.addActionListener(e -> {
+            try {
+                JTextArea ordersArea = new JTextArea(8, 30);
+                int result = JOptionPane.showConfirmDialog(this,
+                        new Object[]{"One order per line, e.g. \"BUY BTC 0.01\" or \"SELL ETH $250\":",
+                                new JScrollPane(ordersArea)},
+                        "Batch Order", JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+                if (result != JOptionPane.OK_OPTION) return;
+
+                List<Order> orders = new ArrayList<>();
+                for (String line : ordersArea.getText().split("\\R")) {
+                    if (!line.isBlank()) orders.add(Order.parse(line));
+                }
+                if (orders.isEmpty()) return;
+
+                // Executes all orders at one price snapshot, or none of them
+                portfolio.executeBatch(orders);
+                for (Order order : orders) {
+                    outputArea.append("Executed " + order + "\n");
+                }
+
+                portfolioBalancePanel.refreshData();
+            } catch (Exception ex) {
+                JOptionPane.showMessageDialog(this, "Error: " + ex.getMessage(), "Batch Order Error", JOptionPane.ERROR_MESSAGE);
+            }
+        });
+
+        valueHistoryButton.addActionListener(e -> {
+            JDialog dialog = new JDialog(SwingUtilities.getWindowAncestor(this), "Portfolio Value History");
+            dialog.add(new PortfolioValueChartPanel(portfolio));
+            dialog.setSize(800, 500);
+            dialog.setLocationRelativeTo(this);
+            dialog.setVisible(true);
+        });
+
         // Cancel button initially disabled
         cancelButton.setEnabled(false);
         
         cancelButton.addActionListener(e -> {
             if (currentMLTask != null && !currentMLTask.isDone()) {
                 cancelRequested.set(true);
+                // Stops waiting for this panel only; the shared background run keeps going
+                currentMLTask.cancel(true);
                 outputArea.append("Cancelling ML recommendation...\n");
             }
         });
@@ -446,31 +619,56 @@ public class TradingPanel extends JPanel {
         }
     }
 
+    /**
+     * Shows a finished background recommendation and when it was computed.
+     */
+    private void showRecommendation(RecommendationSnapshot snapshot) {
+        updateRankingTable(snapshot.getRanking());
+        outputArea.append(String.format("Recommended Coin: %s (computed at %s)\n",
+                snapshot.getRecommendedSymbol(), snapshot.getComputedAt().format(DateTimeFormatter.ofPattern("HH:mm:ss"))));
+    }
+
+    /**
+     * Shows a (possibly partial) ranking of coin forecasts, best coin first.
+     */
+    private void updateRankingTable(List<CoinForecast> ranking) {
+        rankingTableModel.setRowCount(0);
+        int rank = 1;
+        for (CoinForecast forecast : ranking) {
+            rankingTableModel.addRow(new Object[]{
+                    rank++,
+                    forecast.getSymbol(),
+                    String.format("%+.2f%%", forecast.getGrowth() * 100),
+                    String.format("%+.2f%% to %+.2f%%", forecast.getGrowthLow() * 100, forecast.getGrowthHigh() * 100),
+                    forecast.isPreliminary() ? "Fast estimate" : "Final"
+            });
+        }
+    }
+
     private void updateShortTable() {
         shortTableModel.setRowCount(0); // Clear
 
         try {
-            Map<String, List<Position>> allPositions = portfolio.getAllPositions();
             CryptoService service = new CryptoService();
             Map<String, Double> currentPrices = service.getCurrentPrices();
 
-            for (Map.Entry<String, List<Position>> entry : allPositions.entrySet()) {
-                for (Position pos : entry.getValue()) {
-                    if (pos.getType() == PositionType.SHORT) {
-                        String coin = pos.getSymbol();
-                        double entryPrice = pos.getEntryPrice();
-                        double currentPrice = currentPrices.getOrDefault(coin, entryPrice);
-                        double pnl = (entryPrice - currentPrice) * pos.getAmount();
-
-                        shortTableModel.addRow(new Object[]{
-                                coin,
-                                pos.getAmount(),
-                                String.format("%.2f", entryPrice),
-                                String.format("%.2f", currentPrice),
-                                String.format("%.2f", pnl)
-                        });
-                    }
-                }
+            // One row per coin from one snapshot, however many lots are open
+            PortfolioSnapshot snapshot = portfolio.getSnapshot();
+            for (Map.Entry<String, Double> entry : snapshot.getShortPositions().entrySet()) {
+                String coin = entry.getKey();
+                double amount = entry.getValue();
+                double entryPrice = snapshot.getAverageShortEntryPrice(coin);
+                double currentPrice = currentPrices.getOrDefault(coin, entryPrice);
+                double pnl = (entryPrice - currentPrice) * amount;
+
+                shortTableModel.addRow(new Object[]{
+                        coin,
+                        amount,
+                        String.format("%.2f", entryPrice),
+                        String.format("%.2f", currentPrice),
+                        String.format("%.2f", pnl),
+                        String.format("%.2f", MarginEngine.getShared().getLiquidationPrice(portfolio, coin))
+                });
             }
         } catch (Exception e) {
             outputArea.append("Error updating short table: " + e.getMessage() + "\n");
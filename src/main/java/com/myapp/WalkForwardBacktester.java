@@ -0,0 +1,230 @@
+package com.myapp;
+
+import weka.core.Instances;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * {@code WalkForwardBacktester} measures how the {@link CryptoAdvisor} strategy would have performed
+ * on historical prices.
+ *
+ * <p>The history is replayed one day at a time. On every decision day the advisor is given only
+ * the trailing training window of each coin (never future prices), retrains or updates its model,
+ * and the coin with the highest predicted growth is bought with the full cash balance through a
+ * {@link Portfolio}. If no coin clears the configured minimum growth, the strategy holds cash.
+ * The position is marked to market on the next day, which yields the equity curve, total return,
+ * hit rate and maximum drawdown.</p>
+ *
+ * <p>Every (configuration, window) pair is independent, so all of them run as separate tasks on a
+ * {@link ForkJoinPool}. Each task uses its own advisor with a memory-only {@link ModelCache} and
+ * {@link OnlineModelStore}, so runs neither share state nor write thousands of model files.</p>
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ *     WalkForwardBacktester backtester = new WalkForwardBacktester(new CryptoService());
+ *     List<BacktestResult> results = backtester.run(configs, 365, 90);
+ * }</pre>
+ */
+public class WalkForwardBacktester {
+
+    private final CryptoService cryptoService;
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a backtester that runs on the common fork/join pool.
+     *
+     * @param cryptoService Service providing historical prices.
+     */
+    public WalkForwardBacktester(CryptoService cryptoService) {
+        this(cryptoService, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a backtester that runs on the given pool.
+     *
+     * @param cryptoService Service providing historical prices.
+     * @param pool          Pool on which configurations and windows are run.
+     */
+    public WalkForwardBacktester(CryptoService cryptoService, ForkJoinPool pool) {
+        this.cryptoService = cryptoService;
+        this.pool = pool;
+    }
+
+    /**
+     * Fetches {@code lookbackDays} of history for all tracked coins and backtests every
+     * configuration on consecutive windows of {@code windowDays} decision days.
+     *
+     * @param configs      Parameter sets to evaluate.
+     * @param lookbackDays Days of history to fetch.
+     * @param windowDays   Decision days per window; use {@code lookbackDays} for a single window.
+     * @return One result per configuration and window, in configuration order.
+     */
+    public List<BacktestResult> run(List<BacktestConfig> configs, int lookbackDays, int windowDays) {
+        return runAll(cryptoService.getHistoricalPrices(lookbackDays), configs, windowDays);
+    }
+
+    /**
+     * Backtests every configuration on consecutive windows of the given price history.
+     * All (configuration, window) pairs run in parallel.
+     *
+     * @param pricesBySymbol Daily prices per coin, oldest first. Series are aligned on their most recent day.
+     * @param configs        Parameter sets to evaluate.
+     * @param windowDays     Decision days per window.
+     * @return One result per configuration and window, in configuration order.
+     * @throws IllegalArgumentException if the history is too short for any configuration.
+     */
+    public List<BacktestResult> runAll(Map<String, List<Double>> pricesBySymbol, List<BacktestConfig> configs, int windowDays) {
+        if (windowDays < 1) throw new IllegalArgumentException("Window must contain at least one day");
+        Map<String, double[]> prices = alignedPrices(pricesBySymbol);
+        int days = prices.isEmpty() ? 0 : prices.values().iterator().next().length;
+
+        List<ForkJoinTask<BacktestResult>> tasks = new ArrayList<>();
+        for (BacktestConfig config : configs) {
+            // The first decision needs a full training window behind it and one day ahead of it
+            int first = config.getTrainingDays() - 1;
+            if (first >= days - 1) {
+                throw new IllegalArgumentException("Not enough history for " + config.getName()
+                        + ": need more than " + config.getTrainingDays() + " days, have " + days);
+            }
+            for (int start = first; start < days - 1; start += windowDays) {
+                int end = Math.min(start + windowDays, days - 1);
+                int windowStart = start;
+                tasks.add(pool.submit(() -> runWindow(prices, config, windowStart, end)));
+            }
+        }
+
+        List<BacktestResult> results = new ArrayList<>(tasks.size());
+        for (ForkJoinTask<BacktestResult> task : tasks) {
+            results.add(task.join());
+        }
+        return results;
+    }
+
+    /**
+     * Replays one window: a decision at the close of every day from {@code start} to
+     * {@code end - 1}, each valued at the close of the following day.
+     *
+     * @param prices Aligned daily prices per coin.
+     * @param config The parameter set to run.
+     * @param start  Index of the first decision day.
+     * @param end    Index of the last valuation day.
+     * @return The result of the window.
+     */
+    BacktestResult runWindow(Map<String, double[]> prices, BacktestConfig config, int start, int end) {
+        CryptoAdvisor advisor = new CryptoAdvisor(cryptoService, config.getTrainingDays(), false, ModelCache.memoryOnly());
+        advisor.setModelType(config.getModelType());
+        advisor.setOnlineModelStore(OnlineModelStore.memoryOnly());
+        advisor.setVerbose(false);
+
+        Account account = new Account();
+        account.deposit(config.getInitialCapital(), "Backtest capital");
+        Portfolio portfolio = new Portfolio(account);
+
+        double[] equity = new double[end - start + 1];
+        equity[0] = config.getInitialCapital();
+        String held = null;
+        int hits = 0;
+        int daysInvested = 0;
+        int trades = 0;
+
+        for (int day = start; day < end; day++) {
+            String pick = pickCoin(advisor, prices, config, day);
+
+            if (held != null && !held.equals(pick)) {
+                portfolio.sellCrypto(held, portfolio.getHoldings().get(held), prices.get(held)[day]);
+                held = null;
+                trades++;
+            }
+            if (pick != null && held == null) {
+                double price = prices.get(pick)[day];
+                portfolio.buyCrypto(pick, affordableAmount(account.getBalance(), price), price);
+                held = pick;
+                trades++;
+            }
+
+            // Mark to market at the next close
+            double value = account.getBalance();
+            if (held != null) {
+                double[] series = prices.get(held);
+                value += portfolio.getHoldings().get(held) * series[day + 1];
+                daysInvested++;
+                if (series[day + 1] > series[day]) hits++;
+            }
+            equity[day - start + 1] = value;
+        }
+
+        return new BacktestResult(config, start, end, equity, hits, daysInvested, trades);
+    }
+
+    /**
+     * Returns the coin with the highest predicted growth on {@code day}, or null to hold cash.
+     * Only prices up to and including {@code day} are visible to the model.
+     */
+    private String pickCoin(CryptoAdvisor advisor, Map<String, double[]> prices, BacktestConfig config, int day) {
+        String bestCoin = null;
+        double bestGrowth = config.getMinGrowth();
+
+        for (Map.Entry<String, double[]> entry : prices.entrySet()) {
+            double[] window = Arrays.copyOfRange(entry.getValue(), day - config.getTrainingDays() + 1, day + 1);
+            Instances data = LiveDataLoader.buildDataset(window);
+            try {
+                double growth = advisor.predictGrowth(data, entry.getKey());
+                if (growth > bestGrowth) {
+                    bestGrowth = growth;
+                    bestCoin = entry.getKey();
+                }
+            } catch (Exception e) {
+                System.err.println("Backtest prediction failed for " + entry.getKey() + " on day " + day + ": " + e.getMessage());
+            }
+        }
+        return bestCoin;
+    }
+
+    /**
+     * Largest coin amount whose cost does not exceed the balance after floating-point rounding.
+     */
+    private static double affordableAmount(double balance, double price) {
+        double amount = balance / price;
+        while (amount * price > balance) {
+            amount = Math.nextDown(amount);
+        }
+        return amount;
+    }
+
+    /**
+     * Trims every series to the length of the shortest one, keeping the most recent prices,
+     * so that index {@code i} refers to the same day for all coins. Coins with missing or
+     * non-positive prices are skipped.
+     */
+    static Map<String, double[]> alignedPrices(Map<String, List<Double>> pricesBySymbol) {
+        Map<String, List<Double>> usable = new TreeMap<>();
+        int length = Integer.MAX_VALUE;
+        for (Map.Entry<String, List<Double>> entry : pricesBySymbol.entrySet()) {
+            List<Double> series = entry.getValue();
+            if (series == null || series.isEmpty() || series.stream().anyMatch(p -> p == null || p <= 0)) {
+                System.err.println("Skipping " + entry.getKey() + " in backtest: missing or invalid prices");
+                continue;
+            }
+            usable.put(entry.getKey(), series);
+            length = Math.min(length, series.size());
+        }
+
+        Map<String, double[]> aligned = new TreeMap<>();
+        for (Map.Entry<String, List<Double>> entry : usable.entrySet()) {
+            List<Double> series = entry.getValue();
+            double[] values = new double[length];
+            int offset = series.size() - length;
+            for (int i = 0; i < length; i++) {
+                values[i] = series.get(offset + i);
+            }
+            aligned.put(entry.getKey(), values);
+        }
+        return aligned;
+    }
+}
@@ -1,6 +1,13 @@
 package com.myapp.auth;
 
 import com.myapp.DataManager;
+import com.myapp.MarginEngine;
+import com.myapp.Money;
+import com.myapp.CostBasisMethod;
+import com.myapp.Portfolio;
+import com.myapp.Position;
+import com.myapp.PositionType;
+import com.myapp.RealizedGain;
 import com.myapp.User;
 import org.json.JSONArray;
 import org.json.JSONObject;
@@ -16,6 +23,7 @@ import java.security.SecureRandom;
 import java.util.Base64;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -24,20 +32,35 @@ import java.util.Map;
  */
 public class UserManager {
     private static final String USERS_FILE = "users.json";
+    // 1: amounts as doubles; 2: fixed-point cents, coin base units and price units (see Money);
+    // 3: holdings as buy lots, with the cost basis method, the realized gains and the short lots
+    private static final int SCHEMA_VERSION = 3;
     
     private final Map<String, User> users;
+    private final Path dataDir;
     private final Path usersFilePath;
     
     /**
      * Creates a new UserManager and loads existing users if available.
      */
     public UserManager() {
+        this(Paths.get(DataManager.DATA_DIR));
+    }
+
+    /**
+     * Creates a UserManager that keeps the users file and the transaction files in the given
+     * directory, e.g. a temporary one in tests, and loads existing users if available.
+     *
+     * @param dataDir Directory of the users file and the transaction files
+     */
+    UserManager(Path dataDir) {
         this.users = new HashMap<>();
         
         // Initialize data directories
         DataManager.initializeDataDirectories();
         
-        this.usersFilePath = Paths.get(DataManager.DATA_DIR, USERS_FILE);
+        this.dataDir = dataDir;
+        this.usersFilePath = dataDir.resolve(USERS_FILE);
         
         // Load existing users
         loadUsers();
@@ -64,8 +87,9 @@ public class UserManager {
         // Create new user with salted hash
         User newUser = new User(username, passwordHash + ":" + salt);
         
-        // Add to users map
+        // Add to users map; the shared margin engine watches every user's shorts
         users.put(username, newUser);
+        MarginEngine.getShared().register(newUser.getPortfolio());
         
         // Save to file
         saveUsers();
@@ -135,16 +159,17 @@ public class UserManager {
             JSONObject userJson = new JSONObject();
             userJson.put("username", user.getUsername());
             userJson.put("passwordHash", user.getPasswordHash());
+            userJson.put("schemaVersion", SCHEMA_VERSION);
             
             // Create account JSON if it exists
             if (user.getAccount() != null) {
                 JSONObject accountJson = new JSONObject();
-                accountJson.put("balance", user.getAccount().getBalance());
+                accountJson.put("balanceCents", user.getAccount().getBalanceCents());
                 
                 // Add transactions if they exist
                 if (!user.getAccount().getTransactions().isEmpty()) {
                     String transactionFile = user.getUsername() + "_transactions.json";
-                    user.getAccount().exportTransactionsToJson(DataManager.DATA_DIR + "/" + transactionFile);
+                    user.getAccount().exportTransactionsToJson(dataDir.resolve(transactionFile).toString());
                     accountJson.put("transactionsFile", transactionFile);
                 }
                 
@@ -152,22 +177,33 @@ public class UserManager {
             }
             
             // Add portfolio information if it exists
-            if (user.getPortfolio() != null && !user.getPortfolio().getHoldings().isEmpty()) {
+            Portfolio portfolio = user.getPortfolio();
+            // Lots copied under the portfolio's lock, so a concurrent trade cannot split them
+            Map<String, List<Position>> buyLots = portfolio == null ? Map.of() : portfolio.getAllBuyLots();
+            Map<String, List<Position>> shortLots = portfolio == null ? Map.of() : portfolio.getAllShortLots();
+            if (portfolio != null && (!buyLots.isEmpty() || !shortLots.isEmpty() || !portfolio.getPnlLedger().isEmpty())) {
                 JSONObject portfolioJson = new JSONObject();
+                portfolioJson.put("costBasisMethod", portfolio.getCostBasisMethod().name());
                 
-                // Convert holdings to JSON
-                JSONObject holdingsJson = new JSONObject();
-                for (Map.Entry<String, Double> entry : user.getPortfolio().getHoldings().entrySet()) {
-                    holdingsJson.put(entry.getKey(), entry.getValue());
-                }
-                portfolioJson.put("holdings", holdingsJson);
+                // Convert the buy lots to JSON, in fixed-point units and purchase order
+                portfolioJson.put("lots", lotsToJson(buyLots));
+                // Open short lots, oldest first; their collateral is already out of the balance
+                portfolioJson.put("shorts", lotsToJson(shortLots));
                 
-                // Save purchase prices
-                JSONObject purchasePricesJson = new JSONObject();
-                for (Map.Entry<String, Double> entry : user.getPortfolio().getPurchasePrices().entrySet()) {
-                    purchasePricesJson.put(entry.getKey(), entry.getValue());
+                // Realized gains, in the order they were recorded
+                JSONArray gainsJson = new JSONArray();
+                for (RealizedGain gain : portfolio.getPnlLedger().getGains()) {
+                    JSONObject gainJson = new JSONObject();
+                    gainJson.put("symbol", gain.getSymbol());
+                    gainJson.put("side", gain.getSide().name());
+                    gainJson.put("units", gain.getUnits());
+                    gainJson.put("costBasisCents", gain.getCostBasisCents());
+                    gainJson.put("proceedsCents", gain.getProceedsCents());
+                    gainJson.put("openedAt", gain.getOpenedAt());
+                    gainJson.put("closedAt", gain.getClosedAt());
+                    gainsJson.put(gainJson);
                 }
-                portfolioJson.put("purchasePrices", purchasePricesJson);
+                portfolioJson.put("realizedGains", gainsJson);
                 
                 userJson.put("portfolio", portfolioJson);
             }
@@ -195,10 +231,16 @@ public class UserManager {
      *   </li>
      *   <li>Loads portfolio data if available:
      *     <ul>
-     *       <li>Reads holdings and purchase prices from JSON objects.</li>
-     *       <li>Uses reflection to directly set the private holdings and purchasePrices maps in the user's portfolio.</li>
+     *       <li>Restores the cost basis method, each buy lot with
+     *           {@link Portfolio#restoreLot(String, long, long, long)}, each short lot with
+     *           {@link Portfolio#restoreShortLot(String, long, long, long)} and each realized gain with
+     *           {@link Portfolio#restoreRealizedGain(RealizedGain)}.</li>
+     *       <li>Before schema version 3, reads holdings and purchase prices from JSON objects and
+     *           restores each holding as one lot with {@link Portfolio#restoreHolding(String, long, long)}.</li>
      *     </ul>
      *   </li>
+     *   <li>Migrates schema version 1 entries (amounts stored as doubles) to fixed-point units;
+     *       they are written back in the current version on the next save.</li>
      *   <li>Adds each constructed user to the in-memory users map keyed by username.</li>
      *   <li>If any exceptions occur during loading, logs the error and attempts to restore user data from a backup file, retrying the load once restored.</li>
      * </ul>
@@ -207,7 +249,7 @@ public class UserManager {
      * <ul>
      *   <li>The users file path is stored in {@code usersFilePath}.</li>
      *   <li>JSON structure conforms to the expected schema with fields for user, account, and portfolio data.</li>
-     *   <li>Transaction importing and portfolio manipulation are handled by respective class methods and reflection.</li>
+     *   <li>Transaction importing and portfolio manipulation are handled by respective class methods.</li>
      * </ul>
      *
      * @throws RuntimeException if the user data file is malformed or cannot be read, unless restored from backup successfully
@@ -229,13 +271,18 @@ public class UserManager {
                 String username = userJson.getString("username");
                 String passwordHash = userJson.getString("passwordHash");
                 
+                // Files written before fixed-point amounts have no version
+                int schemaVersion = userJson.optInt("schemaVersion", 1);
+                
                 // Create the user
                 User user = new User(username, passwordHash);
                 
                 // Load account data if available
                 if (userJson.has("account")) {
                     JSONObject accountJson = userJson.getJSONObject("account");
-                    double balance = accountJson.getDouble("balance");
+                    double balance = schemaVersion >= 2
+                            ? Money.fiat(accountJson.getLong("balanceCents"))
+                            : accountJson.getDouble("balance");
                     
                     // Set the balance - only deposit if positive amount
                     if (balance > 0) {
@@ -245,7 +292,7 @@ public class UserManager {
                     // Load transactions if available
                     if (accountJson.has("transactionsFile")) {
                         String transactionsFile = accountJson.getString("transactionsFile");
-                        Path transactionsPath = Paths.get(DataManager.DATA_DIR, transactionsFile);
+                        Path transactionsPath = dataDir.resolve(transactionsFile);
                         
                         if (Files.exists(transactionsPath)) {
                             // Clear the initial deposit transaction
@@ -260,50 +307,74 @@ public class UserManager {
                 // Load portfolio data if available
                 if (userJson.has("portfolio")) {
                     JSONObject portfolioJson = userJson.getJSONObject("portfolio");
+                    Portfolio portfolio = user.getPortfolio();
                     
-                    // Create maps for holdings and purchase prices
-                    Map<String, Double> holdings = new HashMap<>();
-                    Map<String, Double> purchasePrices = new HashMap<>();
-                    
-                    // Load purchase prices if available
-                    if (portfolioJson.has("purchasePrices")) {
-                        JSONObject pricesJson = portfolioJson.getJSONObject("purchasePrices");
-                        for (String coinSymbol : pricesJson.keySet()) {
-                            purchasePrices.put(coinSymbol, pricesJson.getDouble(coinSymbol));
+                    if (schemaVersion >= 3) {
+                        portfolio.setCostBasisMethod(CostBasisMethod.valueOf(
+                                portfolioJson.optString("costBasisMethod", CostBasisMethod.FIFO.name())));
+                        JSONObject lotsJson = objectOrEmpty(portfolioJson, "lots");
+                        for (String coinSymbol : lotsJson.keySet()) {
+                            JSONArray symbolLots = lotsJson.getJSONArray(coinSymbol);
+                            for (int j = 0; j < symbolLots.length(); j++) {
+                                JSONObject lotJson = symbolLots.getJSONObject(j);
+                                portfolio.restoreLot(coinSymbol, lotJson.getLong("units"),
+                                        lotJson.getLong("priceUnits"), lotJson.getLong("timestamp"));
+                            }
                         }
-                    }
+                        JSONObject shortsJson = objectOrEmpty(portfolioJson, "shorts");
+                        for (String coinSymbol : shortsJson.keySet()) {
+                            JSONArray symbolLots = shortsJson.getJSONArray(coinSymbol);
+                            for (int j = 0; j < symbolLots.length(); j++) {
+                                JSONObject lotJson = symbolLots.getJSONObject(j);
+                                portfolio.restoreShortLot(coinSymbol, lotJson.getLong("units"),
+                                        lotJson.getLong("priceUnits"), lotJson.getLong("timestamp"));
+                            }
+                        }
+                        JSONArray gainsJson = portfolioJson.optJSONArray("realizedGains");
+                        for (int j = 0; gainsJson != null && j < gainsJson.length(); j++) {
+                            JSONObject gainJson = gainsJson.getJSONObject(j);
+                            portfolio.restoreRealizedGain(new RealizedGain(gainJson.getString("symbol"),
+                                    PositionType.valueOf(gainJson.getString("side")), gainJson.getLong("units"),
+                                    gainJson.getLong("costBasisCents"), gainJson.getLong("proceedsCents"),
+                                    gainJson.getLong("openedAt"), gainJson.getLong("closedAt")));
+                        }
+                    } else {
+                        // Before version 3 each holding was one amount at an average price;
+                        // create maps for holdings and purchase prices, in fixed-point units
+                        Map<String, Long> holdings = new HashMap<>();
+                        Map<String, Long> purchasePrices = new HashMap<>();
                     
-                    // Load holdings
-                    if (portfolioJson.has("holdings")) {
-                        JSONObject holdingsJson = portfolioJson.getJSONObject("holdings");
-                        
-                        // Add each holding
-                        for (String coinSymbol : holdingsJson.keySet()) {
-                            double amount = holdingsJson.getDouble(coinSymbol);
-                            holdings.put(coinSymbol, amount);
+                        if (schemaVersion >= 2) {
+                            JSONObject holdingsJson = objectOrEmpty(portfolioJson, "holdingUnits");
+                            for (String coinSymbol : holdingsJson.keySet()) {
+                                holdings.put(coinSymbol, holdingsJson.getLong(coinSymbol));
+                            }
+                            JSONObject pricesJson = objectOrEmpty(portfolioJson, "purchasePriceUnits");
+                            for (String coinSymbol : pricesJson.keySet()) {
+                                purchasePrices.put(coinSymbol, pricesJson.getLong(coinSymbol));
+                            }
+                        } else {
+                            // Version 1 stored doubles; round them to fixed-point units
+                            JSONObject holdingsJson = objectOrEmpty(portfolioJson, "holdings");
+                            for (String coinSymbol : holdingsJson.keySet()) {
+                                holdings.put(coinSymbol, Money.coinUnits(holdingsJson.getDouble(coinSymbol)));
+                            }
+                            JSONObject pricesJson = objectOrEmpty(portfolioJson, "purchasePrices");
+                            for (String coinSymbol : pricesJson.keySet()) {
+                                purchasePrices.put(coinSymbol, Money.priceUnits(pricesJson.getDouble(coinSymbol)));
+                            }
                         }
-                    }
                     
-                    // Directly set the holdings and purchase prices using reflection
-                    try {
-                        java.lang.reflect.Field holdingsField = user.getPortfolio().getClass().getDeclaredField("holdings");
-                        holdingsField.setAccessible(true);
-                        Map<String, Double> portfolioHoldings = (Map<String, Double>) holdingsField.get(user.getPortfolio());
-                        portfolioHoldings.clear();
-                        portfolioHoldings.putAll(holdings);
-                        
-                        java.lang.reflect.Field pricesField = user.getPortfolio().getClass().getDeclaredField("purchasePrices");
-                        pricesField.setAccessible(true);
-                        Map<String, Double> portfolioPrices = (Map<String, Double>) pricesField.get(user.getPortfolio());
-                        portfolioPrices.clear();
-                        portfolioPrices.putAll(purchasePrices);
-                    } catch (Exception e) {
-                        System.err.println("Error setting portfolio data: " + e.getMessage());
+                        for (Map.Entry<String, Long> entry : holdings.entrySet()) {
+                            portfolio.restoreHolding(entry.getKey(), entry.getValue(),
+                                    purchasePrices.getOrDefault(entry.getKey(), 0L));
+                        }
                     }
                 }
                 
-                // Add to users map
+                // Add to users map; the shared margin engine watches every user's shorts
                 users.put(username, user);
+                MarginEngine.getShared().register(user.getPortfolio());
             }
             
         } catch (Exception e) {
@@ -318,6 +389,29 @@ public class UserManager {
         }
     }
     
+    /**
+     * Converts lots to JSON, in fixed-point units and in their original order.
+     */
+    private static JSONObject lotsToJson(Map<String, List<Position>> lots) {
+        JSONObject lotsJson = new JSONObject();
+        for (Map.Entry<String, List<Position>> entry : lots.entrySet()) {
+            JSONArray symbolLots = new JSONArray();
+            for (Position lot : entry.getValue()) {
+                JSONObject lotJson = new JSONObject();
+                lotJson.put("units", lot.getUnits());
+                lotJson.put("priceUnits", lot.getEntryPriceUnits());
+                lotJson.put("timestamp", lot.getTimestamp());
+                symbolLots.put(lotJson);
+            }
+            lotsJson.put(entry.getKey(), symbolLots);
+        }
+        return lotsJson;
+    }
+
+    private static JSONObject objectOrEmpty(JSONObject json, String key) {
+        return json.has(key) ? json.getJSONObject(key) : new JSONObject();
+    }
+
     /**
      * Creates a backup of the current users file if it exists
      */
@@ -343,23 +437,8 @@ public class UserManager {
             for (User user : users.values()) {
                 if (user.getAccount() != null && !user.getAccount().getTransactions().isEmpty()) {
                     String transactionFile = user.getUsername() + "_transactions.json";
-                    Path transactionPath = Paths.get(DataManager.DATA_DIR, transactionFile);
-                    
-                    // Convert transactions to JSON array
-                    JSONArray transactionsArray = new JSONArray();
-                    for (com.myapp.Transaction tx : user.getAccount().getTransactions()) {
-                        JSONObject txJson = new JSONObject();
-                        txJson.put("transactionId", tx.getTransactionId());
-                        txJson.put("timestamp", tx.getTimestamp().toString());
-                        txJson.put("type", tx.getType().toString());
-                        txJson.put("amount", tx.getAmount());
-                        txJson.put("description", tx.getDescription());
-                        
-                        transactionsArray.put(txJson);
-                    }
-                    
-                    // Save using DataManager
-                    DataManager.saveJsonData(transactionsArray, transactionPath);
+                    // Same format as the import reads back, with cents and the traded coins
+                    user.getAccount().exportTransactionsToJson(dataDir.resolve(transactionFile).toString());
                 }
             }
             
@@ -133,8 +133,35 @@ public class AccountJsonTest {
         JSONObject exportedTx = exportedData.getJSONObject(0);
         assertEquals("DEPOSIT", exportedTx.getString("type"));
         assertEquals(500.0, exportedTx.getDouble("amount"), 0.001);
+        assertEquals(50000L, exportedTx.getLong("amountCents"));
         assertEquals("Initial deposit", exportedTx.getString("description"));
     }
+
+    @Test
+    void testImportPrefersCentsAndReplaysShorts() throws IOException {
+        Path importFile = tempDir.resolve("cents.json");
+        JSONArray testData = new JSONArray();
+
+        JSONObject deposit = new JSONObject();
+        deposit.put("type", "DEPOSIT");
+        deposit.put("amount", 0.1);
+        deposit.put("amountCents", 1010L);
+        deposit.put("description", "Deposit");
+        testData.put(deposit);
+
+        JSONObject shortOpen = new JSONObject();
+        shortOpen.put("type", "CRYPTO_SHORT_OPEN");
+        shortOpen.put("amountCents", 300L);
+        shortOpen.put("amount", 3.0);
+        shortOpen.put("description", "Short position collateral for 1.0 ETH");
+        testData.put(shortOpen);
+
+        Files.write(importFile, testData.toString().getBytes());
+        account.importTransactionsFromJson(importFile.toString());
+
+        // Cents win over the rounded double, and the short collateral leaves the balance
+        assertEquals(710L, account.getBalanceCents());
+    }
     
     @Test
     void testImportInvalidTransaction() throws IOException {
@@ -168,4 +195,47 @@ public class AccountJsonTest {
         assertEquals(0.0, account.getBalance(), 0.001);
         assertEquals(0, account.getTransactions().size());
     }
-} 
\ No newline at end of file
+
+    @Test
+    void testImportKeepsRecordedTimestamps() throws IOException {
+        account.deposit(100.0, "Old deposit");
+        Transaction original = account.getTransactions().get(0);
+        Path jsonFile = tempDir.resolve("timestamps.json");
+        account.exportTransactionsToJson(jsonFile.toString());
+
+        Account restored = new Account();
+        restored.importTransactionsFromJson(jsonFile.toString());
+        Transaction tx = restored.getTransactions().get(0);
+        assertEquals(original.getTimestamp(), tx.getTimestamp());
+        assertEquals(original.getTransactionId(), tx.getTransactionId());
+    }
+
+    @Test
+    void testTradesKeepCoinAndAmountThroughExport() throws IOException {
+        account.deposit(1000.0, "Deposit");
+        Portfolio portfolio = new Portfolio(account);
+        portfolio.buyCrypto("BTC", 1.00000001, 100.0);
+        portfolio.sellCrypto("BTC", 0.00000001, 100.0);
+
+        // The dust sale is worth nothing but is still journaled with its coin and amount
+        Transaction dust = account.getTransactions().get(2);
+        assertEquals(TransactionType.CRYPTO_SALE, dust.getType());
+        assertEquals(0L, dust.getAmountCents());
+        assertEquals("BTC", dust.getSymbol());
+        assertEquals(1L, dust.getCoinUnits());
+
+        Path jsonFile = tempDir.resolve("trades.json");
+        account.exportTransactionsToJson(jsonFile.toString());
+        Account restored = new Account();
+        restored.importTransactionsFromJson(jsonFile.toString());
+
+        assertEquals(account.getBalanceCents(), restored.getBalanceCents());
+        List<Transaction> transactions = restored.getTransactions();
+        assertNull(transactions.get(0).getSymbol());
+        assertEquals(0L, transactions.get(0).getCoinUnits());
+        assertEquals("BTC", transactions.get(1).getSymbol());
+        assertEquals(100_000_001L, transactions.get(1).getCoinUnits());
+        assertEquals("BTC", transactions.get(2).getSymbol());
+        assertEquals(1L, transactions.get(2).getCoinUnits());
+    }
+}
@@ -3,7 +3,12 @@ package com.myapp;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 import static org.junit.jupiter.api.Assertions.*;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Unit tests for the Account class.
@@ -116,4 +121,33 @@ public class AccountTest {
         assertEquals("First withdrawal", recentTransactions.get(0).getDescription());
         assertEquals("Third deposit", recentTransactions.get(1).getDescription());
     }
-} 
\ No newline at end of file
+
+    @Test
+    void testConcurrentWithdrawalsNeverOverdraw() throws Exception {
+        account.deposit(1000.0, "Initial deposit");
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(pool.submit(() -> {
+                int succeeded = 0;
+                for (int i = 0; i < 500; i++) {
+                    try {
+                        account.withdraw(1.0, "Withdrawal");
+                        succeeded++;
+                    } catch (IllegalStateException e) {
+                        // Balance exhausted
+                    }
+                }
+                return succeeded;
+            }));
+        }
+        int total = 0;
+        for (Future<Integer> future : futures) total += future.get(30, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        // Exactly the deposited amount is withdrawn, and every withdrawal is recorded
+        assertEquals(1000, total);
+        assertEquals(0.0, account.getBalance(), 1e-9);
+        assertEquals(1001, account.getTransactions().size());
+    }
+}
@@ -0,0 +1,214 @@
+package com.myapp;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import weka.classifiers.trees.RandomTree;
+import weka.core.Attribute;
+import weka.core.DenseInstance;
+import weka.core.Instances;
+
+/**
+ * Unit tests for the AdvisorScheduler class.
+ */
+public class AdvisorSchedulerTest {
+
+    @Test
+    void testCoresAreSplitBetweenCoinsAndForests() {
+        try (AdvisorScheduler scheduler = new AdvisorScheduler(32, 10, 4)) {
+            assertEquals(10, scheduler.getCoinParallelism());
+            assertEquals(3, scheduler.getSlotsPerForest());
+            assertTrue(scheduler.getCoinParallelism() * scheduler.getSlotsPerForest() <= 32);
+        }
+    }
+
+    @Test
+    void testFewCoresAreNotOversubscribed() {
+        try (AdvisorScheduler scheduler = new AdvisorScheduler(4, 10, 4)) {
+            assertEquals(4, scheduler.getCoinParallelism());
+            assertEquals(1, scheduler.getSlotsPerForest());
+        }
+    }
+
+    @Test
+    void testFetchConcurrencyIsCapped() throws Exception {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+
+        try (AdvisorScheduler scheduler = new AdvisorScheduler(8, 10, 2)) {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                int id = i;
+                futures.add(scheduler.fork(() -> scheduler.fetch(() -> {
+                    int now = inFlight.incrementAndGet();
+                    maxInFlight.accumulateAndGet(now, Math::max);
+                    Thread.sleep(20);
+                    inFlight.decrementAndGet();
+                    return id;
+                })));
+            }
+            assertTrue(scheduler.join(futures, new AtomicBoolean(false)));
+            for (int i = 0; i < futures.size(); i++) {
+                assertEquals(i, futures.get(i).get());
+            }
+        }
+
+        assertTrue(maxInFlight.get() <= 2, "Max in flight was " + maxInFlight.get());
+    }
+
+    @Test
+    void testFetchFailureCompletesExceptionally() throws Exception {
+        try (AdvisorScheduler scheduler = new AdvisorScheduler(2, 1, 1)) {
+            Future<Object> future = scheduler.fork(() -> scheduler.fetch(() -> {
+                throw new IllegalStateException("boom");
+            }));
+            assertTrue(scheduler.join(List.of(future), new AtomicBoolean(false)));
+            assertThrows(ExecutionException.class, future::get);
+        }
+    }
+
+    @Test
+    void testJoinWaitsForEverySlowSubtask() throws Exception {
+        AtomicInteger interrupted = new AtomicInteger();
+
+        try (AdvisorScheduler scheduler = new AdvisorScheduler(2, 4, 4)) {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                int id = i;
+                // Each subtask outlasts many of join's polls; the first and last are the slowest
+                long sleepMs = i == 0 || i == 3 ? 200 : 50;
+                futures.add(scheduler.fork(() -> scheduler.train(() -> {
+                    try {
+                        Thread.sleep(sleepMs);
+                    } catch (InterruptedException e) {
+                        interrupted.incrementAndGet();
+                        throw e;
+                    }
+                    return id;
+                })));
+            }
+            assertTrue(scheduler.join(futures, new AtomicBoolean(false)));
+            for (int i = 0; i < futures.size(); i++) {
+                assertTrue(futures.get(i).isDone());
+                assertEquals(i, futures.get(i).get());
+            }
+            assertFalse(scheduler.isCancelled());
+        }
+        assertEquals(0, interrupted.get());
+    }
+
+    @Test
+    void testCancelFlagInterruptsFetchesAndTraining() throws Exception {
+        AtomicBoolean cancelRequested = new AtomicBoolean(false);
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch interrupted = new CountDownLatch(2);
+
+        try (AdvisorScheduler scheduler = new AdvisorScheduler(2, 2, 2)) {
+            Future<?> fetching = scheduler.fork(() -> scheduler.fetch(() -> sleepUntilInterrupted(started, interrupted)));
+            Future<?> training = scheduler.fork(() -> scheduler.train(() -> sleepUntilInterrupted(started, interrupted)));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            cancelRequested.set(true);
+            assertFalse(scheduler.join(List.of(fetching, training), cancelRequested));
+
+            // Both threads sleep for a minute unless the cancel interrupts them
+            assertTrue(interrupted.await(30, TimeUnit.SECONDS), "Threads were not interrupted");
+            assertTrue(scheduler.isCancelled());
+        }
+    }
+
+    @Test
+    void testInterruptingTheJoiningThreadCancelsTheRun() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        AtomicReference<Throwable> joinOutcome = new AtomicReference<>();
+
+        try (AdvisorScheduler scheduler = new AdvisorScheduler(2, 1, 1)) {
+            Future<?> subtask = scheduler.fork(() -> scheduler.train(() -> sleepUntilInterrupted(started, interrupted)));
+            Thread caller = new Thread(() -> {
+                try {
+                    scheduler.join(List.of(subtask), new AtomicBoolean(false));
+                } catch (Throwable t) {
+                    joinOutcome.set(t);
+                }
+            });
+            caller.start();
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            caller.interrupt();
+            caller.join(1000);
+
+            assertInstanceOf(InterruptedException.class, joinOutcome.get());
+            assertTrue(interrupted.await(1, TimeUnit.SECONDS), "Training was not interrupted");
+        }
+    }
+
+    @Test
+    void testInterruptStopsForestTrainingBetweenTrees() {
+        SpreadRandomForest forest = new ForestParams(500, 0, 0).newForest(1);
+        forest.setClassifier(new InterruptingTree());
+        InterruptingTree.built.set(0);
+        try {
+            assertThrows(InterruptedException.class, () -> forest.buildClassifier(randomData(200, 4)));
+        } finally {
+            Thread.interrupted();
+        }
+        // The tree that saw the interrupt finishes; none of the other 495 is built
+        assertEquals(InterruptingTree.INTERRUPT_AFTER, InterruptingTree.built.get());
+    }
+
+    /**
+     * A RandomTree that interrupts the building thread once a few trees have been built.
+     */
+    private static class InterruptingTree extends RandomTree {
+        static final int INTERRUPT_AFTER = 5;
+        static final AtomicInteger built = new AtomicInteger();
+
+        @Override
+        public void buildClassifier(Instances data) throws Exception {
+            super.buildClassifier(data);
+            if (built.incrementAndGet() == INTERRUPT_AFTER) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Signals that it started, then blocks until interrupted and signals that too.
+     */
+    private static Object sleepUntilInterrupted(CountDownLatch started, CountDownLatch interrupted) throws InterruptedException {
+        started.countDown();
+        try {
+            Thread.sleep(60_000);
+        } catch (InterruptedException e) {
+            interrupted.countDown();
+            throw e;
+        }
+        return null;
+    }
+
+    private static Instances randomData(int rows, int features) {
+        Random random = new Random(1L);
+        ArrayList<Attribute> attributes = new ArrayList<>();
+        for (int a = 0; a <= features; a++) attributes.add(new Attribute("a" + a));
+        Instances data = new Instances("Test", attributes, rows);
+        data.setClassIndex(features);
+        for (int i = 0; i < rows; i++) {
+            DenseInstance instance = new DenseInstance(features + 1);
+            for (int a = 0; a <= features; a++) instance.setValue(a, random.nextDouble());
+            data.add(instance);
+        }
+        return data;
+    }
+}
@@ -0,0 +1,81 @@
+package com.myapp;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+/**
+ * Unit tests for the BuyLots class.
+ */
+public class BuyLotsTest {
+
+    private static BuyLots threeLots() {
+        BuyLots lots = new BuyLots();
+        lots.add(Position.ofUnits("BTC", 100L, Money.priceUnits(20.0), PositionType.LONG, 1L));
+        lots.add(Position.ofUnits("BTC", 100L, Money.priceUnits(30.0), PositionType.LONG, 2L));
+        lots.add(Position.ofUnits("BTC", 100L, Money.priceUnits(10.0), PositionType.LONG, 3L));
+        return lots;
+    }
+
+    @Test
+    void testEachMethodRelievesItsLotFirst() {
+        assertEquals(1L, threeLots().next(CostBasisMethod.FIFO).getTimestamp());
+        assertEquals(3L, threeLots().next(CostBasisMethod.LIFO).getTimestamp());
+        assertEquals(2L, threeLots().next(CostBasisMethod.HIFO).getTimestamp());
+    }
+
+    @Test
+    void testMixedMethodsSkipLotsEmptiedByAnother() {
+        BuyLots lots = threeLots();
+        // HIFO empties the 30.0 lot, which FIFO and LIFO must then skip
+        lots.relieve(CostBasisMethod.HIFO, 100L);
+        lots.relieve(CostBasisMethod.FIFO, 100L);
+        assertEquals(3L, lots.next(CostBasisMethod.HIFO).getTimestamp());
+        assertEquals(3L, lots.next(CostBasisMethod.LIFO).getTimestamp());
+
+        lots.relieve(CostBasisMethod.LIFO, 40L);
+        List<Position> open = lots.toList();
+        assertEquals(1, open.size());
+        assertEquals(60L, open.get(0).getUnits());
+        assertEquals(1, lots.totals().lotCount);
+        assertEquals(Money.value(60L, Money.priceUnits(10.0)), lots.totals().costCents);
+    }
+
+    @Test
+    void testSlicesOfALotAddUpToItsCost() {
+        BuyLots lots = new BuyLots();
+        lots.add(Position.ofUnits("ETH", 300_000_000L, Money.priceUnits(1234.56789), PositionType.LONG, 0L));
+        long lotCost = lots.totals().costCents;
+
+        long relieved = lots.relieve(CostBasisMethod.FIFO, 100_000_000L) + lots.relieve(CostBasisMethod.FIFO, 100_000_000L)
+                + lots.relieve(CostBasisMethod.FIFO, 100_000_000L);
+        assertEquals(lotCost, relieved);
+        assertEquals(0L, lots.totals().costCents);
+        assertNull(lots.next(CostBasisMethod.FIFO));
+    }
+
+    @Test
+    void testManyReliefsKeepTheTotalsExact() {
+        BuyLots lots = new BuyLots();
+        int lotCount = 100_000;
+        for (int i = 0; i < lotCount; i++) {
+            lots.add(Position.ofUnits("BTC", 1_000L, Money.priceUnits(100.0 + (i % 997)), PositionType.LONG, i));
+        }
+
+        // Alternate the methods so both structures collect emptied lots and get swept
+        CostBasisMethod[] methods = CostBasisMethod.values();
+        for (int i = 0; i < 60_000; i++) {
+            CostBasisMethod method = methods[i % methods.length];
+            lots.next(method);
+            lots.relieve(method, 1_000L);
+        }
+
+        List<Position> remaining = lots.toList();
+        assertEquals(40_000, lots.totals().lotCount);
+        assertEquals(40_000, remaining.size());
+        assertEquals(remaining.stream().mapToLong(Position::getUnits).sum(), lots.totals().units);
+        assertEquals(remaining.stream().mapToLong(lot -> Money.value(lot.getUnits(), lot.getEntryPriceUnits())).sum(),
+                lots.totals().costCents);
+    }
+}
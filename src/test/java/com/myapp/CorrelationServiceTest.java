@@ -0,0 +1,139 @@
+package com.myapp;
+
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.stat.correlation.Covariance;
+import org.apache.commons.math3.stat.correlation.PearsonsCorrelation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Unit tests for the CorrelationService class.
+ * Note: Price series are generated locally, so no API calls are made.
+ */
+public class CorrelationServiceTest {
+
+    private static final int WINDOW = 10;
+
+    private CorrelationService service;
+    private Map<String, List<Double>> prices;
+
+    @BeforeEach
+    void setUp() {
+        service = new CorrelationService(new CryptoService(), WINDOW);
+        prices = randomPrices(new String[]{"BTC", "ETH", "ADA"}, 30, 42L);
+    }
+
+    @Test
+    void testMatricesMatchCommonsMath() {
+        service.initialize(prices);
+
+        double[][] returns = windowReturns(prices, service.getSymbols(), WINDOW);
+        RealMatrix expectedCov = new Covariance(returns).getCovarianceMatrix();
+        RealMatrix expectedCorr = new PearsonsCorrelation(returns).getCorrelationMatrix();
+
+        assertMatrixEquals(expectedCov, service.getCovarianceMatrix(), 1e-12);
+        assertMatrixEquals(expectedCorr, service.getCorrelationMatrix(), 1e-9);
+    }
+
+    @Test
+    void testIncrementalUpdateMatchesFullRecomputation() {
+        // Initialize with all but the last five days, then feed those days one by one
+        Map<String, List<Double>> initial = new HashMap<>();
+        prices.forEach((symbol, series) -> initial.put(symbol, series.subList(0, series.size() - 5)));
+        service.initialize(initial);
+
+        for (int day = 5; day > 0; day--) {
+            Map<String, Double> closes = new HashMap<>();
+            for (Map.Entry<String, List<Double>> entry : prices.entrySet()) {
+                List<Double> series = entry.getValue();
+                closes.put(entry.getKey(), series.get(series.size() - day));
+            }
+            service.addDay(closes);
+        }
+
+        CorrelationService full = new CorrelationService(new CryptoService(), WINDOW);
+        full.initialize(prices);
+
+        assertMatrixEquals(full.getCovarianceMatrix(), service.getCovarianceMatrix(), 1e-12);
+        assertMatrixEquals(full.getCorrelationMatrix(), service.getCorrelationMatrix(), 1e-9);
+    }
+
+    @Test
+    void testVersionChangesOnUpdate() {
+        service.initialize(prices);
+        long before = service.getVersion();
+
+        Map<String, Double> closes = new HashMap<>();
+        prices.forEach((symbol, series) -> closes.put(symbol, series.get(series.size() - 1) * 1.01));
+        service.addDay(closes);
+
+        assertNotEquals(before, service.getVersion());
+    }
+
+    @Test
+    void testConstantSeriesHasZeroCorrelation() {
+        List<Double> pegged = new ArrayList<>();
+        for (int i = 0; i < 30; i++) pegged.add(1.0);
+        prices.put("USDT", pegged);
+        service.initialize(prices);
+
+        assertEquals(0.0, service.getCorrelation("USDT", "BTC"), 0.0);
+        assertEquals(1.0, service.getCorrelation("BTC", "BTC"), 1e-12);
+    }
+
+    @Test
+    void testInvalidInput() {
+        assertThrows(IllegalArgumentException.class, () -> new CorrelationService(new CryptoService(), 1));
+        assertThrows(IllegalStateException.class, () -> service.getCovarianceMatrix());
+
+        service.initialize(prices);
+        assertThrows(IllegalArgumentException.class, () -> service.addDay(Map.of("BTC", 100.0)));
+        assertThrows(IllegalArgumentException.class, () -> service.getCorrelation("BTC", "XYZ"));
+    }
+
+    private static Map<String, List<Double>> randomPrices(String[] symbols, int days, long seed) {
+        Random random = new Random(seed);
+        double[] shared = new double[days];
+        for (int t = 0; t < days; t++) shared[t] = random.nextGaussian() * 0.02;
+
+        Map<String, List<Double>> result = new HashMap<>();
+        for (String symbol : symbols) {
+            List<Double> series = new ArrayList<>();
+            double price = 100.0;
+            for (int t = 0; t < days; t++) {
+                price *= Math.exp(shared[t] + random.nextGaussian() * 0.01);
+                series.add(price);
+            }
+            result.put(symbol, series);
+        }
+        return result;
+    }
+
+    private static double[][] windowReturns(Map<String, List<Double>> prices, List<String> symbols, int window) {
+        double[][] returns = new double[window][symbols.size()];
+        for (int j = 0; j < symbols.size(); j++) {
+            List<Double> series = prices.get(symbols.get(j));
+            int offset = series.size() - 1 - window;
+            for (int t = 0; t < window; t++) {
+                returns[t][j] = Math.log(series.get(offset + t + 1) / series.get(offset + t));
+            }
+        }
+        return returns;
+    }
+
+    private static void assertMatrixEquals(RealMatrix expected, RealMatrix actual, double delta) {
+        assertEquals(expected.getRowDimension(), actual.getRowDimension());
+        for (int i = 0; i < expected.getRowDimension(); i++) {
+            for (int j = 0; j < expected.getColumnDimension(); j++) {
+                assertEquals(expected.getEntry(i, j), actual.getEntry(i, j), delta);
+            }
+        }
+    }
+}
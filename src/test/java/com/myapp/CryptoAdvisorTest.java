@@ -5,9 +5,12 @@ import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import weka.core.Instances;
+
 
 /**
  * Unit tests for the CryptoAdvisor class.
@@ -46,6 +49,106 @@ public class CryptoAdvisorTest {
         });
     }
     
+    @Test
+    void testForestForecastReportsTreeSpread() throws Exception {
+        CryptoAdvisor forestAdvisor = new CryptoAdvisor(testService, 14, false, ModelCache.memoryOnly());
+        forestAdvisor.setVerbose(false);
+
+        CoinForecast forecast = forestAdvisor.forecast(syntheticData(40), "BTC");
+
+        assertEquals("BTC", forecast.getSymbol());
+        assertTrue(forecast.getSpread() > 0.0);
+        assertTrue(forecast.getGrowthLow() <= forecast.getGrowth());
+        assertTrue(forecast.getGrowth() <= forecast.getGrowthHigh());
+        assertEquals(forecast.getGrowth(), forestAdvisor.predictGrowth(syntheticData(40), "BTC"), 1e-12);
+    }
+
+    @Test
+    void testNativeForecastFitsTheDatasetColumns() throws Exception {
+        CryptoAdvisor nativeAdvisor = new CryptoAdvisor(testService, 14, false, ModelCache.memoryOnly());
+        nativeAdvisor.setModelType(ModelType.NATIVE_FOREST);
+        nativeAdvisor.setVerbose(false);
+        Instances data = syntheticData(40);
+
+        CoinForecast forecast = nativeAdvisor.forecast(data, "BTC");
+
+        double[][] features = new double[4][];
+        for (int a = 0; a < 4; a++) features[a] = data.attributeToDoubleArray(a);
+        NativeRandomForest forest = ForestParams.DEFAULT.newNativeForest(1);
+        forest.fit(features, data.attributeToDoubleArray(4));
+        int last = data.numInstances() - 1;
+        double[] latest = {features[0][last], features[1][last], features[2][last], features[3][last]};
+        assertEquals(forest.predict(latest), forecast.getPredictedPrice(), 0.0);
+        assertTrue(forecast.getSpread() > 0.0);
+    }
+
+    @Test
+    void testOnlineForecastHasZeroWidthBand() throws Exception {
+        CryptoAdvisor onlineAdvisor = new CryptoAdvisor(testService, 14, false, ModelCache.memoryOnly());
+        onlineAdvisor.setModelType(ModelType.ONLINE_LINEAR);
+        onlineAdvisor.setOnlineModelStore(OnlineModelStore.memoryOnly());
+        onlineAdvisor.setVerbose(false);
+
+        CoinForecast forecast = onlineAdvisor.forecast(syntheticData(40), "BTC");
+
+        assertEquals(forecast.getGrowth(), forecast.getGrowthLow(), 1e-12);
+        assertEquals(forecast.getGrowth(), forecast.getGrowthHigh(), 1e-12);
+        assertEquals(0.0, forecast.getSpread(), 1e-12);
+    }
+
+    @Test
+    void testFastTierPublishesPreliminaryEstimateOnlyForForests() throws Exception {
+        CryptoAdvisor forestAdvisor = new CryptoAdvisor(testService, 14, false, ModelCache.memoryOnly());
+        List<CoinForecast> published = new java.util.ArrayList<>();
+
+        java.lang.reflect.Method publish = CryptoAdvisor.class.getDeclaredMethod("publishFastEstimate",
+                Instances.class, String.class, java.util.function.Consumer.class);
+        publish.setAccessible(true);
+        publish.invoke(forestAdvisor, syntheticData(40), "BTC", (java.util.function.Consumer<CoinForecast>) published::add);
+
+        assertEquals(1, published.size());
+        assertTrue(published.get(0).isPreliminary());
+
+        forestAdvisor.setModelType(ModelType.ONLINE_LINEAR);
+        publish.invoke(forestAdvisor, syntheticData(40), "BTC", (java.util.function.Consumer<CoinForecast>) published::add);
+        assertEquals(1, published.size());
+    }
+
+    @Test
+    void testForecastBandUsesTreePercentiles() {
+        double[] treePrices = new double[11];
+        for (int i = 0; i < treePrices.length; i++) treePrices[i] = 100.0 + i;
+
+        CoinForecast forecast = CryptoAdvisor.toForecast("ETH", 100.0, 105.0, treePrices);
+
+        assertEquals(0.05, forecast.getGrowth(), 1e-12);
+        assertEquals(0.01, forecast.getGrowthLow(), 1e-12);
+        assertEquals(0.09, forecast.getGrowthHigh(), 1e-12);
+    }
+
+    @Test
+    void testRankingIsHighestGrowthFirst() {
+        List<CoinForecast> ranking = CoinForecast.rank(List.of(
+                CryptoAdvisor.toForecast("ADA", 1.0, 1.01, null),
+                CryptoAdvisor.toForecast("BTC", 1.0, 1.05, null),
+                CryptoAdvisor.toForecast("ETH", 1.0, 0.98, null)));
+
+        assertEquals("BTC", ranking.get(0).getSymbol());
+        assertEquals("ADA", ranking.get(1).getSymbol());
+        assertEquals("ETH", ranking.get(2).getSymbol());
+    }
+
+    /**
+     * Builds a feature dataset from a noisy upward price series.
+     */
+    private static Instances syntheticData(int days) {
+        double[] prices = new double[days];
+        for (int i = 0; i < days; i++) {
+            prices[i] = 100.0 + i + 3.0 * Math.sin(i);
+        }
+        return LiveDataLoader.buildDataset(prices);
+    }
+
     /**
      * Test implementation of CryptoService that returns predefined data.
      */
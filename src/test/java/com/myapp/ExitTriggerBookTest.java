@@ -0,0 +1,101 @@
+package com.myapp;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Unit tests for the ExitTriggerBook class.
+ */
+public class ExitTriggerBookTest {
+
+    @Test
+    void testTrailingStopsWithDifferentStartsShareLaterPeaks() {
+        ExitTriggerBook book = new ExitTriggerBook();
+        ExitTrigger early = trailing(1, 0.10);
+        ExitTrigger late = trailing(2, 0.10);
+
+        book.add(early, 100.0);
+        assertTrue(book.onTick("BTC", 120.0).isEmpty());
+        book.add(late, 110.0);
+
+        // The late stop starts at 110; a new high moves both stops to the same peak
+        assertEquals(108.0, early.getStopPrice(), 1e-9);
+        assertEquals(99.0, late.getStopPrice(), 1e-9);
+        assertTrue(book.onTick("BTC", 130.0).isEmpty());
+        assertEquals(117.0, early.getStopPrice(), 1e-9);
+        assertEquals(117.0, late.getStopPrice(), 1e-9);
+
+        assertEquals(List.of(early, late), sorted(book.onTick("BTC", 116.0)));
+        assertTrue(book.isEmpty());
+    }
+
+    @Test
+    void testTrailingStopsMatchNaiveSimulation() {
+        Random random = new Random(9L);
+        ExitTriggerBook book = new ExitTriggerBook();
+        int stops = 500;
+        ExitTrigger[] triggers = new ExitTrigger[stops];
+        double[] peaks = new double[stops];
+        boolean[] fired = new boolean[stops];
+
+        double price = 100.0;
+        int added = 0;
+        for (int tick = 0; tick < 2_000; tick++) {
+            price *= Math.exp(random.nextGaussian() * 0.01);
+            if (added < stops && tick % 3 == 0) {
+                triggers[added] = trailing(added, 0.02 + 0.01 * (added % 3));
+                peaks[added] = price;
+                book.add(triggers[added], price);
+                added++;
+                continue;
+            }
+
+            List<ExitTrigger> polled = book.onTick("BTC", price);
+            for (int i = 0; i < added; i++) {
+                if (fired[i]) continue;
+                boolean expected = price <= peaks[i] * (1.0 - triggers[i].getTrailFraction());
+                assertEquals(expected, polled.contains(triggers[i]), "stop " + i + " at tick " + tick);
+                if (expected) {
+                    fired[i] = true;
+                } else {
+                    peaks[i] = Math.max(peaks[i], price);
+                    assertEquals(peaks[i] * (1.0 - triggers[i].getTrailFraction()), triggers[i].getStopPrice(), 1e-9);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testThousandsOfTriggersFireOnlyWhenCrossed() {
+        ExitTriggerBook book = new ExitTriggerBook();
+        long id = 0;
+        for (int i = 0; i < 5_000; i++) {
+            book.add(new ExitTrigger(id++, "BTC", TriggerType.STOP_LOSS, PositionType.LONG, 1.0, 50.0 - i * 0.001, 0.0, 0L), 100.0);
+            book.add(new ExitTrigger(id++, "BTC", TriggerType.TAKE_PROFIT, PositionType.LONG, 1.0, 150.0 + i * 0.001, 0.0, 0L), 100.0);
+            book.add(trailing(id++, 0.4), 100.0 + i * 0.001);
+        }
+
+        Random random = new Random(1L);
+        for (int tick = 0; tick < 10_000; tick++) {
+            assertTrue(book.onTick("BTC", 100.0 + random.nextDouble() * 10.0).isEmpty());
+        }
+        assertEquals(15_000, book.getArmed().size());
+
+        // A tick through the lowest take-profit targets fires exactly those
+        List<ExitTrigger> fired = book.onTick("BTC", 150.0025);
+        assertEquals(3, fired.size());
+        assertTrue(fired.stream().allMatch(trigger -> trigger.getType() == TriggerType.TAKE_PROFIT));
+        assertEquals(14_997, book.getArmed().size());
+    }
+
+    private static ExitTrigger trailing(long id, double fraction) {
+        return new ExitTrigger(id, "BTC", TriggerType.TRAILING_STOP, PositionType.LONG, 1.0, Double.NaN, fraction, 0L);
+    }
+
+    private static List<ExitTrigger> sorted(List<ExitTrigger> triggers) {
+        return triggers.stream().sorted((a, b) -> Long.compare(a.getId(), b.getId())).toList();
+    }
+}
@@ -0,0 +1,121 @@
+package com.myapp;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import weka.classifiers.meta.FilteredClassifier;
+import weka.core.Attribute;
+import weka.core.DenseInstance;
+import weka.core.Instances;
+import weka.filters.unsupervised.attribute.Standardize;
+
+/**
+ * Unit tests for the HyperparameterTuner and ForestParams classes.
+ */
+public class HyperparameterTunerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path paramsFile;
+    private HyperparameterTuner tuner;
+
+    @BeforeEach
+    void setUp() {
+        paramsFile = tempDir.resolve("forest_params.json");
+        tuner = new HyperparameterTuner(paramsFile, new ForkJoinPool(4), 4);
+    }
+
+    @Test
+    void testRollingOriginFoldsNeverTrainOnTheFuture() {
+        int[][] folds = HyperparameterTuner.rollingOriginFolds(25, 4);
+
+        assertArrayEquals(new int[]{20, 25}, folds[0]);
+        assertArrayEquals(new int[]{15, 20}, folds[1]);
+        assertArrayEquals(new int[]{10, 15}, folds[2]);
+        assertArrayEquals(new int[]{5, 10}, folds[3]);
+
+        // Folds with fewer than five training rows are dropped
+        assertEquals(3, HyperparameterTuner.rollingOriginFolds(12, 4).length);
+        assertThrows(IllegalArgumentException.class, () -> HyperparameterTuner.rollingOriginFolds(5, 4));
+    }
+
+    @Test
+    void testTunePrefersExpressiveForest() {
+        ForestParams stump = new ForestParams(1, 1, 1);
+        ForestParams forest = new ForestParams(50, 0, 0);
+
+        ForestParams best = tuner.tune(linearData(80, 1L), List.of(stump, forest));
+
+        assertEquals(forest, best);
+    }
+
+    @Test
+    void testTuneAllPersistsAndMergesResults() throws Exception {
+        HyperparameterTuner.saveBestParams(paramsFile, Map.of("ETH", new ForestParams(10, 2, 1)));
+
+        List<ForestParams> candidates = HyperparameterTuner.grid(new int[]{5, 20}, new int[]{0, 2}, new int[]{0});
+        Map<String, ForestParams> best = tuner.tuneAll(Map.of("BTC", linearData(40, 2L)), candidates);
+
+        Map<String, ForestParams> stored = HyperparameterTuner.loadBestParams(paramsFile);
+        assertEquals(best.get("BTC"), stored.get("BTC"));
+        assertEquals(new ForestParams(10, 2, 1), stored.get("ETH"));
+        assertTrue(candidates.contains(stored.get("BTC")));
+    }
+
+    @Test
+    void testRandomSearchDrawsDistinctCandidatesInRange() {
+        List<ForestParams> candidates = HyperparameterTuner.randomSearch(20, 3L, 200, 10, 4);
+
+        assertEquals(20, new HashSet<>(candidates).size());
+        for (ForestParams params : candidates) {
+            assertTrue(params.getNumTrees() >= 1 && params.getNumTrees() <= 200);
+            assertTrue(params.getMaxDepth() >= 0 && params.getMaxDepth() <= 10);
+            assertTrue(params.getNumFeatures() >= 0 && params.getNumFeatures() <= 4);
+        }
+    }
+
+    @Test
+    void testDefaultParamsMatchWekaDefaults() {
+        // Untuned coins share a cache key with an unconfigured forest
+        FilteredClassifier untuned = new FilteredClassifier();
+        untuned.setClassifier(new SpreadRandomForest());
+        untuned.setFilter(new Standardize());
+
+        assertEquals(ModelCache.hyperparameterHash(untuned), ModelCache.hyperparameterHash(ForestParams.DEFAULT.newModel(1)));
+        assertEquals(ForestParams.DEFAULT, ForestParams.fromJson(ForestParams.DEFAULT.toJson()));
+    }
+
+    /**
+     * Builds {@code rows} rows of y = 10 * x1 - 4 * x2 plus noise.
+     */
+    private static Instances linearData(int rows, long seed) {
+        Random random = new Random(seed);
+        ArrayList<Attribute> attributes = new ArrayList<>();
+        attributes.add(new Attribute("x1"));
+        attributes.add(new Attribute("x2"));
+        attributes.add(new Attribute("y"));
+        Instances instances = new Instances("Test", attributes, rows);
+        instances.setClassIndex(2);
+        for (int i = 0; i < rows; i++) {
+            double x1 = random.nextDouble();
+            double x2 = random.nextDouble();
+            DenseInstance instance = new DenseInstance(3);
+            instance.setValue(0, x1);
+            instance.setValue(1, x2);
+            instance.setValue(2, 10 * x1 - 4 * x2 + random.nextGaussian() * 0.1);
+            instances.add(instance);
+        }
+        return instances;
+    }
+}
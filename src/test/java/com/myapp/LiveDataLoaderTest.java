@@ -96,6 +96,25 @@ public class LiveDataLoaderTest {
         assertEquals(3, data.numInstances()); // 10 data points - 7 for initial window = 3 instances
     }
     
+    @Test
+    void testFeatureColumnsMatchDataset() {
+        double[] prices = new double[20];
+        for (int i = 0; i < prices.length; i++) {
+            prices[i] = 100.0 + 5.0 * Math.sin(i);
+        }
+
+        Instances data = LiveDataLoader.buildDataset(prices);
+        double[][] columns = LiveDataLoader.buildFeatureColumns(prices);
+
+        assertEquals(data.numAttributes(), columns.length);
+        assertEquals(data.numInstances(), columns[0].length);
+        for (int a = 0; a < columns.length; a++) {
+            for (int i = 0; i < data.numInstances(); i++) {
+                assertEquals(data.instance(i).value(a), columns[a][i], 0.0);
+            }
+        }
+    }
+    
     @Test
     void testCacheEntryExpiration() throws Exception {
         // Get the CacheEntry inner class using reflection
@@ -0,0 +1,99 @@
+package com.myapp;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unit tests for the MarginEngine class.
+ */
+public class MarginEngineTest {
+
+    private MarginEngine engine;
+    private Portfolio portfolio;
+
+    private static Portfolio newPortfolio(double balance) {
+        Account account = new Account();
+        account.deposit(balance, "Initial deposit");
+        return new Portfolio(account);
+    }
+
+    @BeforeEach
+    void setUp() {
+        engine = new MarginEngine(0.25);
+        portfolio = newPortfolio(1000.0);
+        engine.register(portfolio);
+    }
+
+    @Test
+    void testLiquidatesAtMaintenanceRatio() {
+        portfolio.openShortPosition("BTC", 1.0, 100.0);
+        // Equity 200 - price over exposure price reaches 25% at 160
+        assertEquals(160.0, engine.getLiquidationPrice(portfolio, "BTC"), 1e-9);
+        assertEquals(0.5, MarginEngine.marginRatio(portfolio, "BTC", 133.3333333333), 1e-9);
+
+        assertTrue(engine.onPriceTick("BTC", 159.99).isEmpty());
+        List<Liquidation> liquidations = engine.onPriceTick("BTC", 160.0);
+        assertEquals(1, liquidations.size());
+        assertEquals(0.25, liquidations.get(0).getMarginRatio(), 1e-9);
+        assertEquals(-60.0, liquidations.get(0).getPnl(), 1e-9);
+        assertEquals(940.0, portfolio.getAccount().getBalance(), 0.0);
+        assertTrue(portfolio.getShortPositions().isEmpty());
+        assertEquals(0, engine.getWatchedCount());
+    }
+
+    @Test
+    void testOpensAndClosesMoveTheLiquidationPrice() {
+        portfolio.openShortPosition("BTC", 1.0, 100.0);
+        portfolio.openShortPosition("BTC", 1.0, 150.0);
+        assertEquals(200.0, engine.getLiquidationPrice(portfolio, "BTC"), 1e-9);
+        assertTrue(engine.onPriceTick("BTC", 180.0).isEmpty());
+
+        // Closing the older, cheaper lot leaves the 150 lot, liquidated at 240
+        portfolio.closeShortPosition("BTC", 1.0, 120.0);
+        assertTrue(engine.onPriceTick("BTC", 230.0).isEmpty());
+        assertEquals(1, engine.onPriceTick("BTC", 240.0).size());
+    }
+
+    @Test
+    void testUnregisteredPortfolioIsNotLiquidated() {
+        portfolio.openShortPosition("ETH", 1.0, 10.0);
+        engine.unregister(portfolio);
+        assertTrue(engine.onPriceTick("ETH", 50.0).isEmpty());
+        assertEquals(1.0, portfolio.getShortPositions().get("ETH"), 0.0);
+        assertThrows(IllegalStateException.class, () -> {
+            engine.register(portfolio);
+            new MarginEngine(0.5).register(portfolio);
+        });
+    }
+
+    @Test
+    void testTicksLiquidateOnlyBreachedUsers() {
+        int users = 20_000;
+        List<Portfolio> portfolios = new ArrayList<>();
+        for (int i = 0; i < users; i++) {
+            Portfolio user = newPortfolio(1000.0);
+            engine.register(user);
+            // Entry prices 100..199, liquidated at 1.6 × entry, i.e. 160..318.4
+            user.openShortPosition("BTC", 1.0, 100.0 + (i % 100));
+            portfolios.add(user);
+        }
+        assertEquals(users, engine.getWatchedCount());
+
+        int liquidated = 0;
+        for (int tick = 0; tick < 10_000; tick++) {
+            liquidated += engine.onPriceTick("BTC", 100.0 + (tick % 60)).size();
+        }
+        assertEquals(0, liquidated);
+        // 160 breaches the users who entered at 100
+        liquidated += engine.onPriceTick("BTC", 160.0).size();
+
+        assertEquals(users / 100, liquidated);
+        assertEquals(users - users / 100, engine.getWatchedCount());
+        assertTrue(portfolios.get(0).getShortPositions().isEmpty());
+        assertFalse(portfolios.get(1).getShortPositions().isEmpty());
+    }
+}
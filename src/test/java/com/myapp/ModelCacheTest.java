@@ -0,0 +1,112 @@
+package com.myapp;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.util.ArrayList;
+
+import weka.classifiers.Classifier;
+import weka.classifiers.trees.RandomForest;
+import weka.core.Attribute;
+import weka.core.DenseInstance;
+import weka.core.Instances;
+
+/**
+ * Unit tests for the ModelCache class.
+ */
+public class ModelCacheTest {
+
+    @TempDir
+    File tempDir;
+
+    private ModelCache cache;
+    private Instances data;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ModelCache(tempDir);
+        data = linearData(20, 0.0);
+    }
+
+    @Test
+    void testRepeatedRequestReturnsCachedModel() throws Exception {
+        Classifier first = cache.getOrBuild("BTC", data, new RandomForest());
+        Classifier second = cache.getOrBuild("BTC", data, new RandomForest());
+
+        assertSame(first, second);
+    }
+
+    @Test
+    void testModelIsReloadedFromDisk() throws Exception {
+        Classifier trained = cache.getOrBuild("BTC", data, new RandomForest());
+        double expected = trained.classifyInstance(data.lastInstance());
+
+        // A fresh cache over the same directory must load the serialized model instead of training
+        ModelCache reloaded = new ModelCache(tempDir);
+        RandomForest untrained = new RandomForest();
+        Classifier loaded = reloaded.getOrBuild("BTC", data, untrained);
+
+        assertNotSame(untrained, loaded);
+        assertEquals(expected, loaded.classifyInstance(data.lastInstance()), 1e-9);
+    }
+
+    @Test
+    void testChangedDataOrParametersTriggerRetraining() throws Exception {
+        Classifier first = cache.getOrBuild("BTC", data, new RandomForest());
+
+        Classifier otherData = cache.getOrBuild("BTC", linearData(20, 1.0), new RandomForest());
+        assertNotSame(first, otherData);
+
+        RandomForest deeper = new RandomForest();
+        deeper.setMaxDepth(3);
+        Classifier otherParams = cache.getOrBuild("BTC", data, deeper);
+        assertSame(deeper, otherParams);
+    }
+
+    @Test
+    void testStaleModelFilesAreReplaced() throws Exception {
+        cache.getOrBuild("BTC", data, new RandomForest());
+        cache.getOrBuild("BTC", linearData(20, 1.0), new RandomForest());
+
+        File[] files = tempDir.listFiles((dir, name) -> name.startsWith("BTC_"));
+        assertNotNull(files);
+        assertEquals(1, files.length);
+    }
+
+    @Test
+    void testClearKeepsOnlineModelFiles() throws Exception {
+        cache.getOrBuild("BTC", data, new RandomForest());
+        new OnlineModelStore(tempDir).update("BTC", data);
+
+        cache.clear();
+
+        File[] files = tempDir.listFiles();
+        assertNotNull(files);
+        assertEquals(1, files.length);
+        assertEquals("online_BTC.model", files[0].getName());
+    }
+
+    @Test
+    void testFingerprintDependsOnContent() {
+        assertEquals(ModelCache.fingerprint(data), ModelCache.fingerprint(linearData(20, 0.0)));
+        assertNotEquals(ModelCache.fingerprint(data), ModelCache.fingerprint(linearData(20, 0.5)));
+    }
+
+    private static Instances linearData(int rows, double offset) {
+        ArrayList<Attribute> attributes = new ArrayList<>();
+        attributes.add(new Attribute("x"));
+        attributes.add(new Attribute("y"));
+        Instances instances = new Instances("Test", attributes, rows);
+        instances.setClassIndex(1);
+        for (int i = 0; i < rows; i++) {
+            DenseInstance instance = new DenseInstance(2);
+            instance.setValue(attributes.get(0), i);
+            instance.setValue(attributes.get(1), 2.0 * i + offset);
+            instances.add(instance);
+        }
+        return instances;
+    }
+}
@@ -0,0 +1,53 @@
+package com.myapp;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the Money fixed-point helpers.
+ */
+public class MoneyTest {
+
+    @Test
+    void testConversionsRoundHalfUp() {
+        assertEquals(1235L, Money.fiatUnits(12.345));
+        assertEquals(10L, Money.fiatUnits(0.1));
+        assertEquals(1L, Money.coinUnits(0.000000005));
+        assertEquals(35_000_000L, Money.priceUnits(0.35));
+        assertEquals(0.1, Money.fiat(Money.fiatUnits(0.1)), 0.0);
+        assertThrows(IllegalArgumentException.class, () -> Money.fiatUnits(Double.NaN));
+    }
+
+    @Test
+    void testValueOfLargePositionIsExact() {
+        // 5000 BTC at $65,432.10987654: the intermediate product needs more than 64 bits
+        long coins = Money.coinUnits(5000.0);
+        long price = 6_543_210_987_654L;
+        assertEquals(32_716_054_938L, Money.value(coins, price));
+        long bought = Money.coinsFor(32_716_054_938L, price);
+        assertTrue(Money.value(bought, price) <= 32_716_054_938L);
+        assertEquals(coins, bought, 10);
+    }
+
+    @Test
+    void testCoinsForNeverOverspends() {
+        long price = Money.priceUnits(3.0);
+        long units = Money.coinsFor(100L, price);
+        assertEquals(33_333_333L, units);
+        assertTrue(Money.value(units, price) <= 100L);
+    }
+
+    @Test
+    void testAveragePrice() {
+        long avg = Money.averagePrice(Money.coinUnits(1.0), Money.priceUnits(100.0),
+                Money.coinUnits(3.0), Money.priceUnits(200.0));
+        assertEquals(Money.priceUnits(175.0), avg);
+        assertEquals(Money.priceUnits(50.0), Money.averagePrice(0L, 0L, 5L, Money.priceUnits(50.0)));
+        assertEquals(-Money.value(100_000_000L, 5L), Money.signedValue(100_000_000L, -5L));
+    }
+
+    @Test
+    void testOverflowIsDetected() {
+        assertThrows(ArithmeticException.class, () -> Money.value(Long.MAX_VALUE, Long.MAX_VALUE));
+    }
+}
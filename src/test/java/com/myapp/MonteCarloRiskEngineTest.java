@@ -0,0 +1,181 @@
+package com.myapp;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Unit tests for the MonteCarloRiskEngine class.
+ */
+public class MonteCarloRiskEngineTest {
+
+    // One-sided standard normal quantile at 99%
+    private static final double Z_99 = 2.3263478740;
+
+    @Test
+    void testCholeskyMatchesAnalyticNormalVaR() {
+        MonteCarloRiskEngine engine = new MonteCarloRiskEngine(400_000, 1, 4);
+        double sigma = 0.02;
+
+        RiskReport report = engine.simulateCholesky(new double[]{1000.0}, new double[]{0.0},
+                new double[][]{{sigma * sigma}}, 0.95, 0.99);
+
+        double expected = 1000.0 * (1.0 - Math.exp(-Z_99 * sigma));
+        assertEquals(expected, report.getValueAtRisk(0.99), 1.0);
+        assertTrue(report.getConditionalValueAtRisk(0.99) >= report.getValueAtRisk(0.99));
+        assertTrue(report.getValueAtRisk(0.99) > report.getValueAtRisk(0.95));
+        assertEquals(1000.0, report.getGrossExposure(), 1e-9);
+    }
+
+    @Test
+    void testShortExposureLosesOnRisingPrices() {
+        MonteCarloRiskEngine engine = new MonteCarloRiskEngine(400_000, 1, 4);
+        double sigma = 0.02;
+
+        RiskReport report = engine.simulateCholesky(new double[]{-1000.0}, new double[]{0.0},
+                new double[][]{{sigma * sigma}}, 0.99);
+
+        // The upper tail of the price hurts a short, and log-normal upside is larger than downside
+        double expected = 1000.0 * (Math.exp(Z_99 * sigma) - 1.0);
+        assertEquals(expected, report.getValueAtRisk(0.99), 1.0);
+    }
+
+    @Test
+    void testHedgedPortfolioHasNoRiskUnderPerfectCorrelation() {
+        MonteCarloRiskEngine engine = new MonteCarloRiskEngine(50_000, 1, 2);
+        double[][] covariance = {{0.0004, 0.0004}, {0.0004, 0.0004}};
+
+        RiskReport report = engine.simulateCholesky(new double[]{1000.0, -1000.0}, new double[]{0.0, 0.0},
+                covariance, 0.99);
+
+        // The singular covariance must not fail, and the long and short legs cancel exactly
+        assertEquals(0.0, report.getValueAtRisk(0.99), 1e-9);
+    }
+
+    @Test
+    void testBootstrapResamplesHistoricalDays() {
+        MonteCarloRiskEngine engine = new MonteCarloRiskEngine(100_000, 1, 2);
+        double[][] history = {{Math.log(0.9)}, {Math.log(1.1)}};
+
+        RiskReport report = engine.simulateBootstrap(new double[]{1000.0}, history, 0.99);
+
+        // Half of the paths lose exactly 10%
+        assertEquals(100.0, report.getValueAtRisk(0.99), 1e-9);
+        assertEquals(100.0, report.getConditionalValueAtRisk(0.99), 1e-9);
+    }
+
+    @Test
+    void testMultiDayBootstrapCompoundsReturns() {
+        MonteCarloRiskEngine engine = new MonteCarloRiskEngine(20_000, 3, 2);
+        double[][] history = {{Math.log(0.9)}};
+
+        RiskReport report = engine.simulateBootstrap(new double[]{1000.0}, history, 0.95);
+
+        assertEquals(1000.0 * (1.0 - 0.9 * 0.9 * 0.9), report.getValueAtRisk(0.95), 1e-9);
+    }
+
+    @Test
+    void testSameSeedGivesSameReportOnAnyThreadCount() {
+        double[] exposures = {500.0, -300.0, 200.0};
+        double[][] history = randomHistory(60, 3, 7L);
+
+        MonteCarloRiskEngine single = new MonteCarloRiskEngine(100_000, 5, 1);
+        MonteCarloRiskEngine parallel = new MonteCarloRiskEngine(100_000, 5, 8);
+        single.setSeed(42L);
+        parallel.setSeed(42L);
+
+        assertEquals(single.simulateBootstrap(exposures, history, 0.99).getValueAtRisk(0.99),
+                parallel.simulateBootstrap(exposures, history, 0.99).getValueAtRisk(0.99), 0.0);
+    }
+
+    @Test
+    void testAssessUsesHoldingsAndShorts() {
+        Account account = new Account();
+        account.deposit(10_000.0, "Initial deposit");
+        Portfolio portfolio = new Portfolio(account);
+        portfolio.buyCrypto("BTC", 0.1, 20_000.0);
+        portfolio.openShortPosition("ETH", 1.0, 1_000.0);
+
+        Map<String, Double> prices = Map.of("BTC", 20_000.0, "ETH", 1_000.0);
+        Map<String, Double> exposures = MonteCarloRiskEngine.exposures(portfolio, prices);
+        assertEquals(2_000.0, exposures.get("BTC"), 1e-9);
+        assertEquals(-1_000.0, exposures.get("ETH"), 1e-9);
+
+        double[][] history = randomHistory(30, 2, 3L);
+        Map<String, double[]> returns = Map.of(
+                "BTC", column(history, 0),
+                "ETH", column(history, 1));
+        MonteCarloRiskEngine engine = new MonteCarloRiskEngine(50_000, 1, 2);
+        for (RiskMethod method : RiskMethod.values()) {
+            RiskReport report = engine.assess(portfolio, prices, returns, method, 0.95);
+            assertEquals(3_000.0, report.getGrossExposure(), 1e-9);
+            assertTrue(report.getValueAtRisk(0.95) > 0.0);
+        }
+
+        assertThrows(IllegalArgumentException.class,
+                () -> engine.assess(portfolio, prices, Map.of("BTC", column(history, 0)), RiskMethod.CHOLESKY, 0.95));
+    }
+
+    @Test
+    void testRejectsInvalidConfidence() {
+        MonteCarloRiskEngine engine = new MonteCarloRiskEngine(10, 1, 1);
+        assertThrows(IllegalArgumentException.class,
+                () -> engine.simulateBootstrap(new double[]{1.0}, new double[][]{{0.0}}, 1.0));
+    }
+
+    @Test
+    void testManyCoinsMatchAnalyticNormalVaR() {
+        int coins = 10;
+        double[][] history = randomHistory(90, coins, 11L);
+        double[] exposures = new double[coins];
+        for (int i = 0; i < coins; i++) exposures[i] = (i % 3 == 0 ? -1 : 1) * 1000.0;
+        double[][] covariance = covariance(history);
+
+        // Many chunks on several threads, with longs and shorts on correlated coins
+        MonteCarloRiskEngine engine = new MonteCarloRiskEngine(200_000, 1, 4);
+        RiskReport report = engine.simulateCholesky(exposures, new double[coins], covariance, 0.99);
+
+        double variance = 0.0;
+        for (int i = 0; i < coins; i++) {
+            for (int j = 0; j < coins; j++) variance += exposures[i] * covariance[i][j] * exposures[j];
+        }
+        // Log-normal prices shorten the loss tail of a net long book a little below the normal VaR
+        double expected = Z_99 * Math.sqrt(variance);
+        assertEquals(expected, report.getValueAtRisk(0.99), 0.05 * expected);
+        assertTrue(report.getValueAtRisk(0.99) < expected);
+        assertEquals(2000.0 * 5, report.getGrossExposure(), 1e-9);
+    }
+
+    private static double[][] randomHistory(int days, int coins, long seed) {
+        Random random = new Random(seed);
+        double[][] history = new double[days][coins];
+        for (int t = 0; t < days; t++) {
+            double market = random.nextGaussian() * 0.03;
+            for (int i = 0; i < coins; i++) {
+                history[t][i] = market + random.nextGaussian() * 0.02;
+            }
+        }
+        return history;
+    }
+
+    private static double[] column(double[][] history, int coin) {
+        double[] series = new double[history.length];
+        for (int t = 0; t < history.length; t++) series[t] = history[t][coin];
+        return series;
+    }
+
+    private static double[][] covariance(double[][] history) {
+        int n = history[0].length;
+        double[][] covariance = new double[n][n];
+        for (double[] day : history) {
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    covariance[i][j] += day[i] * day[j] / (history.length - 1);
+                }
+            }
+        }
+        return covariance;
+    }
+}
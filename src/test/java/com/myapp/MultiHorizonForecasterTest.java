@@ -0,0 +1,84 @@
+package com.myapp;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+/**
+ * Unit tests for the MultiHorizonForecaster class and multi-output NativeRandomForest training.
+ */
+public class MultiHorizonForecasterTest {
+
+    @Test
+    void testTargetsAreGrowthToEachHorizon() {
+        double[] prices = new double[20];
+        for (int i = 0; i < prices.length; i++) prices[i] = 100.0 + i;
+        MultiHorizonForecaster forecaster = new MultiHorizonForecaster();
+
+        double[][] targets = forecaster.horizonTargets(prices, 3);
+
+        // Row 0 is built for day 7, whose previous price is day 6
+        assertEquals(prices[7] / prices[6] - 1.0, targets[0][0], 1e-12);
+        assertEquals(prices[9] / prices[6] - 1.0, targets[1][0], 1e-12);
+        assertEquals(prices[13] / prices[6] - 1.0, targets[2][0], 1e-12);
+        assertEquals(prices[15] / prices[8] - 1.0, targets[2][2], 1e-12);
+    }
+
+    @Test
+    void testForecastsEveryHorizonFromLatestPrice() throws Exception {
+        double[] prices = trend(60, 0.01, 1L);
+        HorizonForecast forecast = new MultiHorizonForecaster().forecast(prices, "BTC");
+
+        assertArrayEquals(new int[]{1, 3, 7}, forecast.getHorizons());
+        for (int h : forecast.getHorizons()) {
+            assertEquals(prices[prices.length - 1], forecast.getForecast(h).getCurrentPrice(), 0.0);
+        }
+        // A steady 1% daily uptrend compounds with the horizon
+        assertTrue(forecast.getGrowth(1) > 0.0);
+        assertTrue(forecast.getGrowth(7) > forecast.getGrowth(3));
+        assertTrue(forecast.getGrowth(3) > forecast.getGrowth(1));
+        assertThrows(IllegalArgumentException.class, () -> forecast.getForecast(2));
+    }
+
+    @Test
+    void testRejectsSeriesTooShortForLongestHorizon() {
+        MultiHorizonForecaster forecaster = new MultiHorizonForecaster();
+        assertThrows(IllegalArgumentException.class,
+                () -> forecaster.forecast(trend(forecaster.minPrices() - 1, 0.0, 2L), "ETH"));
+        assertDoesNotThrow(() -> forecaster.forecast(trend(forecaster.minPrices(), 0.0, 2L), "ETH"));
+    }
+
+    @Test
+    void testMultiOutputForestMatchesSingleOutputOnOneTarget() throws Exception {
+        Random random = new Random(3L);
+        double[][] columns = new double[2][300];
+        double[] target = new double[300];
+        for (int i = 0; i < 300; i++) {
+            columns[0][i] = random.nextDouble();
+            columns[1][i] = random.nextDouble();
+            target[i] = columns[0][i] > 0.5 ? 1.0 : -1.0;
+        }
+
+        NativeRandomForest single = new NativeRandomForest(10, 0, 0, 1);
+        single.fit(columns, target);
+        NativeRandomForest multi = new NativeRandomForest(10, 0, 0, 1);
+        multi.fit(columns, new double[][]{target, target});
+
+        double[] probe = {0.8, 0.3};
+        assertEquals(2, multi.getNumOutputs());
+        assertEquals(single.predict(probe), multi.predictAll(probe)[0], 1e-12);
+        assertEquals(multi.predictAll(probe)[0], multi.predictAll(probe)[1], 1e-12);
+    }
+
+    private static double[] trend(int days, double dailyGrowth, long seed) {
+        Random random = new Random(seed);
+        double[] prices = new double[days];
+        double price = 100.0;
+        for (int i = 0; i < days; i++) {
+            price *= 1.0 + dailyGrowth + random.nextGaussian() * 0.001;
+            prices[i] = price;
+        }
+        return prices;
+    }
+}
@@ -0,0 +1,178 @@
+package com.myapp;
+
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import weka.classifiers.Classifier;
+import weka.core.Attribute;
+import weka.core.DenseInstance;
+import weka.core.Instances;
+
+/**
+ * Unit tests for the NativeRandomForest class.
+ */
+public class NativeRandomForestTest {
+
+    @Test
+    void testFitsNonlinearFunction() throws Exception {
+        Instances train = nonlinearData(2_000, 1L);
+        Instances test = nonlinearData(500, 2L);
+
+        NativeRandomForest forest = new NativeRandomForest(50, 0, 0, 2);
+        forest.buildClassifier(train);
+
+        // Noise has a standard deviation of 0.1; the target ranges over several units
+        assertTrue(rmse(forest, test) < 0.4, "RMSE " + rmse(forest, test));
+    }
+
+    @Test
+    void testResultDoesNotDependOnExecutionSlots() throws Exception {
+        Instances train = nonlinearData(500, 3L);
+        NativeRandomForest sequential = new NativeRandomForest(20, 0, 0, 1);
+        NativeRandomForest parallel = new NativeRandomForest(20, 0, 0, 4);
+        sequential.buildClassifier(train);
+        parallel.buildClassifier(train);
+
+        for (int i = 0; i < 50; i++) {
+            assertEquals(sequential.classifyInstance(train.instance(i)), parallel.classifyInstance(train.instance(i)), 0.0);
+        }
+    }
+
+    @Test
+    void testTrainsOnFeatureColumns() throws Exception {
+        double[] prices = new double[60];
+        for (int i = 0; i < prices.length; i++) {
+            prices[i] = 100.0 + i + 3.0 * Math.sin(i);
+        }
+        double[][] columns = LiveDataLoader.buildFeatureColumns(prices);
+        double[][] features = {columns[0], columns[1], columns[2], columns[3]};
+
+        NativeRandomForest forest = new NativeRandomForest(30, 0, 0, 1);
+        forest.fit(features, columns[4]);
+
+        int last = columns[4].length - 1;
+        double[] latest = {columns[0][last], columns[1][last], columns[2][last], columns[3][last]};
+        double[] trees = forest.treePredictions(latest);
+        assertEquals(30, trees.length);
+        double mean = 0.0;
+        for (double tree : trees) mean += tree / trees.length;
+        assertEquals(mean, forest.predict(latest), 1e-9);
+        assertEquals(columns[4][last], forest.predict(latest), 5.0);
+    }
+
+    @Test
+    void testSortedRowsKeepEqualValuesInRowOrder() {
+        assertArrayEquals(new int[]{3, 1, 4, 0, 2, 5}, NativeRandomForest.sortedRows(new double[]{5, 2, 7, -1, 2, 7}));
+        assertArrayEquals(new int[0], NativeRandomForest.sortedRows(new double[0]));
+
+        Random random = new Random(9L);
+        double[] column = new double[1000];
+        for (int i = 0; i < column.length; i++) column[i] = random.nextInt(50);
+        int[] rows = NativeRandomForest.sortedRows(column);
+        for (int i = 1; i < rows.length; i++) {
+            assertTrue(column[rows[i - 1]] < column[rows[i]]
+                    || (column[rows[i - 1]] == column[rows[i]] && rows[i - 1] < rows[i]));
+        }
+    }
+
+    @Test
+    void testCacheKeyFollowsHyperparametersOnly() {
+        String base = ModelCache.hyperparameterHash(new NativeRandomForest(100, 0, 0, 1));
+        assertEquals(base, ModelCache.hyperparameterHash(new NativeRandomForest(100, 0, 0, 8)));
+        assertNotEquals(base, ModelCache.hyperparameterHash(new NativeRandomForest(50, 0, 0, 1)));
+        assertNotEquals(base, ModelCache.hyperparameterHash(ForestParams.DEFAULT.newModel(1)));
+    }
+
+    @Test
+    void testInterruptStopsTraining() {
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(InterruptedException.class, () -> new NativeRandomForest(10, 0, 0, 1).buildClassifier(nonlinearData(100, 4L)));
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    @Test
+    void testAccuracyMatchesWeka() throws Exception {
+        Instances train = nonlinearData(2_000, 5L);
+        Instances test = nonlinearData(500, 6L);
+        ForestParams params = new ForestParams(50, 0, 0);
+
+        NativeRandomForest nativeForest = params.newNativeForest(1);
+        nativeForest.buildClassifier(train);
+        Classifier wekaForest = params.newModel(1);
+        wekaForest.buildClassifier(train);
+
+        double nativeRmse = rmse(nativeForest, test);
+        double wekaRmse = rmse(wekaForest, test);
+        assertTrue(nativeRmse < wekaRmse * 1.15, "Native RMSE " + nativeRmse + " vs Weka " + wekaRmse);
+    }
+
+    /**
+     * Prints the training times of both forests on 5,000 rows. It measures only and asserts
+     * nothing, since timings depend on the machine; run it on demand.
+     */
+    @Test
+    @Disabled("Benchmark; run on demand")
+    void benchmarkAgainstWeka() throws Exception {
+        Instances train = nonlinearData(5_000, 5L);
+        Instances test = nonlinearData(1_000, 6L);
+        ForestParams params = new ForestParams(100, 0, 0);
+
+        // Warm up both implementations a few times
+        for (int i = 0; i < 3; i++) {
+            params.newNativeForest(1).buildClassifier(nonlinearData(1_000, 7L));
+            params.newModel(1).buildClassifier(nonlinearData(1_000, 7L));
+        }
+
+        long start = System.nanoTime();
+        NativeRandomForest nativeForest = params.newNativeForest(1);
+        nativeForest.buildClassifier(train);
+        long nativeNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        Classifier wekaForest = params.newModel(1);
+        wekaForest.buildClassifier(train);
+        long wekaNanos = System.nanoTime() - start;
+
+        System.out.printf("Native forest: %d ms, RMSE %.4f%n", nativeNanos / 1_000_000, rmse(nativeForest, test));
+        System.out.printf("Weka forest:   %d ms, RMSE %.4f%n", wekaNanos / 1_000_000, rmse(wekaForest, test));
+        System.out.printf("Speedup: %.2fx%n", (double) wekaNanos / nativeNanos);
+    }
+
+    private static double rmse(Classifier model, Instances test) throws Exception {
+        double sumSq = 0.0;
+        for (int i = 0; i < test.numInstances(); i++) {
+            double error = model.classifyInstance(test.instance(i)) - test.instance(i).classValue();
+            sumSq += error * error;
+        }
+        return Math.sqrt(sumSq / test.numInstances());
+    }
+
+    /**
+     * Builds rows of y = 3 sin(x1) + x2^2 + 0.5 x3 + noise with an irrelevant fourth feature.
+     */
+    private static Instances nonlinearData(int rows, long seed) {
+        ArrayList<Attribute> attributes = new ArrayList<>();
+        for (int a = 1; a <= 4; a++) attributes.add(new Attribute("x" + a));
+        attributes.add(new Attribute("y"));
+        Instances data = new Instances("Nonlinear", attributes, rows);
+        data.setClassIndex(4);
+
+        Random random = new Random(seed);
+        for (int i = 0; i < rows; i++) {
+            double x1 = random.nextDouble() * 6 - 3;
+            double x2 = random.nextDouble() * 2 - 1;
+            double x3 = random.nextDouble() * 4;
+            double x4 = random.nextDouble();
+            double y = 3 * Math.sin(x1) + x2 * x2 + 0.5 * x3 + random.nextGaussian() * 0.1;
+            data.add(new DenseInstance(1.0, new double[]{x1, x2, x3, x4, y}));
+        }
+        return data;
+    }
+}
@@ -0,0 +1,110 @@
+package com.myapp;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.util.ArrayList;
+
+import weka.core.Attribute;
+import weka.core.DenseInstance;
+import weka.core.Instances;
+
+/**
+ * Unit tests for the OnlineModelStore and OnlineLinearRegression classes.
+ */
+public class OnlineModelStoreTest {
+
+    @TempDir
+    File tempDir;
+
+    private OnlineModelStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new OnlineModelStore(tempDir);
+    }
+
+    @Test
+    void testLearnsLinearRelation() throws Exception {
+        Instances data = window(0, 50);
+        OnlineLinearRegression model = new OnlineLinearRegression(1.0);
+        model.buildClassifier(data);
+
+        // y = 3 * x1 - 2 * x2 + 5
+        DenseInstance probe = new DenseInstance(3);
+        probe.setDataset(data);
+        probe.setValue(0, 10.0);
+        probe.setValue(1, 4.0);
+        assertEquals(27.0, model.classifyInstance(probe), 0.05);
+    }
+
+    @Test
+    void testOnlyNewRowsAreConsumed() throws Exception {
+        OnlineLinearRegression model = store.update("BTC", window(0, 10));
+        assertEquals(10, model.getNumUpdates());
+
+        // The window slides by three rows: only those three are folded in
+        model = store.update("BTC", window(3, 10));
+        assertEquals(13, model.getNumUpdates());
+
+        // Unchanged data adds nothing
+        model = store.update("BTC", window(3, 10));
+        assertEquals(13, model.getNumUpdates());
+    }
+
+    @Test
+    void testGapWiderThanWindowRebuilds() throws Exception {
+        store.update("BTC", window(0, 10));
+        OnlineLinearRegression model = store.update("BTC", window(100, 10));
+        assertEquals(10, model.getNumUpdates());
+    }
+
+    @Test
+    void testStateIsRestoredFromDisk() throws Exception {
+        store.update("BTC", window(0, 10));
+
+        OnlineModelStore reloaded = new OnlineModelStore(tempDir);
+        OnlineLinearRegression model = reloaded.update("BTC", window(2, 10));
+        assertEquals(12, model.getNumUpdates());
+    }
+
+    @Test
+    void testManyUpdatesKeepTheFit() throws Exception {
+        Instances data = window(0, 20_000);
+        OnlineLinearRegression model = new OnlineLinearRegression();
+        model.buildClassifier(new Instances(data, 0, 10));
+
+        for (int i = 10; i < data.numInstances(); i++) {
+            model.updateClassifier(data.instance(i));
+        }
+
+        assertEquals(data.numInstances(), model.getNumUpdates());
+        double actual = data.lastInstance().classValue();
+        assertEquals(actual, model.classifyInstance(data.lastInstance()), Math.abs(actual) * 1e-6);
+    }
+
+    /**
+     * Builds {@code rows} rows of y = 3 * x1 - 2 * x2 + 5 starting at day {@code start}.
+     */
+    private static Instances window(int start, int rows) {
+        ArrayList<Attribute> attributes = new ArrayList<>();
+        attributes.add(new Attribute("x1"));
+        attributes.add(new Attribute("x2"));
+        attributes.add(new Attribute("y"));
+        Instances instances = new Instances("Test", attributes, rows);
+        instances.setClassIndex(2);
+        for (int day = start; day < start + rows; day++) {
+            double x1 = day;
+            double x2 = Math.sin(day);
+            DenseInstance instance = new DenseInstance(3);
+            instance.setValue(0, x1);
+            instance.setValue(1, x2);
+            instance.setValue(2, 3 * x1 - 2 * x2 + 5);
+            instances.add(instance);
+        }
+        return instances;
+    }
+}
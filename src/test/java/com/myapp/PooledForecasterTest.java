@@ -0,0 +1,103 @@
+package com.myapp;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import weka.core.Instances;
+
+/**
+ * Unit tests for the PooledForecaster class.
+ */
+public class PooledForecasterTest {
+
+    @Test
+    void testPooledDatasetStacksAllCoins() {
+        Map<String, Instances> data = universe(3, 14);
+        Instances pooled = PooledForecaster.buildPooledDataset(data, List.of("C0", "C1", "C2"));
+
+        assertEquals(3 * 7, pooled.numInstances());
+        assertEquals("NextReturn", pooled.classAttribute().name());
+        assertTrue(pooled.attribute("Coin").isNominal());
+        assertEquals(3, pooled.attribute("Coin").numValues());
+        // The first row of a coin has no previous return
+        assertTrue(pooled.instance(0).isMissing(pooled.attribute("Return1")));
+        assertFalse(pooled.instance(1).isMissing(pooled.attribute("Return1")));
+    }
+
+    @Test
+    void testFeaturesAreScaleFree() {
+        double[] prices = randomWalk(20, 3L);
+        double[] scaled = new double[prices.length];
+        for (int i = 0; i < prices.length; i++) scaled[i] = prices[i] * 1000.0;
+
+        Instances cheap = PooledForecaster.buildPooledDataset(Map.of("A", LiveDataLoader.buildDataset(prices)), List.of("A"));
+        Instances dear = PooledForecaster.buildPooledDataset(Map.of("A", LiveDataLoader.buildDataset(scaled)), List.of("A"));
+
+        for (int r = 0; r < cheap.numInstances(); r++) {
+            for (int a = 1; a < cheap.numAttributes(); a++) {
+                if (cheap.instance(r).isMissing(a)) continue;
+                assertEquals(cheap.instance(r).value(a), dear.instance(r).value(a), 1e-9);
+            }
+        }
+    }
+
+    @Test
+    void testForecastsEveryCoinFromOneModel() throws Exception {
+        Map<String, Instances> data = universe(10, 14);
+        ModelCache cache = ModelCache.memoryOnly();
+        PooledForecaster forecaster = new PooledForecaster(cache, new ForestParams(50, 0, 0), 2);
+
+        List<CoinForecast> forecasts = forecaster.forecastAll(data);
+
+        assertEquals(10, forecasts.size());
+        for (CoinForecast forecast : forecasts) {
+            Instances coin = data.get(forecast.getSymbol());
+            assertEquals(coin.lastInstance().classValue(), forecast.getCurrentPrice(), 1e-9);
+            assertFalse(forecast.isPreliminary());
+            assertTrue(forecast.getGrowthLow() <= forecast.getGrowthHigh());
+            assertTrue(forecast.getSpread() > 0.0);
+        }
+
+        // Unchanged data reuses the single cached pooled model
+        assertEquals(forecasts.get(0).getPredictedPrice(), forecaster.forecastAll(data).get(0).getPredictedPrice(), 1e-12);
+    }
+
+    @Test
+    void testAdvisorForecastsSingleCoinInPooledMode() throws Exception {
+        CryptoAdvisor advisor = new CryptoAdvisor(new CryptoService(), 14, false, ModelCache.memoryOnly());
+        advisor.setModelType(ModelType.POOLED_FOREST);
+        advisor.setVerbose(false);
+
+        CoinForecast forecast = advisor.forecast(LiveDataLoader.buildDataset(randomWalk(30, 4L)), "BTC");
+
+        assertEquals("BTC", forecast.getSymbol());
+        assertTrue(Double.isFinite(forecast.getGrowth()));
+    }
+
+    private static Map<String, Instances> universe(int coins, int days) {
+        Map<String, Instances> data = new LinkedHashMap<>();
+        for (int c = 0; c < coins; c++) {
+            double[] prices = randomWalk(days, c);
+            // Spread price levels over several orders of magnitude
+            for (int i = 0; i < days; i++) prices[i] *= Math.pow(10, c % 5);
+            data.put("C" + c, LiveDataLoader.buildDataset(prices));
+        }
+        return data;
+    }
+
+    private static double[] randomWalk(int days, long seed) {
+        Random random = new Random(seed);
+        double[] prices = new double[days];
+        double price = 100.0;
+        for (int i = 0; i < days; i++) {
+            price *= Math.exp(random.nextGaussian() * 0.03);
+            prices[i] = price;
+        }
+        return prices;
+    }
+}
@@ -0,0 +1,178 @@
+package com.myapp;
+
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.LUDecomposition;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Unit tests for the PortfolioOptimizer class.
+ * Note: Price series are generated locally, so no API calls are made.
+ */
+public class PortfolioOptimizerTest {
+
+    private CorrelationService correlations;
+    private PortfolioOptimizer optimizer;
+
+    @BeforeEach
+    void setUp() {
+        correlations = new CorrelationService(new CryptoService(), 60);
+        correlations.initialize(randomPrices(new String[]{"ADA", "BTC", "ETH", "SOL"}, 61, 5L));
+        optimizer = new PortfolioOptimizer(correlations, 4);
+    }
+
+    @Test
+    void testMinimumVarianceOfUncorrelatedPair() {
+        double[][] covariance = {{0.04, 0.0}, {0.0, 0.01}};
+        double[] weights = PortfolioOptimizer.solve(covariance, new double[]{0.0, 0.0}, Double.NaN);
+
+        // Inverse-variance weights
+        assertEquals(0.2, weights[0], 1e-9);
+        assertEquals(0.8, weights[1], 1e-9);
+    }
+
+    @Test
+    void testMatchesClosedFormWhenNoBoundIsActive() {
+        double[][] covariance = {{0.04, 0.01, 0.0}, {0.01, 0.03, 0.005}, {0.0, 0.005, 0.02}};
+        double[] means = {0.03, 0.02, 0.01};
+        double target = 0.02;
+
+        double[] weights = PortfolioOptimizer.solve(covariance, means, target);
+
+        // Lagrangian solution without bounds: w = Σ⁻¹(a·1 + b·μ) with a, b from the two constraints
+        RealMatrix inverse = new LUDecomposition(new Array2DRowRealMatrix(covariance)).getSolver().getInverse();
+        double[] ones = {1.0, 1.0, 1.0};
+        double[] inverseOnes = inverse.operate(ones);
+        double[] inverseMeans = inverse.operate(means);
+        double a = sum(inverseOnes);
+        double b = dot(ones, inverseMeans);
+        double c = dot(means, inverseMeans);
+        double determinant = a * c - b * b;
+        for (int i = 0; i < 3; i++) {
+            double expected = ((c - b * target) * inverseOnes[i] + (a * target - b) * inverseMeans[i]) / determinant;
+            assertTrue(expected > 0.0);
+            assertEquals(expected, weights[i], 1e-9);
+        }
+    }
+
+    @Test
+    void testLongOnlyBoundDropsDominatedCoin() {
+        // The third coin moves with the first (correlation 0.9) and returns less: without bounds it would be shorted
+        double[][] covariance = {{0.01, 0.0, 0.018}, {0.0, 0.02, 0.0}, {0.018, 0.0, 0.04}};
+        double[] means = {0.01, 0.03, 0.005};
+
+        double[] weights = PortfolioOptimizer.solve(covariance, means, 0.02);
+
+        // With the third coin at zero, the two constraints pin the other weights
+        assertEquals(0.0, weights[2], 1e-12);
+        assertEquals(0.5, weights[0], 1e-9);
+        assertEquals(0.5, weights[1], 1e-9);
+    }
+
+    @Test
+    void testRejectsUnreachableTarget() {
+        double[][] covariance = {{0.01, 0.0}, {0.0, 0.02}};
+        assertThrows(IllegalArgumentException.class,
+                () -> PortfolioOptimizer.solve(covariance, new double[]{0.01, 0.02}, 0.05));
+    }
+
+    @Test
+    void testFrontierIsOrderedAndEndsInBestCoin() throws Exception {
+        List<OptimalPortfolio> frontier = optimizer.efficientFrontier(12);
+
+        assertEquals(12, frontier.size());
+        assertEquals(optimizer.minimumVariance().getVolatility(), frontier.get(0).getVolatility(), 1e-9);
+        for (int k = 1; k < frontier.size(); k++) {
+            assertTrue(frontier.get(k).getExpectedReturn() >= frontier.get(k - 1).getExpectedReturn() - 1e-12);
+            assertTrue(frontier.get(k).getVolatility() >= frontier.get(k - 1).getVolatility() - 1e-9);
+        }
+
+        double[] means = correlations.getMeanReturns();
+        int best = 0;
+        for (int i = 1; i < means.length; i++) if (means[i] > means[best]) best = i;
+        assertEquals(1.0, frontier.get(11).getWeight(correlations.getSymbols().get(best)), 1e-6);
+
+        // Each parallel point matches a single solve
+        OptimalPortfolio middle = frontier.get(5);
+        assertEquals(middle.getVolatility(), optimizer.minimizeVariance(middle.getExpectedReturn()).getVolatility(), 1e-9);
+    }
+
+    @Test
+    void testFrontierIsCachedUntilCovarianceChanges() throws Exception {
+        List<OptimalPortfolio> first = optimizer.efficientFrontier(8);
+        assertSame(first, optimizer.efficientFrontier(8));
+
+        Map<String, Double> closes = new HashMap<>();
+        for (String symbol : correlations.getSymbols()) closes.put(symbol, 123.0);
+        correlations.addDay(closes);
+
+        assertNotSame(first, optimizer.efficientFrontier(8));
+    }
+
+    @Test
+    void testRebalancingTradesReachTargetAmounts() {
+        OptimalPortfolio target = new OptimalPortfolio(List.of("BTC", "ETH"), new double[]{0.75, 0.25}, 0.0, 0.0);
+        Map<String, Double> prices = Map.of("BTC", 100.0, "ETH", 10.0, "ADA", 1.0);
+
+        Map<String, Double> trades = target.rebalancingTrades(Map.of("BTC", 10.0, "ADA", 50.0), 1000.0, prices);
+
+        assertEquals(-2.5, trades.get("BTC"), 1e-12);
+        assertEquals(25.0, trades.get("ETH"), 1e-12);
+        assertEquals(-50.0, trades.get("ADA"), 1e-12);
+    }
+
+    @Test
+    void testRebalancingOrdersExecuteAsOneBatch() {
+        Account account = new Account();
+        account.deposit(1000.0, "Initial deposit");
+        Portfolio portfolio = new Portfolio(account);
+        Map<String, Double> prices = Map.of("BTC", 100.0, "ETH", 10.0, "ADA", 1.0);
+        portfolio.executeBatch(List.of(new Order("BTC", OrderSide.BUY, 5.0), new Order("ADA", OrderSide.BUY, 400.0)), prices);
+
+        // Capital is the whole portfolio: 100 cash + 500 BTC + 400 ADA
+        OptimalPortfolio target = new OptimalPortfolio(List.of("BTC", "ETH"), new double[]{0.5, 0.5}, 0.0, 0.0);
+        List<Order> orders = target.rebalancingOrders(portfolio.getHoldings(), 1000.0, prices);
+        assertEquals(OrderSide.SELL, orders.get(0).getSide());
+        portfolio.executeBatch(orders, prices);
+
+        assertEquals(5.0, portfolio.getHoldings().get("BTC"), 1e-12);
+        assertEquals(50.0, portfolio.getHoldings().get("ETH"), 1e-12);
+        assertFalse(portfolio.getHoldings().containsKey("ADA"));
+        assertEquals(0.0, account.getBalance(), 1e-9);
+    }
+
+    private static Map<String, List<Double>> randomPrices(String[] symbols, int days, long seed) {
+        Random random = new Random(seed);
+        Map<String, List<Double>> prices = new HashMap<>();
+        for (int s = 0; s < symbols.length; s++) {
+            List<Double> series = new ArrayList<>();
+            double price = 100.0;
+            for (int d = 0; d < days; d++) {
+                price *= Math.exp(0.002 * s + random.nextGaussian() * 0.02 * (s + 1));
+                series.add(price);
+            }
+            prices.put(symbols[s], series);
+        }
+        return prices;
+    }
+
+    private static double sum(double[] values) {
+        double total = 0.0;
+        for (double value : values) total += value;
+        return total;
+    }
+
+    private static double dot(double[] a, double[] b) {
+        double total = 0.0;
+        for (int i = 0; i < a.length; i++) total += a[i] * b[i];
+        return total;
+    }
+}
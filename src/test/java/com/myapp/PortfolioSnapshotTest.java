@@ -0,0 +1,114 @@
+package com.myapp;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the PortfolioSnapshot class.
+ */
+public class PortfolioSnapshotTest {
+    private Account account;
+    private Portfolio portfolio;
+
+    @BeforeEach
+    void setUp() {
+        account = new Account();
+        account.deposit(10000.0, "Initial deposit");
+        portfolio = new Portfolio(account);
+    }
+
+    @Test
+    void testEveryTradePublishesANewVersion() {
+        PortfolioSnapshot empty = portfolio.getSnapshot();
+        assertEquals(0L, empty.getVersion());
+        assertTrue(empty.getHoldings().isEmpty());
+
+        portfolio.buyCrypto("BTC", 2.0, 100.0);
+        portfolio.buyCrypto("BTC", 2.0, 200.0);
+        PortfolioSnapshot bought = portfolio.getSnapshot();
+        assertEquals(2L, bought.getVersion());
+        assertEquals(4.0, bought.getHolding("BTC"), 0.0);
+        assertEquals(150.0, bought.getAveragePurchasePrice("BTC"), 1e-9);
+
+        portfolio.openShortPosition("ETH", 1.0, 50.0);
+        portfolio.openShortPosition("ETH", 1.0, 70.0);
+        portfolio.sellCrypto("BTC", 4.0, 120.0);
+        PortfolioSnapshot latest = portfolio.getSnapshot();
+        assertEquals(5L, latest.getVersion());
+        assertTrue(latest.getHoldings().isEmpty());
+        assertEquals(0.0, latest.getAveragePurchasePrice("BTC"), 0.0);
+        assertEquals(2.0, latest.getShortPosition("ETH"), 0.0);
+        assertEquals(60.0, latest.getAverageShortEntryPrice("ETH"), 1e-9);
+
+        // Older snapshots keep the state they were taken at
+        assertEquals(4.0, bought.getHolding("BTC"), 0.0);
+        assertTrue(bought.getShortPositions().isEmpty());
+        assertTrue(empty.getHoldings().isEmpty());
+        // The getters return the snapshot's maps without copying
+        assertSame(latest.getHoldings(), portfolio.getHoldings());
+        assertSame(latest.getShortPositions(), portfolio.getShortPositions());
+    }
+
+    @Test
+    void testSnapshotMapsAreUnmodifiable() {
+        portfolio.buyCrypto("BTC", 1.0, 100.0);
+        PortfolioSnapshot snapshot = portfolio.getSnapshot();
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.getHoldings().put("ETH", 1.0));
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.getPurchasePrices().clear());
+        assertThrows(UnsupportedOperationException.class, () -> portfolio.getShortPositions().put("ETH", 1.0));
+    }
+
+    @Test
+    void testBatchPublishesOnceAndFailuresPublishNothing() {
+        portfolio.executeBatch(List.of(
+                new Order("BTC", OrderSide.BUY, 1.0),
+                new Order("ETH", OrderSide.BUY, 2.0),
+                new Order("BTC", OrderSide.SELL, 0.5)), Map.of("BTC", 100.0, "ETH", 10.0));
+        PortfolioSnapshot snapshot = portfolio.getSnapshot();
+        assertEquals(1L, snapshot.getVersion());
+        assertEquals(Map.of("BTC", 0.5, "ETH", 2.0), snapshot.getHoldings());
+
+        assertThrows(IllegalStateException.class, () -> portfolio.sellCrypto("BTC", 1.0, 100.0));
+        assertThrows(IllegalStateException.class, () -> portfolio.closeShortPosition("ETH", 1.0, 10.0));
+        assertSame(snapshot, portfolio.getSnapshot());
+    }
+
+    @Test
+    void testReadersOnlySeeWholeBatches() throws InterruptedException {
+        portfolio.buyCrypto("BTC", 10.0, 100.0);
+        Map<String, Double> prices = Map.of("BTC", 100.0, "ETH", 100.0);
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<String> violation = new AtomicReference<>();
+
+        // Every batch moves one coin between BTC and ETH, so each snapshot holds 10 in total
+        Thread reader = new Thread(() -> {
+            long lastVersion = -1;
+            while (!done.get() && violation.get() == null) {
+                PortfolioSnapshot snapshot = portfolio.getSnapshot();
+                double total = snapshot.getHolding("BTC") + snapshot.getHolding("ETH");
+                if (Math.abs(total - 10.0) > 1e-9) violation.set("Snapshot " + snapshot.getVersion() + " holds " + total);
+                if (snapshot.getVersion() < lastVersion) violation.set("Version went back to " + snapshot.getVersion());
+                lastVersion = snapshot.getVersion();
+            }
+        });
+        reader.start();
+        for (int i = 0; i < 2000; i++) {
+            boolean toEth = i % 2 == 0;
+            portfolio.executeBatch(List.of(
+                    new Order(toEth ? "BTC" : "ETH", OrderSide.SELL, 1.0),
+                    new Order(toEth ? "ETH" : "BTC", OrderSide.BUY, 1.0)), prices);
+        }
+        done.set(true);
+        reader.join();
+
+        assertNull(violation.get());
+        assertEquals(2001L, portfolio.getSnapshot().getVersion());
+    }
+}
@@ -4,7 +4,14 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Unit tests for the Portfolio class.
@@ -195,4 +202,381 @@ public class PortfolioTest {
         expectedBalance += 2.0 * 60.0;
         assertEquals(expectedBalance, account.getBalance(), 0.001);
     }
-} 
\ No newline at end of file
+
+    @Test
+    void testLimitOrdersExecuteOnlyWhenCrossed() {
+        LimitOrder buy = portfolio.placeLimitOrder(TEST_COIN, OrderSide.BUY, 1.0, 90.0);
+        portfolio.placeLimitOrder(TEST_COIN, OrderSide.BUY, 1.0, 80.0);
+
+        // Above every buy limit: nothing executes
+        assertTrue(portfolio.onPriceTick(TEST_COIN, 95.0).isEmpty());
+        assertEquals(2, portfolio.getOpenOrders().size());
+
+        // Crossing the 90 limit fills that order at the tick price
+        List<LimitOrder> filled = portfolio.onPriceTick(TEST_COIN, 85.0).getFilledOrders();
+        assertEquals(List.of(buy), filled);
+        assertEquals(85.0, buy.getFillPrice(), 1e-12);
+        assertEquals(1.0, portfolio.getHoldings().get(TEST_COIN), 1e-12);
+        assertEquals(INITIAL_BALANCE - 85.0, account.getBalance(), 1e-9);
+        assertEquals(1, portfolio.getOpenOrders().size());
+
+        // A sell limit fills once the price rises to it
+        portfolio.placeLimitOrder(TEST_COIN, OrderSide.SELL, 0.5, 100.0);
+        assertEquals(1, portfolio.onPriceTicks(Map.of(TEST_COIN, 101.0, "ETH", 1.0)).getFilledOrders().size());
+        assertEquals(0.5, portfolio.getHoldings().get(TEST_COIN), 1e-12);
+    }
+
+    @Test
+    void testCancelAndRejectLimitOrders() {
+        LimitOrder order = portfolio.placeLimitOrder(TEST_COIN, OrderSide.BUY, 1.0, 90.0);
+        assertTrue(portfolio.cancelLimitOrder(order.getId()));
+        assertFalse(portfolio.cancelLimitOrder(order.getId()));
+        assertTrue(portfolio.onPriceTick(TEST_COIN, 50.0).isEmpty());
+
+        // A sell without holdings is dropped when crossed instead of resting forever
+        LimitOrder sell = portfolio.placeLimitOrder(TEST_COIN, OrderSide.SELL, 1.0, 100.0);
+        TickResult result = portfolio.onPriceTick(TEST_COIN, 120.0);
+        assertTrue(result.isEmpty());
+        assertEquals(List.of("Limit order " + sell.getId() + " rejected: Insufficient " + TEST_COIN + " balance"),
+                result.getRejections());
+        assertTrue(portfolio.getOpenOrders().isEmpty());
+
+        assertThrows(IllegalArgumentException.class, () -> portfolio.placeLimitOrder(TEST_COIN, OrderSide.BUY, 1.0, 0.0));
+    }
+
+    @Test
+    void testStopLossAndTakeProfitOnHolding() {
+        portfolio.buyCrypto(TEST_COIN, 2.0, 100.0);
+        ExitTrigger stop = portfolio.addStopLoss(TEST_COIN, PositionType.LONG, 1.0, 90.0);
+        ExitTrigger target = portfolio.addTakeProfit(TEST_COIN, PositionType.LONG, 1.0, 120.0);
+
+        assertTrue(portfolio.onPriceTick(TEST_COIN, 95.0).isEmpty());
+
+        TickResult result = portfolio.onPriceTick(TEST_COIN, 89.0);
+        assertEquals(List.of(stop), result.getTriggeredExits());
+        assertEquals(89.0, stop.getTriggerPrice(), 1e-12);
+        assertEquals(1.0, portfolio.getHoldings().get(TEST_COIN), 1e-12);
+
+        assertEquals(List.of(target), portfolio.onPriceTick(TEST_COIN, 125.0).getTriggeredExits());
+        assertFalse(portfolio.getHoldings().containsKey(TEST_COIN));
+        assertTrue(portfolio.getExitTriggers().isEmpty());
+    }
+
+    @Test
+    void testTrailingStopFollowsHighestPrice() {
+        portfolio.buyCrypto(TEST_COIN, 1.0, 100.0);
+        ExitTrigger trailing = portfolio.addTrailingStop(TEST_COIN, PositionType.LONG, 1.0, 0.10, 100.0);
+        assertEquals(90.0, trailing.getStopPrice(), 1e-9);
+
+        // The stop rises with the price and never falls back
+        assertTrue(portfolio.onPriceTick(TEST_COIN, 150.0).isEmpty());
+        assertEquals(135.0, trailing.getStopPrice(), 1e-9);
+        assertTrue(portfolio.onPriceTick(TEST_COIN, 140.0).isEmpty());
+        assertEquals(135.0, trailing.getStopPrice(), 1e-9);
+
+        assertEquals(List.of(trailing), portfolio.onPriceTick(TEST_COIN, 134.0).getTriggeredExits());
+        assertTrue(portfolio.getHoldings().isEmpty());
+    }
+
+    @Test
+    void testShortStopLossBuysBackOnRisingPrice() {
+        portfolio.openShortPosition("ETH", 2.0, 100.0);
+        portfolio.addStopLoss("ETH", PositionType.SHORT, 2.0, 110.0);
+        ExitTrigger trailing = portfolio.addTrailingStop("ETH", PositionType.SHORT, 2.0, 0.05, 100.0);
+
+        // Falling prices drag the short's trailing stop down
+        assertTrue(portfolio.onPriceTick("ETH", 80.0).isEmpty());
+        assertEquals(84.0, trailing.getStopPrice(), 1e-9);
+
+        assertEquals(List.of(trailing), portfolio.onPriceTick("ETH", 85.0).getTriggeredExits());
+        assertTrue(portfolio.getShortPositions().isEmpty());
+
+        // The stop-loss fires later but finds nothing left to close
+        assertTrue(portfolio.onPriceTick("ETH", 115.0).isEmpty());
+        assertTrue(portfolio.getExitTriggers().isEmpty());
+    }
+
+    @Test
+    void testCancelledTriggersDoNotFire() {
+        portfolio.buyCrypto(TEST_COIN, 1.0, 100.0);
+        ExitTrigger stop = portfolio.addStopLoss(TEST_COIN, PositionType.LONG, 1.0, 90.0);
+        ExitTrigger trailing = portfolio.addTrailingStop(TEST_COIN, PositionType.LONG, 1.0, 0.05, 100.0);
+
+        assertTrue(portfolio.cancelExitTrigger(stop.getId()));
+        assertTrue(portfolio.cancelExitTrigger(trailing.getId()));
+        assertFalse(portfolio.cancelExitTrigger(stop.getId()));
+
+        assertTrue(portfolio.onPriceTick(TEST_COIN, 50.0).isEmpty());
+        assertEquals(1.0, portfolio.getHoldings().get(TEST_COIN), 1e-12);
+    }
+
+    @Test
+    void testExitWithNothingLeftIsReported() {
+        portfolio.buyCrypto(TEST_COIN, 1.0, 100.0);
+        ExitTrigger stop = portfolio.addStopLoss(TEST_COIN, PositionType.LONG, 1.0, 90.0);
+        portfolio.sellCrypto(TEST_COIN, 1.0, 100.0);
+
+        TickResult result = portfolio.onPriceTick(TEST_COIN, 85.0);
+        assertTrue(result.isEmpty());
+        String message = "Exit trigger " + stop.getId() + " dropped: No " + TEST_COIN + " holding left";
+        assertEquals(List.of(message), result.getRejections());
+        assertEquals(List.of(message), result.describe());
+        assertTrue(portfolio.getExitTriggers().isEmpty());
+    }
+
+    @Test
+    void testTinyShortsKeepTheirEntryPrice() {
+        portfolio.openShortPosition("ETH", 0.0001, 2345.67);
+        assertEquals(2345.67, portfolio.getAverageShortEntryPrice("ETH"), 1e-8);
+        assertEquals(2345.67, portfolio.getSnapshot().getAverageShortEntryPrice("ETH"), 1e-8);
+
+        portfolio.openShortPosition("ETH", 0.0003, 2400.01);
+        assertEquals((2345.67 + 3 * 2400.01) / 4, portfolio.getAverageShortEntryPrice("ETH"), 1e-8);
+        portfolio.closeShortPosition("ETH", 0.0001, 2300.0);
+        assertEquals(2400.01, portfolio.getAverageShortEntryPrice("ETH"), 1e-8);
+    }
+
+    @Test
+    void testCloseShortAcrossLots() {
+        portfolio.openShortPosition("ETH", 1.0, 100.0);
+        portfolio.openShortPosition("ETH", 2.0, 120.0);
+
+        // Closes the whole first lot and half of the second, oldest first
+        double pnl = portfolio.closeShortPosition("ETH", 2.0, 110.0);
+        assertEquals(1.0 * (100.0 - 110.0) + 1.0 * (120.0 - 110.0), pnl, 1e-9);
+        assertEquals(1.0, portfolio.getShortPositions().get("ETH"), 1e-12);
+        assertEquals(1, portfolio.getAllPositions().get("ETH").size());
+    }
+
+    @Test
+    void testCloseShortFailsWithoutChanges() {
+        portfolio.openShortPosition("ETH", 1.0, 100.0);
+        double balance = account.getBalance();
+        int transactionCount = account.getTransactions().size();
+
+        assertThrows(IllegalStateException.class, () -> portfolio.closeShortPosition("ETH", 1.5, 90.0));
+        assertEquals(1.0, portfolio.getShortPositions().get("ETH"), 1e-12);
+        assertEquals(balance, account.getBalance(), 1e-12);
+        assertEquals(transactionCount, account.getTransactions().size());
+    }
+
+    @Test
+    void testConcurrentTradesConserveValue() throws Exception {
+        int threads = 8;
+        int tradesPerThread = 500;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < tradesPerThread; i++) {
+                    // Buy and sell at the same price, so every round trip leaves the balance unchanged;
+                    // binary fractions keep the sums exact
+                    portfolio.buyCrypto(TEST_COIN, 0.25, 64.0);
+                    portfolio.sellCrypto(TEST_COIN, 0.25, 64.0);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) future.get(30, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        assertEquals(INITIAL_BALANCE, account.getBalance(), 0.0);
+        assertFalse(portfolio.getHoldings().containsKey(TEST_COIN));
+        assertEquals(1 + 2 * threads * tradesPerThread, account.getTransactions().size());
+    }
+
+    @Test
+    void testReadsDoNotBlockOnTrade() throws Exception {
+        portfolio.buyCrypto(TEST_COIN, 1.0, 100.0);
+        account.getLock().lock();
+        try {
+            // Another thread reads while this one holds the user's lock
+            ExecutorService reader = Executors.newSingleThreadExecutor();
+            Future<Double> holding = reader.submit(() -> portfolio.getHoldings().get(TEST_COIN) + account.getBalance()
+                    + account.getTransactions().size() + portfolio.getOpenOrders().size());
+            assertEquals(1.0 + 900.0 + 2, holding.get(5, TimeUnit.SECONDS), 1e-9);
+            reader.shutdown();
+        } finally {
+            account.getLock().unlock();
+        }
+    }
+
+    @Test
+    void testExecuteBatchLetsSellsFundBuys() {
+        portfolio.buyCrypto("ETH", 5.0, 100.0);
+        int transactionCount = account.getTransactions().size();
+        Map<String, Double> prices = Map.of(TEST_COIN, 200.0, "ETH", 120.0);
+
+        // The buy costs more than the 500 cash, but the later sale covers it
+        Order buy = new Order(TEST_COIN, OrderSide.BUY, 4.0);
+        Order sell = new Order("ETH", OrderSide.SELL, 5.0);
+        List<Transaction> entries = portfolio.executeBatch(List.of(buy, sell), prices);
+
+        assertEquals(2, entries.size());
+        assertEquals(transactionCount + 2, account.getTransactions().size());
+        assertEquals(500.0 - 800.0 + 600.0, account.getBalance(), 1e-9);
+        assertEquals(4.0, portfolio.getHoldings().get(TEST_COIN), 1e-12);
+        assertFalse(portfolio.getHoldings().containsKey("ETH"));
+        assertEquals(200.0, buy.getFillPrice(), 1e-12);
+        assertEquals(TransactionType.CRYPTO_PURCHASE, entries.get(0).getType());
+    }
+
+    @Test
+    void testExecuteBatchIsAllOrNothing() {
+        portfolio.buyCrypto(TEST_COIN, 1.0, 100.0);
+        Map<String, Double> prices = Map.of(TEST_COIN, 100.0, "ETH", 10.0);
+        Order buy = new Order("ETH", OrderSide.BUY, 10.0);
+
+        // The sell exceeds the holding, so the valid buy before it does not execute either
+        assertThrows(IllegalStateException.class, () -> portfolio.executeBatch(
+                List.of(buy, new Order(TEST_COIN, OrderSide.SELL, 2.0)), prices));
+        // The buys together exceed the balance
+        assertThrows(IllegalStateException.class, () -> portfolio.executeBatch(
+                List.of(buy, new Order("ETH", OrderSide.BUY, 90.0)), prices));
+        // No price in the snapshot
+        assertThrows(IllegalArgumentException.class, () -> portfolio.executeBatch(
+                List.of(buy, new Order("DOGE", OrderSide.BUY, 1.0)), prices));
+
+        assertFalse(buy.isFilled());
+        assertEquals(900.0, account.getBalance(), 1e-9);
+        assertEquals(Map.of(TEST_COIN, 1.0), portfolio.getHoldings());
+        assertEquals(2, account.getTransactions().size());
+    }
+
+    @Test
+    void testOrderParsesCoinAndFiatAmounts() {
+        Order coins = Order.parse(" buy btc 0.5 ");
+        assertEquals(TEST_COIN, coins.getSymbol());
+        assertEquals(OrderSide.BUY, coins.getSide());
+        assertFalse(coins.isFiatDenominated());
+
+        Order fiat = Order.parse("SELL ETH $250");
+        assertTrue(fiat.isFiatDenominated());
+        assertEquals(250.0, fiat.getAmount(), 0.0);
+
+        portfolio.buyCrypto("ETH", 5.0, 100.0);
+        portfolio.executeBatch(List.of(fiat), Map.of("ETH", 125.0));
+        assertEquals(2.0, fiat.getFilledAmount(), 1e-12);
+        assertEquals(3.0, portfolio.getHoldings().get("ETH"), 1e-12);
+
+        assertThrows(IllegalArgumentException.class, () -> Order.parse("HOLD BTC 1"));
+        assertThrows(IllegalArgumentException.class, () -> Order.parse("BUY BTC"));
+    }
+
+    @Test
+    void testRepeatedTradesDoNotDrift() {
+        // 0.1 and 0.3 have no exact binary representation, so double sums would drift
+        for (int i = 0; i < 10_000; i++) {
+            portfolio.buyCrypto(TEST_COIN, 0.1, 0.3);
+        }
+        for (int i = 0; i < 10_000; i++) {
+            portfolio.sellCrypto(TEST_COIN, 0.1, 0.3);
+        }
+        assertFalse(portfolio.getHoldings().containsKey(TEST_COIN));
+        assertEquals(Money.fiatUnits(INITIAL_BALANCE), account.getBalanceCents());
+    }
+
+    @Test
+    void testClosingWholeShortLotIsExact() {
+        portfolio.openShortPosition("ETH", 0.1, 100.0);
+        portfolio.openShortPosition("ETH", 0.2, 100.0);
+        // 0.1 + 0.2 != 0.3 in doubles, but the lots add up exactly in base units
+        portfolio.closeShortPosition("ETH", 0.3, 100.0);
+        assertTrue(portfolio.getAllPositions().get("ETH").isEmpty());
+        assertEquals(INITIAL_BALANCE, account.getBalance(), 0.0);
+    }
+
+    @Test
+    void testSalesRelieveLotsByCostBasisMethod() {
+        portfolio.buyCrypto(TEST_COIN, 1.0, 100.0);
+        portfolio.buyCrypto(TEST_COIN, 1.0, 300.0);
+        portfolio.buyCrypto(TEST_COIN, 1.0, 200.0);
+
+        // FIFO sells the 100.0 lot, HIFO then the 300.0 lot, LIFO then the 200.0 lot
+        portfolio.sellCrypto(TEST_COIN, 1.0, 250.0);
+        assertEquals(150.0, portfolio.getPnlLedger().getRealizedPnl(), 0.0);
+        portfolio.setCostBasisMethod(CostBasisMethod.HIFO);
+        portfolio.sellCrypto(TEST_COIN, 0.5, 250.0);
+        assertEquals(125.0, portfolio.getPnlLedger().getRealizedPnl(), 0.0);
+        assertEquals(350.0, portfolio.getCostBasis(TEST_COIN), 0.0);
+        portfolio.setCostBasisMethod(CostBasisMethod.LIFO);
+        portfolio.sellCrypto(TEST_COIN, 1.0, 250.0);
+
+        List<Position> lots = portfolio.getBuyLots(TEST_COIN);
+        assertEquals(1, lots.size());
+        assertEquals(300.0, lots.get(0).getEntryPrice(), 0.0);
+        assertEquals(0.5, lots.get(0).getAmount(), 0.0);
+        assertEquals(300.0, portfolio.getAveragePurchasePrice(TEST_COIN), 0.0);
+        assertEquals(175.0, portfolio.getPnlLedger().getRealizedPnl(TEST_COIN), 0.0);
+        assertEquals(-25.0, portfolio.getUnrealizedPnl(Map.of(TEST_COIN, 250.0)), 0.0);
+    }
+
+    @Test
+    void testAllBuyLotsAreCopiesOfOneState() {
+        portfolio.buyCrypto("ETH", 2.0, 50.0);
+        portfolio.buyCrypto(TEST_COIN, 1.0, 100.0);
+        portfolio.buyCrypto(TEST_COIN, 1.0, 200.0);
+
+        Map<String, List<Position>> lots = portfolio.getAllBuyLots();
+        assertEquals(List.of("BTC", "ETH"), List.copyOf(lots.keySet()));
+        assertEquals(2, lots.get(TEST_COIN).size());
+        assertEquals(100.0, lots.get(TEST_COIN).get(0).getEntryPrice(), 0.0);
+
+        // Later sales leave the copies as they were
+        portfolio.sellCrypto(TEST_COIN, 1.5, 150.0);
+        assertEquals(1.0, lots.get(TEST_COIN).get(0).getAmount(), 0.0);
+        assertEquals(1.0, lots.get(TEST_COIN).get(1).getAmount(), 0.0);
+        assertEquals(0.5, portfolio.getAllBuyLots().get(TEST_COIN).get(0).getAmount(), 0.0);
+    }
+
+    @Test
+    void testTinyPurchasesKeepTheirPrice() {
+        portfolio.buyCrypto("BTC", 0.00001, 61234.56);
+        assertEquals(61234.56, portfolio.getAveragePurchasePrice("BTC"), 1e-8);
+        assertEquals(61234.56, portfolio.getSnapshot().getAveragePurchasePrice("BTC"), 1e-8);
+
+        // The average of lots is weighted by amount, and follows the lots a sale relieves
+        portfolio.buyCrypto("BTC", 0.00003, 61000.01);
+        assertEquals((61234.56 + 3 * 61000.01) / 4, portfolio.getAveragePurchasePrice("BTC"), 1e-8);
+        portfolio.sellCrypto("BTC", 0.00001, 62000.0);
+        assertEquals(61000.01, portfolio.getAveragePurchasePrice("BTC"), 1e-8);
+    }
+
+    @Test
+    void testLedgerMatchesCashFlows() {
+        portfolio.buyCrypto(TEST_COIN, 0.3, 123.45);
+        portfolio.buyCrypto(TEST_COIN, 0.7, 98.76);
+        portfolio.executeBatch(List.of(new Order(TEST_COIN, OrderSide.SELL, 0.5),
+                new Order("ETH", OrderSide.BUY, 1.0)), Map.of(TEST_COIN, 111.11, "ETH", 10.0));
+        portfolio.sellCrypto(TEST_COIN, 0.5, 87.65);
+        portfolio.openShortPosition("ETH", 0.5, 20.0);
+        portfolio.closeShortPosition("ETH", 0.5, 15.0);
+        portfolio.sellCrypto("ETH", 1.0, 10.0);
+
+        // With everything closed, the realized gains are exactly the change in cash
+        PnlLedger ledger = portfolio.getPnlLedger();
+        assertTrue(portfolio.getHoldings().isEmpty());
+        assertEquals(account.getBalanceCents() - Money.fiatUnits(INITIAL_BALANCE), ledger.getRealizedPnlCents());
+        // One gain per relieved lot: two for the batch sell and the last sale, one each for the rest
+        assertEquals(5, ledger.getGains().size());
+        assertEquals(PositionType.SHORT, ledger.getGains().get(3).getSide());
+        assertEquals(2.5, ledger.getRealizedPnl("ETH"), 0.0);
+
+        int year = java.time.Year.now().getValue();
+        assertEquals(Map.of(year, ledger.getRealizedPnl()), ledger.getRealizedPnlByYear());
+        assertEquals(5, ledger.getGains(year).size());
+        assertTrue(ledger.getGains(year - 1).isEmpty());
+    }
+
+    @Test
+    void testShortLossIsCappedAtCollateral() {
+        portfolio.openShortPosition("ETH", 1.0, 100.0);
+        // At 250 the buy-back costs more than twice the entry; the collateral is lost, nothing more
+        assertEquals(-100.0, portfolio.closeShortPosition("ETH", 1.0, 250.0), 0.0);
+        assertEquals(INITIAL_BALANCE - 100.0, account.getBalance(), 0.0);
+        assertEquals(-100.0, portfolio.getPnlLedger().getRealizedPnl(), 0.0);
+    }
+}
@@ -0,0 +1,126 @@
+package com.myapp;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Unit tests for the PortfolioValueCurve and PriceHistory classes.
+ */
+public class PortfolioValueCurveTest {
+
+    private static final long START = 1_700_000_000_000L;
+    private static final long DAY = 24L * 60 * 60 * 1000;
+
+    private static PriceHistory btcHistory(double... prices) {
+        PriceHistory history = new PriceHistory(START, DAY);
+        for (double price : prices) {
+            history.append(Map.of("BTC", price));
+        }
+        return history;
+    }
+
+    /** A transaction in the middle of a day of the test history; day -1 is before it starts. */
+    private static Transaction at(int day, TransactionType type, double amount, String description) {
+        LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(START + day * DAY + DAY / 2),
+                ZoneId.systemDefault());
+        return Transaction.restore("tx-" + day + "-" + description, time, type, Money.fiatUnits(amount), description);
+    }
+
+    /** A trade of {@code coins} BTC in the middle of a day of the test history. */
+    private static Transaction trade(int day, TransactionType type, double amount, double coins, String description) {
+        Transaction tx = at(day, type, amount, description);
+        return Transaction.restore(tx.getTransactionId(), tx.getTimestamp(), type, tx.getAmountCents(), description,
+                "BTC", Money.coinUnits(coins));
+    }
+
+    @Test
+    void testValuesFollowTradesAndPrices() {
+        PortfolioValueCurve curve = new PortfolioValueCurve(btcHistory(100, 100, 120, 150, 80), 2);
+        curve.refresh(List.of(
+                at(-1, TransactionType.DEPOSIT, 1000.0, "Initial deposit"),
+                trade(1, TransactionType.CRYPTO_PURCHASE, 200.0, 2.0, "Purchase of 2.0 BTC"),
+                trade(3, TransactionType.CRYPTO_SALE, 150.0, 1.0, "Sale of 1.0 BTC"),
+                trade(3, TransactionType.CRYPTO_SHORT_OPEN, 150.0, 1.0, "Short position collateral for 1.0 BTC")));
+
+        // Day 4: 800 cash + 1 BTC at 80 + a short worth 2 × 150 - 80
+        assertArrayEquals(new double[]{1000, 1000, 1040, 1100, 1100}, curve.values(0, 5), 1e-9);
+    }
+
+    @Test
+    void testWipedOutShortCloseIsReplayedAsClosed() {
+        Account account = new Account();
+        account.deposit(1000.0, "Initial deposit");
+        Portfolio portfolio = new Portfolio(account);
+        portfolio.openShortPosition("BTC", 1.0, 100.0);
+        portfolio.closeShortPosition("BTC", 1.0, 250.0);
+        assertEquals(TransactionType.CRYPTO_SHORT_CLOSE, account.getTransactions().get(2).getType());
+        assertEquals(0L, account.getTransactions().get(2).getAmountCents());
+
+        // The trades fall in the last step; a closed short no longer moves with the price
+        PortfolioValueCurve curve = new PortfolioValueCurve(btcHistory(100, 250, 400));
+        curve.refresh(account.getTransactions());
+        assertEquals(900.0, curve.valueAt(2), 1e-9);
+    }
+
+    @Test
+    void testTradesAreReadFromTheirRecordedCoinNotTheDescription() {
+        PortfolioValueCurve curve = new PortfolioValueCurve(btcHistory(100, 200));
+        curve.refresh(List.of(
+                at(-1, TransactionType.DEPOSIT, 1000.0, "Initial deposit"),
+                trade(-1, TransactionType.CRYPTO_PURCHASE, 100.0, 1.0, "Bought some coins"),
+                // Without a recorded coin a trade counts as cash only
+                at(-1, TransactionType.CRYPTO_PURCHASE, 100.0, "Purchase of 1.0 BTC")));
+
+        assertArrayEquals(new double[]{900, 1000}, curve.values(0, 2), 1e-9);
+    }
+
+    @Test
+    void testNewTransactionsReplayFromTheCheckpointBeforeThem() {
+        double[] prices = new double[100];
+        for (int i = 0; i < prices.length; i++) prices[i] = 100 + i;
+        PortfolioValueCurve curve = new PortfolioValueCurve(btcHistory(prices), 10);
+        List<Transaction> log = new ArrayList<>();
+        log.add(at(-1, TransactionType.DEPOSIT, 10_000.0, "Initial deposit"));
+        log.add(trade(5, TransactionType.CRYPTO_PURCHASE, 105.0, 1.0, "Purchase of 1.0 BTC"));
+        curve.refresh(log);
+        curve.values(0, 100);
+        assertEquals(100, curve.getReplayedSteps());
+
+        // A later trade replays from step 90; reading earlier steps replays nothing
+        log.add(trade(95, TransactionType.CRYPTO_SALE, 195.0, 1.0, "Sale of 1.0 BTC"));
+        curve.refresh(log);
+        curve.values(0, 100);
+        assertEquals(110, curve.getReplayedSteps());
+        assertEquals(10_000.0 - 105.0 + 194.0, curve.valueAt(94), 1e-9);
+        assertEquals(10_090.0, curve.valueAt(99), 1e-9);
+
+        // A new price step only replays since the last checkpoint
+        curve.appendPrices(Map.of("BTC", 300.0));
+        assertEquals(10_090.0, curve.valueAt(100), 1e-9);
+        assertEquals(121, curve.getReplayedSteps());
+
+        // The incremental curve matches a full replay
+        PortfolioValueCurve full = new PortfolioValueCurve(btcHistory(prices), 10);
+        full.appendPrices(Map.of("BTC", 300.0));
+        full.refresh(log);
+        assertArrayEquals(full.values(0, 101), curve.values(0, 101), 0.0);
+    }
+
+    @Test
+    void testDailyHistoryAlignsSeriesOnTheLastDay() {
+        PriceHistory history = PriceHistory.daily(Map.of("BTC", List.of(1.0, 2.0, 3.0), "ETH", List.of(5.0)),
+                java.time.LocalDate.of(2024, 3, 10));
+        assertEquals(3, history.length());
+        assertTrue(Double.isNaN(history.price("ETH", 1)));
+        assertEquals(5.0, history.price("ETH", 2), 0.0);
+        assertEquals(2, history.stepOf(history.timeAt(2) + 1));
+        assertEquals(0, history.stepOf(history.timeAt(0) - 1));
+    }
+}
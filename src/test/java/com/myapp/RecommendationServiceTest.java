@@ -0,0 +1,228 @@
+package com.myapp;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Unit tests for the RecommendationService class.
+ */
+public class RecommendationServiceTest {
+
+    private final AtomicReference<String> version = new AtomicReference<>("v1");
+    private final AtomicInteger runs = new AtomicInteger();
+    private volatile CountDownLatch releaseRun = new CountDownLatch(0);
+    private RecommendationService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new RecommendationService(version::get, StubAdvisor::new, 60_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.close();
+    }
+
+    @Test
+    void testRecomputesOnlyWhenVersionChanges() {
+        assertNull(service.getLatest());
+
+        assertTrue(service.refresh());
+        assertFalse(service.refresh());
+        assertEquals(1, runs.get());
+
+        version.set("v2");
+        assertTrue(service.refresh());
+        assertEquals(2, runs.get());
+        assertEquals("v2", service.getLatest().getVersion());
+    }
+
+    @Test
+    void testSnapshotHoldsRankingAndTimestamp() {
+        service.refresh();
+        RecommendationSnapshot snapshot = service.getLatest();
+
+        assertEquals("ETH", snapshot.getRecommendedSymbol());
+        assertEquals(2, snapshot.getRanking().size());
+        assertNotNull(snapshot.getComputedAt());
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.getRanking().clear());
+    }
+
+    @Test
+    void testFailedProbeKeepsPreviousSnapshot() {
+        service.refresh();
+        RecommendationSnapshot before = service.getLatest();
+
+        RecommendationService failing = new RecommendationService(() -> {
+            throw new IllegalStateException("offline");
+        }, StubAdvisor::new, 60_000);
+        assertFalse(failing.refresh());
+        assertNull(failing.getLatest());
+        failing.close();
+
+        assertSame(before, service.getLatest());
+    }
+
+    @Test
+    void testFailedRunIsThrownToWaiters() throws Exception {
+        AtomicInteger probes = new AtomicInteger();
+        RecommendationService failing = new RecommendationService(() -> {
+            probes.incrementAndGet();
+            throw new IllegalStateException("offline");
+        }, StubAdvisor::new, 60_000);
+        try {
+            IllegalStateException first = assertThrows(IllegalStateException.class,
+                    () -> failing.awaitLatest(new AtomicBoolean(false), forecast -> { }));
+            assertEquals("offline", first.getCause().getMessage());
+            assertEquals("offline", failing.getLastFailure().getMessage());
+
+            // A later waiter retries right away instead of waiting for the next poll
+            assertThrows(IllegalStateException.class,
+                    () -> failing.awaitLatest(new AtomicBoolean(false), forecast -> { }));
+            assertEquals(2, probes.get());
+        } finally {
+            failing.close();
+        }
+    }
+
+    @Test
+    void testConcurrentWaitersShareOneRetry() throws Exception {
+        AtomicInteger probes = new AtomicInteger();
+        CountDownLatch releaseRetry = new CountDownLatch(1);
+        RecommendationService failing = new RecommendationService(() -> {
+            if (probes.incrementAndGet() > 1) {
+                releaseRetry.await();
+            }
+            throw new IllegalStateException("offline");
+        }, StubAdvisor::new, 60_000);
+        List<Thread> waiters = new ArrayList<>();
+        List<Throwable> errors = new java.util.concurrent.CopyOnWriteArrayList<>();
+        try {
+            assertThrows(IllegalStateException.class,
+                    () -> failing.awaitLatest(new AtomicBoolean(false), forecast -> { }));
+            assertEquals(1, probes.get());
+
+            for (int i = 0; i < 4; i++) {
+                Thread waiter = new Thread(() -> {
+                    try {
+                        failing.awaitLatest(new AtomicBoolean(false), forecast -> { });
+                    } catch (Throwable e) {
+                        errors.add(e);
+                    }
+                });
+                waiters.add(waiter);
+                waiter.start();
+            }
+            // A waiter only sleeps after it has decided whether to queue a retry
+            for (Thread waiter : waiters) {
+                while (waiter.getState() != Thread.State.TIMED_WAITING) {
+                    Thread.onSpinWait();
+                }
+            }
+            releaseRetry.countDown();
+            for (Thread waiter : waiters) {
+                waiter.join(5_000);
+            }
+
+            assertEquals(4, errors.size());
+            for (Throwable error : errors) {
+                assertInstanceOf(IllegalStateException.class, error);
+            }
+            assertEquals(2, probes.get());
+        } finally {
+            releaseRetry.countDown();
+            failing.close();
+        }
+    }
+
+    @Test
+    void testWaitingStopsAtTimeoutAndAfterClose() throws Exception {
+        releaseRun = new CountDownLatch(1);
+        try {
+            assertNull(service.awaitLatest(new AtomicBoolean(false), forecast -> { }, 50));
+            service.close();
+            assertNull(service.awaitLatest(new AtomicBoolean(false), forecast -> { }));
+        } finally {
+            releaseRun.countDown();
+        }
+    }
+
+    @Test
+    void testConcurrentRequestsShareOneComputation() throws Exception {
+        releaseRun = new CountDownLatch(1);
+        ExecutorService users = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<RecommendationSnapshot>> answers = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                answers.add(users.submit(() -> service.awaitLatest(new AtomicBoolean(false), forecast -> { })));
+            }
+            releaseRun.countDown();
+
+            RecommendationSnapshot first = answers.get(0).get(5, TimeUnit.SECONDS);
+            for (Future<RecommendationSnapshot> answer : answers) {
+                assertSame(first, answer.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, runs.get());
+        } finally {
+            users.shutdownNow();
+        }
+    }
+
+    @Test
+    void testWaitingCallerSeesProgressAndCanCancel() throws Exception {
+        releaseRun = new CountDownLatch(1);
+        AtomicBoolean cancel = new AtomicBoolean(false);
+        List<CoinForecast> progress = new java.util.concurrent.CopyOnWriteArrayList<>();
+
+        ExecutorService user = Executors.newSingleThreadExecutor();
+        try {
+            Future<RecommendationSnapshot> answer = user.submit(() -> service.awaitLatest(cancel, progress::add));
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (progress.isEmpty() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            assertTrue(progress.get(0).isPreliminary());
+
+            cancel.set(true);
+            assertNull(answer.get(1, TimeUnit.SECONDS));
+        } finally {
+            releaseRun.countDown();
+            user.shutdownNow();
+        }
+    }
+
+    /**
+     * Advisor that returns a fixed ranking without fetching data, after publishing one fast estimate
+     * and waiting for {@link #releaseRun}.
+     */
+    private class StubAdvisor extends CryptoAdvisor {
+        StubAdvisor() {
+            super(new CryptoService(), 14, false, ModelCache.memoryOnly());
+        }
+
+        @Override
+        public List<CoinForecast> rankCoins(AtomicBoolean cancelRequested, Consumer<CoinForecast> listener)
+                throws Exception {
+            runs.incrementAndGet();
+            listener.accept(new CoinForecast("BTC", 100.0, 101.0, 0.0, 0.02, 0.01, true));
+            releaseRun.await();
+            return CoinForecast.rank(List.of(
+                    new CoinForecast("BTC", 100.0, 101.0, 0.0, 0.02, 0.01),
+                    new CoinForecast("ETH", 100.0, 103.0, 0.01, 0.05, 0.01)));
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.myapp;
+
+import org.apache.commons.math3.stat.regression.OLSMultipleLinearRegression;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+import weka.core.Instance;
+import weka.core.Instances;
+
+/**
+ * Unit tests for the RidgeForecaster class.
+ */
+public class RidgeForecasterTest {
+
+    @Test
+    void testSmallPenaltyMatchesOrdinaryLeastSquares() {
+        Instances data = LiveDataLoader.buildDataset(randomWalk(90, 5L));
+        CoinForecast forecast = new RidgeForecaster(1e-9).forecast(data, "BTC");
+
+        // Reference: commons-math OLS with intercept on the raw features
+        double[][] x = new double[data.numInstances()][4];
+        double[] y = new double[data.numInstances()];
+        for (int i = 0; i < data.numInstances(); i++) {
+            Instance row = data.instance(i);
+            for (int a = 0; a < 4; a++) x[i][a] = row.value(a);
+            y[i] = row.classValue();
+        }
+        OLSMultipleLinearRegression ols = new OLSMultipleLinearRegression();
+        ols.newSampleData(y, x);
+        double[] beta = ols.estimateRegressionParameters();
+        double[] last = x[x.length - 1];
+        double expected = beta[0];
+        for (int a = 0; a < 4; a++) expected += beta[a + 1] * last[a];
+
+        assertEquals(expected, forecast.getPredictedPrice(), 1e-6 * expected);
+    }
+
+    @Test
+    void testForecastIsPreliminaryWithSymmetricBand() {
+        CoinForecast forecast = new RidgeForecaster().forecast(LiveDataLoader.buildDataset(randomWalk(30, 6L)), "ETH");
+
+        assertTrue(forecast.isPreliminary());
+        assertEquals("ETH", forecast.getSymbol());
+        assertTrue(forecast.getSpread() > 0.0);
+        assertEquals(forecast.getGrowth() - forecast.getGrowthLow(), forecast.getGrowthHigh() - forecast.getGrowth(), 1e-12);
+    }
+
+    @Test
+    void testRepeatedForecastsLeaveTheDataAndResultUnchanged() {
+        Instances data = LiveDataLoader.buildDataset(randomWalk(90, 7L));
+        String fingerprint = ModelCache.fingerprint(data);
+        RidgeForecaster forecaster = new RidgeForecaster();
+
+        CoinForecast first = forecaster.forecast(data, "BTC");
+        for (int i = 0; i < 100; i++) {
+            CoinForecast again = forecaster.forecast(data, "BTC");
+            assertEquals(first.getPredictedPrice(), again.getPredictedPrice(), 0.0);
+            assertEquals(first.getSpread(), again.getSpread(), 0.0);
+        }
+        assertEquals(fingerprint, ModelCache.fingerprint(data));
+    }
+
+    @Test
+    void testRejectsNonPositivePenalty() {
+        assertThrows(IllegalArgumentException.class, () -> new RidgeForecaster(0.0));
+    }
+
+    private static double[] randomWalk(int days, long seed) {
+        Random random = new Random(seed);
+        double[] prices = new double[days];
+        double price = 100.0;
+        for (int i = 0; i < days; i++) {
+            price *= Math.exp(random.nextGaussian() * 0.02);
+            prices[i] = price;
+        }
+        return prices;
+    }
+}
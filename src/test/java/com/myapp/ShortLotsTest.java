@@ -0,0 +1,59 @@
+package com.myapp;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+/**
+ * Unit tests for the ShortLots class.
+ */
+public class ShortLotsTest {
+
+    @Test
+    void testTotalsFollowPartialAndFullCloses() {
+        ShortLots lots = new ShortLots();
+        lots.add(Position.ofUnits("ETH", 100L, Money.priceUnits(10.0), PositionType.SHORT, 0L));
+        lots.add(Position.ofUnits("ETH", 300L, Money.priceUnits(20.0), PositionType.SHORT, 1L));
+
+        lots.closeOldest(40L);
+        assertEquals(360L, lots.totals().units);
+        assertEquals(2, lots.totals().lotCount);
+
+        lots.closeOldest(60L);
+        assertEquals(1, lots.totals().lotCount);
+        assertEquals(1L, lots.oldest().getTimestamp());
+
+        // The running totals match a recount of the remaining lots
+        List<Position> remaining = lots.toList();
+        assertEquals(remaining.stream().mapToLong(Position::getUnits).sum(), lots.totals().units);
+        assertEquals(Money.value(300L, Money.priceUnits(20.0)), lots.totals().entryValueCents);
+    }
+
+    @Test
+    void testManyClosesKeepTheTotalsExact() {
+        ShortLots lots = new ShortLots();
+        int lotCount = 50_000;
+        for (int i = 0; i < lotCount; i++) {
+            lots.add(Position.ofUnits("BTC", 1_000_000L, Money.priceUnits(100.0 + (i % 100)), PositionType.SHORT, i));
+        }
+
+        // Each close of one and a half lots consumes one or two lots from the head of the queue
+        for (int i = 0; i < 10_000; i++) {
+            long left = 1_500_000L;
+            while (left > 0) {
+                long units = Math.min(left, lots.oldest().getUnits());
+                lots.closeOldest(units);
+                left -= units;
+            }
+        }
+
+        List<Position> remaining = lots.toList();
+        assertEquals(lotCount - 15_000, lots.totals().lotCount);
+        assertEquals(remaining.size(), lots.totals().lotCount);
+        assertEquals(15_000L, lots.oldest().getTimestamp());
+        assertEquals(remaining.stream().mapToLong(Position::getUnits).sum(), lots.totals().units);
+        assertEquals(remaining.stream().mapToLong(lot -> Money.value(lot.getUnits(), lot.getEntryPriceUnits())).sum(),
+                lots.totals().entryValueCents);
+    }
+}
@@ -0,0 +1,67 @@
+package com.myapp;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+/**
+ * Unit tests for the ThresholdIndex class.
+ */
+public class ThresholdIndexTest {
+
+    @Test
+    void testPollAtOrAboveReturnsCrossedItemsHighestFirst() {
+        ThresholdIndex<String> index = new ThresholdIndex<>();
+        index.add(90.0, "a");
+        index.add(95.0, "b");
+        index.add(90.0, "c");
+        index.add(80.0, "d");
+
+        assertEquals(List.of("b", "a", "c"), index.pollAtOrAbove(90.0));
+        assertEquals(1, index.size());
+        assertTrue(index.pollAtOrAbove(85.0).isEmpty());
+    }
+
+    @Test
+    void testPollAtOrBelowReturnsCrossedItemsLowestFirst() {
+        ThresholdIndex<String> index = new ThresholdIndex<>();
+        index.add(110.0, "a");
+        index.add(105.0, "b");
+        index.add(120.0, "c");
+
+        assertEquals(List.of("b", "a"), index.pollAtOrBelow(110.0));
+        assertEquals(List.of("c"), index.pollAtOrBelow(1_000.0));
+        assertTrue(index.isEmpty());
+    }
+
+    @Test
+    void testRemove() {
+        ThresholdIndex<String> index = new ThresholdIndex<>();
+        index.add(10.0, "a");
+
+        assertFalse(index.remove(11.0, "a"));
+        assertTrue(index.remove(10.0, "a"));
+        assertTrue(index.isEmpty());
+        assertTrue(index.pollAtOrBelow(100.0).isEmpty());
+    }
+
+    @Test
+    void testTickTakesOnlyCrossedItems() {
+        ThresholdIndex<Integer> index = new ThresholdIndex<>();
+        for (int i = 0; i < 200_000; i++) {
+            index.add(1_000.0 + i, i);
+        }
+
+        // None of the resting items is crossed
+        for (int tick = 0; tick < 1_000; tick++) {
+            assertTrue(index.pollAtOrBelow(999.0).isEmpty());
+        }
+        assertEquals(200_000, index.size());
+
+        // A tick through the lowest thresholds takes exactly those, cheapest first
+        assertEquals(List.of(0, 1, 2, 3, 4), index.pollAtOrBelow(1_004.0));
+        assertEquals(199_995, index.size());
+        assertEquals(List.of(199_999), index.pollAtOrAbove(200_999.0));
+    }
+}
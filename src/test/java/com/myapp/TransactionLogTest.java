@@ -0,0 +1,72 @@
+package com.myapp;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Unit tests for the TransactionLog class.
+ */
+public class TransactionLogTest {
+
+    private static Transaction deposit(long cents) {
+        return Transaction.ofCents(TransactionType.DEPOSIT, cents, "Deposit " + cents);
+    }
+
+    @Test
+    void testAppendsAcrossChunksKeepTheirOrder() {
+        TransactionLog log = new TransactionLog();
+        for (int i = 0; i < 10_000; i++) {
+            log.append(deposit(i));
+        }
+        log.appendAll(List.of(deposit(10_000), deposit(10_001)));
+
+        List<Transaction> entries = log.snapshot();
+        assertEquals(10_002, entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            assertEquals(i, entries.get(i).getAmountCents());
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> entries.get(10_002));
+    }
+
+    @Test
+    void testSnapshotIgnoresLaterAppendsAndIsUnmodifiable() {
+        TransactionLog log = new TransactionLog();
+        log.append(deposit(1));
+        List<Transaction> before = log.snapshot();
+        log.append(deposit(2));
+
+        assertEquals(1, before.size());
+        assertEquals(2, log.snapshot().size());
+        assertThrows(UnsupportedOperationException.class, () -> before.add(deposit(3)));
+        assertThrows(UnsupportedOperationException.class, () -> before.remove(0));
+    }
+
+    @Test
+    void testReadersSeeEveryPublishedEntry() throws InterruptedException {
+        TransactionLog log = new TransactionLog();
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<String> violation = new AtomicReference<>();
+
+        Thread reader = new Thread(() -> {
+            while (!done.get() && violation.get() == null) {
+                List<Transaction> entries = log.snapshot();
+                int last = entries.size() - 1;
+                if (last >= 0 && (entries.get(last) == null || entries.get(last).getAmountCents() != last)) {
+                    violation.set("Entry " + last + " is missing");
+                }
+            }
+        });
+        reader.start();
+        for (int i = 0; i < 50_000; i++) {
+            log.append(deposit(i));
+        }
+        done.set(true);
+        reader.join();
+
+        assertNull(violation.get());
+    }
+}
@@ -0,0 +1,124 @@
+package com.myapp;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Unit tests for the WalkForwardBacktester class.
+ * Note: Price series are generated locally, so no API calls are made.
+ */
+public class WalkForwardBacktesterTest {
+
+    private WalkForwardBacktester backtester;
+    private Map<String, List<Double>> prices;
+
+    @BeforeEach
+    void setUp() {
+        backtester = new WalkForwardBacktester(new CryptoService(), new ForkJoinPool(4));
+        prices = randomPrices(new String[]{"BTC", "ETH", "ADA"}, 60, 7L);
+    }
+
+    @Test
+    void testOneResultPerConfigAndWindow() {
+        BacktestConfig online = new BacktestConfig("online", ModelType.ONLINE_LINEAR, 14, 0.0, 1000.0);
+        BacktestConfig forest = new BacktestConfig("forest", ModelType.RANDOM_FOREST, 20, 0.0, 1000.0);
+
+        List<BacktestResult> results = backtester.runAll(prices, List.of(online, forest), 20);
+
+        // online: decisions on days 13..58 -> windows of 20, 20, 6; forest: days 19..58 -> 20, 20
+        assertEquals(5, results.size());
+        assertEquals(13, results.get(0).getStartDay());
+        assertEquals(59, results.get(2).getEndDay());
+        assertSame(forest, results.get(3).getConfig());
+        for (BacktestResult result : results) {
+            assertEquals(result.getEndDay() - result.getStartDay() + 1, result.getEquityCurve().length);
+            assertEquals(1000.0, result.getEquityCurve()[0], 1e-9);
+            assertTrue(result.getHitRate() >= 0.0 && result.getHitRate() <= 1.0);
+            assertTrue(result.getMaxDrawdown() >= 0.0 && result.getMaxDrawdown() < 1.0);
+        }
+    }
+
+    @Test
+    void testParallelRunMatchesSequentialReplay() {
+        BacktestConfig config = new BacktestConfig("online", ModelType.ONLINE_LINEAR, 14, 0.0, 1000.0);
+        List<BacktestResult> parallel = backtester.runAll(prices, List.of(config), 15);
+
+        Map<String, double[]> aligned = WalkForwardBacktester.alignedPrices(prices);
+        for (BacktestResult result : parallel) {
+            BacktestResult sequential = backtester.runWindow(aligned, config, result.getStartDay(), result.getEndDay());
+            assertArrayEquals(sequential.getEquityCurve(), result.getEquityCurve(), 1e-9);
+            assertEquals(sequential.getTrades(), result.getTrades());
+        }
+    }
+
+    @Test
+    void testHoldsCashWhenNoCoinClearsThreshold() {
+        BacktestConfig config = new BacktestConfig("cash", ModelType.ONLINE_LINEAR, 14, 1e9, 1000.0);
+        BacktestResult result = backtester.runAll(prices, List.of(config), 100).get(0);
+
+        assertEquals(0.0, result.getTotalReturn(), 1e-12);
+        assertEquals(0, result.getTrades());
+        assertEquals(0, result.getDaysInvested());
+        assertEquals(0.0, result.getMaxDrawdown(), 1e-12);
+    }
+
+    @Test
+    void testEquityFollowsHeldCoin() {
+        // A single coin that always rises: whenever the strategy is invested, equity grows with it
+        Map<String, List<Double>> rising = new HashMap<>();
+        List<Double> series = new ArrayList<>();
+        for (int t = 0; t < 40; t++) series.add(100.0 * Math.pow(1.01, t));
+        rising.put("BTC", series);
+
+        BacktestConfig config = new BacktestConfig("all-in", ModelType.ONLINE_LINEAR, 14, Double.NEGATIVE_INFINITY, 1000.0);
+        BacktestResult result = backtester.runAll(rising, List.of(config), 100).get(0);
+
+        int days = result.getEndDay() - result.getStartDay();
+        assertEquals(days, result.getDaysInvested());
+        assertEquals(1, result.getTrades());
+        assertEquals(1.0, result.getHitRate(), 1e-12);
+        assertEquals(Math.pow(1.01, days) - 1.0, result.getTotalReturn(), 1e-9);
+        assertEquals(0.0, result.getMaxDrawdown(), 1e-12);
+    }
+
+    @Test
+    void testDrawdownAndReturnFromEquityCurve() {
+        BacktestConfig config = new BacktestConfig("x", ModelType.ONLINE_LINEAR, 14, 0.0, 100.0);
+        BacktestResult result = new BacktestResult(config, 0, 4, new double[]{100, 120, 90, 110, 130}, 3, 4, 2);
+
+        assertEquals(0.30, result.getTotalReturn(), 1e-12);
+        assertEquals(0.25, result.getMaxDrawdown(), 1e-12);
+        assertEquals(0.75, result.getHitRate(), 1e-12);
+    }
+
+    @Test
+    void testRejectsHistoryShorterThanTrainingWindow() {
+        BacktestConfig config = new BacktestConfig("long", ModelType.ONLINE_LINEAR, 60, 0.0, 1000.0);
+        assertThrows(IllegalArgumentException.class, () -> backtester.runAll(prices, List.of(config), 10));
+        assertThrows(IllegalArgumentException.class,
+                () -> new BacktestConfig("short", ModelType.ONLINE_LINEAR, 5, 0.0, 1000.0));
+    }
+
+    private static Map<String, List<Double>> randomPrices(String[] symbols, int days, long seed) {
+        Random random = new Random(seed);
+        Map<String, List<Double>> result = new HashMap<>();
+        for (String symbol : symbols) {
+            List<Double> series = new ArrayList<>();
+            double price = 100.0;
+            for (int t = 0; t < days; t++) {
+                price *= Math.exp(random.nextGaussian() * 0.03);
+                series.add(price);
+            }
+            result.put(symbol, series);
+        }
+        return result;
+    }
+}
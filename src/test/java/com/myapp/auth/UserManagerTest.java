@@ -0,0 +1,59 @@
+package com.myapp.auth;
+
+import com.myapp.Portfolio;
+import com.myapp.Position;
+import com.myapp.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Unit tests for the UserManager class.
+ */
+public class UserManagerTest {
+
+    @TempDir
+    Path dataDir;
+
+    @Test
+    void testOpenShortsSurviveSaveAndLoad() throws Exception {
+        UserManager manager = new UserManager(dataDir);
+        User user = manager.registerUser("alice", "secret");
+        user.getAccount().deposit(10_000.0, "Initial deposit");
+        Portfolio portfolio = user.getPortfolio();
+        portfolio.buyCrypto("ETH", 2.0, 50.0);
+        portfolio.openShortPosition("BTC", 1.0, 100.0);
+        portfolio.openShortPosition("BTC", 0.5, 120.0);
+        portfolio.closeShortPosition("BTC", 0.25, 90.0);
+        double balance = user.getAccount().getBalance();
+        Map<String, List<Position>> shorts = portfolio.getAllShortLots();
+
+        // Registering already saved once; without that file the save makes no backup
+        Files.delete(dataDir.resolve("users.json"));
+        manager.saveUsers();
+
+        User loaded = new UserManager(dataDir).getUser("alice");
+        Portfolio restored = loaded.getPortfolio();
+        assertEquals(balance, loaded.getAccount().getBalance(), 0.0);
+        assertEquals(2.0, restored.getHoldings().get("ETH"), 0.0);
+        assertEquals(1.25, restored.getShortPositions().get("BTC"), 0.0);
+        assertEquals(portfolio.getAverageShortEntryPrice("BTC"), restored.getAverageShortEntryPrice("BTC"), 0.0);
+
+        List<Position> restoredLots = restored.getAllShortLots().get("BTC");
+        assertEquals(shorts.get("BTC").size(), restoredLots.size());
+        for (int i = 0; i < restoredLots.size(); i++) {
+            assertEquals(shorts.get("BTC").get(i).getUnits(), restoredLots.get(i).getUnits());
+            assertEquals(shorts.get("BTC").get(i).getEntryPriceUnits(), restoredLots.get(i).getEntryPriceUnits());
+            assertEquals(shorts.get("BTC").get(i).getTimestamp(), restoredLots.get(i).getTimestamp());
+        }
+
+        // The restored short can still be closed, returning its collateral
+        restored.closeShortPosition("BTC", 1.25, 100.0);
+        assertEquals(balance + 0.75 * 100.0 + 0.5 * 140.0, loaded.getAccount().getBalance(), 1e-9);
+    }
+}